@@ -0,0 +1,56 @@
+package com.parkit.parkingsystem.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line (benchmark regexp, -f, -wi, -i, -p...),
+ * and unless told otherwise adds the gc profiler, for allocation rate per operation, and writes results
+ * as JSON to target/jmh-result.json, to compare builds.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Default machine-readable results file.
+     */
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkRunner() { };
+
+    /**
+     * Run the benchmarks.
+     * @param args JMH command line options
+     * @throws Exception on invalid options or benchmark failure
+     */
+    public static void main(final String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Files.createDirectories(Paths.get(DEFAULT_RESULT_FILE).getParent());
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        Runner runner = new Runner(options.build());
+        if (commandLine.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
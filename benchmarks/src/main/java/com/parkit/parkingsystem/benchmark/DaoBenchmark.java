@@ -0,0 +1,193 @@
+package com.parkit.parkingsystem.benchmark;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TicketDAO and ParkingSpotDAO against an embedded database, without cache, filter, index nor batch writer :
+ * one query per call, through the connection pool and statement cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    /**
+     * Spots per ParkingType.
+     */
+    private static final int SPOTS_PER_TYPE = 64;
+    /**
+     * Vehicles with a closed ticket in the database, a power of two.
+     */
+    private static final int PLATE_COUNT = 1024;
+    /**
+     * Closed tickets per vehicle.
+     */
+    private static final int TICKETS_PER_PLATE = 8;
+
+    /**
+     * Embedded database.
+     */
+    private EmbeddedDataBaseConfig dataBaseConfig;
+    /**
+     * Ticket DAO under benchmark.
+     */
+    private TicketDAO ticketDAO;
+    /**
+     * Parking spot DAO under benchmark.
+     */
+    private ParkingSpotDAO parkingSpotDAO;
+    /**
+     * Registration numbers with ticket history.
+     */
+    private final String[] plates = new String[PLATE_COUNT];
+
+    /**
+     * Per thread position in the plates and spots.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        /**
+         * Next plate or spot.
+         */
+        private int next;
+    }
+
+    /**
+     * Create the database, its spots and ticket history.
+     * @throws Exception on database error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataBaseConfig = new EmbeddedDataBaseConfig("dao-benchmark");
+        try (Connection con = dataBaseConfig.getConnection();
+             Statement statement = con.createStatement();
+             PreparedStatement ps = con.prepareStatement(
+                     "insert into parking(PARKING_NUMBER, AVAILABLE, TYPE) values(?, true, ?)")) {
+            statement.execute("delete from parking"); // Larger lot than the reference one
+            for (int i = 0; i < 2 * SPOTS_PER_TYPE; i++) {
+                ps.setInt(1, i + 1);
+                ps.setString(2, (i < SPOTS_PER_TYPE ? ParkingType.CAR : ParkingType.BIKE).name());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        ticketDAO = new TicketDAO();
+        ticketDAO.setDataBaseConfig(dataBaseConfig);
+        parkingSpotDAO = new ParkingSpotDAO();
+        parkingSpotDAO.setDataBaseConfig(dataBaseConfig);
+        Instant start = Instant.now().minus(TICKETS_PER_PLATE, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MINUTES);
+        for (int i = 0; i < PLATE_COUNT; i++) {
+            plates[i] = "DAO-" + i;
+            for (int day = 0; day < TICKETS_PER_PLATE; day++) {
+                Ticket ticket = newTicket(plates[i], i % SPOTS_PER_TYPE + 1, start.plus(day, ChronoUnit.DAYS));
+                ticket.setOutTime(ticket.getInTime().plus(2, ChronoUnit.HOURS));
+                ticket.setPrice(3.0);
+                ticketDAO.saveTicket(ticket);
+            }
+        }
+    }
+
+    /**
+     * Drop the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataBaseConfig.close();
+    }
+
+    /**
+     * @param cursor thread position
+     * @return lowest free car spot.
+     */
+    @Benchmark
+    public int getNextAvailableSlot(final Cursor cursor) {
+        return parkingSpotDAO.getNextAvailableSlot((cursor.next++ & 1) == 0 ? ParkingType.CAR : ParkingType.BIKE);
+    }
+
+    /**
+     * @param cursor thread position
+     * @return true if the spot row was written.
+     */
+    @Benchmark
+    public boolean updateParking(final Cursor cursor) {
+        int spot = cursor.next++ % SPOTS_PER_TYPE + 1;
+        return parkingSpotDAO.updateParking(new ParkingSpot(spot, ParkingType.CAR, true));
+    }
+
+    /**
+     * @param cursor thread position
+     * @return latest ticket of a vehicle with history.
+     */
+    @Benchmark
+    public Ticket getTicket(final Cursor cursor) {
+        return ticketDAO.getTicket(plates[cursor.next++ & (PLATE_COUNT - 1)]);
+    }
+
+    /**
+     * @param cursor thread position
+     * @return false : a first visit, answered by the database as no filter is loaded.
+     */
+    @Benchmark
+    public boolean isRecurringVehicleFirstVisit(final Cursor cursor) {
+        return ticketDAO.isRecurringVehicle("NEW-" + (cursor.next++ & (PLATE_COUNT - 1)));
+    }
+
+    /**
+     * Save a ticket on entrance then close it on exit.
+     * @param cursor thread position
+     * @return true if both writes succeeded.
+     */
+    @Benchmark
+    public boolean saveThenUpdateTicket(final Cursor cursor) {
+        int vehicle = cursor.next++;
+        Ticket ticket = newTicket(plates[vehicle & (PLATE_COUNT - 1)], vehicle % SPOTS_PER_TYPE + 1,
+                Instant.now().truncatedTo(ChronoUnit.MINUTES));
+        if (!ticketDAO.saveTicket(ticket)) {
+            return false;
+        }
+        ticket.setOutTime(ticket.getInTime().plus(1, ChronoUnit.HOURS));
+        ticket.setPrice(1.5);
+        return ticketDAO.updateTicket(ticket);
+    }
+
+    /**
+     * @param vehicleRegNumber plate
+     * @param spot car spot number
+     * @param inTime entrance time
+     * @return open car ticket.
+     */
+    private static Ticket newTicket(final String vehicleRegNumber, final int spot, final Instant inTime) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(spot, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(vehicleRegNumber);
+        ticket.setInTime(inTime);
+        return ticket;
+    }
+}
@@ -0,0 +1,59 @@
+package com.parkit.parkingsystem.benchmark;
+
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
+import com.parkit.parkingsystem.config.PoolSettings;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded database profile behind its own connection pool, so that DAO benchmarks measure the DAOs,
+ * pool and statement cache without network nor MySQL server, and without sharing the application pool.
+ */
+public class EmbeddedDataBaseConfig extends DataBaseConfig {
+
+    /**
+     * Pool of connections to the embedded database.
+     */
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Create an empty database with the application schema and indexes.
+     * @param name database name, unique per benchmark
+     * @throws Exception if the schema can not be created
+     */
+    public EmbeddedDataBaseConfig(final String name) throws Exception {
+        DataSourceSettings settings = DataSourceSettings.embedded(name);
+        this.connectionPool = new ConnectionPool(() -> {
+            try {
+                return settings.openConnection();
+            } catch (ClassNotFoundException e) {
+                throw new SQLException(e);
+            }
+        }, new PoolSettings());
+        SchemaMigrator schemaMigrator = new SchemaMigrator(this);
+        schemaMigrator.bootstrap();
+        schemaMigrator.migrate();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * Drop the database and close every connection.
+     */
+    public void close() {
+        try (Connection con = connectionPool.getConnection(); Statement statement = con.createStatement()) {
+            statement.execute("shutdown");
+        } catch (SQLException e) {
+            // Already closed
+        }
+        connectionPool.close();
+    }
+}
@@ -0,0 +1,175 @@
+package com.parkit.parkingsystem.benchmark;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.Tariff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare calculation : a single exit priced from a Ticket or from epoch minutes, rounding for display,
+ * and the dashboard bulk quote of a full lot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FareCalculatorBenchmark {
+
+    /**
+     * Minutes since epoch of the quote time.
+     */
+    private static final long NOW_EPOCH_MINUTE = 28_000_000;
+    /**
+     * Longest stay of generated tickets, in minutes : three days.
+     */
+    private static final int MAX_STAY_MINUTES = 3 * 24 * 60;
+    /**
+     * Tickets in the precomputed pool, a power of two.
+     */
+    private static final int TICKET_POOL_SIZE = 1024;
+
+    /**
+     * Tariff priced : built-in flat rates, or the shipped tariff file.
+     */
+    @Param({"standard", "file"})
+    public String tariff;
+    /**
+     * Parked vehicles quoted by the bulk benchmark.
+     */
+    @Param({"10000"})
+    public int lotSize;
+
+    /**
+     * Calculator under benchmark.
+     */
+    private FareCalculatorService fareCalculatorService;
+    /**
+     * Closed tickets of random stays, reused round-robin.
+     */
+    private Ticket[] tickets;
+    /**
+     * Entrance minutes of the parked vehicles.
+     */
+    private long[] inEpochMinutes;
+    /**
+     * ParkingType ordinals of the parked vehicles.
+     */
+    private byte[] parkingTypeOrdinals;
+    /**
+     * Discount flags of the parked vehicles.
+     */
+    private boolean[] discounted;
+    /**
+     * Amounts due, in cents.
+     */
+    private long[] amountsCents;
+    /**
+     * Next ticket of the pool.
+     */
+    private int next;
+
+    /**
+     * Build the tariff, the ticket pool and the lot.
+     * @throws IOException if the tariff file can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        fareCalculatorService = new FareCalculatorService();
+        if ("file".equals(tariff)) {
+            Properties properties = new Properties();
+            try (InputStream in = Tariff.class.getClassLoader().getResourceAsStream("tariffs/standard.properties")) {
+                properties.load(in);
+            }
+            fareCalculatorService.setTariff(Tariff.parse(properties));
+        }
+        Random random = new Random(1);
+        Instant now = Instant.ofEpochSecond(NOW_EPOCH_MINUTE * 60);
+        tickets = new Ticket[TICKET_POOL_SIZE];
+        for (int i = 0; i < tickets.length; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setParkingSpot(new ParkingSpot(i + 1, randomType(random), false));
+            ticket.setInTime(now.minus(random.nextInt(MAX_STAY_MINUTES), ChronoUnit.MINUTES));
+            ticket.setOutTime(now);
+            ticket.setDiscounted(random.nextBoolean());
+            fareCalculatorService.calculateFare(ticket); // Realistic prices for formatFare
+            tickets[i] = ticket;
+        }
+        inEpochMinutes = new long[lotSize];
+        parkingTypeOrdinals = new byte[lotSize];
+        discounted = new boolean[lotSize];
+        amountsCents = new long[lotSize];
+        for (int i = 0; i < lotSize; i++) {
+            inEpochMinutes[i] = NOW_EPOCH_MINUTE - random.nextInt(MAX_STAY_MINUTES);
+            parkingTypeOrdinals[i] = (byte) randomType(random).ordinal();
+            discounted[i] = random.nextBoolean();
+        }
+    }
+
+    /**
+     * @return price of the next ticket, through the Ticket adapter used by ParkingService.
+     */
+    @Benchmark
+    public double calculateFare() {
+        Ticket ticket = tickets[next++ & (TICKET_POOL_SIZE - 1)];
+        fareCalculatorService.calculateFare(ticket);
+        return ticket.getPrice();
+    }
+
+    /**
+     * @return price of the next ticket in cents, from epoch minutes.
+     */
+    @Benchmark
+    public long calculateFareCents() {
+        Ticket ticket = tickets[next++ & (TICKET_POOL_SIZE - 1)];
+        return fareCalculatorService.calculateFareCents(ticket.getInTime().getEpochSecond() / 60, NOW_EPOCH_MINUTE,
+                ticket.getParkingSpot().getParkingType(), ticket.isDiscounted());
+    }
+
+    /**
+     * @return fare rounded for display.
+     */
+    @Benchmark
+    public double formatFare() {
+        return FareCalculatorService.formatFare(tickets[next++ & (TICKET_POOL_SIZE - 1)].getPrice() + 0.005);
+    }
+
+    /**
+     * @return amounts due of the whole lot, one operation per lot.
+     */
+    @Benchmark
+    public long[] quoteLot() {
+        fareCalculatorService.quoteFareCents(NOW_EPOCH_MINUTE, inEpochMinutes, parkingTypeOrdinals, discounted,
+                amountsCents, lotSize);
+        return amountsCents;
+    }
+
+    /**
+     * @param random generator
+     * @return random ParkingType
+     */
+    private static ParkingType randomType(final Random random) {
+        return ParkingType.values()[random.nextInt(ParkingType.values().length)];
+    }
+}
@@ -0,0 +1,135 @@
+package com.parkit.parkingsystem.benchmark;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotRepository;
+import com.parkit.parkingsystem.dao.InMemoryTicketRepository;
+import com.parkit.parkingsystem.dao.ParkingSpotRepository;
+import com.parkit.parkingsystem.dao.TicketRepository;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GateOutput;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.ProgrammaticInputReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Vehicle entrance and exit flows of ParkingService, console output discarded, against mocked storage
+ * (service overhead only) or in-process storage (service and repositories).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParkingServiceBenchmark {
+
+    /**
+     * Distinct vehicles cycled through, a power of two.
+     */
+    private static final int PLATE_COUNT = 1024;
+    /**
+     * Spots of the in-process lot.
+     */
+    private static final String MEMORY_LAYOUT = "CAR:64,BIKE:64";
+
+    /**
+     * Storage behind the service : mock or memory.
+     */
+    @Param({"mock", "memory"})
+    public String storage;
+
+    /**
+     * Service under benchmark.
+     */
+    private ParkingService parkingService;
+    /**
+     * Answers to the service prompts.
+     */
+    private final ProgrammaticInputReader inputReader = new ProgrammaticInputReader();
+    /**
+     * Registration numbers cycled through.
+     */
+    private final String[] plates = new String[PLATE_COUNT];
+    /**
+     * Next plate.
+     */
+    private int next;
+
+    /**
+     * Create fresh storage, so that ticket history does not build up across iterations.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        for (int i = 0; i < plates.length; i++) {
+            plates[i] = "BENCH-" + i;
+        }
+        ParkingSpotRepository parkingSpotRepository;
+        TicketRepository ticketRepository;
+        if ("mock".equals(storage)) {
+            parkingSpotRepository = mock(ParkingSpotRepository.class, withSettings().stubOnly());
+            when(parkingSpotRepository.getNextAvailableSlot(any(ParkingType.class))).thenReturn(1);
+            when(parkingSpotRepository.claimNextAvailableSlot(any(ParkingType.class))).thenReturn(1);
+            when(parkingSpotRepository.updateParking(any(ParkingSpot.class))).thenReturn(true);
+            ticketRepository = mock(TicketRepository.class, withSettings().stubOnly());
+            when(ticketRepository.isRecurringVehicle(anyString())).thenReturn(true);
+            when(ticketRepository.saveTicket(any(Ticket.class))).thenReturn(true);
+            when(ticketRepository.updateTicket(any(Ticket.class))).thenReturn(true);
+            when(ticketRepository.getTicket(anyString())).thenAnswer(invocation -> {
+                Ticket ticket = new Ticket();
+                ticket.setId(1);
+                ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+                ticket.setVehicleRegNumber(invocation.getArgument(0));
+                ticket.setInTime(Instant.now().minus(2, ChronoUnit.HOURS));
+                return ticket;
+            });
+        } else {
+            parkingSpotRepository = InMemoryParkingSpotRepository.fromLayout(MEMORY_LAYOUT);
+            ticketRepository = new InMemoryTicketRepository();
+        }
+        parkingService = new ParkingService(inputReader, parkingSpotRepository, ticketRepository);
+        parkingService.setOutput(GateOutput.NONE);
+    }
+
+    /**
+     * Park then release a vehicle, alternating cars and bikes.
+     */
+    @Benchmark
+    public void entryThenExit() {
+        int vehicle = next++;
+        inputReader.setSelection((vehicle & 1) + 1);
+        inputReader.setVehicleRegNumber(plates[vehicle & (PLATE_COUNT - 1)]);
+        parkingService.processIncomingVehicle();
+        parkingService.processExitingVehicle();
+    }
+
+    /**
+     * @return next available spot, without claiming it.
+     */
+    @Benchmark
+    public ParkingSpot previewNextSpot() {
+        inputReader.setSelection((next++ & 1) + 1);
+        return parkingService.getNextParkingNumberIfAvailable();
+    }
+}
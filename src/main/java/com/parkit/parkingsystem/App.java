@@ -1,14 +1,27 @@
 package com.parkit.parkingsystem;
 
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.service.GateServer;
 import com.parkit.parkingsystem.service.InteractiveShell;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+
 public final class App {
     private static final Logger LOGGER = LogManager.getLogger("App");
+    /**
+     * System property selecting the front end : shell (default) or server.
+     */
+    public static final String MODE_PROPERTY = "parkingsystem.mode";
     private App() { };
-    public static void main(final String[] args) {
+    public static void main(final String[] args) throws IOException {
         LOGGER.info("Initializing Parking System");
-        InteractiveShell.loadInterface();
+        Metrics.start();
+        if ("server".equals(System.getProperty(MODE_PROPERTY, "shell"))) {
+            GateServer.serve();
+        } else {
+            InteractiveShell.loadInterface();
+        }
     }
 }
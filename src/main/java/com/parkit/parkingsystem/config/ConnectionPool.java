@@ -0,0 +1,293 @@
+package com.parkit.parkingsystem.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of physical database connections.
+ * Borrowed connections are returned to the pool by calling close() on them.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * ConnectionPool class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("ConnectionPool");
+    /**
+     * Nanoseconds in one microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /**
+     * Opens physical connections for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * @return new physical connection.
+         * @throws SQLException If not able to connect to database.
+         */
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Source of physical connections.
+     */
+    private final ConnectionFactory connectionFactory;
+    /**
+     * Pool limits and timeouts.
+     */
+    private final PoolSettings settings;
+    /**
+     * One permit per connection that may be borrowed.
+     */
+    private final Semaphore permits;
+    /**
+     * Idle connections, most recently released first.
+     */
+    private final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    /**
+     * Connections currently borrowed.
+     */
+    private final AtomicInteger activeCount = new AtomicInteger();
+    /**
+     * Callers blocked on acquisition.
+     */
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    /**
+     * Successful acquisitions.
+     */
+    private final LongAdder acquireCount = new LongAdder();
+    /**
+     * Cumulated acquisition latency.
+     */
+    private final LongAdder acquireNanos = new LongAdder();
+    /**
+     * Worst acquisition latency.
+     */
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    /**
+     * Acquisitions failed on timeout.
+     */
+    private final LongAdder timeoutCount = new LongAdder();
+    /**
+     * Statement cache hits over every connection.
+     */
+    private final LongAdder statementCacheHits = new LongAdder();
+    /**
+     * Statement cache misses over every connection.
+     */
+    private final LongAdder statementCacheMisses = new LongAdder();
+    /**
+     * Statements evicted from full caches over every connection.
+     */
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    /**
+     * Idle and lifetime eviction task runner.
+     */
+    private final ScheduledExecutorService housekeeper;
+    /**
+     * Whether close() was called.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     * @param connectionFactoryToSet source of physical connections
+     * @param settingsToSet pool limits and timeouts
+     */
+    public ConnectionPool(final ConnectionFactory connectionFactoryToSet, final PoolSettings settingsToSet) {
+        this.connectionFactory = connectionFactoryToSet;
+        this.settings = settingsToSet;
+        this.permits = new Semaphore(settingsToSet.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleAtFixedRate(this::evict, settingsToSet.getHousekeepingPeriodMs(),
+                settingsToSet.getHousekeepingPeriodMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting at most the configured acquisition timeout.
+     * @return Connection to give back with close().
+     * @throws SQLException If no connection could be obtained in time or opened.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            waiterCount.incrementAndGet();
+            try {
+                if (!permits.tryAcquire(settings.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    timeoutCount.increment();
+                    throw new SQLTimeoutException("No connection available after " + settings.getAcquireTimeoutMs() + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            } finally {
+                waiterCount.decrementAndGet();
+            }
+        }
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            activeCount.incrementAndGet();
+            recordAcquire(System.nanoTime() - start);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Give a borrowed connection back. Called by the connection handle on close().
+     * @param pooled connection to give back
+     */
+    void release(final PooledConnection pooled) {
+        activeCount.decrementAndGet();
+        try {
+            long now = System.nanoTime();
+            if (closed || pooled.isBroken() || pooled.isExpired(now, maxLifetimeNanos()) || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                pooled.markReleased(now);
+                idleConnections.offerFirst(pooled);
+                if (closed && idleConnections.remove(pooled)) {
+                    pooled.closePhysical();
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return snapshot of pool counters.
+     */
+    public PoolStats getStats() {
+        long count = acquireCount.sum();
+        long mean = count == 0 ? 0 : acquireNanos.sum() / count / NANOS_PER_MICRO;
+        return new PoolStats(activeCount.get(), idleConnections.size(), waiterCount.get(), settings.getMaxSize(),
+                count, timeoutCount.sum(), mean, maxAcquireNanos.get() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * @return snapshot of prepared statement cache counters over every connection.
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        return new StatementCacheStats(statementCacheHits.sum(), statementCacheMisses.sum(),
+                statementCacheEvictions.sum());
+    }
+
+    /**
+     * Close idle connections and refuse new acquisitions. Borrowed connections are closed on release.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+        LOGGER.info("Connection pool closed");
+    }
+
+    /**
+     * @return a healthy idle connection, or null if none is left.
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            long now = System.nanoTime();
+            if (pooled.isExpired(now, maxLifetimeNanos())
+                    || pooled.idleNanos(now) >= TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMs())
+                    || (pooled.idleNanos(now) >= TimeUnit.MILLISECONDS.toNanos(settings.getValidationBypassMs())
+                        && !isValid(pooled))) {
+                pooled.closePhysical();
+            } else {
+                return pooled;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return newly opened pooled connection.
+     * @throws SQLException If not able to connect to database.
+     */
+    private PooledConnection open() throws SQLException {
+        LOGGER.debug("Create DB connection");
+        StatementCache statementCache = settings.getStatementCacheSize() > 0
+                ? new StatementCache(settings.getStatementCacheSize(),
+                        statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                : null;
+        return new PooledConnection(this, connectionFactory.create(), statementCache);
+    }
+
+    /**
+     * @param pooled connection to check
+     * @return true if the server answered the validation request.
+     */
+    private boolean isValid(final PooledConnection pooled) {
+        try {
+            return pooled.getPhysical().isValid(settings.getValidationTimeoutSec());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close idle connections that outlived idle timeout or maximum lifetime.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMs());
+        for (PooledConnection pooled : idleConnections) {
+            if ((pooled.isExpired(now, maxLifetimeNanos()) || pooled.idleNanos(now) >= idleTimeoutNanos)
+                    && idleConnections.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+    }
+
+    /**
+     * @param nanos latency of a successful acquisition
+     */
+    private void recordAcquire(final long nanos) {
+        acquireCount.increment();
+        acquireNanos.add(nanos);
+        long max = maxAcquireNanos.get();
+        while (nanos > max && !maxAcquireNanos.compareAndSet(max, nanos)) {
+            max = maxAcquireNanos.get();
+        }
+    }
+
+    /**
+     * @return maximum connection lifetime in nanoseconds.
+     */
+    private long maxLifetimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(settings.getMaxLifetimeMs());
+    }
+}
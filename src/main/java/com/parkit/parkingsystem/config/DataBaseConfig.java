@@ -4,7 +4,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.ResultSet;
@@ -17,26 +16,119 @@ public class DataBaseConfig {
     private static final Logger LOGGER = LogManager.getLogger("DataBaseConfig");
 
     /**
-     * Search and connect to MySQL database as root.
-     * @return Connection to dataBase.
+     * Connection pool shared by every DAO, created on first use.
+     */
+    private static volatile ConnectionPool connectionPool;
+    /**
+     * Source of the pool connections, read from system properties on first use unless configured.
+     */
+    private static volatile DataSourceSettings dataSourceSettings;
+    /**
+     * Profiler of the connections handed out, created with the pool, null if disabled.
+     */
+    private static volatile QueryProfiler queryProfiler;
+
+    /**
+     * Borrow a connection to the configured database from the shared pool, profiled unless the profiler is disabled.
+     * @return Connection to dataBase, given back to the pool by closeConnection().
      * @throws ClassNotFoundException if Driver class not Found.
      * @throws SQLException If not able to connect to database.
      */
     public Connection getConnection() throws ClassNotFoundException, SQLException {
-        LOGGER.info("Create DB connection");
-        Class.forName("com.mysql.cj.jdbc.Driver");
-        return DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/prod", "root", "rootroot");
+        Connection con = getConnectionPool().getConnection();
+        QueryProfiler profiler = queryProfiler;
+        return profiler == null ? con : profiler.wrap(con);
+    }
+
+    /**
+     * @return shared connection pool, created on first call.
+     * @throws ClassNotFoundException if Driver class not Found.
+     */
+    public static ConnectionPool getConnectionPool() throws ClassNotFoundException {
+        ConnectionPool pool = connectionPool;
+        if (pool == null) {
+            synchronized (DataBaseConfig.class) {
+                pool = connectionPool;
+                if (pool == null) {
+                    DataSourceSettings settings = getDataSourceSettings();
+                    LOGGER.info("Connecting to {} database {}", settings.getProfile(), settings.getUrl());
+                    Class.forName(settings.getDriverClassName());
+                    ConnectionPool.ConnectionFactory factory = () -> {
+                        try {
+                            return settings.openConnection();
+                        } catch (ClassNotFoundException e) {
+                            throw new SQLException(e);
+                        }
+                    };
+                    pool = new ConnectionPool(factory, new PoolSettings());
+                    queryProfiler = QueryProfiler.fromSystemProperties(factory); // Explains stay out of the pool
+                    connectionPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return profiler of the connections handed out, null if disabled or no connection was asked for yet.
+     */
+    public static QueryProfiler getQueryProfiler() {
+        return queryProfiler;
+    }
+
+    /**
+     * @return source of the shared pool connections : the configured one, else the "prod" database of the profile
+     * selected by system properties, MySQL by default.
+     */
+    public static DataSourceSettings getDataSourceSettings() {
+        DataSourceSettings settings = dataSourceSettings;
+        if (settings == null) {
+            synchronized (DataBaseConfig.class) {
+                if (dataSourceSettings == null) {
+                    dataSourceSettings = DataSourceSettings.fromSystemProperties(DataSourceSettings.MYSQL_PROFILE, "prod");
+                }
+                settings = dataSourceSettings;
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Change the source of the shared pool connections. The current pool, if any, is closed first.
+     * @param settings new source of connections
+     */
+    public static void configure(final DataSourceSettings settings) {
+        synchronized (DataBaseConfig.class) {
+            shutdown();
+            dataSourceSettings = settings;
+        }
+    }
+
+    /**
+     * Close the shared connection pool and its profiler, if they were ever created.
+     */
+    public static void shutdown() {
+        synchronized (DataBaseConfig.class) {
+            if (connectionPool != null) {
+                LOGGER.info("Connection pool state on shutdown: {}", connectionPool.getStats());
+                connectionPool.close();
+                connectionPool = null;
+            }
+            if (queryProfiler != null) {
+                queryProfiler.close();
+                queryProfiler = null;
+            }
+        }
     }
 
     /**
-     * @param con as Connection instance to close.
+     * @param con as Connection instance to give back to the pool.
      */
     public void closeConnection(final Connection con) {
         if (con != null) {
             try {
                 con.close();
-                LOGGER.info("Closing DB connection");
+                LOGGER.trace("Released DB connection");
             } catch (SQLException e) {
                 LOGGER.error("Error while closing connection", e);
             }
@@ -50,7 +142,7 @@ public class DataBaseConfig {
         if (ps != null) {
             try {
                 ps.close();
-                LOGGER.info("Closing Prepared Statement");
+                LOGGER.trace("Closing Prepared Statement");
             } catch (SQLException e) {
                 LOGGER.error("Error while closing prepared statement", e);
             }
@@ -64,7 +156,7 @@ public class DataBaseConfig {
         if (rs != null) {
             try {
                 rs.close();
-                LOGGER.info("Closing Result Set");
+                LOGGER.trace("Closing Result Set");
             } catch (SQLException e) {
                 LOGGER.error("Error while closing result set", e);
             }
@@ -0,0 +1,184 @@
+package com.parkit.parkingsystem.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Where physical connections come from. Two profiles are predefined :
+ * <ul>
+ * <li>mysql : the MySQL server set up by resources/Data.sql,</li>
+ * <li>embedded : an in-process H2 database in MySQL compatibility mode, created empty on first connection,
+ * whose schema is bootstrapped by SchemaMigrator.bootstrap(). Nothing is persisted unless the URL names a file.</li>
+ * </ul>
+ * System properties select the profile and may override its URL and credentials.
+ * The H2 driver of the embedded profile needs Java 11 or later, although the application itself targets Java 8.
+ */
+public class DataSourceSettings {
+
+    /**
+     * System property selecting the profile : "mysql" or "embedded".
+     */
+    public static final String PROFILE_PROPERTY = "parkingsystem.datasource.profile";
+    /**
+     * System property overriding the JDBC URL of the profile.
+     */
+    public static final String URL_PROPERTY = "parkingsystem.datasource.url";
+    /**
+     * System property overriding the user of the profile.
+     */
+    public static final String USER_PROPERTY = "parkingsystem.datasource.user";
+    /**
+     * System property overriding the password of the profile.
+     */
+    public static final String PASSWORD_PROPERTY = "parkingsystem.datasource.password";
+    /**
+     * MySQL server profile name.
+     */
+    public static final String MYSQL_PROFILE = "mysql";
+    /**
+     * Embedded database profile name.
+     */
+    public static final String EMBEDDED_PROFILE = "embedded";
+    /**
+     * Lowest Java version the H2 driver of the embedded profile runs on.
+     */
+    private static final int EMBEDDED_MIN_JAVA_VERSION = 11;
+
+    /**
+     * Profile name.
+     */
+    private final String profile;
+    /**
+     * JDBC driver class, loaded before the first connection.
+     */
+    private final String driverClassName;
+    /**
+     * JDBC URL.
+     */
+    private String url;
+    /**
+     * Database user.
+     */
+    private String user;
+    /**
+     * Database password.
+     */
+    private String password;
+
+    /**
+     * Constructor.
+     * @param profileToSet profile name
+     * @param driverClassNameToSet JDBC driver class
+     * @param urlToSet JDBC URL
+     * @param userToSet database user
+     * @param passwordToSet database password
+     */
+    public DataSourceSettings(final String profileToSet, final String driverClassNameToSet, final String urlToSet,
+                              final String userToSet, final String passwordToSet) {
+        this.profile = profileToSet;
+        this.driverClassName = driverClassNameToSet;
+        this.url = urlToSet;
+        this.user = userToSet;
+        this.password = passwordToSet;
+    }
+
+    /**
+     * @param database schema name, "prod" or "test"
+     * @return settings of the local MySQL server.
+     */
+    public static DataSourceSettings mysql(final String database) {
+        // Server side prepared statements : parsed once per pooled connection thanks to the statement cache.
+        return new DataSourceSettings(MYSQL_PROFILE, "com.mysql.cj.jdbc.Driver",
+                "jdbc:mysql://localhost:3306/" + database + "?useServerPrepStmts=true", "root", "rootroot");
+    }
+
+    /**
+     * @param database in-memory database name, shared by every connection of the process
+     * @return settings of an in-process database, kept until the process ends.
+     */
+    public static DataSourceSettings embedded(final String database) {
+        return new DataSourceSettings(EMBEDDED_PROFILE, "org.h2.Driver",
+                "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    /**
+     * @param defaultProfile profile used if PROFILE_PROPERTY is not set
+     * @param database schema or in-memory database name
+     * @return settings of the profile selected by system properties, with their overrides.
+     * @throws IllegalArgumentException on unknown profile
+     */
+    public static DataSourceSettings fromSystemProperties(final String defaultProfile, final String database) {
+        String profileName = System.getProperty(PROFILE_PROPERTY, defaultProfile).trim();
+        DataSourceSettings settings;
+        if (MYSQL_PROFILE.equalsIgnoreCase(profileName)) {
+            settings = mysql(database);
+        } else if (EMBEDDED_PROFILE.equalsIgnoreCase(profileName)) {
+            settings = embedded(database);
+        } else {
+            throw new IllegalArgumentException("Unknown datasource profile: " + profileName);
+        }
+        settings.url = System.getProperty(URL_PROPERTY, settings.url);
+        settings.user = System.getProperty(USER_PROPERTY, settings.user);
+        settings.password = System.getProperty(PASSWORD_PROPERTY, settings.password);
+        return settings;
+    }
+
+    /**
+     * Open a physical connection, not pooled.
+     * @return new connection
+     * @throws ClassNotFoundException if Driver class not Found.
+     * @throws SQLException If not able to connect to database, or embedded on a Java older than 11.
+     */
+    public Connection openConnection() throws ClassNotFoundException, SQLException {
+        if (isEmbedded() && javaVersion() < EMBEDDED_MIN_JAVA_VERSION) {
+            throw new SQLException("The embedded database needs Java " + EMBEDDED_MIN_JAVA_VERSION
+                    + " or later, running on Java " + System.getProperty("java.specification.version"));
+        }
+        Class.forName(driverClassName);
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * @return major version of the running Java, 8 for "1.8".
+     */
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return EMBEDDED_MIN_JAVA_VERSION; // Unknown, let the driver decide
+        }
+    }
+
+    /**
+     * @return true for an in-process database, whose schema must be bootstrapped.
+     */
+    public boolean isEmbedded() {
+        return EMBEDDED_PROFILE.equals(profile);
+    }
+
+    /**
+     * @return profile name.
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return JDBC driver class.
+     */
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    /**
+     * @return JDBC URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+}
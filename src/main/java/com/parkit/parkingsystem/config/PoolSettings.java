@@ -0,0 +1,182 @@
+package com.parkit.parkingsystem.config;
+
+public class PoolSettings {
+
+    /**
+     * Default maximum number of physical connections.
+     */
+    private static final int DEFAULT_MAX_SIZE = 10;
+    /**
+     * Default time a caller may wait for a connection, in milliseconds.
+     */
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MS = 5_000L;
+    /**
+     * Default time an unused connection stays in the pool, in milliseconds.
+     */
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 10 * 60 * 1000L;
+    /**
+     * Default maximum age of a physical connection, in milliseconds.
+     */
+    private static final long DEFAULT_MAX_LIFETIME_MS = 30 * 60 * 1000L;
+    /**
+     * Default timeout given to Connection.isValid(), in seconds.
+     */
+    private static final int DEFAULT_VALIDATION_TIMEOUT_SEC = 2;
+    /**
+     * Default idle delay under which a connection is handed out without validation, in milliseconds.
+     */
+    private static final long DEFAULT_VALIDATION_BYPASS_MS = 500L;
+    /**
+     * Default period of the idle/lifetime eviction task, in milliseconds.
+     */
+    private static final long DEFAULT_HOUSEKEEPING_PERIOD_MS = 30_000L;
+    /**
+     * Default number of prepared statements kept open per connection.
+     */
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    /**
+     * Maximum number of physical connections (active + idle).
+     */
+    private int maxSize = DEFAULT_MAX_SIZE;
+    /**
+     * Time a caller may wait for a connection before failing.
+     */
+    private long acquireTimeoutMs = DEFAULT_ACQUIRE_TIMEOUT_MS;
+    /**
+     * Time after which an idle connection is closed.
+     */
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    /**
+     * Age after which a connection is retired, even if healthy.
+     */
+    private long maxLifetimeMs = DEFAULT_MAX_LIFETIME_MS;
+    /**
+     * Timeout of the validation round trip.
+     */
+    private int validationTimeoutSec = DEFAULT_VALIDATION_TIMEOUT_SEC;
+    /**
+     * Connections idle for less than this delay are not validated again.
+     */
+    private long validationBypassMs = DEFAULT_VALIDATION_BYPASS_MS;
+    /**
+     * Period of the eviction task.
+     */
+    private long housekeepingPeriodMs = DEFAULT_HOUSEKEEPING_PERIOD_MS;
+    /**
+     * Prepared statements kept open per connection, 0 to disable caching.
+     */
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+    /**
+     * @return maximum number of physical connections.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param maxSizeToSet new maximum number of physical connections.
+     */
+    public void setMaxSize(final int maxSizeToSet) {
+        this.maxSize = maxSizeToSet;
+    }
+
+    /**
+     * @return acquisition timeout in milliseconds.
+     */
+    public long getAcquireTimeoutMs() {
+        return acquireTimeoutMs;
+    }
+
+    /**
+     * @param acquireTimeoutMsToSet new acquisition timeout in milliseconds.
+     */
+    public void setAcquireTimeoutMs(final long acquireTimeoutMsToSet) {
+        this.acquireTimeoutMs = acquireTimeoutMsToSet;
+    }
+
+    /**
+     * @return idle timeout in milliseconds.
+     */
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    /**
+     * @param idleTimeoutMsToSet new idle timeout in milliseconds.
+     */
+    public void setIdleTimeoutMs(final long idleTimeoutMsToSet) {
+        this.idleTimeoutMs = idleTimeoutMsToSet;
+    }
+
+    /**
+     * @return maximum connection lifetime in milliseconds.
+     */
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+
+    /**
+     * @param maxLifetimeMsToSet new maximum connection lifetime in milliseconds.
+     */
+    public void setMaxLifetimeMs(final long maxLifetimeMsToSet) {
+        this.maxLifetimeMs = maxLifetimeMsToSet;
+    }
+
+    /**
+     * @return validation timeout in seconds.
+     */
+    public int getValidationTimeoutSec() {
+        return validationTimeoutSec;
+    }
+
+    /**
+     * @param validationTimeoutSecToSet new validation timeout in seconds.
+     */
+    public void setValidationTimeoutSec(final int validationTimeoutSecToSet) {
+        this.validationTimeoutSec = validationTimeoutSecToSet;
+    }
+
+    /**
+     * @return idle delay under which validation is skipped, in milliseconds.
+     */
+    public long getValidationBypassMs() {
+        return validationBypassMs;
+    }
+
+    /**
+     * @param validationBypassMsToSet new idle delay under which validation is skipped, in milliseconds.
+     */
+    public void setValidationBypassMs(final long validationBypassMsToSet) {
+        this.validationBypassMs = validationBypassMsToSet;
+    }
+
+    /**
+     * @return eviction task period in milliseconds.
+     */
+    public long getHousekeepingPeriodMs() {
+        return housekeepingPeriodMs;
+    }
+
+    /**
+     * @param housekeepingPeriodMsToSet new eviction task period in milliseconds.
+     */
+    public void setHousekeepingPeriodMs(final long housekeepingPeriodMsToSet) {
+        this.housekeepingPeriodMs = housekeepingPeriodMsToSet;
+    }
+
+    /**
+     * @return prepared statements kept open per connection.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @param statementCacheSizeToSet new number of prepared statements kept open per connection, 0 to disable.
+     */
+    public void setStatementCacheSize(final int statementCacheSizeToSet) {
+        this.statementCacheSize = statementCacheSizeToSet;
+    }
+}
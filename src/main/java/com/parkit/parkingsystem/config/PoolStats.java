@@ -0,0 +1,128 @@
+package com.parkit.parkingsystem.config;
+
+public final class PoolStats {
+
+    /**
+     * Connections currently borrowed.
+     */
+    private final int active;
+    /**
+     * Connections waiting in the pool.
+     */
+    private final int idle;
+    /**
+     * Callers currently blocked waiting for a connection.
+     */
+    private final int waiters;
+    /**
+     * Pool upper bound.
+     */
+    private final int maxSize;
+    /**
+     * Successful acquisitions since pool creation.
+     */
+    private final long acquireCount;
+    /**
+     * Acquisitions that failed on timeout since pool creation.
+     */
+    private final long timeoutCount;
+    /**
+     * Mean acquisition latency in microseconds.
+     */
+    private final long meanAcquireMicros;
+    /**
+     * Worst acquisition latency in microseconds.
+     */
+    private final long maxAcquireMicros;
+
+    /**
+     * Constructor.
+     * @param activeToSet connections currently borrowed
+     * @param idleToSet connections waiting in the pool
+     * @param waitersToSet callers blocked on acquisition
+     * @param maxSizeToSet pool upper bound
+     * @param acquireCountToSet successful acquisitions
+     * @param timeoutCountToSet acquisitions failed on timeout
+     * @param meanAcquireMicrosToSet mean acquisition latency in microseconds
+     * @param maxAcquireMicrosToSet worst acquisition latency in microseconds
+     */
+    public PoolStats(final int activeToSet, final int idleToSet, final int waitersToSet, final int maxSizeToSet,
+                     final long acquireCountToSet, final long timeoutCountToSet,
+                     final long meanAcquireMicrosToSet, final long maxAcquireMicrosToSet) {
+        this.active = activeToSet;
+        this.idle = idleToSet;
+        this.waiters = waitersToSet;
+        this.maxSize = maxSizeToSet;
+        this.acquireCount = acquireCountToSet;
+        this.timeoutCount = timeoutCountToSet;
+        this.meanAcquireMicros = meanAcquireMicrosToSet;
+        this.maxAcquireMicros = maxAcquireMicrosToSet;
+    }
+
+    /**
+     * @return connections currently borrowed.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return connections waiting in the pool.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return callers currently blocked waiting for a connection.
+     */
+    public int getWaiters() {
+        return waiters;
+    }
+
+    /**
+     * @return pool upper bound.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return successful acquisitions since pool creation.
+     */
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    /**
+     * @return acquisitions that failed on timeout since pool creation.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return mean acquisition latency in microseconds.
+     */
+    public long getMeanAcquireMicros() {
+        return meanAcquireMicros;
+    }
+
+    /**
+     * @return worst acquisition latency in microseconds.
+     */
+    public long getMaxAcquireMicros() {
+        return maxAcquireMicros;
+    }
+
+    /**
+     * Overriding Object.toString() for log output.
+     * @return one line summary of the pool state.
+     */
+    @Override
+    public String toString() {
+        return "active=" + active + ", idle=" + idle + ", waiters=" + waiters + ", max=" + maxSize
+                + ", acquired=" + acquireCount + ", timeouts=" + timeoutCount
+                + ", meanAcquireUs=" + meanAcquireMicros + ", maxAcquireUs=" + maxAcquireMicros;
+    }
+}
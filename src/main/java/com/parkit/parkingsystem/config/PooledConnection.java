@@ -0,0 +1,195 @@
+package com.parkit.parkingsystem.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Physical connection owned by a ConnectionPool, handed out to callers through short lived proxies.
+ */
+class PooledConnection {
+
+    /**
+     * SQLState class of connection exceptions : the physical link is unusable.
+     */
+    private static final String CONNECTION_EXCEPTION_STATE = "08";
+
+    /**
+     * Owning pool.
+     */
+    private final ConnectionPool pool;
+    /**
+     * Underlying driver connection.
+     */
+    private final Connection physical;
+    /**
+     * Prepared statements kept open for the life of the physical connection, null if disabled.
+     */
+    private final StatementCache statementCache;
+    /**
+     * System.nanoTime() when the physical connection was opened.
+     */
+    private final long createdAtNanos;
+    /**
+     * System.nanoTime() when the connection was last given back to the pool.
+     */
+    private volatile long releasedAtNanos;
+    /**
+     * Whether a connection level error was seen while borrowed.
+     */
+    private volatile boolean broken = false;
+
+    /**
+     * Constructor.
+     * @param poolToSet owning pool
+     * @param physicalToSet underlying driver connection
+     * @param statementCacheToSet statement cache of this connection, null to disable caching
+     */
+    PooledConnection(final ConnectionPool poolToSet, final Connection physicalToSet,
+                     final StatementCache statementCacheToSet) {
+        this.pool = poolToSet;
+        this.physical = physicalToSet;
+        this.statementCache = statementCacheToSet;
+        this.createdAtNanos = System.nanoTime();
+        this.releasedAtNanos = createdAtNanos;
+    }
+
+    /**
+     * Create a new caller handle. Closing the handle gives the connection back to the pool.
+     * @return Connection proxy bound to this physical connection
+     */
+    Connection newHandle() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new Handle());
+    }
+
+    /**
+     * @return underlying driver connection.
+     */
+    Connection getPhysical() {
+        return physical;
+    }
+
+    /**
+     * @param nowNanos current System.nanoTime()
+     * @param maxLifetimeNanos maximum allowed age
+     * @return true if the connection outlived its maximum lifetime.
+     */
+    boolean isExpired(final long nowNanos, final long maxLifetimeNanos) {
+        return nowNanos - createdAtNanos >= maxLifetimeNanos;
+    }
+
+    /**
+     * @param nowNanos current System.nanoTime()
+     * @return nanoseconds spent in the pool since last release.
+     */
+    long idleNanos(final long nowNanos) {
+        return nowNanos - releasedAtNanos;
+    }
+
+    /**
+     * @param nowNanos release time as System.nanoTime()
+     */
+    void markReleased(final long nowNanos) {
+        this.releasedAtNanos = nowNanos;
+    }
+
+    /**
+     * @return true if a connection level error was seen while borrowed.
+     */
+    boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Restore default session state before the connection is reused.
+     * @return true if the connection can go back to the pool.
+     */
+    boolean reset() {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close the underlying driver connection, ignoring errors.
+     */
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // Connection is discarded anyway.
+        }
+    }
+
+    /**
+     * Caller side proxy : forwards everything to the physical connection until closed.
+     */
+    private final class Handle implements InvocationHandler {
+
+        /**
+         * Whether close() was already called on this handle.
+         */
+        private boolean closed = false;
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled(" + physical + ")";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection already returned to pool");
+            }
+            if (statementCache != null && "prepareStatement".equals(name)) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length == 1) {
+                    return statementCache.prepare(physical, (Connection) proxy, (String) args[0], null);
+                }
+                if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                    return statementCache.prepare(physical, (Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith(CONNECTION_EXCEPTION_STATE)) {
+                        broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
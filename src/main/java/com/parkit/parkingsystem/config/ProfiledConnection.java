@@ -0,0 +1,326 @@
+package com.parkit.parkingsystem.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Caller side proxy of a connection profiled by a QueryProfiler : prepared statements record their parameters,
+ * and each execution is handed to the profiler once its rows are read, when its result set or statement is closed
+ * or the statement executed again. Statements other than prepared ones are not profiled.
+ */
+final class ProfiledConnection implements InvocationHandler {
+
+    /**
+     * Profiler receiving the executions.
+     */
+    private final QueryProfiler profiler;
+    /**
+     * Profiled connection.
+     */
+    private final Connection connection;
+
+    /**
+     * Constructor.
+     * @param profilerToSet profiler receiving the executions
+     * @param connectionToSet profiled connection
+     */
+    private ProfiledConnection(final QueryProfiler profilerToSet, final Connection connectionToSet) {
+        this.profiler = profilerToSet;
+        this.connection = connectionToSet;
+    }
+
+    /**
+     * @param profiler profiler receiving the executions
+     * @param connection connection to profile, closed with the returned proxy
+     * @return Connection proxy profiling its prepared statements.
+     */
+    static Connection wrap(final QueryProfiler profiler, final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ProfiledConnection(profiler, connection));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Profiled(" + connection + ")";
+            default:
+                break;
+        }
+        Object result = forward(connection, method, args);
+        if (result instanceof PreparedStatement && "prepareStatement".equals(method.getName())) {
+            String sql = (String) args[0];
+            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    new StatementHandle(sql, (PreparedStatement) result, (Connection) proxy));
+        }
+        return result;
+    }
+
+    /**
+     * @param target object to call
+     * @param method method to call
+     * @param args call arguments
+     * @return call result
+     * @throws Throwable exception thrown by the call
+     */
+    private static Object forward(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Caller side proxy of a prepared statement, keeping its parameters and its execution in progress.
+     */
+    private final class StatementHandle implements InvocationHandler {
+
+        /**
+         * Statement text.
+         */
+        private final String sql;
+        /**
+         * DBConstants field name of the statement.
+         */
+        private final String statementId;
+        /**
+         * Profiled statement.
+         */
+        private final PreparedStatement statement;
+        /**
+         * Caller connection proxy, returned by getConnection().
+         */
+        private final Connection connectionProxy;
+        /**
+         * Bound parameters by position from 0, strings masked.
+         */
+        private Object[] parameters;
+        /**
+         * Bound parameters by position from 0, as bound, kept for EXPLAIN only.
+         */
+        private Object[] boundParameters;
+        /**
+         * Whether an execution is waiting for its rows to be read.
+         */
+        private boolean pending = false;
+        /**
+         * Parameters of the pending execution.
+         */
+        private Object[] pendingParameters;
+        /**
+         * Parameters of the pending execution, as bound.
+         */
+        private Object[] pendingBoundParameters;
+        /**
+         * Start of the pending execution, in milliseconds since epoch.
+         */
+        private long pendingStartMillis;
+        /**
+         * Time spent so far in the pending execution and its reads, in nanoseconds.
+         */
+        private long pendingNanos;
+        /**
+         * Rows read so far by the pending execution.
+         */
+        private long pendingRows;
+
+        /**
+         * Constructor.
+         * @param sqlToSet statement text
+         * @param statementToSet profiled statement
+         * @param connectionProxyToSet caller connection proxy
+         */
+        StatementHandle(final String sqlToSet, final PreparedStatement statementToSet,
+                        final Connection connectionProxyToSet) {
+            this.sql = sqlToSet;
+            this.statementId = StatementTimers.nameOf(sqlToSet);
+            this.statement = statementToSet;
+            this.connectionProxy = connectionProxyToSet;
+            this.parameters = new Object[sqlToSet.length() - sqlToSet.replace("?", "").length()];
+            this.boundParameters = new Object[parameters.length];
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    finish();
+                    return forward(statement, method, args);
+                case "getConnection":
+                    return connectionProxy;
+                case "clearParameters":
+                    Arrays.fill(parameters, null);
+                    Arrays.fill(boundParameters, null);
+                    return forward(statement, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && method.getParameterTypes()[0] == int.class) {
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                return forward(statement, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return forward(statement, method, args);
+            }
+            finish();
+            Object[] executedParameters = parameters.clone();
+            Object[] executedBoundParameters = boundParameters.clone();
+            long startMillis = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = forward(statement, method, args);
+            } catch (Throwable e) {
+                profiler.record(new QuerySample(statementId, sql, executedParameters, -1, startMillis,
+                        System.nanoTime() - start), executedBoundParameters);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                pending = true;
+                pendingParameters = executedParameters;
+                pendingBoundParameters = executedBoundParameters;
+                pendingStartMillis = startMillis;
+                pendingNanos = elapsed;
+                pendingRows = 0;
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                        new ResultSetHandle((ResultSet) result, this, proxy));
+            }
+            profiler.record(new QuerySample(statementId, sql, executedParameters, rowsOf(result), startMillis,
+                    elapsed), executedBoundParameters);
+            return result;
+        }
+
+        /**
+         * @param index parameter position from 1
+         * @param value bound value
+         */
+        private void bind(final int index, final Object value) {
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, index);
+                boundParameters = Arrays.copyOf(boundParameters, index);
+            }
+            if (index >= 1) {
+                parameters[index - 1] = QueryProfiler.mask(value);
+                boundParameters[index - 1] = value;
+            }
+        }
+
+        /**
+         * Hand the pending execution, if any, to the profiler.
+         */
+        private void finish() {
+            if (pending) {
+                pending = false;
+                profiler.record(new QuerySample(statementId, sql, pendingParameters, pendingRows,
+                        pendingStartMillis, pendingNanos), pendingBoundParameters);
+                pendingParameters = null;
+                pendingBoundParameters = null;
+            }
+        }
+
+        /**
+         * @param result result of an execute method other than executeQuery
+         * @return rows changed, summed over a batch, -1 if unknown.
+         */
+        private long rowsOf(final Object result) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(0, count);
+                }
+                return rows;
+            }
+            if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(0, count);
+                }
+                return rows;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Caller side proxy of a result set, adding its reads to the pending execution of its statement.
+     */
+    private static final class ResultSetHandle implements InvocationHandler {
+
+        /**
+         * Profiled result set.
+         */
+        private final ResultSet resultSet;
+        /**
+         * Statement of the result set.
+         */
+        private final StatementHandle statementHandle;
+        /**
+         * Caller statement proxy, returned by getStatement().
+         */
+        private final Object statementProxy;
+
+        /**
+         * Constructor.
+         * @param resultSetToSet profiled result set
+         * @param statementHandleToSet statement of the result set
+         * @param statementProxyToSet caller statement proxy
+         */
+        ResultSetHandle(final ResultSet resultSetToSet, final StatementHandle statementHandleToSet,
+                        final Object statementProxyToSet) {
+            this.resultSet = resultSetToSet;
+            this.statementHandle = statementHandleToSet;
+            this.statementProxy = statementProxyToSet;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long start = System.nanoTime();
+                    Object hasRow = forward(resultSet, method, args);
+                    if (statementHandle.pending) {
+                        statementHandle.pendingNanos += System.nanoTime() - start;
+                        if ((Boolean) hasRow) {
+                            statementHandle.pendingRows++;
+                        }
+                    }
+                    return hasRow;
+                case "close":
+                    try {
+                        return forward(resultSet, method, args);
+                    } finally {
+                        statementHandle.finish();
+                    }
+                case "getStatement":
+                    return statementProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(resultSet, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.parkit.parkingsystem.config;
+
+import com.parkit.parkingsystem.constants.DBConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Run EXPLAIN on every DBConstants query and report full scans of tables that grow without bound.
+ */
+public class QueryPlanVerifier {
+
+    /**
+     * QueryPlanVerifier class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("QueryPlanVerifier");
+    /**
+     * MySQL EXPLAIN access type of a full table scan.
+     */
+    private static final String FULL_SCAN = "ALL";
+    /**
+     * Tables, or aliases, small and bounded enough to be scanned : one row per physical spot.
+     */
+    private static final Set<String> SCANNABLE_TABLES = new HashSet<>(Arrays.asList("parking", "p"));
+
+    /**
+     * Database Configuration object.
+     */
+    private final DataBaseConfig dataBaseConfig;
+
+    /**
+     * Constructor.
+     * @param dataBaseConfigToSet database to explain queries on
+     */
+    public QueryPlanVerifier(final DataBaseConfig dataBaseConfigToSet) {
+        this.dataBaseConfig = dataBaseConfigToSet;
+    }
+
+    /**
+     * Explain every DBConstants query, binding '0' to each parameter.
+     * @return one message per full scan of a growing table, empty if every plan uses an index
+     * @throws Exception if a query can not be explained
+     */
+    public List<String> verify() throws Exception {
+        List<String> violations = new ArrayList<>();
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            for (Field field : DBConstants.class.getFields()) {
+                if (field.getType() == String.class && Modifier.isStatic(field.getModifiers())) {
+                    violations.addAll(explain(con, field.getName(), (String) field.get(null)));
+                }
+            }
+        } finally {
+            dataBaseConfig.closeConnection(con);
+        }
+        return violations;
+    }
+
+    /**
+     * Run verify() and log the outcome. Plan problems are reported, never fatal.
+     */
+    public void verifyAndLog() {
+        try {
+            List<String> violations = verify();
+            if (violations.isEmpty()) {
+                LOGGER.info("Every DBConstants query plan uses an index");
+            }
+            for (String violation : violations) {
+                LOGGER.warn(violation);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Unable to verify query plans", ex);
+        }
+    }
+
+    /**
+     * @param con connection to explain on
+     * @param name DBConstants field name
+     * @param sql query text
+     * @return full scans found in the plan
+     * @throws Exception if the query can not be explained
+     */
+    private List<String> explain(final Connection con, final String name, final String sql) throws Exception {
+        List<String> violations = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement("explain " + sql)) {
+            int parameterCount = sql.length() - sql.replace("?", "").length();
+            for (int i = 1; i <= parameterCount; i++) {
+                ps.setString(i, "0");
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int tableColumn = findColumn(metaData, "table");
+                int typeColumn = findColumn(metaData, "type");
+                if (tableColumn < 0 || typeColumn < 0) {
+                    LOGGER.warn("Unsupported EXPLAIN format, {} not verified", name);
+                    return violations;
+                }
+                while (rs.next()) {
+                    String table = rs.getString(tableColumn);
+                    if (FULL_SCAN.equalsIgnoreCase(rs.getString(typeColumn))
+                            && table != null && !SCANNABLE_TABLES.contains(table.toLowerCase())) {
+                        violations.add(name + " scans table " + table + " without index");
+                    }
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * @param metaData EXPLAIN result metadata
+     * @param label column label to find
+     * @return column index, or -1 if absent
+     * @throws Exception on metadata access error
+     */
+    private static int findColumn(final ResultSetMetaData metaData, final String label) throws Exception {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,455 @@
+package com.parkit.parkingsystem.config;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * JDBC level profiler of the connections handed out by DataBaseConfig. Every prepared statement execution is
+ * recorded with its DBConstants name, its parameters, plates and other strings masked, its rows and its duration :
+ * <ul>
+ * <li>in a fixed size ring of the latest executions, written lock-free : a ticket from an atomic sequence picks
+ * the slot, so recording never waits and the oldest executions are overwritten,</li>
+ * <li>in the top N slowest executions of each statement,</li>
+ * <li>when an execution above the threshold becomes the slowest of its statement, the statement is explained
+ * with the same parameters on a background thread, at most once a minute per statement.</li>
+ * </ul>
+ * The parameters as bound, plates unmasked, are only handed to the explain task : samples and dumps keep the
+ * masked ones. Explains run on connections of their own, outside the pool and its statement cache.
+ * dump() writes everything on demand, such as for GET /queries of the gate server.
+ */
+public class QueryProfiler {
+
+    /**
+     * QueryProfiler class logger, receiving the plans of slow statements.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("QueryProfiler");
+    /**
+     * System property disabling the profiler when "false".
+     */
+    public static final String ENABLED_PROPERTY = "parkingsystem.profiler";
+    /**
+     * System property giving the number of latest executions kept.
+     */
+    public static final String CAPACITY_PROPERTY = "parkingsystem.profiler.capacity";
+    /**
+     * System property giving the number of slowest executions kept per statement.
+     */
+    public static final String TOP_PROPERTY = "parkingsystem.profiler.top";
+    /**
+     * System property giving the duration in milliseconds above which a statement is explained, negative for never.
+     */
+    public static final String EXPLAIN_THRESHOLD_PROPERTY = "parkingsystem.profiler.explainThresholdMs";
+    /**
+     * Default number of latest executions kept.
+     */
+    private static final int DEFAULT_CAPACITY = 1_024;
+    /**
+     * Default number of slowest executions kept per statement.
+     */
+    private static final int DEFAULT_TOP = 5;
+    /**
+     * Default duration above which a statement is explained, in milliseconds.
+     */
+    private static final long DEFAULT_EXPLAIN_THRESHOLD_MS = 100L;
+    /**
+     * Minimum delay between two explains of the same statement, in nanoseconds.
+     */
+    private static final long EXPLAIN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Explains waiting for the background thread, beyond which new ones are rejected.
+     */
+    private static final int EXPLAIN_QUEUE_CAPACITY = 16;
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Latest executions, slot of sequence number n at n &amp; mask.
+     */
+    private final AtomicReferenceArray<QuerySample> ring;
+    /**
+     * Ring size minus one, the ring size being a power of two.
+     */
+    private final int mask;
+    /**
+     * Number of executions recorded, also the sequence number of the next one.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * Number of slowest executions kept per statement.
+     */
+    private final int top;
+    /**
+     * Duration above which a statement is explained, in nanoseconds, negative for never.
+     */
+    private final long explainThresholdNanos;
+    /**
+     * Source of the connections explaining statements, null for no explain.
+     */
+    private final ConnectionPool.ConnectionFactory explainConnections;
+    /**
+     * Background thread explaining statements, null for no explain.
+     */
+    private final ThreadPoolExecutor explainer;
+    /**
+     * Slowest executions by statement name.
+     */
+    private final ConcurrentMap<String, Slowest> slowest = new ConcurrentHashMap<>();
+
+    /**
+     * Slowest executions of one statement, and the plan of the slowest explained.
+     */
+    private final class Slowest {
+
+        /**
+         * Slowest executions, slowest first.
+         */
+        private final QuerySample[] samples = new QuerySample[top];
+        /**
+         * Number of executions kept.
+         */
+        private int size;
+        /**
+         * Duration an execution must exceed to be kept, -1 until the array is full.
+         */
+        private volatile long floorNanos = -1;
+        /**
+         * Execution explained last.
+         */
+        private QuerySample explainedSample;
+        /**
+         * Plan of explainedSample, or the explain failure.
+         */
+        private String plan;
+        /**
+         * System.nanoTime() at the last explain.
+         */
+        private long explainedAtNanos;
+        /**
+         * Whether an explain is waiting or running.
+         */
+        private boolean explaining;
+
+        /**
+         * @param sample execution of the statement
+         * @return true if the execution is the slowest of the statement so far.
+         */
+        boolean offer(final QuerySample sample) {
+            if (sample.getDurationNanos() <= floorNanos) {
+                return false;
+            }
+            synchronized (this) {
+                int position = size;
+                while (position > 0 && samples[position - 1].getDurationNanos() < sample.getDurationNanos()) {
+                    position--;
+                }
+                if (position == top) {
+                    return false;
+                }
+                int moved = Math.min(size, top - 1) - position;
+                System.arraycopy(samples, position, samples, position + 1, moved);
+                samples[position] = sample;
+                size = Math.min(size + 1, top);
+                if (size == top) {
+                    floorNanos = samples[top - 1].getDurationNanos();
+                }
+                return position == 0;
+            }
+        }
+
+        /**
+         * @return slowest executions, slowest first.
+         */
+        synchronized List<QuerySample> samples() {
+            return Arrays.asList(Arrays.copyOf(samples, size));
+        }
+
+        /**
+         * @param nowNanos current System.nanoTime()
+         * @return true if the caller may explain the statement, which it must then end with explained().
+         */
+        synchronized boolean claimExplain(final long nowNanos) {
+            if (explaining || (explainedSample != null && nowNanos - explainedAtNanos < EXPLAIN_INTERVAL_NANOS)) {
+                return false;
+            }
+            explaining = true;
+            explainedAtNanos = nowNanos;
+            return true;
+        }
+
+        /**
+         * @param sample execution explained
+         * @param planToSet plan of the execution, or the explain failure, null if the explain was dropped
+         */
+        synchronized void explained(final QuerySample sample, final String planToSet) {
+            explaining = false;
+            if (planToSet != null) {
+                explainedSample = sample;
+                plan = planToSet;
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param capacity number of latest executions kept, rounded up to a power of two
+     * @param topToSet number of slowest executions kept per statement
+     * @param explainThresholdMs duration above which a statement is explained, negative for never
+     * @param explainConnectionsToSet source of new connections explaining statements, closed after each explain,
+     * null for no explain
+     */
+    public QueryProfiler(final int capacity, final int topToSet, final long explainThresholdMs,
+                         final ConnectionPool.ConnectionFactory explainConnectionsToSet) {
+        if (capacity < 1 || topToSet < 1) {
+            throw new IllegalArgumentException("capacity and top must be at least 1");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.top = topToSet;
+        this.explainThresholdNanos = explainThresholdMs < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(explainThresholdMs);
+        this.explainConnections = explainConnectionsToSet;
+        if (explainConnectionsToSet != null && explainThresholdMs >= 0) {
+            explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), runnable -> {
+                        Thread thread = new Thread(runnable, "query-explain");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            explainer = null;
+        }
+    }
+
+    /**
+     * @param explainConnections source of the connections explaining statements
+     * @return profiler configured by system properties, null if disabled.
+     */
+    static QueryProfiler fromSystemProperties(final ConnectionPool.ConnectionFactory explainConnections) {
+        if ("false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY))) {
+            return null;
+        }
+        return new QueryProfiler(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+                Integer.getInteger(TOP_PROPERTY, DEFAULT_TOP),
+                Long.getLong(EXPLAIN_THRESHOLD_PROPERTY, DEFAULT_EXPLAIN_THRESHOLD_MS), explainConnections);
+    }
+
+    /**
+     * @param connection connection to profile
+     * @return Connection proxy recording the executions of its prepared statements, closing the connection
+     * when closed.
+     */
+    public Connection wrap(final Connection connection) {
+        return ProfiledConnection.wrap(this, connection);
+    }
+
+    /**
+     * Record an execution.
+     * @param sample execution
+     * @param boundParameters parameters of the execution as bound, used to explain it and not kept otherwise
+     */
+    void record(final QuerySample sample, final Object[] boundParameters) {
+        ring.lazySet((int) (sequence.getAndIncrement() & mask), sample);
+        Slowest statement = slowest.get(sample.getStatementId());
+        if (statement == null) {
+            statement = slowest.computeIfAbsent(sample.getStatementId(), id -> new Slowest());
+        }
+        if (statement.offer(sample) && explainer != null && sample.getDurationNanos() >= explainThresholdNanos
+                && statement.claimExplain(System.nanoTime())) {
+            try {
+                Slowest explained = statement;
+                explainer.execute(() -> explain(explained, sample, boundParameters));
+            } catch (RejectedExecutionException e) { // Queue full or profiler closed
+                statement.explained(sample, null);
+            }
+        }
+    }
+
+    /**
+     * @return number of executions recorded.
+     */
+    public long getRecordedCount() {
+        return sequence.get();
+    }
+
+    /**
+     * @return latest executions kept, oldest first. Executions recorded during the call may be missing.
+     */
+    public List<QuerySample> getRecentSamples() {
+        long end = sequence.get();
+        long start = Math.max(0, end - ring.length());
+        List<QuerySample> samples = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            QuerySample sample = ring.get((int) (i & mask));
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * @param statementId DBConstants field name, or "other"
+     * @return slowest executions of the statement, slowest first.
+     */
+    public List<QuerySample> getSlowestSamples(final String statementId) {
+        Slowest statement = slowest.get(statementId);
+        return statement == null ? Collections.emptyList() : statement.samples();
+    }
+
+    /**
+     * @param statementId DBConstants field name, or "other"
+     * @return EXPLAIN output of the slowest execution explained, or the explain failure, null if none.
+     */
+    public String getPlan(final String statementId) {
+        Slowest statement = slowest.get(statementId);
+        if (statement == null) {
+            return null;
+        }
+        synchronized (statement) {
+            return statement.plan;
+        }
+    }
+
+    /**
+     * Write the slowest executions and the plan of each statement, sorted by name.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void dumpSlowest(final Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT, "%d statements recorded%n", getRecordedCount()));
+        for (Map.Entry<String, Slowest> entry : new TreeMap<>(slowest).entrySet()) {
+            out.append(entry.getKey()).append(" slowest\n");
+            for (QuerySample sample : entry.getValue().samples()) {
+                out.append("  ").append(sample.toString()).append('\n');
+            }
+            String plan = getPlan(entry.getKey());
+            if (plan != null) {
+                out.append("  plan\n");
+                for (String line : plan.split("\n")) {
+                    out.append("    ").append(line).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the slowest executions and plans, then every execution kept, oldest first.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void dump(final Appendable out) throws IOException {
+        dumpSlowest(out);
+        out.append("latest\n");
+        for (QuerySample sample : getRecentSamples()) {
+            out.append("  ").append(sample.toString()).append('\n');
+        }
+    }
+
+    /**
+     * Stop explaining statements and log the slowest executions.
+     */
+    public void close() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+        }
+        if (LOGGER.isInfoEnabled() && getRecordedCount() > 0) {
+            StringBuilder text = new StringBuilder("Slowest statements\n");
+            try {
+                dumpSlowest(text);
+                LOGGER.info(text);
+            } catch (IOException e) {
+                LOGGER.error("Unable to dump slowest statements", e);
+            }
+        }
+    }
+
+    /**
+     * @param value bound parameter value
+     * @return value to record : parking types and non string values as is, other strings, such as plates, with
+     * only their first and last characters, other objects by class name.
+     */
+    static Object mask(final Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof Date) {
+            return value;
+        }
+        if (!(value instanceof String)) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = (String) value;
+        for (ParkingType parkingType : ParkingType.values()) {
+            if (parkingType.name().equals(text)) {
+                return text;
+            }
+        }
+        if (text.length() <= 2) {
+            return "**";
+        }
+        char[] masked = new char[text.length()];
+        Arrays.fill(masked, '*');
+        masked[0] = text.charAt(0);
+        masked[masked.length - 1] = text.charAt(text.length() - 1);
+        return new String(masked);
+    }
+
+    /**
+     * Explain an execution with its parameters as bound, and log the plan.
+     * @param statement slowest executions of the statement
+     * @param sample execution to explain
+     * @param parameters parameters of the execution as bound
+     */
+    private void explain(final Slowest statement, final QuerySample sample, final Object[] parameters) {
+        StringBuilder plan = new StringBuilder();
+        try (Connection con = explainConnections.create();
+             PreparedStatement ps = con.prepareStatement("explain " + sample.getSql())) {
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] == null) {
+                    ps.setNull(i + 1, Types.VARCHAR);
+                } else {
+                    ps.setObject(i + 1, parameters[i]);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        plan.append(i > 1 ? " | " : "").append(rs.getString(i));
+                    }
+                    plan.append('\n');
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            plan.setLength(0);
+            plan.append("EXPLAIN failed : ").append(e.getMessage());
+        }
+        statement.explained(sample, plan.toString());
+        LOGGER.warn("Slow statement {} : {}\n{}", sample.getStatementId(),
+                String.format(Locale.ROOT, "%.3f ms", sample.getDurationNanos() / NANOS_PER_MILLI), plan);
+    }
+}
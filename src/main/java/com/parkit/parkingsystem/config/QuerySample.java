@@ -0,0 +1,109 @@
+package com.parkit.parkingsystem.config;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * One execution of a prepared statement, as recorded by the QueryProfiler : statement, masked parameters,
+ * rows and duration.
+ */
+public final class QuerySample {
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * DBConstants field name of the statement, "other" if not declared there.
+     */
+    private final String statementId;
+    /**
+     * Statement text.
+     */
+    private final String sql;
+    /**
+     * Bound parameters by position from 0, strings masked.
+     */
+    private final Object[] parameters;
+    /**
+     * Rows read or changed, -1 if unknown.
+     */
+    private final long rows;
+    /**
+     * Time of the execution start, in milliseconds since epoch.
+     */
+    private final long startMillis;
+    /**
+     * Execution time, including the reading of the rows, in nanoseconds.
+     */
+    private final long durationNanos;
+
+    /**
+     * Constructor.
+     * @param statementIdToSet DBConstants field name of the statement
+     * @param sqlToSet statement text
+     * @param parametersToSet bound parameters by position from 0, strings already masked, not copied
+     * @param rowsToSet rows read or changed, -1 if unknown
+     * @param startMillisToSet time of the execution start, in milliseconds since epoch
+     * @param durationNanosToSet execution time in nanoseconds
+     */
+    QuerySample(final String statementIdToSet, final String sqlToSet, final Object[] parametersToSet,
+                final long rowsToSet, final long startMillisToSet, final long durationNanosToSet) {
+        this.statementId = statementIdToSet;
+        this.sql = sqlToSet;
+        this.parameters = parametersToSet;
+        this.rows = rowsToSet;
+        this.startMillis = startMillisToSet;
+        this.durationNanos = durationNanosToSet;
+    }
+
+    /**
+     * @return DBConstants field name of the statement, "other" if not declared there.
+     */
+    public String getStatementId() {
+        return statementId;
+    }
+
+    /**
+     * @return statement text.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return bound parameters by position from 0, strings masked.
+     */
+    public Object[] getParameters() {
+        return parameters.clone();
+    }
+
+    /**
+     * @return rows read or changed, -1 if unknown.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return time of the execution start.
+     */
+    public Instant getStart() {
+        return Instant.ofEpochMilli(startMillis);
+    }
+
+    /**
+     * @return execution time, including the reading of the rows, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %-28s %10.3f ms %6d rows %s", getStart(), statementId,
+                durationNanos / NANOS_PER_MILLI, rows, Arrays.toString(parameters));
+    }
+}
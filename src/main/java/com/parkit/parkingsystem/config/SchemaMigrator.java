@@ -0,0 +1,262 @@
+package com.parkit.parkingsystem.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Apply versioned schema changes shipped in db/migration on startup.
+ * Applied versions are recorded in schema_version, so running it again only applies new migrations.
+ * DDL commits on its own on MySQL, before the version is recorded : an index created by an interrupted run,
+ * or by hand, is taken as applied instead of failing every later start.
+ */
+public class SchemaMigrator {
+
+    /**
+     * SchemaMigrator class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("SchemaMigrator");
+    /**
+     * Classpath folder of migration scripts.
+     */
+    private static final String MIGRATION_FOLDER = "db/migration/";
+    /**
+     * Ordered list of migration script names.
+     */
+    private static final String MIGRATION_INDEX = MIGRATION_FOLDER + "migrations.txt";
+    /**
+     * Base schema of empty embedded databases.
+     */
+    private static final String BASE_SCHEMA = "db/schema.sql";
+    /**
+     * Script name format : V{version}__{description}.sql
+     */
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    /**
+     * Index creation statement : index name, then table name.
+     */
+    private static final Pattern CREATE_INDEX =
+        Pattern.compile("create\\s+(?:unique\\s+)?index\\s+(\\w+)\\s+on\\s+(\\w+)\\s*\\(.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    /**
+     * Create version table on first run.
+     */
+    private static final String CREATE_SCHEMA_VERSION =
+        "create table if not exists schema_version(VERSION int PRIMARY KEY, DESCRIPTION varchar(200) NOT NULL, APPLIED_AT DATETIME NOT NULL)";
+    /**
+     * Get latest applied version.
+     */
+    private static final String GET_SCHEMA_VERSION =
+        "select max(VERSION) from schema_version";
+    /**
+     * Record an applied version.
+     */
+    private static final String SAVE_SCHEMA_VERSION =
+        "insert into schema_version(VERSION, DESCRIPTION, APPLIED_AT) values(?,?,?)";
+
+    /**
+     * Database Configuration object.
+     */
+    private final DataBaseConfig dataBaseConfig;
+
+    /**
+     * Constructor.
+     * @param dataBaseConfigToSet database to migrate
+     */
+    public SchemaMigrator(final DataBaseConfig dataBaseConfigToSet) {
+        this.dataBaseConfig = dataBaseConfigToSet;
+    }
+
+    /**
+     * Apply every migration more recent than the current schema version, in order.
+     * Migrations are expected to be started from a single process at a time.
+     * @return number of migrations applied
+     * @throws Exception if a migration can not be read or fails : later migrations are not applied
+     */
+    public int migrate() throws Exception {
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            try (Statement statement = con.createStatement()) {
+                statement.execute(CREATE_SCHEMA_VERSION);
+            }
+            int currentVersion = getCurrentVersion(con);
+            int applied = 0;
+            for (String scriptName : readMigrationIndex()) {
+                Matcher matcher = MIGRATION_NAME.matcher(scriptName);
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Invalid migration name: " + scriptName);
+                }
+                int version = Integer.parseInt(matcher.group(1));
+                if (version <= currentVersion) {
+                    continue;
+                }
+                LOGGER.info("Applying migration {}", scriptName);
+                try (Statement statement = con.createStatement()) {
+                    for (String sql : readStatements(MIGRATION_FOLDER + scriptName)) {
+                        if (isExistingIndex(con, sql)) {
+                            LOGGER.warn("Index of migration {} already exists, statement skipped : {}", scriptName, sql);
+                            continue;
+                        }
+                        statement.execute(sql);
+                    }
+                }
+                try (PreparedStatement ps = con.prepareStatement(SAVE_SCHEMA_VERSION)) {
+                    ps.setInt(1, version);
+                    ps.setString(2, matcher.group(2));
+                    ps.setTimestamp(3, Timestamp.from(Instant.now()));
+                    ps.executeUpdate();
+                }
+                currentVersion = version;
+                applied++;
+            }
+            LOGGER.info("Schema at version {}, {} migration(s) applied", currentVersion, applied);
+            return applied;
+        } finally {
+            dataBaseConfig.closeConnection(con);
+        }
+    }
+
+    /**
+     * Create the tables and reference spots of resources/Data.sql if the database has no parking table,
+     * as embedded databases start empty. Migrations are applied afterwards by migrate().
+     * @return true if the base schema was created
+     * @throws Exception if the script can not be read or fails
+     */
+    public boolean bootstrap() throws Exception {
+        Connection con = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            try (ResultSet tables = con.getMetaData().getTables(con.getCatalog(), null, "%", new String[] {"TABLE"})) {
+                while (tables.next()) {
+                    if ("parking".equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                        return false;
+                    }
+                }
+            }
+            LOGGER.info("Creating base schema");
+            try (Statement statement = con.createStatement()) {
+                for (String sql : readStatements(BASE_SCHEMA)) {
+                    statement.execute(sql);
+                }
+            }
+            return true;
+        } finally {
+            dataBaseConfig.closeConnection(con);
+        }
+    }
+
+    /**
+     * @param con connection to read from
+     * @return latest applied version, 0 if none
+     * @throws Exception on database error
+     */
+    private int getCurrentVersion(final Connection con) throws Exception {
+        try (PreparedStatement ps = con.prepareStatement(GET_SCHEMA_VERSION);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * @param con connection to read from
+     * @param sql migration statement
+     * @return true if the statement creates an index that already exists on its table
+     * @throws SQLException on database error
+     */
+    private static boolean isExistingIndex(final Connection con, final String sql) throws SQLException {
+        Matcher matcher = CREATE_INDEX.matcher(sql);
+        if (!matcher.matches()) {
+            return false;
+        }
+        String indexName = matcher.group(1);
+        String tableName = matcher.group(2);
+        DatabaseMetaData metaData = con.getMetaData();
+        // Stored table name case depends on the database : try it as written, then folded
+        String[] tableNames = {tableName, tableName.toLowerCase(Locale.ROOT), tableName.toUpperCase(Locale.ROOT)};
+        for (String table : tableNames) {
+            try (ResultSet indexes = metaData.getIndexInfo(con.getCatalog(), null, table, false, true)) {
+                while (indexes.next()) {
+                    if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return migration script names, in application order.
+     * @throws IOException if the index can not be read
+     */
+    private List<String> readMigrationIndex() throws IOException {
+        List<String> scriptNames = new ArrayList<>();
+        for (String line : readResource(MIGRATION_INDEX)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                scriptNames.add(trimmed);
+            }
+        }
+        return scriptNames;
+    }
+
+    /**
+     * @param script classpath script to read
+     * @return SQL statements of the script, comments removed, split on ';'
+     * @throws IOException if the script can not be read
+     */
+    private List<String> readStatements(final String script) throws IOException {
+        StringBuilder statementText = new StringBuilder();
+        for (String line : readResource(script)) {
+            if (!line.trim().startsWith("--")) {
+                statementText.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String sql : statementText.toString().split(";")) {
+            if (!sql.trim().isEmpty()) {
+                statements.add(sql.trim());
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @param resource classpath resource to read
+     * @return lines of the resource
+     * @throws IOException if the resource is missing or unreadable
+     */
+    private static List<String> readResource(final String resource) throws IOException {
+        InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing migration resource: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
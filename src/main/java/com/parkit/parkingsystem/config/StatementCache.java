@@ -0,0 +1,208 @@
+package com.parkit.parkingsystem.config;
+
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements bound to one physical connection.
+ * A statement is removed from the cache while checked out and comes back when the caller closes it,
+ * so it is only ever used by the thread holding the connection. Executions are timed per statement by StatementTimers.
+ */
+class StatementCache {
+
+    /**
+     * Cache lookups that found a prepared statement, shared by every connection of a pool.
+     */
+    private final LongAdder hits;
+    /**
+     * Cache lookups that had to prepare the statement, shared by every connection of a pool.
+     */
+    private final LongAdder misses;
+    /**
+     * Statements closed because the cache was full, shared by every connection of a pool.
+     */
+    private final LongAdder evictions;
+    /**
+     * Maximum number of idle statements kept.
+     */
+    private final int maxSize;
+    /**
+     * Idle statements by key, least recently used first.
+     */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * Constructor.
+     * @param maxSizeToSet maximum number of idle statements kept
+     * @param hitsToSet hit counter
+     * @param missesToSet miss counter
+     * @param evictionsToSet eviction counter
+     */
+    StatementCache(final int maxSizeToSet, final LongAdder hitsToSet, final LongAdder missesToSet,
+                   final LongAdder evictionsToSet) {
+        this.maxSize = maxSizeToSet;
+        this.hits = hitsToSet;
+        this.misses = missesToSet;
+        this.evictions = evictionsToSet;
+        this.statements = new LinkedHashMap<>(maxSizeToSet * 2, 0.75f, true);
+    }
+
+    /**
+     * Get a cached statement or prepare it on the physical connection.
+     * @param physical connection to prepare on, on cache miss
+     * @param handle caller connection proxy, returned by Statement.getConnection()
+     * @param sql statement text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS, Statement.NO_GENERATED_KEYS or null if not given
+     * @return PreparedStatement proxy that comes back to the cache when closed.
+     * @throws SQLException If the statement can not be prepared.
+     */
+    PreparedStatement prepare(final Connection physical, final Connection handle, final String sql,
+                              final Integer autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + ":" + sql;
+        PreparedStatement statement = statements.remove(key);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = autoGeneratedKeys == null
+                    ? physical.prepareStatement(sql) : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new Handle(key, statement, handle, StatementTimers.of(sql)));
+    }
+
+    /**
+     * Close every cached statement.
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    /**
+     * Give a statement back after the caller closed it.
+     * @param key cache key
+     * @param statement physical statement
+     */
+    private void giveBack(final String key, final PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+            statement.clearWarnings();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+        if (statements.size() > maxSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @param statement statement to close, errors ignored
+     */
+    private static void closeQuietly(final PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is discarded anyway.
+        }
+    }
+
+    /**
+     * Caller side proxy : close() gives the statement back to the cache instead of closing it.
+     */
+    private final class Handle implements InvocationHandler {
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+        /**
+         * Physical statement.
+         */
+        private final PreparedStatement statement;
+        /**
+         * Caller connection proxy.
+         */
+        private final Connection connection;
+        /**
+         * Execution timer of the statement.
+         */
+        private final LatencyHistogram timer;
+        /**
+         * Whether close() was already called on this handle.
+         */
+        private boolean closed = false;
+
+        /**
+         * Constructor.
+         * @param keyToSet cache key
+         * @param statementToSet physical statement
+         * @param connectionToSet caller connection proxy
+         * @param timerToSet execution timer of the statement
+         */
+        Handle(final String keyToSet, final PreparedStatement statementToSet, final Connection connectionToSet,
+               final LatencyHistogram timerToSet) {
+            this.key = keyToSet;
+            this.statement = statementToSet;
+            this.connection = connectionToSet;
+            this.timer = timerToSet;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(key, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement already closed");
+            }
+            boolean execution = method.getName().startsWith("execute");
+            long start = execution ? System.nanoTime() : 0;
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (execution) {
+                    timer.recordSince(start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.parkit.parkingsystem.config;
+
+public final class StatementCacheStats {
+
+    /**
+     * Lookups served by an already prepared statement.
+     */
+    private final long hits;
+    /**
+     * Lookups that had to prepare the statement.
+     */
+    private final long misses;
+    /**
+     * Statements closed because a cache was full.
+     */
+    private final long evictions;
+
+    /**
+     * Constructor.
+     * @param hitsToSet lookups served by an already prepared statement
+     * @param missesToSet lookups that had to prepare the statement
+     * @param evictionsToSet statements closed because a cache was full
+     */
+    public StatementCacheStats(final long hitsToSet, final long missesToSet, final long evictionsToSet) {
+        this.hits = hitsToSet;
+        this.misses = missesToSet;
+        this.evictions = evictionsToSet;
+    }
+
+    /**
+     * @return lookups served by an already prepared statement.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return lookups that had to prepare the statement.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return statements closed because a cache was full.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return share of lookups served from cache, between 0 and 1.
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Overriding Object.toString() for log output.
+     * @return one line summary of the cache counters.
+     */
+    @Override
+    public String toString() {
+        return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", hitRatio=" + String.format("%.3f", getHitRatio());
+    }
+}
@@ -0,0 +1,58 @@
+package com.parkit.parkingsystem.config;
+
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Execution timers of SQL statements, named after their DBConstants field, such as "sql.GET_TICKET".
+ * Statements not declared in DBConstants share "sql.other".
+ */
+final class StatementTimers {
+
+    /**
+     * DBConstants field name by statement text.
+     */
+    private static final Map<String, String> NAMES = new HashMap<>();
+    /**
+     * Timer by statement text, for statements already executed.
+     */
+    private static final ConcurrentMap<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+
+    static {
+        for (Field field : DBConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    NAMES.put((String) field.get(null), field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e); // Public constant
+                }
+            }
+        }
+    }
+
+    private StatementTimers() { };
+
+    /**
+     * @param sql statement text
+     * @return execution timer of the statement.
+     */
+    static LatencyHistogram of(final String sql) {
+        return TIMERS.computeIfAbsent(sql, text -> Metrics.timer("sql." + nameOf(text)));
+    }
+
+    /**
+     * @param sql statement text
+     * @return DBConstants field name of the statement, "other" if not declared there.
+     */
+    static String nameOf(final String sql) {
+        return NAMES.getOrDefault(sql, "other");
+    }
+}
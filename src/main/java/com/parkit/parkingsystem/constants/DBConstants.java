@@ -7,6 +7,21 @@ public final class DBConstants {
      */
     public static final String GET_NEXT_PARKING_SPOT =
         "select min(PARKING_NUMBER) from parking where AVAILABLE = true and TYPE = ?";
+    /**
+     * Load every parkingSpot on startup. A spot holding a ticket without outTime is occupied whatever its flag says.
+     */
+    public static final String GET_PARKING_SPOTS =
+        "select p.PARKING_NUMBER, p.AVAILABLE and not exists(select 1 from ticket t where t.PARKING_NUMBER = p.PARKING_NUMBER and t.OUT_TIME is null), p.TYPE from parking p";
+    /**
+     * Lock lowest available parkingNumber of a type on vehicle entrance. Rows locked by concurrent gates are skipped.
+     */
+    public static final String CLAIM_NEXT_PARKING_SPOT =
+        "select PARKING_NUMBER from parking where AVAILABLE = true and TYPE = ? order by PARKING_NUMBER limit 1 for update skip locked";
+    /**
+     * Set a locked parkingSpot not available, only if still available.
+     */
+    public static final String RESERVE_PARKING_SPOT =
+        "update parking set AVAILABLE = false where PARKING_NUMBER = ? and AVAILABLE = true";
     /**
      * Set parkingSpot available or not available respectively on vehicle out or in.
      */
@@ -27,6 +42,21 @@ public final class DBConstants {
      */
     public static final String GET_TICKET =
         "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME desc limit 1";
+    /**
+     * Get the highest ticket ID, to check that a saved known plates filter is not ahead of the Ticket table.
+     */
+    public static final String GET_HIGHEST_TICKET_ID =
+        "select max(ID) from ticket";
+    /**
+     * Get plates of tickets created after a given ticket ID, to build or catch up the known plates filter.
+     */
+    public static final String GET_VEHICLE_REG_NUMBERS_SINCE =
+        "select ID, VEHICLE_REG_NUMBER from ticket where ID > ? order by ID";
+    /**
+     * Stream tickets closed in a period, to re-price them under another tariff.
+     */
+    public static final String GET_CLOSED_TICKETS =
+        "select t.IN_TIME, t.OUT_TIME, t.DISCOUNT, t.PRICE, p.TYPE from ticket t, parking p where p.PARKING_NUMBER = t.PARKING_NUMBER and t.OUT_TIME >= ? and t.OUT_TIME < ?";
 
     private DBConstants() { };
 }
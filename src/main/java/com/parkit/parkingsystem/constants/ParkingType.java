@@ -4,19 +4,32 @@ public enum ParkingType {
     /**
      * Cars, vans.
      */
-    CAR(1.5),
+    CAR(150),
     /**
     Bikes, scooters.
      */
-    BIKE(1.0);
+    BIKE(100);
 
-    private final double fare;
+    /**
+     * Hourly rate, in cents.
+     */
+    private final long fareCents;
 
-    ParkingType(double fareToSet) {
-        fare = fareToSet;
+    ParkingType(long fareCentsToSet) {
+        fareCents = fareCentsToSet;
     }
 
+    /**
+     * @return hourly rate.
+     */
     public double getFare() {
-        return fare;
+        return fareCents / 100.0;
+    }
+
+    /**
+     * @return hourly rate, in cents.
+     */
+    public long getFareCents() {
+        return fareCents;
     }
 }
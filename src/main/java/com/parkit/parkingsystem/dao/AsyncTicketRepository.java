@@ -0,0 +1,65 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous view of a TicketRepository : each call runs on the database executor and completes a future,
+ * so that a gate can issue independent storage calls together instead of one after another.
+ * Results and failure values are those of the wrapped repository.
+ */
+public class AsyncTicketRepository {
+
+    /**
+     * Wrapped storage.
+     */
+    private final TicketRepository ticketRepository;
+    /**
+     * Runs the storage calls, bounding their concurrency.
+     */
+    private final Executor executor;
+
+    /**
+     * Constructor.
+     * @param ticketRepositoryToSet wrapped storage
+     * @param executorToSet runs the storage calls, bounding their concurrency
+     */
+    public AsyncTicketRepository(final TicketRepository ticketRepositoryToSet, final Executor executorToSet) {
+        this.ticketRepository = ticketRepositoryToSet;
+        this.executor = executorToSet;
+    }
+
+    /**
+     * @param vehicleRegNumber vehicle to check
+     * @return completed with true if a previous ticket exists
+     */
+    public CompletableFuture<Boolean> isRecurringVehicle(final String vehicleRegNumber) {
+        return CompletableFuture.supplyAsync(() -> ticketRepository.isRecurringVehicle(vehicleRegNumber), executor);
+    }
+
+    /**
+     * @param ticket object to save, its generated identifier set on completion
+     * @return completed with true if operation succeeded
+     */
+    public CompletableFuture<Boolean> saveTicket(final Ticket ticket) {
+        return CompletableFuture.supplyAsync(() -> ticketRepository.saveTicket(ticket), executor);
+    }
+
+    /**
+     * @param vehicleRegNumber used to retrieve ticket
+     * @return completed with the latest ticket of the vehicle, or null if the vehicle never parked
+     */
+    public CompletableFuture<Ticket> getTicket(final String vehicleRegNumber) {
+        return CompletableFuture.supplyAsync(() -> ticketRepository.getTicket(vehicleRegNumber), executor);
+    }
+
+    /**
+     * @param ticket object to modify
+     * @return completed with true if operation succeeded
+     */
+    public CompletableFuture<Boolean> updateTicket(final Ticket ticket) {
+        return CompletableFuture.supplyAsync(() -> ticketRepository.updateTicket(ticket), executor);
+    }
+}
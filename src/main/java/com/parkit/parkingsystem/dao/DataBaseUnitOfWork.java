@@ -0,0 +1,184 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UnitOfWork over the database DAOs : commit() writes tickets and spots on one connection in one transaction,
+ * as JDBC batches, through the group commit of the TicketDAO batch writer when set. A vehicle exit is then
+ * one commit instead of two, and its ticket is never closed while its spot stays occupied.
+ * With the availability index loaded, a claim reserves the spot in memory and its database write joins the
+ * transaction instead of the write-behind queue. Otherwise the claim commits at once, as ParkingSpotDAO does,
+ * and is undone by close() if the unit is not committed.
+ * Claims and writes keep feeding the dao.ParkingSpotDAO and dao.TicketDAO timers of the Metered repositories
+ * they bypass : a claim records its own duration, and a write the duration of the commit carrying it.
+ */
+public class DataBaseUnitOfWork implements UnitOfWork {
+
+    /**
+     * Duration of commits, queueing in the batch writer included.
+     */
+    private static final LatencyHistogram COMMIT_TIMER = Metrics.timer("dao.DataBaseUnitOfWork.commit");
+    /**
+     * Duration of claims, timer shared with MeteredParkingSpotRepository.
+     */
+    private static final LatencyHistogram CLAIM_TIMER = Metrics.timer("dao.ParkingSpotDAO.claimNextAvailableSlot");
+    /**
+     * Duration of commits saving a ticket, timer shared with MeteredTicketRepository.
+     */
+    private static final LatencyHistogram SAVE_TICKET_TIMER = Metrics.timer("dao.TicketDAO.saveTicket");
+    /**
+     * Duration of commits updating a ticket, timer shared with MeteredTicketRepository.
+     */
+    private static final LatencyHistogram UPDATE_TICKET_TIMER = Metrics.timer("dao.TicketDAO.updateTicket");
+    /**
+     * Duration of commits updating a spot, timer shared with MeteredParkingSpotRepository.
+     */
+    private static final LatencyHistogram UPDATE_PARKING_TIMER = Metrics.timer("dao.ParkingSpotDAO.updateParking");
+
+    /**
+     * Parking spot DAO, owner of the availability index.
+     */
+    private final ParkingSpotDAO parkingSpotDAO;
+    /**
+     * Ticket DAO, owner of the batch writer, the cache and the known plates filter.
+     */
+    private final TicketDAO ticketDAO;
+    /**
+     * Index the claims of this unit are made on, null if claimed in database.
+     */
+    private SpotAvailabilityIndex claimIndex;
+    /**
+     * Spots claimed by this unit, already unavailable.
+     */
+    private final List<ParkingSpot> claimedSpots = new ArrayList<>();
+    /**
+     * Tickets to save.
+     */
+    private final List<Ticket> saves = new ArrayList<>();
+    /**
+     * Tickets to update.
+     */
+    private final List<Ticket> updates = new ArrayList<>();
+    /**
+     * Spots to update.
+     */
+    private final List<ParkingSpot> parkingUpdates = new ArrayList<>();
+    /**
+     * Whether commit() succeeded.
+     */
+    private boolean committed = false;
+
+    /**
+     * Constructor.
+     * @param parkingSpotDAOToSet parking spot DAO
+     * @param ticketDAOToSet ticket DAO
+     */
+    public DataBaseUnitOfWork(final ParkingSpotDAO parkingSpotDAOToSet, final TicketDAO ticketDAOToSet) {
+        this.parkingSpotDAO = parkingSpotDAOToSet;
+        this.ticketDAO = ticketDAOToSet;
+    }
+
+    /**
+     * @param parkingSpotDAO parking spot DAO
+     * @param ticketDAO ticket DAO
+     * @return factory of units over the DAOs.
+     */
+    public static UnitOfWorkFactory factory(final ParkingSpotDAO parkingSpotDAO, final TicketDAO ticketDAO) {
+        return () -> new DataBaseUnitOfWork(parkingSpotDAO, ticketDAO);
+    }
+
+    @Override
+    public int claimNextAvailableSlot(final ParkingType parkingType) {
+        long start = System.nanoTime();
+        if (claimedSpots.isEmpty()) {
+            claimIndex = parkingSpotDAO.getAvailabilityIndex();
+        }
+        int parkingNumber;
+        if (claimIndex != null) {
+            parkingNumber = claimIndex.claim(parkingType);
+        } else {
+            parkingNumber = parkingSpotDAO.claimNextAvailableSlot(parkingType);
+        }
+        CLAIM_TIMER.recordSince(start);
+        if (parkingNumber > 0) {
+            claimedSpots.add(new ParkingSpot(parkingNumber, parkingType, false));
+        }
+        return parkingNumber;
+    }
+
+    @Override
+    public void saveTicket(final Ticket ticket) {
+        saves.add(ticket);
+    }
+
+    @Override
+    public void updateTicket(final Ticket ticket) {
+        updates.add(ticket);
+    }
+
+    @Override
+    public void updateParking(final ParkingSpot parkingSpot) {
+        parkingUpdates.add(parkingSpot);
+    }
+
+    @Override
+    public boolean commit() {
+        List<ParkingSpot> parkingSpots = new ArrayList<>(parkingUpdates);
+        if (claimIndex != null) {
+            parkingSpots.addAll(claimedSpots); // Reserved in memory only so far
+        }
+        if (saves.isEmpty() && updates.isEmpty() && parkingSpots.isEmpty()) {
+            committed = true;
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean written = ticketDAO.writeAsync(saves, updates, parkingSpots).join();
+        COMMIT_TIMER.recordSince(start);
+        if (!saves.isEmpty()) {
+            SAVE_TICKET_TIMER.recordSince(start);
+        }
+        if (!updates.isEmpty()) {
+            UPDATE_TICKET_TIMER.recordSince(start);
+        }
+        if (!parkingUpdates.isEmpty()) {
+            UPDATE_PARKING_TIMER.recordSince(start);
+        }
+        if (!written) {
+            return false;
+        }
+        committed = true;
+        SpotAvailabilityIndex index = parkingSpotDAO.getAvailabilityIndex();
+        if (index != null) {
+            for (ParkingSpot parkingSpot : parkingUpdates) {
+                if (parkingSpot.isAvailable()) {
+                    index.release(parkingSpot.getId());
+                } else {
+                    index.reserve(parkingSpot.getId());
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (!committed) {
+            for (ParkingSpot parkingSpot : claimedSpots) {
+                if (claimIndex != null) {
+                    claimIndex.release(parkingSpot.getId());
+                } else {
+                    parkingSpot.setAvailable(true);
+                    parkingSpotDAO.updateParking(parkingSpot);
+                }
+            }
+        }
+        claimedSpots.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Parking spot storage held in memory only, for gates running without a database and for benchmarks.
+ * Availability lives in a SpotAvailabilityIndex : every operation is lock-free.
+ */
+public class InMemoryParkingSpotRepository implements ParkingSpotRepository {
+
+    /**
+     * Free spots per ParkingType.
+     */
+    private final SpotAvailabilityIndex availabilityIndex;
+
+    /**
+     * Constructor.
+     * @param parkingSpots every spot of the parking with its initial availability
+     */
+    public InMemoryParkingSpotRepository(final Collection<ParkingSpot> parkingSpots) {
+        this.availabilityIndex = new SpotAvailabilityIndex(parkingSpots);
+    }
+
+    /**
+     * Build a parking of free spots from a layout such as "CAR:3,BIKE:2".
+     * Spots are numbered from 1, in layout order.
+     * @param layout comma separated ParkingType:count pairs
+     * @return repository with every spot free
+     * @throws IllegalArgumentException on malformed layout
+     */
+    public static InMemoryParkingSpotRepository fromLayout(final String layout) {
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        int number = 1;
+        for (String entry : layout.split(",")) {
+            String[] typeAndCount = entry.trim().split(":");
+            if (typeAndCount.length != 2) {
+                throw new IllegalArgumentException("Invalid parking layout entry: " + entry);
+            }
+            ParkingType parkingType = ParkingType.valueOf(typeAndCount[0].trim());
+            int count = Integer.parseInt(typeAndCount[1].trim());
+            for (int i = 0; i < count; i++) {
+                parkingSpots.add(new ParkingSpot(number++, parkingType, true));
+            }
+        }
+        return new InMemoryParkingSpotRepository(parkingSpots);
+    }
+
+    @Override
+    public int getNextAvailableSlot(final ParkingType parkingType) {
+        return availabilityIndex.peek(parkingType);
+    }
+
+    @Override
+    public int claimNextAvailableSlot(final ParkingType parkingType) {
+        return availabilityIndex.claim(parkingType);
+    }
+
+    @Override
+    public boolean updateParking(final ParkingSpot parkingSpot) {
+        if (availabilityIndex.getParkingType(parkingSpot.getId()) == null) {
+            return false;
+        }
+        if (parkingSpot.isAvailable()) {
+            availabilityIndex.release(parkingSpot.getId());
+        } else {
+            availabilityIndex.reserve(parkingSpot.getId());
+        }
+        return true;
+    }
+
+    /**
+     * @param parkingType to count
+     * @return number of free spots of that type.
+     */
+    public int countFree(final ParkingType parkingType) {
+        return availabilityIndex.countFree(parkingType);
+    }
+}
@@ -0,0 +1,159 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticket storage held in memory only, for gates running without a database and for benchmarks.
+ * Tickets are stored and returned as copies, like rows of the Ticket table.
+ */
+public class InMemoryTicketRepository implements TicketRepository {
+
+    /**
+     * Last generated ticket identifier.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+    /**
+     * Stored tickets by identifier.
+     */
+    private final Map<Integer, Ticket> ticketsById = new ConcurrentHashMap<>();
+    /**
+     * Ticket history of every vehicle, by registration number.
+     */
+    private final Map<String, PlateHistory> historyByPlate = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isRecurringVehicle(final String vehicleRegNumber) {
+        return historyByPlate.containsKey(vehicleRegNumber);
+    }
+
+    @Override
+    public boolean saveTicket(final Ticket ticket) {
+        ticket.setId(lastId.incrementAndGet());
+        restoreTicket(ticket);
+        return true;
+    }
+
+    @Override
+    public Ticket getTicket(final String vehicleRegNumber) {
+        PlateHistory history = historyByPlate.get(vehicleRegNumber);
+        return history == null ? null : history.getLatest();
+    }
+
+    @Override
+    public boolean updateTicket(final Ticket ticket) {
+        Ticket stored = ticketsById.get(ticket.getId());
+        if (stored == null) {
+            return false;
+        }
+        historyByPlate.get(stored.getVehicleRegNumber()).update(stored, ticket);
+        return true;
+    }
+
+    /**
+     * Store a ticket that already has its identifier, such as one read back from a journal.
+     * @param ticket ticket to store, copied
+     */
+    void restoreTicket(final Ticket ticket) {
+        lastId.accumulateAndGet(ticket.getId(), Math::max);
+        Ticket stored = new Ticket(ticket);
+        historyByPlate.computeIfAbsent(ticket.getVehicleRegNumber(), plate -> new PlateHistory()).add(stored);
+        ticketsById.put(stored.getId(), stored);
+    }
+
+    /**
+     * @param ticketId identifier to look up
+     * @return true if a ticket with this identifier is stored.
+     */
+    boolean containsTicket(final int ticketId) {
+        return ticketsById.containsKey(ticketId);
+    }
+
+    /**
+     * @return copies of the latest ticket of every vehicle still parked.
+     */
+    public List<Ticket> getOpenTickets() {
+        List<Ticket> openTickets = new ArrayList<>();
+        for (PlateHistory history : historyByPlate.values()) {
+            Ticket latest = history.getLatest();
+            if (latest.getOutTime() == null) {
+                openTickets.add(latest);
+            }
+        }
+        return openTickets;
+    }
+
+    /**
+     * @param vehicleRegNumber vehicle to look up
+     * @return copies of every ticket of the vehicle, in saving order, empty if none.
+     */
+    public List<Ticket> getTickets(final String vehicleRegNumber) {
+        PlateHistory history = historyByPlate.get(vehicleRegNumber);
+        return history == null ? new ArrayList<>() : history.getAll();
+    }
+
+    /**
+     * @return number of stored tickets.
+     */
+    public int size() {
+        return ticketsById.size();
+    }
+
+    /**
+     * Tickets of one vehicle. Tickets are modified under the history lock, so readers never see half an update.
+     */
+    private static final class PlateHistory {
+
+        /**
+         * Tickets in saving order.
+         */
+        private final List<Ticket> tickets = new ArrayList<>();
+        /**
+         * Ticket with the most recent in-time, the latest saved on ties.
+         */
+        private Ticket latest;
+
+        /**
+         * @param ticket stored ticket to add
+         */
+        synchronized void add(final Ticket ticket) {
+            tickets.add(ticket);
+            if (latest == null || !ticket.getInTime().isBefore(latest.getInTime())) {
+                latest = ticket;
+            }
+        }
+
+        /**
+         * @return copy of latest ticket.
+         */
+        synchronized Ticket getLatest() {
+            return new Ticket(latest);
+        }
+
+        /**
+         * @return copies of every ticket.
+         */
+        synchronized List<Ticket> getAll() {
+            List<Ticket> copies = new ArrayList<>(tickets.size());
+            for (Ticket ticket : tickets) {
+                copies.add(new Ticket(ticket));
+            }
+            return copies;
+        }
+
+        /**
+         * Apply the columns written by TicketDAO.updateTicket.
+         * @param stored ticket of this history
+         * @param ticket new values
+         */
+        synchronized void update(final Ticket stored, final Ticket ticket) {
+            stored.setPrice(ticket.getPrice());
+            stored.setOutTime(ticket.getOutTime());
+        }
+    }
+}
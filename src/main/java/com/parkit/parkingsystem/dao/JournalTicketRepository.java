@@ -0,0 +1,137 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Ticket storage persisted to a local TicketJournal, for sites without a database server.
+ * Reads are served by an in-memory index rebuilt from the journal on startup.
+ * Writes return once their record is on disk.
+ */
+public class JournalTicketRepository implements TicketRepository, Closeable {
+
+    /**
+     * JournalTicketRepository class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("JournalTicketRepository");
+    /**
+     * Default journal segment size : 16 MiB, about 200 000 opened and closed tickets.
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Latest ticket per plate and open tickets, as replayed from the journal.
+     */
+    private final InMemoryTicketRepository index = new InMemoryTicketRepository();
+    /**
+     * Durable record of every ticket change.
+     */
+    private final TicketJournal journal;
+    /**
+     * Last ticket identifier given, guarded by this.
+     */
+    private int lastId;
+
+    /**
+     * Constructor with default segment size.
+     * @param directory journal folder, created if missing
+     * @throws IOException if the journal can not be read or created
+     */
+    public JournalTicketRepository(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructor replaying the journal into the index.
+     * @param directory journal folder, created if missing
+     * @param segmentSize size of new journal segments, in bytes
+     * @throws IOException if the journal can not be read or created
+     */
+    public JournalTicketRepository(final Path directory, final int segmentSize) throws IOException {
+        this.journal = TicketJournal.open(directory, segmentSize, new TicketJournal.RecordHandler() {
+            @Override
+            public void onOpen(final Ticket ticket) {
+                lastId = Math.max(lastId, ticket.getId());
+                index.restoreTicket(ticket);
+            }
+
+            @Override
+            public void onClose(final int ticketId, final double price, final Instant outTime) {
+                Ticket ticket = new Ticket();
+                ticket.setId(ticketId);
+                ticket.setPrice(price);
+                ticket.setOutTime(outTime);
+                index.updateTicket(ticket);
+            }
+        });
+        LOGGER.info("Ticket journal opened with {} tickets", index.size());
+    }
+
+    @Override
+    public boolean isRecurringVehicle(final String vehicleRegNumber) {
+        return index.isRecurringVehicle(vehicleRegNumber);
+    }
+
+    @Override
+    public boolean saveTicket(final Ticket ticket) {
+        try {
+            long sequence;
+            synchronized (this) {
+                sequence = journal.appendOpen(lastId + 1, ticket);
+                ticket.setId(++lastId);
+                index.restoreTicket(ticket);
+            }
+            journal.sync(sequence);
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("Error saving ticket", ex);
+            return false;
+        }
+    }
+
+    @Override
+    public Ticket getTicket(final String vehicleRegNumber) {
+        return index.getTicket(vehicleRegNumber);
+    }
+
+    @Override
+    public boolean updateTicket(final Ticket ticket) {
+        try {
+            long sequence;
+            synchronized (this) {
+                if (!index.containsTicket(ticket.getId())) {
+                    return false;
+                }
+                sequence = journal.appendClose(ticket);
+                index.updateTicket(ticket);
+            }
+            journal.sync(sequence);
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("Error saving ticket info", ex);
+            return false;
+        }
+    }
+
+    /**
+     * @return copies of the latest ticket of every vehicle still parked, to restore spot availability.
+     */
+    public List<Ticket> getOpenTickets() {
+        return index.getOpenTickets();
+    }
+
+    /**
+     * Force pending records to disk. The repository can not be written afterwards.
+     */
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
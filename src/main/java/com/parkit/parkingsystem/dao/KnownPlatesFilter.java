@@ -0,0 +1,389 @@
+package com.parkit.parkingsystem.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter of every vehicle registration number that ever had a ticket.
+ * A negative answer is exact : the vehicle never parked. A positive answer must be checked against the database.
+ * When a segment is full a new one, twice larger with a halved false positive rate, is added,
+ * so the overall false positive rate stays bounded however many plates are added.
+ * The file written by save() names the database the plates come from, so that a filter is never caught up
+ * against another database.
+ */
+public class KnownPlatesFilter {
+
+    /**
+     * File format marker.
+     */
+    private static final int MAGIC = 0x504C4246;
+    /**
+     * File format version.
+     */
+    private static final int VERSION = 2;
+    /**
+     * Default number of plates of the first segment.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 100_000;
+    /**
+     * Default false positive rate of the first segment.
+     */
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    /**
+     * Shift converting a bit index into a word index : 64 bits per word.
+     */
+    private static final int WORD_SHIFT = 6;
+    /**
+     * 64-bit FNV-1a offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    /**
+     * 64-bit FNV-1a prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Segments, oldest first. Only the last one receives new plates.
+     */
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    /**
+     * Highest ticket identifier whose plate is in the filter.
+     */
+    private volatile long highestTicketId;
+    /**
+     * Database the plates come from, such as its profile and URL, empty if unknown.
+     */
+    private volatile String databaseIdentity = "";
+
+    /**
+     * Constructor with default capacity and false positive rate.
+     */
+    public KnownPlatesFilter() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Constructor.
+     * @param initialCapacity number of plates of the first segment
+     * @param falsePositiveRate false positive rate of the first segment
+     */
+    public KnownPlatesFilter(final int initialCapacity, final double falsePositiveRate) {
+        segments.add(new Segment(initialCapacity, falsePositiveRate));
+    }
+
+    /**
+     * Private constructor used when loading from file.
+     * @param loadedSegments segments read from file
+     * @param highestTicketIdToSet highest ticket identifier included
+     * @param databaseIdentityToSet database the plates come from
+     */
+    private KnownPlatesFilter(final List<Segment> loadedSegments, final long highestTicketIdToSet,
+                              final String databaseIdentityToSet) {
+        segments.addAll(loadedSegments);
+        this.highestTicketId = highestTicketIdToSet;
+        this.databaseIdentity = databaseIdentityToSet;
+    }
+
+    /**
+     * @param vehicleRegNumber plate to check
+     * @return false if the plate was never added, true if it probably was.
+     */
+    public boolean mightContain(final String vehicleRegNumber) {
+        long hash1 = hash(vehicleRegNumber);
+        long hash2 = mix(hash1);
+        for (Segment segment : segments) {
+            if (segment.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the plate of a saved ticket.
+     * @param vehicleRegNumber plate to add
+     * @param ticketId identifier of the ticket, used as restart catch up point
+     */
+    public synchronized void add(final String vehicleRegNumber, final long ticketId) {
+        long hash1 = hash(vehicleRegNumber);
+        long hash2 = mix(hash1);
+        boolean known = false;
+        for (Segment segment : segments) {
+            known |= segment.mightContain(hash1, hash2);
+        }
+        if (!known) {
+            Segment current = segments.get(segments.size() - 1);
+            if (current.isFull()) {
+                current = new Segment(current.capacity * 2, current.falsePositiveRate / 2);
+                segments.add(current);
+            }
+            current.add(hash1, hash2);
+        }
+        if (ticketId > highestTicketId) {
+            highestTicketId = ticketId;
+        }
+    }
+
+    /**
+     * @return highest ticket identifier whose plate is in the filter, 0 if empty.
+     */
+    public long getHighestTicketId() {
+        return highestTicketId;
+    }
+
+    /**
+     * @return database the plates come from, empty if unknown.
+     */
+    public String getDatabaseIdentity() {
+        return databaseIdentity;
+    }
+
+    /**
+     * Set databaseIdentity member attribute, saved with the filter.
+     * @param databaseIdentityToSet database the plates come from, such as its profile and URL
+     */
+    public void setDatabaseIdentity(final String databaseIdentityToSet) {
+        this.databaseIdentity = databaseIdentityToSet;
+    }
+
+    /**
+     * @return number of distinct plates added, approximate.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Write the filter to a file, atomically replacing the previous version.
+     * @param file destination
+     * @throws IOException on write failure
+     */
+    public synchronized void save(final Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(databaseIdentity);
+            out.writeLong(highestTicketId);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                segment.write(out);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a filter written by save().
+     * @param file source
+     * @return loaded filter
+     * @throws IOException on read failure, unknown format or corrupt content
+     */
+    public static KnownPlatesFilter load(final Path file) throws IOException {
+        long fileSize = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown known plates file format: " + file);
+            }
+            String databaseIdentity = in.readUTF();
+            long highestTicketId = in.readLong();
+            int segmentCount = in.readInt();
+            if (segmentCount <= 0 || segmentCount > fileSize) {
+                throw new IOException("Corrupt known plates file, " + segmentCount + " segments: " + file);
+            }
+            List<Segment> segments = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < segmentCount; i++) {
+                segments.add(Segment.read(in, fileSize));
+            }
+            return new KnownPlatesFilter(segments, highestTicketId, databaseIdentity);
+        }
+    }
+
+    /**
+     * @param vehicleRegNumber plate to hash
+     * @return 64-bit FNV-1a hash of the plate characters, finalized.
+     */
+    private static long hash(final String vehicleRegNumber) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < vehicleRegNumber.length(); i++) {
+            hash ^= vehicleRegNumber.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer.
+     * @param value value to mix
+     * @return well distributed 64-bit value
+     */
+    private static long mix(final long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Fixed size Bloom filter using double hashing.
+     */
+    private static final class Segment {
+
+        /**
+         * Plates this segment was sized for.
+         */
+        private final int capacity;
+        /**
+         * False positive rate at capacity.
+         */
+        private final double falsePositiveRate;
+        /**
+         * Number of bits.
+         */
+        private final long bitCount;
+        /**
+         * Number of bits set per plate.
+         */
+        private final int hashCount;
+        /**
+         * Bits, set with compare-and-set so that readers never need a lock.
+         */
+        private final AtomicLongArray bits;
+        /**
+         * Plates added.
+         */
+        private volatile int count;
+
+        /**
+         * Constructor sizing the bit array for capacity and rate.
+         * @param capacityToSet plates to hold
+         * @param falsePositiveRateToSet false positive rate at capacity
+         */
+        Segment(final int capacityToSet, final double falsePositiveRateToSet) {
+            this.capacity = capacityToSet;
+            this.falsePositiveRate = falsePositiveRateToSet;
+            double ln2 = Math.log(2);
+            long bitsNeeded = (long) Math.ceil(-capacityToSet * Math.log(falsePositiveRateToSet) / (ln2 * ln2));
+            int words = (int) ((Math.max(Long.SIZE, bitsNeeded) + Long.SIZE - 1) >>> WORD_SHIFT);
+            this.bitCount = (long) words << WORD_SHIFT; // Whole words, so that a reloaded segment hashes the same
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacityToSet * ln2));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        /**
+         * Constructor used when loading from file.
+         * @param capacityToSet plates this segment was sized for
+         * @param falsePositiveRateToSet false positive rate at capacity
+         * @param hashCountToSet bits set per plate
+         * @param countToSet plates added
+         * @param words bit array
+         */
+        private Segment(final int capacityToSet, final double falsePositiveRateToSet, final int hashCountToSet,
+                        final int countToSet, final long[] words) {
+            this.capacity = capacityToSet;
+            this.falsePositiveRate = falsePositiveRateToSet;
+            this.bitCount = (long) words.length << WORD_SHIFT;
+            this.hashCount = hashCountToSet;
+            this.count = countToSet;
+            this.bits = new AtomicLongArray(words);
+        }
+
+        /**
+         * @return true if the segment holds as many plates as it was sized for.
+         */
+        boolean isFull() {
+            return count >= capacity;
+        }
+
+        /**
+         * @param hash1 first plate hash
+         * @param hash2 second plate hash
+         * @return true if every bit of the plate is set.
+         */
+        boolean mightContain(final long hash1, final long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (index >>> WORD_SHIFT)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param hash1 first plate hash
+         * @param hash2 second plate hash
+         */
+        void add(final long hash1, final long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+                int word = (int) (index >>> WORD_SHIFT);
+                long mask = 1L << index;
+                long value = bits.get(word);
+                while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                    value = bits.get(word);
+                }
+            }
+            count++;
+        }
+
+        /**
+         * @param out destination stream
+         * @throws IOException on write failure
+         */
+        void write(final DataOutputStream out) throws IOException {
+            out.writeInt(capacity);
+            out.writeDouble(falsePositiveRate);
+            out.writeInt(hashCount);
+            out.writeInt(count);
+            out.writeInt(bits.length());
+            for (int i = 0; i < bits.length(); i++) {
+                out.writeLong(bits.get(i));
+            }
+        }
+
+        /**
+         * @param in source stream
+         * @param fileSize size of the file read, bounding the bit array
+         * @return segment read
+         * @throws IOException on read failure, or if the header is not one written by write()
+         */
+        static Segment read(final DataInputStream in, final long fileSize) throws IOException {
+            int capacity = in.readInt();
+            double falsePositiveRate = in.readDouble();
+            int hashCount = in.readInt();
+            int count = in.readInt();
+            int wordCount = in.readInt();
+            if (capacity <= 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1) || hashCount <= 0 || count < 0
+                    || wordCount <= 0 || wordCount > fileSize / Long.BYTES) {
+                throw new IOException("Corrupt known plates segment : capacity " + capacity + ", rate "
+                        + falsePositiveRate + ", hashes " + hashCount + ", count " + count + ", words " + wordCount);
+            }
+            long[] words = new long[wordCount];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return new Segment(capacity, falsePositiveRate, hashCount, count, words);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * ParkingSpotRepository timing every call of the wrapped repository, as "dao.<class>.<method>" timers.
+ */
+public class MeteredParkingSpotRepository implements ParkingSpotRepository {
+
+    /**
+     * Wrapped storage.
+     */
+    private final ParkingSpotRepository parkingSpotRepository;
+    /**
+     * Timer of getNextAvailableSlot().
+     */
+    private final LatencyHistogram getNextAvailableSlotTimer;
+    /**
+     * Timer of claimNextAvailableSlot().
+     */
+    private final LatencyHistogram claimNextAvailableSlotTimer;
+    /**
+     * Timer of updateParking().
+     */
+    private final LatencyHistogram updateParkingTimer;
+
+    /**
+     * Constructor.
+     * @param parkingSpotRepositoryToSet wrapped storage
+     */
+    public MeteredParkingSpotRepository(final ParkingSpotRepository parkingSpotRepositoryToSet) {
+        this.parkingSpotRepository = parkingSpotRepositoryToSet;
+        String prefix = "dao." + parkingSpotRepositoryToSet.getClass().getSimpleName() + ".";
+        this.getNextAvailableSlotTimer = Metrics.timer(prefix + "getNextAvailableSlot");
+        this.claimNextAvailableSlotTimer = Metrics.timer(prefix + "claimNextAvailableSlot");
+        this.updateParkingTimer = Metrics.timer(prefix + "updateParking");
+    }
+
+    @Override
+    public int getNextAvailableSlot(final ParkingType parkingType) {
+        long start = System.nanoTime();
+        try {
+            return parkingSpotRepository.getNextAvailableSlot(parkingType);
+        } finally {
+            getNextAvailableSlotTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public int claimNextAvailableSlot(final ParkingType parkingType) {
+        long start = System.nanoTime();
+        try {
+            return parkingSpotRepository.claimNextAvailableSlot(parkingType);
+        } finally {
+            claimNextAvailableSlotTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean updateParking(final ParkingSpot parkingSpot) {
+        long start = System.nanoTime();
+        try {
+            return parkingSpotRepository.updateParking(parkingSpot);
+        } finally {
+            updateParkingTimer.recordSince(start);
+        }
+    }
+}
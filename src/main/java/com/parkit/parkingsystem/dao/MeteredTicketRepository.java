@@ -0,0 +1,85 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * TicketRepository timing every call of the wrapped repository, as "dao.<class>.<method>" timers.
+ */
+public class MeteredTicketRepository implements TicketRepository {
+
+    /**
+     * Wrapped storage.
+     */
+    private final TicketRepository ticketRepository;
+    /**
+     * Timer of isRecurringVehicle().
+     */
+    private final LatencyHistogram isRecurringVehicleTimer;
+    /**
+     * Timer of saveTicket().
+     */
+    private final LatencyHistogram saveTicketTimer;
+    /**
+     * Timer of getTicket().
+     */
+    private final LatencyHistogram getTicketTimer;
+    /**
+     * Timer of updateTicket().
+     */
+    private final LatencyHistogram updateTicketTimer;
+
+    /**
+     * Constructor.
+     * @param ticketRepositoryToSet wrapped storage
+     */
+    public MeteredTicketRepository(final TicketRepository ticketRepositoryToSet) {
+        this.ticketRepository = ticketRepositoryToSet;
+        String prefix = "dao." + ticketRepositoryToSet.getClass().getSimpleName() + ".";
+        this.isRecurringVehicleTimer = Metrics.timer(prefix + "isRecurringVehicle");
+        this.saveTicketTimer = Metrics.timer(prefix + "saveTicket");
+        this.getTicketTimer = Metrics.timer(prefix + "getTicket");
+        this.updateTicketTimer = Metrics.timer(prefix + "updateTicket");
+    }
+
+    @Override
+    public boolean isRecurringVehicle(final String vehicleRegNumber) {
+        long start = System.nanoTime();
+        try {
+            return ticketRepository.isRecurringVehicle(vehicleRegNumber);
+        } finally {
+            isRecurringVehicleTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean saveTicket(final Ticket ticket) {
+        long start = System.nanoTime();
+        try {
+            return ticketRepository.saveTicket(ticket);
+        } finally {
+            saveTicketTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public Ticket getTicket(final String vehicleRegNumber) {
+        long start = System.nanoTime();
+        try {
+            return ticketRepository.getTicket(vehicleRegNumber);
+        } finally {
+            getTicketTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean updateTicket(final Ticket ticket) {
+        long start = System.nanoTime();
+        try {
+            return ticketRepository.updateTicket(ticket);
+        } finally {
+            updateTicketTimer.recordSince(start);
+        }
+    }
+}
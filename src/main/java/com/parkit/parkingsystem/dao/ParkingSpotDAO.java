@@ -10,64 +10,291 @@ import org.apache.logging.log4j.Logger;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
-public class ParkingSpotDAO {
+public class ParkingSpotDAO implements ParkingSpotRepository {
     /**
      * ParkingSpotDAO class logger.
      */
     private static final Logger LOGGER = LogManager.getLogger("ParkingSpotDAO");
+    /**
+     * Time given to pending write-behind updates on shutdown, in seconds.
+     */
+    private static final long WRITE_BEHIND_SHUTDOWN_TIMEOUT_SEC = 10;
 
     /**
      * Database Configuration object.
      */
     private DataBaseConfig dataBaseConfig = new DataBaseConfig();
+    /**
+     * In-memory availability, null until loadAvailabilityIndex() succeeds.
+     */
+    private volatile SpotAvailabilityIndex availabilityIndex;
+    /**
+     * Single writer applying index changes to the parking table, in order, null once shut down.
+     */
+    private volatile ExecutorService writeBehindExecutor;
+
+    /**
+     * Load every spot once and serve availability from memory from now on.
+     * Database updates are then written behind, in order, by a single thread.
+     * Only valid if this process is the only one updating the parking table.
+     * @return true if the index was loaded
+     */
+    public synchronized boolean loadAvailabilityIndex() {
+        List<ParkingSpot> parkingSpots = getParkingSpots();
+        if (parkingSpots.isEmpty()) {
+            return false;
+        }
+        if (writeBehindExecutor == null) {
+            writeBehindExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "parking-spot-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        availabilityIndex = new SpotAvailabilityIndex(parkingSpots);
+        LOGGER.info("Availability index loaded with {} spots", parkingSpots.size());
+        return true;
+    }
+
+    /**
+     * Wait for pending write-behind updates, then stop the writer thread.
+     * The index is dropped once they are written, so direct writes never overtake them.
+     */
+    public synchronized void shutdown() {
+        if (writeBehindExecutor != null) {
+            writeBehindExecutor.shutdown();
+            try {
+                if (!writeBehindExecutor.awaitTermination(WRITE_BEHIND_SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                    LOGGER.error("Parking spot updates still pending on shutdown");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            availabilityIndex = null;
+            writeBehindExecutor = null;
+        }
+    }
+
+    /**
+     * @return in-memory availability, null if not loaded (used by DataBaseUnitOfWork).
+     */
+    SpotAvailabilityIndex getAvailabilityIndex() {
+        return availabilityIndex;
+    }
+
+    /**
+     * Get every parkingSpot with its current availability.
+     * @return parkingSpots, empty on error
+     */
+    public List<ParkingSpot> getParkingSpots() {
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        try {
+            con = dataBaseConfig.getConnection();
+            ps = con.prepareStatement(DBConstants.GET_PARKING_SPOTS);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                parkingSpots.add(new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(3)), rs.getBoolean(2)));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error fetching parking spots", ex);
+            parkingSpots.clear();
+        } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            dataBaseConfig.closeConnection(con);
+        }
+        return parkingSpots;
+    }
 
     /**
      * Get free parkingSpot number ordered.
      * @param parkingType to search
      * @return parkingSpot number
      */
+    @Override
     public int getNextAvailableSlot(final ParkingType parkingType) {
+        SpotAvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            return index.peek(parkingType);
+        }
         Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
         int result = -1;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT);
+            ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT);
             ps.setString(1, parkingType.toString());
-            ResultSet rs = ps.executeQuery();
+            rs = ps.executeQuery();
             if (rs.next()) {
                 result = rs.getInt(1);
             }
+        } catch (Exception ex) {
+            LOGGER.error("Error fetching next available slot", ex);
+        } finally {
             dataBaseConfig.closeResultSet(rs);
             dataBaseConfig.closePreparedStatement(ps);
+            dataBaseConfig.closeConnection(con);
+        }
+        return result;
+    }
+
+    /**
+     * Atomically find and reserve the lowest available parkingSpot of a type.
+     * Spots locked by a concurrent claim are skipped instead of waited for, so concurrent gates do not serialize.
+     * @param parkingType to search
+     * @return claimed parkingSpot number, or -1 if none available
+     */
+    @Override
+    public int claimNextAvailableSlot(final ParkingType parkingType) {
+        SpotAvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            int parkingNumber = index.claim(parkingType);
+            if (parkingNumber > 0) {
+                writeBehind(new ParkingSpot(parkingNumber, parkingType, false));
+            }
+            return parkingNumber;
+        }
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        int result = -1;
+        try {
+            con = dataBaseConfig.getConnection();
+            con.setAutoCommit(false);
+            ps = con.prepareStatement(DBConstants.CLAIM_NEXT_PARKING_SPOT);
+            ps.setString(1, parkingType.toString());
+            rs = ps.executeQuery();
+            if (rs.next()) {
+                int parkingNumber = rs.getInt(1);
+                dataBaseConfig.closeResultSet(rs);
+                rs = null;
+                dataBaseConfig.closePreparedStatement(ps);
+                ps = con.prepareStatement(DBConstants.RESERVE_PARKING_SPOT);
+                ps.setInt(1, parkingNumber);
+                if (ps.executeUpdate() == 1) {
+                    result = parkingNumber;
+                }
+            }
+            con.commit();
         } catch (Exception ex) {
-            LOGGER.error("Error fetching next available slot", ex);
+            LOGGER.error("Error claiming next available slot", ex);
+            rollback(con);
+            result = -1;
         } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
             dataBaseConfig.closeConnection(con);
         }
         return result;
     }
 
+    /**
+     * @param con connection whose transaction must be cancelled, may be null
+     */
+    private void rollback(final Connection con) {
+        if (con != null) {
+            try {
+                con.rollback();
+            } catch (Exception ex) {
+                LOGGER.error("Error rolling back parking claim", ex);
+            }
+        }
+    }
+
     /**
      * Modify parkingSpot in ParkingSpot table.
      * @param parkingSpot object to modify
      * @return true if operation succeeded
      */
+    @Override
     public boolean updateParking(final ParkingSpot parkingSpot) {
+        SpotAvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            if (index.getParkingType(parkingSpot.getId()) == null) {
+                return false;
+            }
+            if (parkingSpot.isAvailable()) {
+                index.release(parkingSpot.getId());
+            } else {
+                index.reserve(parkingSpot.getId());
+            }
+            writeBehind(new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(), parkingSpot.isAvailable()));
+            return true;
+        }
+        return writeParking(parkingSpot);
+    }
+
+    /**
+     * Queue a parking table update behind the in-memory change.
+     * A gate still running after shutdown() writes it synchronously instead.
+     * @param parkingSpot copy of the spot state to write
+     */
+    private void writeBehind(final ParkingSpot parkingSpot) {
+        Runnable write = () -> {
+            if (!writeParking(parkingSpot)) {
+                LOGGER.error("Write-behind update failed for parking spot {}", parkingSpot.getId());
+            }
+        };
+        ExecutorService executor = writeBehindExecutor;
+        if (executor != null && !executor.isShutdown()) {
+            try {
+                executor.execute(write);
+                return;
+            } catch (RejectedExecutionException ex) {
+                // Shut down between the check and the submit
+            }
+        }
+        awaitWriteBehind(executor);
+        write.run();
+    }
+
+    /**
+     * Wait for the updates queued before shutdown, so a synchronous write does not overtake them.
+     * @param executor write-behind executor, may be null
+     */
+    private void awaitWriteBehind(final ExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.awaitTermination(WRITE_BEHIND_SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write parkingSpot availability to ParkingSpot table.
+     * @param parkingSpot object to write
+     * @return true if operation succeeded
+     */
+    private boolean writeParking(final ParkingSpot parkingSpot) {
         //update the availability fo that parking slot
         Connection con = null;
+        PreparedStatement ps = null;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
+            ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
             ps.setBoolean(1, parkingSpot.isAvailable());
             ps.setInt(2, parkingSpot.getId());
             int updateRowCount = ps.executeUpdate();
-            dataBaseConfig.closePreparedStatement(ps);
             return (updateRowCount == 1);
         } catch (Exception ex) {
             LOGGER.error("Error updating parking info", ex);
             return false;
         } finally {
+            dataBaseConfig.closePreparedStatement(ps);
             dataBaseConfig.closeConnection(con);
         }
     }
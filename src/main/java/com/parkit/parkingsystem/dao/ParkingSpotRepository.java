@@ -0,0 +1,32 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * Storage of parking spot availability, used by ParkingService.
+ * Implementations must be safe for concurrent gates.
+ */
+public interface ParkingSpotRepository {
+
+    /**
+     * Get lowest free parkingSpot number without reserving it.
+     * @param parkingType to search
+     * @return parkingSpot number, 0 or -1 if none free
+     */
+    int getNextAvailableSlot(ParkingType parkingType);
+
+    /**
+     * Find and reserve the lowest free parkingSpot of a type, so that no other gate can get it.
+     * @param parkingType to search
+     * @return claimed parkingSpot number, 0 or -1 if none free
+     */
+    int claimNextAvailableSlot(ParkingType parkingType);
+
+    /**
+     * Modify parkingSpot availability.
+     * @param parkingSpot object to modify
+     * @return true if operation succeeded
+     */
+    boolean updateParking(ParkingSpot parkingSpot);
+}
@@ -0,0 +1,122 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UnitOfWork over any pair of repositories, such as the in-memory and journal storages : commit() applies
+ * the registered writes one by one and stops at the first failure, which leaves the writes before it applied.
+ * Claimed spots are reserved by the repository at once and freed again if the unit is not committed.
+ */
+public class RepositoryUnitOfWork implements UnitOfWork {
+
+    /**
+     * Parking spot storage.
+     */
+    private final ParkingSpotRepository parkingSpotRepository;
+    /**
+     * Ticket storage.
+     */
+    private final TicketRepository ticketRepository;
+    /**
+     * Spots claimed by this unit.
+     */
+    private final List<ParkingSpot> claimedSpots = new ArrayList<>();
+    /**
+     * Tickets to save.
+     */
+    private final List<Ticket> saves = new ArrayList<>();
+    /**
+     * Tickets to update.
+     */
+    private final List<Ticket> updates = new ArrayList<>();
+    /**
+     * Spots to update.
+     */
+    private final List<ParkingSpot> parkingUpdates = new ArrayList<>();
+    /**
+     * Whether commit() succeeded.
+     */
+    private boolean committed = false;
+
+    /**
+     * Constructor.
+     * @param parkingSpotRepositoryToSet parking spot storage
+     * @param ticketRepositoryToSet ticket storage
+     */
+    public RepositoryUnitOfWork(final ParkingSpotRepository parkingSpotRepositoryToSet,
+                                final TicketRepository ticketRepositoryToSet) {
+        this.parkingSpotRepository = parkingSpotRepositoryToSet;
+        this.ticketRepository = ticketRepositoryToSet;
+    }
+
+    /**
+     * @param parkingSpotRepository parking spot storage
+     * @param ticketRepository ticket storage
+     * @return factory of units over the repositories.
+     */
+    public static UnitOfWorkFactory factory(final ParkingSpotRepository parkingSpotRepository,
+                                            final TicketRepository ticketRepository) {
+        return () -> new RepositoryUnitOfWork(parkingSpotRepository, ticketRepository);
+    }
+
+    @Override
+    public int claimNextAvailableSlot(final ParkingType parkingType) {
+        int parkingNumber = parkingSpotRepository.claimNextAvailableSlot(parkingType);
+        if (parkingNumber > 0) {
+            claimedSpots.add(new ParkingSpot(parkingNumber, parkingType, false));
+        }
+        return parkingNumber;
+    }
+
+    @Override
+    public void saveTicket(final Ticket ticket) {
+        saves.add(ticket);
+    }
+
+    @Override
+    public void updateTicket(final Ticket ticket) {
+        updates.add(ticket);
+    }
+
+    @Override
+    public void updateParking(final ParkingSpot parkingSpot) {
+        parkingUpdates.add(parkingSpot);
+    }
+
+    @Override
+    public boolean commit() {
+        for (Ticket ticket : saves) {
+            if (!ticketRepository.saveTicket(ticket)) {
+                return false;
+            }
+        }
+        for (Ticket ticket : updates) {
+            if (!ticketRepository.updateTicket(ticket)) {
+                return false;
+            }
+        }
+        for (ParkingSpot parkingSpot : parkingUpdates) {
+            if (!parkingSpotRepository.updateParking(parkingSpot)) {
+                return false;
+            }
+        }
+        committed = true;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (!committed) {
+            for (ParkingSpot parkingSpot : claimedSpots) {
+                parkingSpot.setAvailable(true);
+                parkingSpotRepository.updateParking(parkingSpot);
+            }
+        }
+        claimedSpots.clear();
+    }
+}
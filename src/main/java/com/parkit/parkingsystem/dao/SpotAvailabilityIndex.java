@@ -0,0 +1,166 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory availability of every parking spot : one bitmap per ParkingType, bit n set when spot n is free.
+ * Claims and releases are lock-free compare-and-set operations on 64 spot words.
+ */
+public class SpotAvailabilityIndex {
+
+    /**
+     * Shift converting a spot number into a word index : 64 spots per word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Free spots bitmap per ParkingType, indexed by parking number.
+     */
+    private final Map<ParkingType, AtomicLongArray> freeSpots = new EnumMap<>(ParkingType.class);
+    /**
+     * ParkingType of each parking number, null for unknown numbers.
+     */
+    private final ParkingType[] typeByNumber;
+
+    /**
+     * Constructor.
+     * @param parkingSpots every spot of the parking with its current availability
+     */
+    public SpotAvailabilityIndex(final Collection<ParkingSpot> parkingSpots) {
+        int maxNumber = 0;
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            maxNumber = Math.max(maxNumber, parkingSpot.getId());
+        }
+        typeByNumber = new ParkingType[maxNumber + 1];
+        int words = (maxNumber >> WORD_SHIFT) + 1;
+        for (ParkingType parkingType : ParkingType.values()) {
+            freeSpots.put(parkingType, new AtomicLongArray(words));
+        }
+        for (ParkingSpot parkingSpot : parkingSpots) {
+            typeByNumber[parkingSpot.getId()] = parkingSpot.getParkingType();
+            if (parkingSpot.isAvailable()) {
+                setFree(parkingSpot.getId());
+            }
+        }
+    }
+
+    /**
+     * Find and reserve the lowest free spot of a type.
+     * @param parkingType to search
+     * @return claimed parking number, or -1 if none free
+     */
+    public int claim(final ParkingType parkingType) {
+        AtomicLongArray bits = freeSpots.get(parkingType);
+        for (int word = 0; word < bits.length(); word++) {
+            long value = bits.get(word);
+            while (value != 0) {
+                long lowest = value & -value;
+                if (bits.compareAndSet(word, value, value & ~lowest)) {
+                    return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(value);
+                }
+                value = bits.get(word);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find lowest free spot of a type without reserving it.
+     * @param parkingType to search
+     * @return parking number, or -1 if none free
+     */
+    public int peek(final ParkingType parkingType) {
+        AtomicLongArray bits = freeSpots.get(parkingType);
+        for (int word = 0; word < bits.length(); word++) {
+            long value = bits.get(word);
+            if (value != 0) {
+                return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(value);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mark a spot free.
+     * @param parkingNumber spot to free
+     * @return true if the spot was not already free
+     */
+    public boolean release(final int parkingNumber) {
+        return isKnown(parkingNumber) && setFree(parkingNumber);
+    }
+
+    /**
+     * Mark a given spot not free.
+     * @param parkingNumber spot to reserve
+     * @return true if the spot was free and is now reserved by the caller
+     */
+    public boolean reserve(final int parkingNumber) {
+        if (!isKnown(parkingNumber)) {
+            return false;
+        }
+        AtomicLongArray bits = freeSpots.get(typeByNumber[parkingNumber]);
+        int word = parkingNumber >> WORD_SHIFT;
+        long mask = 1L << parkingNumber;
+        long value = bits.get(word);
+        while ((value & mask) != 0) {
+            if (bits.compareAndSet(word, value, value & ~mask)) {
+                return true;
+            }
+            value = bits.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * @param parkingType to count
+     * @return number of free spots of that type.
+     */
+    public int countFree(final ParkingType parkingType) {
+        AtomicLongArray bits = freeSpots.get(parkingType);
+        int count = 0;
+        for (int word = 0; word < bits.length(); word++) {
+            count += Long.bitCount(bits.get(word));
+        }
+        return count;
+    }
+
+    /**
+     * @param parkingNumber spot to look up
+     * @return ParkingType of the spot, or null if unknown.
+     */
+    public ParkingType getParkingType(final int parkingNumber) {
+        return parkingNumber > 0 && parkingNumber < typeByNumber.length ? typeByNumber[parkingNumber] : null;
+    }
+
+    /**
+     * @param parkingNumber spot to look up
+     * @return true if the spot is part of the index.
+     */
+    private boolean isKnown(final int parkingNumber) {
+        return getParkingType(parkingNumber) != null;
+    }
+
+    /**
+     * @param parkingNumber known spot to free
+     * @return true if the bit was not already set
+     */
+    private boolean setFree(final int parkingNumber) {
+        AtomicLongArray bits = freeSpots.get(typeByNumber[parkingNumber]);
+        int word = parkingNumber >> WORD_SHIFT;
+        long mask = 1L << parkingNumber;
+        long value = bits.get(word);
+        while ((value & mask) == 0) {
+            if (bits.compareAndSet(word, value, value | mask)) {
+                return true;
+            }
+            value = bits.get(word);
+        }
+        return false;
+    }
+}
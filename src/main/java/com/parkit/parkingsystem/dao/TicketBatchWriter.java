@@ -0,0 +1,403 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit of ticket writes : concurrent saves and updates, with the spot updates committed along, are queued,
+ * then written by a single thread as JDBC batches committed in one transaction. A batch closes when it reaches maxBatchSize or when
+ * maxLingerMs elapsed since its first write, so latency stays bounded while throughput follows load.
+ */
+public class TicketBatchWriter {
+
+    /**
+     * TicketBatchWriter class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("TicketBatchWriter");
+    /**
+     * Default largest number of writes per batch.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    /**
+     * Default time a batch waits for more writes, in milliseconds.
+     */
+    private static final long DEFAULT_MAX_LINGER_MS = 2;
+    /**
+     * Time the writer thread waits for a first write before checking for shutdown, in milliseconds.
+     */
+    private static final long IDLE_POLL_MS = 100;
+    /**
+     * Time given to queued writes on shutdown, in milliseconds.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    /**
+     * Database Configuration object.
+     */
+    private final DataBaseConfig dataBaseConfig;
+    /**
+     * Largest number of writes per batch.
+     */
+    private final int maxBatchSize;
+    /**
+     * Time a batch waits for more writes, in nanoseconds.
+     */
+    private final long maxLingerNanos;
+    /**
+     * Writes waiting for the writer thread.
+     */
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    /**
+     * Single thread writing batches.
+     */
+    private final Thread writerThread;
+    /**
+     * False once shutdown() was called : new writes are refused.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Constructor with default batch size and linger time.
+     * @param dataBaseConfigToSet database to write to
+     */
+    public TicketBatchWriter(final DataBaseConfig dataBaseConfigToSet) {
+        this(dataBaseConfigToSet, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER_MS);
+    }
+
+    /**
+     * Constructor starting the writer thread.
+     * @param dataBaseConfigToSet database to write to
+     * @param maxBatchSizeToSet largest number of writes per batch
+     * @param maxLingerMs time a batch waits for more writes, 0 to only take writes already queued
+     */
+    public TicketBatchWriter(final DataBaseConfig dataBaseConfigToSet, final int maxBatchSizeToSet,
+                             final long maxLingerMs) {
+        if (maxBatchSizeToSet < 1 || maxLingerMs < 0) {
+            throw new IllegalArgumentException("Invalid batch size or linger time");
+        }
+        this.dataBaseConfig = dataBaseConfigToSet;
+        this.maxBatchSize = maxBatchSizeToSet;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.writerThread = new Thread(this::run, "ticket-batch-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue the insertion of a ticket. The generated identifier is set on the ticket before completion.
+     * @param ticket ticket to save, copied
+     * @return completed with true once committed, false on error
+     */
+    public CompletableFuture<Boolean> save(final Ticket ticket) {
+        return write(Collections.singletonList(ticket), Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * Queue the update of price and out-time of a ticket.
+     * @param ticket ticket to update, copied
+     * @return completed with true once committed, false on error
+     */
+    public CompletableFuture<Boolean> update(final Ticket ticket) {
+        return write(Collections.emptyList(), Collections.singletonList(ticket), Collections.emptyList());
+    }
+
+    /**
+     * Queue writes committed together or not at all, such as the ticket and spot changes of a vehicle exit.
+     * Generated identifiers are set on the saved tickets before completion.
+     * @param saves tickets to save, copied
+     * @param updates tickets whose price and out-time to update, copied
+     * @param parkingSpots spots whose availability to update, copied
+     * @return completed with true once committed, false on error or if a write matched no row
+     */
+    public CompletableFuture<Boolean> write(final List<Ticket> saves, final List<Ticket> updates,
+                                            final List<ParkingSpot> parkingSpots) {
+        return submit(new PendingWrite(saves, updates, parkingSpots));
+    }
+
+    /**
+     * Write at once on the calling thread, in one transaction, for callers without a batch writer.
+     * Generated identifiers are set on the saved tickets.
+     * @param dataBaseConfig database to write to
+     * @param saves tickets to save
+     * @param updates tickets whose price and out-time to update
+     * @param parkingSpots spots whose availability to update
+     * @return true if committed, false on error or if a write matched no row
+     */
+    static boolean writeNow(final DataBaseConfig dataBaseConfig, final List<Ticket> saves,
+                            final List<Ticket> updates, final List<ParkingSpot> parkingSpots) {
+        try {
+            writeBatch(dataBaseConfig, Collections.singletonList(new PendingWrite(saves, updates, parkingSpots)));
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("Error writing tickets", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Refuse new writes, then wait for queued ones to be written.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            LOGGER.error("Ticket writes still pending on shutdown");
+            return;
+        }
+        PendingWrite late;
+        while ((late = pendingWrites.poll()) != null) { // Queued while the writer thread was stopping
+            late.completion.complete(false);
+        }
+    }
+
+    /**
+     * @param write write to queue
+     * @return completion of the write
+     */
+    private CompletableFuture<Boolean> submit(final PendingWrite write) {
+        if (!running) {
+            LOGGER.error("Ticket batch writer is shut down");
+            write.completion.complete(false);
+        } else {
+            pendingWrites.add(write);
+        }
+        return write.completion;
+    }
+
+    /**
+     * Writer thread loop : collect a batch, write it, until shut down and drained.
+     */
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !pendingWrites.isEmpty()) {
+            try {
+                PendingWrite first = pendingWrites.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLingerNanos;
+                pendingWrites.drainTo(batch, maxBatchSize - batch.size());
+                long remaining;
+                while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    PendingWrite next = pendingWrites.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    pendingWrites.drainTo(batch, maxBatchSize - batch.size());
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                LOGGER.error("Unexpected ticket batch writer error", e);
+            } finally {
+                for (PendingWrite write : batch) {
+                    write.completion.complete(false); // No effect on writes already completed
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write a batch in one transaction. If it fails, retry each write in its own transaction,
+     * so that one bad ticket does not fail the others.
+     * @param batch writes to perform
+     */
+    private void write(final List<PendingWrite> batch) {
+        try {
+            writeBatch(dataBaseConfig, batch);
+            return;
+        } catch (Exception ex) {
+            if (batch.size() == 1) {
+                LOGGER.error("Error writing ticket", ex);
+                return;
+            }
+            LOGGER.error("Error writing batch of {} tickets, retrying one by one", batch.size(), ex);
+        }
+        for (PendingWrite write : batch) {
+            try {
+                writeBatch(dataBaseConfig, Collections.singletonList(write));
+            } catch (Exception ex) {
+                LOGGER.error("Error writing ticket", ex);
+            }
+        }
+    }
+
+    /**
+     * Execute saves, ticket updates and spot updates as three JDBC batches and commit them together.
+     * @param dataBaseConfig database to write to
+     * @param batch writes to perform
+     * @throws Exception on database error or if a write matched no row, the transaction is rolled back
+     */
+    private static void writeBatch(final DataBaseConfig dataBaseConfig, final List<PendingWrite> batch)
+            throws Exception {
+        List<Ticket> saves = new ArrayList<>();
+        List<Ticket> updates = new ArrayList<>();
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            saves.addAll(write.saves);
+            updates.addAll(write.updates);
+            parkingSpots.addAll(write.parkingSpots);
+        }
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            con.setAutoCommit(false);
+            int[] generatedIds = new int[saves.size()];
+            if (!saves.isEmpty()) {
+                ps = con.prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
+                for (Ticket ticket : saves) {
+                    ps.setInt(1, ticket.getParkingSpot().getId());
+                    ps.setString(2, ticket.getVehicleRegNumber());
+                    ps.setDouble(3, ticket.getPrice());
+                    ps.setTimestamp(4, new Timestamp(ticket.getInTime().toEpochMilli()));
+                    ps.setTimestamp(5, (ticket.getOutTime() == null) ? null : (new Timestamp(ticket.getOutTime().toEpochMilli())));
+                    ps.setBoolean(6, ticket.isDiscounted());
+                    ps.addBatch();
+                }
+                checkCounts(ps.executeBatch());
+                rs = ps.getGeneratedKeys();
+                for (int i = 0; i < generatedIds.length; i++) {
+                    if (!rs.next()) {
+                        throw new SQLException("Missing generated ticket identifier");
+                    }
+                    generatedIds[i] = rs.getInt(1);
+                }
+                dataBaseConfig.closeResultSet(rs);
+                rs = null;
+                dataBaseConfig.closePreparedStatement(ps);
+                ps = null;
+            }
+            if (!updates.isEmpty()) {
+                ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
+                for (Ticket ticket : updates) {
+                    ps.setDouble(1, ticket.getPrice());
+                    ps.setTimestamp(2, new Timestamp(ticket.getOutTime().toEpochMilli()));
+                    ps.setInt(3, ticket.getId());
+                    ps.addBatch();
+                }
+                checkCounts(ps.executeBatch());
+                dataBaseConfig.closePreparedStatement(ps);
+                ps = null;
+            }
+            if (!parkingSpots.isEmpty()) {
+                ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
+                for (ParkingSpot parkingSpot : parkingSpots) {
+                    ps.setBoolean(1, parkingSpot.isAvailable());
+                    ps.setInt(2, parkingSpot.getId());
+                    ps.addBatch();
+                }
+                checkCounts(ps.executeBatch());
+            }
+            con.commit();
+            int saved = 0;
+            for (PendingWrite write : batch) {
+                for (Ticket original : write.savedOriginals) {
+                    original.setId(generatedIds[saved++]);
+                }
+                write.completion.complete(true);
+            }
+        } catch (Exception ex) {
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.error("Error rolling back ticket batch", rollbackEx);
+                }
+            }
+            throw ex;
+        } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            dataBaseConfig.closeConnection(con);
+        }
+    }
+
+    /**
+     * @param counts update counts of a JDBC batch
+     * @throws SQLException if a write matched no row, so that its batch is rolled back and retried write by write
+     */
+    private static void checkCounts(final int[] counts) throws SQLException {
+        for (int count : counts) {
+            if (count == 0) {
+                throw new SQLException("Batched write matched no row");
+            }
+        }
+    }
+
+    /**
+     * Queued writes committed together, and their completion.
+     */
+    private static final class PendingWrite {
+
+        /**
+         * Tickets given by the caller to save, receive the generated identifiers.
+         */
+        private final List<Ticket> savedOriginals;
+        /**
+         * Copies of the tickets to save at submission time, written to the database.
+         */
+        private final List<Ticket> saves = new ArrayList<>();
+        /**
+         * Copies of the tickets to update at submission time.
+         */
+        private final List<Ticket> updates = new ArrayList<>();
+        /**
+         * Copies of the spots to update at submission time.
+         */
+        private final List<ParkingSpot> parkingSpots = new ArrayList<>();
+        /**
+         * Completed with true once committed.
+         */
+        private final CompletableFuture<Boolean> completion = new CompletableFuture<>();
+
+        /**
+         * Constructor.
+         * @param savesToWrite tickets given by the caller to save
+         * @param updatesToWrite tickets given by the caller to update
+         * @param parkingSpotsToWrite spots given by the caller to update
+         */
+        PendingWrite(final List<Ticket> savesToWrite, final List<Ticket> updatesToWrite,
+                     final List<ParkingSpot> parkingSpotsToWrite) {
+            this.savedOriginals = new ArrayList<>(savesToWrite);
+            for (Ticket ticket : savesToWrite) {
+                saves.add(new Ticket(ticket));
+            }
+            for (Ticket ticket : updatesToWrite) {
+                updates.add(new Ticket(ticket));
+            }
+            for (ParkingSpot parkingSpot : parkingSpotsToWrite) {
+                parkingSpots.add(new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(),
+                        parkingSpot.isAvailable()));
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.parkit.parkingsystem.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of the latest ticket per vehicle registration number, kept coherent by TicketDAO writes.
+ * Entries are copies : callers can modify returned tickets without affecting the cache.
+ */
+public class TicketCache {
+
+    /**
+     * Default number of vehicles kept.
+     */
+    private static final long DEFAULT_MAX_SIZE = 100_000L;
+    /**
+     * Default time an entry is trusted after being written.
+     */
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(12);
+
+    /**
+     * Latest ticket by vehicle registration number, W-TinyLFU eviction.
+     */
+    private final Cache<String, Ticket> latestTickets;
+
+    /**
+     * Constructor with default bounds.
+     */
+    public TicketCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Constructor.
+     * @param maxSize maximum number of vehicles kept
+     * @param timeToLive time an entry is trusted after being written
+     */
+    public TicketCache(final long maxSize, final Duration timeToLive) {
+        this(maxSize, timeToLive, null);
+    }
+
+    /**
+     * Constructor with default bounds, entries expiring in the time of a clock.
+     * @param clock time source of the expiry, such as the clock of a replay, null for System.nanoTime()
+     */
+    public TicketCache(final Clock clock) {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE, clock);
+    }
+
+    /**
+     * Constructor.
+     * @param maxSize maximum number of vehicles kept
+     * @param timeToLive time an entry is trusted after being written
+     * @param clock time source of the expiry, such as the clock of a replay, null for System.nanoTime()
+     */
+    public TicketCache(final long maxSize, final Duration timeToLive, final Clock clock) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats();
+        if (clock != null) {
+            builder.ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()));
+        }
+        this.latestTickets = builder.build();
+    }
+
+    /**
+     * @param vehicleRegNumber vehicle to look up
+     * @return copy of latest ticket of the vehicle, or null if not cached.
+     */
+    public Ticket get(final String vehicleRegNumber) {
+        Ticket ticket = latestTickets.getIfPresent(vehicleRegNumber);
+        return ticket == null ? null : new Ticket(ticket);
+    }
+
+    /**
+     * Record a ticket read from or written to the database, unless a more recent ticket is already cached.
+     * @param ticket ticket to cache, copied
+     */
+    public void put(final Ticket ticket) {
+        Ticket copy = new Ticket(ticket);
+        latestTickets.asMap().merge(ticket.getVehicleRegNumber(), copy, TicketCache::latest);
+    }
+
+    /**
+     * @param cached ticket in cache
+     * @param candidate ticket put
+     * @return ticket to keep : the latest one, and of two versions of one ticket the closed one, since a read of
+     * the open row racing with the exit may be put after the closed ticket.
+     */
+    private static Ticket latest(final Ticket cached, final Ticket candidate) {
+        if (candidate.getInTime().isBefore(cached.getInTime())) {
+            return cached;
+        }
+        if (candidate.getId() == cached.getId() && cached.getOutTime() != null && candidate.getOutTime() == null) {
+            return cached;
+        }
+        return candidate;
+    }
+
+    /**
+     * Forget a vehicle, when the database state is unknown.
+     * @param vehicleRegNumber vehicle to forget
+     */
+    public void invalidate(final String vehicleRegNumber) {
+        latestTickets.invalidate(vehicleRegNumber);
+    }
+
+    /**
+     * @return number of cached vehicles, approximate.
+     */
+    public long size() {
+        return latestTickets.estimatedSize();
+    }
+
+    /**
+     * @return hit, miss and eviction counters since creation.
+     */
+    public CacheStats getStats() {
+        return latestTickets.stats();
+    }
+}
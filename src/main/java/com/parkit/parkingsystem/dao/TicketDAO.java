@@ -8,13 +8,19 @@ import com.parkit.parkingsystem.model.Ticket;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class TicketDAO {
+public class TicketDAO implements TicketRepository {
 
     /**
      * TicketDAO class logger.
@@ -25,17 +31,126 @@ public class TicketDAO {
      * Database Configuration object.
      */
     private DataBaseConfig dataBaseConfig = new DataBaseConfig();
+    /**
+     * Latest ticket per vehicle, null if caching is disabled.
+     */
+    private TicketCache ticketCache;
+    /**
+     * Plates that ever had a ticket, null if disabled.
+     */
+    private volatile KnownPlatesFilter knownPlatesFilter;
+    /**
+     * File the known plates filter is persisted to.
+     */
+    private Path knownPlatesFile;
+    /**
+     * Group commit writer of saves and updates, null to write each ticket on its own.
+     */
+    private TicketBatchWriter batchWriter;
 
     /**
-     * Save ticket object to Ticket table.
+     * Load the known plates filter from file, catch up with tickets saved since, and use it from now on.
+     * A missing or unreadable file means a full build from Ticket table, and so does a file saved from another
+     * database or ahead of the Ticket table, such as after a reset : catching it up would miss plates.
+     * @param file persistence file of the filter
+     * @param databaseIdentity database the Ticket table belongs to, such as its profile and URL
+     * @return true if the filter is complete and enabled
+     */
+    public synchronized boolean loadKnownPlatesFilter(final Path file, final String databaseIdentity) {
+        KnownPlatesFilter filter = null;
+        if (Files.exists(file)) {
+            try {
+                filter = KnownPlatesFilter.load(file);
+            } catch (IOException ex) {
+                LOGGER.error("Unreadable known plates file, rebuilding from database", ex);
+            }
+        }
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            ps = con.prepareStatement(DBConstants.GET_HIGHEST_TICKET_ID);
+            rs = ps.executeQuery();
+            long highestTicketId = rs.next() ? rs.getLong(1) : 0;
+            dataBaseConfig.closeResultSet(rs);
+            rs = null;
+            dataBaseConfig.closePreparedStatement(ps);
+            ps = null;
+            if (filter != null && (!databaseIdentity.equals(filter.getDatabaseIdentity())
+                    || filter.getHighestTicketId() > highestTicketId)) {
+                LOGGER.warn("Known plates file of {} up to ticket {} does not match {} up to ticket {}, rebuilding",
+                        filter.getDatabaseIdentity(), filter.getHighestTicketId(), databaseIdentity, highestTicketId);
+                filter = null;
+            }
+            if (filter == null) {
+                filter = new KnownPlatesFilter();
+                filter.setDatabaseIdentity(databaseIdentity);
+            }
+            ps = con.prepareStatement(DBConstants.GET_VEHICLE_REG_NUMBERS_SINCE);
+            ps.setLong(1, filter.getHighestTicketId());
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                filter.add(rs.getString(2), rs.getLong(1));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error loading known plates, filter disabled", ex);
+            return false;
+        } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            dataBaseConfig.closeConnection(con);
+        }
+        this.knownPlatesFilter = filter;
+        this.knownPlatesFile = file;
+        LOGGER.info("Known plates filter loaded with {} plates", filter.size());
+        saveKnownPlatesFilter();
+        return true;
+    }
+
+    /**
+     * Persist the known plates filter, for a fast restart.
+     */
+    public synchronized void saveKnownPlatesFilter() {
+        if (knownPlatesFilter != null) {
+            try {
+                knownPlatesFilter.save(knownPlatesFile);
+            } catch (IOException ex) {
+                LOGGER.error("Error saving known plates file", ex);
+            }
+        }
+    }
+
+    /**
+     * Check whether a vehicle already had a ticket. Plates unknown to the filter are answered without database access.
+     * @param vehicleRegNumber vehicle to check
+     * @return true if a previous ticket exists
+     */
+    @Override
+    public boolean isRecurringVehicle(final String vehicleRegNumber) {
+        KnownPlatesFilter filter = knownPlatesFilter;
+        if (filter != null && !filter.mightContain(vehicleRegNumber)) {
+            return false;
+        }
+        return getTicket(vehicleRegNumber) != null;
+    }
+
+    /**
+     * Save ticket object to Ticket table. The generated identifier is set on the ticket.
      * @param ticket object to save
      * @return true if operation succeeded
      */
+    @Override
     public boolean saveTicket(final Ticket ticket) {
+        if (batchWriter != null) {
+            return saveTicketAsync(ticket).join();
+        }
         Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_TICKET);
+            ps = con.prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
             //ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
             //ps.setInt(1,ticket.getId());
             ps.setInt(1, ticket.getParkingSpot().getId());
@@ -43,30 +158,105 @@ public class TicketDAO {
             ps.setDouble(3, ticket.getPrice());
             ps.setTimestamp(4, new Timestamp(ticket.getInTime().toEpochMilli()));
             ps.setTimestamp(5, (ticket.getOutTime() == null) ? null : (new Timestamp(ticket.getOutTime().toEpochMilli())));
-            ps.setBoolean(6,ticket.isDiscounted());
-            return ps.execute();
+            ps.setBoolean(6, ticket.isDiscounted());
+            if (ps.executeUpdate() != 1) {
+                return false;
+            }
+            rs = ps.getGeneratedKeys();
+            if (rs.next()) {
+                ticket.setId(rs.getInt(1));
+            }
+            ticketSaved(ticket);
+            return true;
         } catch (Exception ex) {
-            LOGGER.error("Error fetching next available slot", ex);
+            LOGGER.error("Error saving ticket", ex);
+            return false;
         } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
             dataBaseConfig.closeConnection(con);
-            return false;
         }
     }
 
     /**
-     * Get ticket object from Ticket table.
+     * Save ticket object to Ticket table, committed with concurrent writes when a batch writer is set.
+     * @param ticket object to save, its generated identifier is set before completion
+     * @return completed with true if operation succeeded
+     */
+    public CompletableFuture<Boolean> saveTicketAsync(final Ticket ticket) {
+        if (batchWriter == null) {
+            return CompletableFuture.completedFuture(saveTicket(ticket));
+        }
+        return batchWriter.save(ticket).thenApply(saved -> {
+            if (saved) {
+                ticketSaved(ticket);
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Write tickets and parking spots in one transaction, committed with concurrent writes when a batch writer
+     * is set, and keep cache and known plates filter coherent (used by DataBaseUnitOfWork).
+     * @param saves tickets to save, their generated identifiers are set before completion
+     * @param updates tickets whose price and out-time to update
+     * @param parkingSpots spots whose availability to update
+     * @return completed with true if every write was committed, false if none was
+     */
+    CompletableFuture<Boolean> writeAsync(final List<Ticket> saves, final List<Ticket> updates,
+                                          final List<ParkingSpot> parkingSpots) {
+        CompletableFuture<Boolean> written = (batchWriter != null)
+                ? batchWriter.write(saves, updates, parkingSpots)
+                : CompletableFuture.completedFuture(TicketBatchWriter.writeNow(dataBaseConfig, saves, updates,
+                        parkingSpots));
+        return written.thenApply(committed -> {
+            if (committed) {
+                saves.forEach(this::ticketSaved);
+            }
+            for (Ticket ticket : updates) {
+                ticketUpdated(ticket, committed);
+            }
+            return committed;
+        });
+    }
+
+    /**
+     * Keep cache and known plates filter coherent with a saved ticket.
+     * @param ticket saved ticket, with its identifier
+     */
+    private void ticketSaved(final Ticket ticket) {
+        if (ticketCache != null) {
+            ticketCache.put(ticket);
+        }
+        KnownPlatesFilter filter = knownPlatesFilter;
+        if (filter != null) {
+            filter.add(ticket.getVehicleRegNumber(), ticket.getId());
+        }
+    }
+
+    /**
+     * Get latest ticket object of a vehicle, from cache if enabled, otherwise from Ticket table.
      * @param vehicleRegNumber used to retrieve ticket
      * @return ticket object
      */
+    @Override
     public Ticket getTicket(final String vehicleRegNumber) {
+        if (ticketCache != null) {
+            Ticket ticket = ticketCache.get(vehicleRegNumber);
+            if (ticket != null) {
+                return ticket;
+            }
+        }
         Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
         Ticket ticket = null;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.GET_TICKET);
+            ps = con.prepareStatement(DBConstants.GET_TICKET);
             //ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, DISCOUNT)
             ps.setString(1, vehicleRegNumber);
-            ResultSet rs = ps.executeQuery();
+            rs = ps.executeQuery();
             if (rs.next()) {
                 ticket = new Ticket();
                 ParkingSpot parkingSpot = new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(7)), false);
@@ -81,15 +271,18 @@ public class TicketDAO {
                     ticket.setOutTime(rs.getTimestamp(5).toInstant().truncatedTo(ChronoUnit.MINUTES));
                 }
                 ticket.setDiscounted(rs.getBoolean(6));
+                if (ticketCache != null) {
+                    ticketCache.put(ticket);
+                }
             }
-            dataBaseConfig.closeResultSet(rs);
-            dataBaseConfig.closePreparedStatement(ps);
         } catch (Exception ex) {
             LOGGER.error("Error fetching ticket", ex);
         } finally {
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
             dataBaseConfig.closeConnection(con);
-            return ticket;
         }
+        return ticket;
     }
 
     /**
@@ -97,24 +290,78 @@ public class TicketDAO {
      * @param ticket object to modify
      * @return true if operation succeeded
      */
+    @Override
     public boolean updateTicket(final Ticket ticket) {
+        if (batchWriter != null) {
+            return updateTicketAsync(ticket).join();
+        }
         Connection con = null;
+        PreparedStatement ps = null;
         try {
             con = dataBaseConfig.getConnection();
-            PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
+            ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
             ps.setDouble(1, ticket.getPrice());
             ps.setTimestamp(2, new Timestamp(ticket.getOutTime().toEpochMilli()));
             ps.setInt(3, ticket.getId());
             ps.execute();
+            ticketUpdated(ticket, true);
             return true;
         } catch (Exception ex) {
             LOGGER.error("Error saving ticket info", ex);
+            ticketUpdated(ticket, false);
         } finally {
+            dataBaseConfig.closePreparedStatement(ps);
             dataBaseConfig.closeConnection(con);
         }
         return false;
     }
 
+    /**
+     * Modify ticket in Ticket table, committed with concurrent writes when a batch writer is set.
+     * @param ticket object to modify
+     * @return completed with true if operation succeeded
+     */
+    public CompletableFuture<Boolean> updateTicketAsync(final Ticket ticket) {
+        if (batchWriter == null) {
+            return CompletableFuture.completedFuture(updateTicket(ticket));
+        }
+        return batchWriter.update(ticket).thenApply(updated -> {
+            ticketUpdated(ticket, updated);
+            return updated;
+        });
+    }
+
+    /**
+     * Keep cache coherent with an update attempt.
+     * @param ticket ticket written
+     * @param updated whether the database accepted the update
+     */
+    private void ticketUpdated(final Ticket ticket, final boolean updated) {
+        if (ticketCache != null) {
+            if (updated) {
+                ticketCache.put(ticket);
+            } else {
+                ticketCache.invalidate(ticket.getVehicleRegNumber());
+            }
+        }
+    }
+
+    /**
+     * Set ticketCache member attribute. Writes through this DAO keep it coherent.
+     * @param ticketCacheToSet latest ticket cache, null to disable caching
+     */
+    public void setTicketCache(final TicketCache ticketCacheToSet) {
+        this.ticketCache = ticketCacheToSet;
+    }
+
+    /**
+     * Set batchWriter member attribute. Saves and updates then go through group commit.
+     * @param batchWriterToSet batch writer, null to write each ticket on its own
+     */
+    public void setBatchWriter(final TicketBatchWriter batchWriterToSet) {
+        this.batchWriter = batchWriterToSet;
+    }
+
     /**
      * Set dataBaseConfig member attribute (used in ParkingDataBaseIT).
      * @param dataBaseConfigToSet new dataBaseConfig to set
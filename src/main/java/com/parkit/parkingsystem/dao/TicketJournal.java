@@ -0,0 +1,436 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of ticket open and close records, in fixed size memory-mapped segment files.
+ * Each record is framed as [length][CRC32][payload] ; the length is written last, so a record torn by a crash
+ * is either absent or fails its CRC. Recovery replays every segment and truncates the last one after its last
+ * valid record. Durability is group committed : concurrent writers share a single force() of the segment.
+ */
+class TicketJournal implements Closeable {
+
+    /**
+     * Receives records read back from the journal, in append order.
+     */
+    interface RecordHandler {
+
+        /**
+         * @param ticket ticket as it was when saved
+         */
+        void onOpen(Ticket ticket);
+
+        /**
+         * @param ticketId closed ticket
+         * @param price price of the ticket
+         * @param outTime exit time of the ticket
+         */
+        void onClose(int ticketId, double price, Instant outTime);
+    }
+
+    /**
+     * TicketJournal class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("TicketJournal");
+    /**
+     * Segment file name prefix.
+     */
+    private static final String SEGMENT_PREFIX = "tickets-";
+    /**
+     * Segment file name suffix.
+     */
+    private static final String SEGMENT_SUFFIX = ".journal";
+    /**
+     * Record header size : length and CRC32 integers.
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * Largest payload : fixed fields and a plate of at most 255 bytes.
+     */
+    private static final int MAX_PAYLOAD_SIZE = 512;
+    /**
+     * Longest plate, in UTF-8 bytes.
+     */
+    private static final int MAX_PLATE_BYTES = 255;
+    /**
+     * Record type of a saved ticket.
+     */
+    private static final byte OPEN_RECORD = 1;
+    /**
+     * Record type of a ticket update.
+     */
+    private static final byte CLOSE_RECORD = 2;
+    /**
+     * Time value written for a null Instant.
+     */
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Folder of the segment files.
+     */
+    private final Path directory;
+    /**
+     * Size of each segment file, in bytes.
+     */
+    private final int segmentSize;
+    /**
+     * Checksum of records being written, guarded by this.
+     */
+    private final CRC32 writeChecksum = new CRC32();
+    /**
+     * Payload of the record being written, guarded by this.
+     */
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD_SIZE);
+    /**
+     * Lock of the group commit state.
+     */
+    private final Object syncLock = new Object();
+
+    /**
+     * Number of the segment being written, guarded by this.
+     */
+    private long segmentNumber;
+    /**
+     * Segment being written, guarded by this.
+     */
+    private MappedByteBuffer segment;
+    /**
+     * Write offset in the current segment, guarded by this.
+     */
+    private int writePosition;
+    /**
+     * Bytes appended since opening, guarded by this.
+     */
+    private long appendedSequence;
+    /**
+     * Bytes appended since opening and known to be on disk, guarded by syncLock.
+     */
+    private long durableSequence;
+    /**
+     * Whether a writer is forcing the segment for the others, guarded by syncLock.
+     */
+    private boolean syncInProgress;
+
+    /**
+     * Constructor. Use open() to get a journal ready for writing.
+     * @param directoryToSet folder of the segment files
+     * @param segmentSizeToSet size of each segment file, in bytes
+     */
+    private TicketJournal(final Path directoryToSet, final int segmentSizeToSet) {
+        if (segmentSizeToSet < HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Journal segment size too small: " + segmentSizeToSet);
+        }
+        this.directory = directoryToSet;
+        this.segmentSize = segmentSizeToSet;
+    }
+
+    /**
+     * Replay an existing journal, repair a torn tail, and position it for appending.
+     * @param directory folder of the segment files, created if missing
+     * @param segmentSize size of new segment files, in bytes
+     * @param handler receives every valid record, in append order
+     * @return journal ready for writing
+     * @throws IOException on read failure, or corruption before the last segment
+     */
+    static TicketJournal open(final Path directory, final int segmentSize, final RecordHandler handler)
+            throws IOException {
+        Files.createDirectories(directory);
+        TicketJournal journal = new TicketJournal(directory, segmentSize);
+        List<Path> segmentFiles = journal.listSegments();
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            journal.replay(segmentFiles.get(i), i == segmentFiles.size() - 1, handler);
+        }
+        if (journal.segment == null) {
+            journal.startSegment(1);
+        }
+        return journal;
+    }
+
+    /**
+     * Append the record of a saved ticket.
+     * @param ticketId identifier given to the ticket
+     * @param ticket saved ticket
+     * @return sequence to pass to sync() for durability
+     * @throws IOException if the journal can not be extended
+     */
+    synchronized long appendOpen(final int ticketId, final Ticket ticket) throws IOException {
+        byte[] plate = ticket.getVehicleRegNumber().getBytes(StandardCharsets.UTF_8);
+        if (plate.length > MAX_PLATE_BYTES) {
+            throw new IllegalArgumentException("Vehicle registration number too long");
+        }
+        payload.clear();
+        payload.put(OPEN_RECORD);
+        payload.putInt(ticketId);
+        payload.putInt(ticket.getParkingSpot().getId());
+        payload.put((byte) ticket.getParkingSpot().getParkingType().ordinal());
+        payload.putLong(ticket.getInTime().toEpochMilli());
+        payload.putLong(ticket.getOutTime() == null ? NO_TIME : ticket.getOutTime().toEpochMilli());
+        payload.putDouble(ticket.getPrice());
+        payload.put((byte) (ticket.isDiscounted() ? 1 : 0));
+        payload.put((byte) plate.length);
+        payload.put(plate);
+        return append();
+    }
+
+    /**
+     * Append the record of a ticket update.
+     * @param ticket updated ticket, with its identifier
+     * @return sequence to pass to sync() for durability
+     * @throws IOException if the journal can not be extended
+     */
+    synchronized long appendClose(final Ticket ticket) throws IOException {
+        payload.clear();
+        payload.put(CLOSE_RECORD);
+        payload.putInt(ticket.getId());
+        payload.putDouble(ticket.getPrice());
+        payload.putLong(ticket.getOutTime() == null ? NO_TIME : ticket.getOutTime().toEpochMilli());
+        return append();
+    }
+
+    /**
+     * Wait until every record up to a sequence is on disk. The first waiting writer forces the segment
+     * for everyone appended so far, the others wait for it instead of forcing again.
+     * @param sequence value returned by an append
+     * @throws IOException if the segment can not be forced
+     */
+    void sync(final long sequence) throws IOException {
+        synchronized (syncLock) {
+            while (durableSequence < sequence && syncInProgress) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for journal sync", e);
+                }
+            }
+            if (durableSequence >= sequence) {
+                return;
+            }
+            syncInProgress = true;
+        }
+        long target;
+        MappedByteBuffer toForce;
+        synchronized (this) {
+            target = appendedSequence;
+            toForce = segment;
+        }
+        boolean forced = false;
+        try {
+            if (toForce != null) { // Null once closed, and close() already forced
+                toForce.force();
+            }
+            forced = true;
+        } finally {
+            synchronized (syncLock) {
+                if (forced) {
+                    markDurable(target);
+                }
+                syncInProgress = false;
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Force pending records to disk.
+     */
+    @Override
+    public synchronized void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    /**
+     * Frame the payload and copy it at the write position, rolling to a new segment if it does not fit.
+     * @return sequence after this record
+     * @throws IOException if a new segment can not be created
+     */
+    private long append() throws IOException {
+        if (segment == null) {
+            throw new IOException("Ticket journal is closed");
+        }
+        payload.flip();
+        int length = payload.remaining();
+        if (writePosition + HEADER_SIZE + length > segment.capacity()) {
+            segment.force();
+            synchronized (syncLock) {
+                markDurable(appendedSequence);
+            }
+            startSegment(segmentNumber + 1);
+        }
+        writeChecksum.reset();
+        writeChecksum.update(payload.array(), 0, length);
+        segment.putInt(writePosition + Integer.BYTES, (int) writeChecksum.getValue());
+        segment.position(writePosition + HEADER_SIZE);
+        segment.put(payload);
+        segment.putInt(writePosition, length); // Written last : a record without length is ignored on recovery
+        writePosition += HEADER_SIZE + length;
+        appendedSequence += HEADER_SIZE + length;
+        return appendedSequence;
+    }
+
+    /**
+     * @param sequence sequence now on disk, guarded by syncLock
+     */
+    private void markDurable(final long sequence) {
+        durableSequence = Math.max(durableSequence, sequence);
+    }
+
+    /**
+     * Create and map a new, zero filled, segment file.
+     * @param number segment number
+     * @throws IOException if the file can not be created
+     */
+    private void startSegment(final long number) throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segmentNumber = number;
+        writePosition = 0;
+        LOGGER.debug("Started journal segment {}", file);
+    }
+
+    /**
+     * Read every valid record of a segment. The last segment is kept for appending after its last valid record.
+     * @param file segment file
+     * @param last whether this is the most recent segment
+     * @param handler receives valid records
+     * @throws IOException on read failure, or invalid record in a segment that is not the last
+     */
+    private void replay(final Path file, final boolean last, final RecordHandler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        CRC32 checksum = new CRC32();
+        byte[] record = new byte[MAX_PAYLOAD_SIZE];
+        int position = 0;
+        int records = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > MAX_PAYLOAD_SIZE || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            buffer.position(position + HEADER_SIZE);
+            buffer.get(record, 0, length);
+            checksum.reset();
+            checksum.update(record, 0, length);
+            if ((int) checksum.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            decode(ByteBuffer.wrap(record, 0, length), handler);
+            position += HEADER_SIZE + length;
+            records++;
+        }
+        boolean clean = position + HEADER_SIZE > buffer.capacity() || buffer.getInt(position) == 0;
+        if (!last && !clean) {
+            throw new IOException("Corrupt journal segment " + file + " at offset " + position);
+        }
+        if (last) {
+            int torn = zeroFrom(buffer, position);
+            if (torn > 0) {
+                LOGGER.warn("Discarded {} bytes of torn record at end of journal segment {}", torn, file);
+                buffer.force();
+            }
+            segment = buffer;
+            segmentNumber = parseSegmentNumber(file);
+            writePosition = position;
+        }
+        LOGGER.info("Replayed {} records from journal segment {}", records, file);
+    }
+
+    /**
+     * @param buffer segment to clean
+     * @param from offset of the first byte to clear
+     * @return number of non zero bytes cleared
+     */
+    private static int zeroFrom(final MappedByteBuffer buffer, final int from) {
+        int cleared = 0;
+        for (int i = from; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * @param record payload of a valid record
+     * @param handler receives the decoded record
+     * @throws IOException on unknown record type
+     */
+    private static void decode(final ByteBuffer record, final RecordHandler handler) throws IOException {
+        byte type = record.get();
+        if (type == OPEN_RECORD) {
+            Ticket ticket = new Ticket();
+            ticket.setId(record.getInt());
+            int parkingNumber = record.getInt();
+            ticket.setParkingSpot(new ParkingSpot(parkingNumber, ParkingType.values()[record.get()], false));
+            ticket.setInTime(Instant.ofEpochMilli(record.getLong()));
+            long outTime = record.getLong();
+            ticket.setOutTime(outTime == NO_TIME ? null : Instant.ofEpochMilli(outTime));
+            ticket.setPrice(record.getDouble());
+            ticket.setDiscounted(record.get() == 1);
+            byte[] plate = new byte[record.get() & 0xFF];
+            record.get(plate);
+            ticket.setVehicleRegNumber(new String(plate, StandardCharsets.UTF_8));
+            handler.onOpen(ticket);
+        } else if (type == CLOSE_RECORD) {
+            int ticketId = record.getInt();
+            double price = record.getDouble();
+            long outTime = record.getLong();
+            handler.onClose(ticketId, price, outTime == NO_TIME ? null : Instant.ofEpochMilli(outTime));
+        } else {
+            throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * @return segment files, oldest first.
+     * @throws IOException if the folder can not be listed
+     */
+    private List<Path> listSegments() throws IOException {
+        List<Path> segmentFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                segmentFiles.add(file);
+            }
+        }
+        Collections.sort(segmentFiles); // Zero padded numbers : name order is segment order
+        return segmentFiles;
+    }
+
+    /**
+     * @param file segment file
+     * @return number of the segment.
+     */
+    private static long parseSegmentNumber(final Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
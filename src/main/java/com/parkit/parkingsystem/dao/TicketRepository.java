@@ -0,0 +1,38 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Storage of tickets, used by ParkingService.
+ * Implementations must be safe for concurrent gates.
+ */
+public interface TicketRepository {
+
+    /**
+     * Check whether a vehicle already had a ticket.
+     * @param vehicleRegNumber vehicle to check
+     * @return true if a previous ticket exists
+     */
+    boolean isRecurringVehicle(String vehicleRegNumber);
+
+    /**
+     * Save a new ticket. The generated identifier is set on the ticket.
+     * @param ticket object to save
+     * @return true if operation succeeded
+     */
+    boolean saveTicket(Ticket ticket);
+
+    /**
+     * Get latest ticket of a vehicle, by in-time.
+     * @param vehicleRegNumber used to retrieve ticket
+     * @return ticket object, or null if the vehicle never parked
+     */
+    Ticket getTicket(String vehicleRegNumber);
+
+    /**
+     * Record price and out-time of a ticket.
+     * @param ticket object to modify
+     * @return true if operation succeeded
+     */
+    boolean updateTicket(Ticket ticket);
+}
@@ -0,0 +1,51 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Writes of one vehicle entrance or exit across ticket and parking spot storage, applied together by commit().
+ * Writes are only registered until then, so a unit may be filled on one thread and committed on another.
+ * A unit closed without a successful commit gives back the spots it claimed.
+ * Implementations need not be safe for concurrent use of one unit.
+ */
+public interface UnitOfWork extends AutoCloseable {
+
+    /**
+     * Find and reserve the lowest free parkingSpot of a type, at once so that no other gate can get it.
+     * @param parkingType to search
+     * @return claimed parkingSpot number, 0 or -1 if none free
+     */
+    int claimNextAvailableSlot(ParkingType parkingType);
+
+    /**
+     * Register a new ticket, its generated identifier is set by commit().
+     * @param ticket object to save
+     */
+    void saveTicket(Ticket ticket);
+
+    /**
+     * Register the price and out-time of a ticket.
+     * @param ticket object to modify
+     */
+    void updateTicket(Ticket ticket);
+
+    /**
+     * Register the availability of a parkingSpot.
+     * @param parkingSpot object to modify
+     */
+    void updateParking(ParkingSpot parkingSpot);
+
+    /**
+     * Apply every registered write : ticket saves, ticket updates, then parkingSpot updates.
+     * @return true if every write succeeded
+     */
+    boolean commit();
+
+    /**
+     * Give back the spots claimed, unless commit() succeeded.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,13 @@
+package com.parkit.parkingsystem.dao;
+
+/**
+ * Opens units of work on a storage, one per vehicle entrance or exit.
+ */
+@FunctionalInterface
+public interface UnitOfWorkFactory {
+
+    /**
+     * @return new empty unit of work.
+     */
+    UnitOfWork begin();
+}
@@ -0,0 +1,12 @@
+package com.parkit.parkingsystem.metrics;
+
+/**
+ * JMX view of a gauge or counter.
+ */
+public interface GaugeMXBean {
+
+    /**
+     * @return current value.
+     */
+    double getValue();
+}
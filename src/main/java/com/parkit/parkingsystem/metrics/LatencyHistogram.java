@@ -0,0 +1,163 @@
+package com.parkit.parkingsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the HDR style : log-linear buckets, each power of two split in SUB_BUCKETS equal buckets,
+ * so that any recorded value is known within 1/SUB_BUCKETS (about 3 %) from one nanosecond to centuries.
+ * Recording is lock-free : one atomic increment of a fixed bucket array, no allocation. Reads are not atomic
+ * with recording, a percentile read during recording may miss the latest values.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Buckets per power of two, also the largest value recorded exactly.
+     */
+    private static final int SUB_BUCKETS = 32;
+    /**
+     * log2(SUB_BUCKETS).
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * Buckets needed for every positive long.
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+    /**
+     * Percent of a whole.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Name of the measured operation.
+     */
+    private final String name;
+    /**
+     * Count of values per bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * Number of values recorded.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * Sum of the values recorded.
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * Largest value recorded.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Constructor.
+     * @param nameToSet name of the measured operation
+     */
+    public LatencyHistogram(final String nameToSet) {
+        this.name = nameToSet;
+    }
+
+    /**
+     * Record a duration.
+     * @param nanos duration in nanoseconds, negative values count as 0
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long previous = max.get();
+        while (value > previous && !max.compareAndSet(previous, value)) {
+            previous = max.get();
+        }
+    }
+
+    /**
+     * Record the time elapsed since a start.
+     * @param startNanos System.nanoTime() at the start of the operation
+     */
+    public void recordSince(final long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return name of the measured operation.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of values recorded.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean of the values recorded in nanoseconds, 0 if none.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return largest value recorded in nanoseconds, 0 if none.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return value in nanoseconds which percentile percent of the recorded values do not exceed, within the
+     * bucket precision, 0 if none.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(PERCENT, Math.max(0, percentile)) / PERCENT * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @param value non negative value
+     * @return bucket of the value : the value itself below 2 * SUB_BUCKETS, then SUB_BUCKETS per power of two.
+     */
+    static int bucketOf(final long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @param bucket bucket index
+     * @return largest value falling in the bucket.
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
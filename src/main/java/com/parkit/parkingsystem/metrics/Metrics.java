@@ -0,0 +1,285 @@
+package com.parkit.parkingsystem.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process wide registry of timers, counters and gauges, by dotted name such as "dao.TicketDAO.getTicket".
+ * Call sites keep the returned timer or counter in a static field, so recording costs no lookup.
+ * start() publishes every metric over JMX and schedules a periodic text dump on the "Metrics" logger.
+ */
+public final class Metrics {
+
+    /**
+     * Metrics class logger, receiving the periodic dump.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("Metrics");
+    /**
+     * System property disabling JMX publication when "false".
+     */
+    public static final String JMX_PROPERTY = "parkingsystem.metrics.jmx";
+    /**
+     * System property giving the period of the text dump in seconds, 0 or absent for none.
+     */
+    public static final String DUMP_SECONDS_PROPERTY = "parkingsystem.metrics.dumpSeconds";
+    /**
+     * JMX domain of the metrics.
+     */
+    private static final String JMX_DOMAIN = "com.parkit.parkingsystem";
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    /**
+     * Timers by name.
+     */
+    private static final ConcurrentMap<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    /**
+     * Counters by name.
+     */
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    /**
+     * Gauges by name.
+     */
+    private static final ConcurrentMap<String, DoubleSupplier> GAUGES = new ConcurrentHashMap<>();
+    /**
+     * MBean server the metrics are published to, null until start().
+     */
+    private static volatile MBeanServer mBeanServer;
+    /**
+     * Thread of the periodic dump, null if none.
+     */
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() { };
+
+    /**
+     * @param name dotted name
+     * @return timer of the name, created on first call.
+     */
+    public static LatencyHistogram timer(final String name) {
+        LatencyHistogram timer = TIMERS.get(name);
+        if (timer == null) {
+            LatencyHistogram created = new LatencyHistogram(name);
+            timer = TIMERS.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+                publish("Timer", name, new TimerView(created));
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * @param name dotted name
+     * @return counter of the name, created on first call.
+     */
+    public static LongAdder counter(final String name) {
+        LongAdder counter = COUNTERS.get(name);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = COUNTERS.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+                publish("Counter", name, new GaugeView(created::doubleValue));
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Register a gauge, replacing any previous gauge of the same name, such as the pool of a reopened storage.
+     * @param name dotted name
+     * @param gauge reads the current value, must be cheap and thread safe
+     */
+    public static void gauge(final String name, final DoubleSupplier gauge) {
+        if (GAUGES.put(name, gauge) == null) {
+            publish("Gauge", name, new GaugeView(() -> GAUGES.get(name).getAsDouble()));
+        }
+    }
+
+    /**
+     * Publish the metrics over JMX unless disabled, and start the periodic dump if a period is set.
+     * Metrics created later are published as they come. Calling again has no effect.
+     */
+    public static synchronized void start() {
+        if (mBeanServer == null && !"false".equalsIgnoreCase(System.getProperty(JMX_PROPERTY))) {
+            mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            TIMERS.forEach((name, timer) -> publish("Timer", name, new TimerView(timer)));
+            COUNTERS.forEach((name, counter) -> publish("Counter", name, new GaugeView(counter::doubleValue)));
+            GAUGES.keySet().forEach(name -> publish("Gauge", name, new GaugeView(() -> GAUGES.get(name).getAsDouble())));
+        }
+        long period = Long.getLong(DUMP_SECONDS_PROPERTY, 0);
+        if (dumper == null && period > 0) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(Metrics::logDump, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop the periodic dump, after a last one.
+     */
+    public static synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+            logDump();
+        }
+    }
+
+    /**
+     * Write every metric, sorted by name : timers with count and mean, p50, p90, p99, p99.9 and max in microseconds,
+     * then counters and gauges.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public static void dump(final Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT, "%-48s %10s %10s %10s %10s %10s %10s %10s%n",
+                "timer (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyHistogram timer : new TreeMap<>(TIMERS).values()) {
+            out.append(String.format(Locale.ROOT, "%-48s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    timer.getName(), timer.getCount(), timer.getMean() / NANOS_PER_MICRO,
+                    timer.getValueAtPercentile(50) / NANOS_PER_MICRO, timer.getValueAtPercentile(90) / NANOS_PER_MICRO,
+                    timer.getValueAtPercentile(99) / NANOS_PER_MICRO,
+                    timer.getValueAtPercentile(99.9) / NANOS_PER_MICRO, timer.getMax() / NANOS_PER_MICRO));
+        }
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(COUNTERS).entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-48s %10d%n", counter.getKey(), counter.getValue().sum()));
+        }
+        for (Map.Entry<String, DoubleSupplier> gauge : new TreeMap<>(GAUGES).entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-48s %10.4f%n", gauge.getKey(), gauge.getValue().getAsDouble()));
+        }
+    }
+
+    /**
+     * Write the dump to the Metrics logger, unless its level would drop it.
+     */
+    private static void logDump() {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        try {
+            StringBuilder text = new StringBuilder("Metrics\n");
+            dump(text);
+            LOGGER.info(text);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to dump metrics", e);
+        }
+    }
+
+    /**
+     * Register an MBean if JMX publication started, replacing any MBean of the same name.
+     * @param type JMX type of the metric
+     * @param name dotted name
+     * @param mBean view of the metric
+     */
+    private static void publish(final String type, final String name, final Object mBean) {
+        MBeanServer server = mBeanServer;
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mBean, objectName);
+        } catch (JMException e) {
+            LOGGER.error("Unable to publish metric {}", name, e);
+        }
+    }
+
+    /**
+     * JMX view of a timer.
+     */
+    private static final class TimerView implements TimerMXBean {
+
+        /**
+         * Viewed timer.
+         */
+        private final LatencyHistogram timer;
+
+        /**
+         * Constructor.
+         * @param timerToSet viewed timer
+         */
+        TimerView(final LatencyHistogram timerToSet) {
+            this.timer = timerToSet;
+        }
+
+        @Override
+        public long getCount() {
+            return timer.getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return timer.getMean() / NANOS_PER_MICRO;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return timer.getValueAtPercentile(50) / NANOS_PER_MICRO;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return timer.getValueAtPercentile(99) / NANOS_PER_MICRO;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return timer.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return timer.getMax() / NANOS_PER_MICRO;
+        }
+    }
+
+    /**
+     * JMX view of a counter or gauge.
+     */
+    private static final class GaugeView implements GaugeMXBean {
+
+        /**
+         * Reads the current value.
+         */
+        private final DoubleSupplier value;
+
+        /**
+         * Constructor.
+         * @param valueToSet reads the current value
+         */
+        GaugeView(final DoubleSupplier valueToSet) {
+            this.value = valueToSet;
+        }
+
+        @Override
+        public double getValue() {
+            return value.getAsDouble();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.parkit.parkingsystem.metrics;
+
+/**
+ * JMX view of a LatencyHistogram, in microseconds.
+ */
+public interface TimerMXBean {
+
+    /**
+     * @return number of operations timed.
+     */
+    long getCount();
+
+    /**
+     * @return mean duration.
+     */
+    double getMeanMicros();
+
+    /**
+     * @return median duration.
+     */
+    double getP50Micros();
+
+    /**
+     * @return 99th percentile duration.
+     */
+    double getP99Micros();
+
+    /**
+     * @return 99.9th percentile duration.
+     */
+    double getP999Micros();
+
+    /**
+     * @return longest duration.
+     */
+    double getMaxMicros();
+}
@@ -0,0 +1,67 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.time.Instant;
+
+public class GateEvent {
+    /**
+     * When the vehicle passed the gate.
+     */
+    private final Instant time;
+    /**
+     * True for an exit, false for an entrance.
+     */
+    private final boolean exit;
+    /**
+     * Type of the vehicle.
+     */
+    private final ParkingType parkingType;
+    /**
+     * Vehicle Registration Number.
+     */
+    private final String vehicleRegNumber;
+
+    /**
+     * Constructor.
+     * @param timeToSet when the vehicle passed the gate
+     * @param exitToSet true for an exit, false for an entrance
+     * @param parkingTypeToSet type of the vehicle
+     * @param vehicleRegNumberToSet vehicle registration number
+     */
+    public GateEvent(final Instant timeToSet, final boolean exitToSet, final ParkingType parkingTypeToSet,
+                     final String vehicleRegNumberToSet) {
+        this.time = timeToSet;
+        this.exit = exitToSet;
+        this.parkingType = parkingTypeToSet;
+        this.vehicleRegNumber = vehicleRegNumberToSet;
+    }
+
+    /**
+     * @return when the vehicle passed the gate
+     */
+    public Instant getTime() {
+        return time;
+    }
+
+    /**
+     * @return true for an exit, false for an entrance
+     */
+    public boolean isExit() {
+        return exit;
+    }
+
+    /**
+     * @return type of the vehicle
+     */
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    /**
+     * @return vehicle registration number
+     */
+    public String getVehicleRegNumber() {
+        return vehicleRegNumber;
+    }
+}
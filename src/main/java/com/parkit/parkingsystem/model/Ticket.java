@@ -32,6 +32,27 @@ public class Ticket {
      */
     private boolean isDiscounted = false;
 
+    /**
+     * Default constructor.
+     */
+    public Ticket() {
+    }
+
+    /**
+     * Copy constructor. The ParkingSpot is copied too.
+     * @param ticket Ticket to copy
+     */
+    public Ticket(final Ticket ticket) {
+        this.id = ticket.id;
+        this.parkingSpot = ticket.parkingSpot == null ? null : new ParkingSpot(ticket.parkingSpot.getId(),
+                ticket.parkingSpot.getParkingType(), ticket.parkingSpot.isAvailable());
+        this.vehicleRegNumber = ticket.vehicleRegNumber;
+        this.price = ticket.price;
+        this.inTime = ticket.inTime;
+        this.outTime = ticket.outTime;
+        this.isDiscounted = ticket.isDiscounted;
+    }
+
     /**
      * @return unique identifier
      */
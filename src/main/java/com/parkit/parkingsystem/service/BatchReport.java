@@ -0,0 +1,127 @@
+package com.parkit.parkingsystem.service;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Outcome of a GateEventBatch run : events played, failures and throughput.
+ */
+public final class BatchReport {
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Number of workers, 1 for a run in file order.
+     */
+    private final int parallelism;
+    /**
+     * Entrances played.
+     */
+    private final long entries;
+    /**
+     * Exits played.
+     */
+    private final long exits;
+    /**
+     * Entrances which saved no ticket.
+     */
+    private final long failedEntries;
+    /**
+     * Exits which closed no ticket.
+     */
+    private final long failedExits;
+    /**
+     * Wall clock duration of the run, in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Constructor.
+     * @param parallelismToSet number of workers
+     * @param entriesToSet entrances played
+     * @param exitsToSet exits played
+     * @param failedEntriesToSet entrances which saved no ticket
+     * @param failedExitsToSet exits which closed no ticket
+     * @param elapsedNanosToSet wall clock duration of the run, in nanoseconds
+     */
+    BatchReport(final int parallelismToSet, final long entriesToSet, final long exitsToSet,
+                final long failedEntriesToSet, final long failedExitsToSet, final long elapsedNanosToSet) {
+        this.parallelism = parallelismToSet;
+        this.entries = entriesToSet;
+        this.exits = exitsToSet;
+        this.failedEntries = failedEntriesToSet;
+        this.failedExits = failedExitsToSet;
+        this.elapsedNanos = elapsedNanosToSet;
+    }
+
+    /**
+     * @return number of workers, 1 for a run in file order.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return entrances played.
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return exits played.
+     */
+    public long getExits() {
+        return exits;
+    }
+
+    /**
+     * @return entrances and exits played.
+     */
+    public long getEventCount() {
+        return entries + exits;
+    }
+
+    /**
+     * @return entrances which saved no ticket.
+     */
+    public long getFailedEntries() {
+        return failedEntries;
+    }
+
+    /**
+     * @return exits which closed no ticket.
+     */
+    public long getFailedExits() {
+        return failedExits;
+    }
+
+    /**
+     * @return entrances and exits which saved or closed no ticket.
+     */
+    public long getFailureCount() {
+        return failedEntries + failedExits;
+    }
+
+    /**
+     * @return events played per wall clock second.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getEventCount() * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    /**
+     * Write the report on one line.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void write(final Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT,
+                "workers : %d, entries : %d, exits : %d, failed entries : %d, failed exits : %d, elapsed : %.3f s, "
+                        + "ops/s : %.0f%n", parallelism, entries, exits, failedEntries, failedExits,
+                elapsedNanos / NANOS_PER_SECOND, getThroughput()));
+    }
+}
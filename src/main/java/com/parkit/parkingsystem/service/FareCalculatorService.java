@@ -1,15 +1,59 @@
 package com.parkit.parkingsystem.service;
 
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
 import com.parkit.parkingsystem.model.Ticket;
 
-import java.text.DecimalFormat;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 public class FareCalculatorService {
 
     /**
-     * DecimalFormat use for fare format
+     * Minutes per hour, tariff rate-minutes are divided by it.
      */
-    private static DecimalFormat fareFormat = new DecimalFormat("#,##0.00");
+    private static final long MINUTES_PER_HOUR = 60;
+    /**
+     * Full price, in percent.
+     */
+    private static final long FULL_PERCENT = 100;
+    /**
+     * Milliseconds per minute.
+     */
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    /**
+     * Cents per currency unit.
+     */
+    private static final double CENTS_PER_UNIT = 100.0;
+    /**
+     * Duration of calculateFare().
+     */
+    private static final LatencyHistogram CALCULATE_FARE_TIMER = Metrics.timer("service.calculateFare");
+
+    /**
+     * Rounding of prices to the cent.
+     */
+    private final RoundingMode roundingMode;
+    /**
+     * Pricing rules, replaced as a whole when a new tariff is loaded.
+     */
+    private volatile Tariff tariff = Tariff.standard();
+
+    /**
+     * Default constructor, rounding half-even to the cent.
+     */
+    public FareCalculatorService() {
+        this(RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Constructor.
+     * @param roundingModeToSet rounding of prices to the cent
+     */
+    public FareCalculatorService(final RoundingMode roundingModeToSet) {
+        this.roundingMode = roundingModeToSet;
+    }
 
     /**
      * Calculate parking fare based on user ticket.
@@ -17,6 +61,7 @@ public class FareCalculatorService {
      * @param ticket passed from ParkingService.processExitingVehicle()
      */
     public void calculateFare(final Ticket ticket) {
+        long start = System.nanoTime();
         if ((ticket.getOutTime() == null)) {
             throw new IllegalArgumentException("No out time provided");
         }
@@ -24,29 +69,135 @@ public class FareCalculatorService {
             throw new IllegalArgumentException("Out time provided is incorrect:" + ticket.getOutTime().toString());
         }
 
-        // Get duration in milliseconds by subtracting milliseconds equivalent outTime by milliseconds equivalent inTime.
-        long durationInMs = ticket.getOutTime().toEpochMilli() - ticket.getInTime().toEpochMilli();
-        // Divide by number of milliseconds in one hour to get hour equivalent parking duration.
-        double durationInHour = durationInMs / (60. * 60. * 1000.);
+        long priceCents = calculateFareCents(
+                Math.floorDiv(ticket.getInTime().toEpochMilli(), MILLIS_PER_MINUTE),
+                Math.floorDiv(ticket.getOutTime().toEpochMilli(), MILLIS_PER_MINUTE),
+                ticket.getParkingSpot().getParkingType(),
+                ticket.isDiscounted());
+        ticket.setPrice(priceCents / CENTS_PER_UNIT);
+        CALCULATE_FARE_TIMER.recordSince(start);
+    }
 
-        // Free 30 minutes parking feature implementation
-        if (durationInHour < 0.5) {
-            ticket.setPrice(0);
-        } else {
-            double finalPrice = 0;
-            finalPrice = durationInHour * ticket.getParkingSpot().getParkingType().getFare();
+    /**
+     * Calculate parking fare in integer arithmetic. Thread-safe, allocates nothing.
+     * The price is rounded once, after the discount is applied.
+     *
+     * @param inEpochMinute entrance time, in minutes since epoch
+     * @param outEpochMinute exit time, in minutes since epoch
+     * @param parkingType type of the spot
+     * @param discounted whether the recurring user discount applies
+     * @return price, in cents
+     * @throws ArithmeticException if the price needs rounding under RoundingMode.UNNECESSARY, or overflows
+     */
+    public long calculateFareCents(final long inEpochMinute, final long outEpochMinute,
+                                   final ParkingType parkingType, final boolean discounted) {
+        long minutes = outEpochMinute - inEpochMinute;
+        if (minutes < 0) {
+            throw new IllegalArgumentException("Out time provided is incorrect");
+        }
+        Tariff current = tariff; // A single tariff prices the whole stay, even if swapped meanwhile
+        long percent = discounted ? FULL_PERCENT - current.getDiscountPercent() : FULL_PERCENT;
+        long numerator = Math.multiplyExact(current.getRateMinutes(inEpochMinute, outEpochMinute, parkingType), percent);
+        return divide(numerator, MINUTES_PER_HOUR * FULL_PERCENT, roundingMode);
+    }
 
-            // Discount for recurring user feature implementation
-            if (ticket.isDiscounted()) {
-                finalPrice *= 0.95;
+    /**
+     * Quote the amount due now for many parked vehicles, from columnar arrays, without allocation.
+     * Each amount equals calculateFareCents(inEpochMinutes[i], nowEpochMinute, type, discounted[i]) ;
+     * entrances after nowEpochMinute are quoted 0 rather than rejected.
+     * Prices are computed by the tariff in a first pass, then discounted and rounded in a second branch-free
+     * pass over primitive arrays only.
+     *
+     * @param nowEpochMinute quote time, in minutes since epoch
+     * @param inEpochMinutes entrance times, in minutes since epoch
+     * @param parkingTypeOrdinals ParkingType ordinal of each vehicle
+     * @param discounted whether the recurring user discount applies to each vehicle
+     * @param amountsCents receives the amount due of each vehicle, in cents
+     * @param count number of vehicles, from the start of every array
+     * @throws ArithmeticException if a price needs rounding under RoundingMode.UNNECESSARY, or overflows
+     */
+    public void quoteFareCents(final long nowEpochMinute, final long[] inEpochMinutes, final byte[] parkingTypeOrdinals,
+                               final boolean[] discounted, final long[] amountsCents, final int count) {
+        if (count < 0 || inEpochMinutes.length < count || parkingTypeOrdinals.length < count
+                || discounted.length < count || amountsCents.length < count) {
+            throw new IllegalArgumentException("Arrays shorter than count " + count);
+        }
+        Tariff current = tariff; // A single tariff prices the whole lot, even if swapped meanwhile
+        current.getRateMinutes(inEpochMinutes, parkingTypeOrdinals, nowEpochMinute, amountsCents, count);
+        long discountedPercent = FULL_PERCENT - current.getDiscountPercent();
+        long denominator = MINUTES_PER_HOUR * FULL_PERCENT;
+        if (roundingMode == RoundingMode.HALF_EVEN) {
+            for (int i = 0; i < count; i++) {
+                long numerator = Math.multiplyExact(amountsCents[i], discounted[i] ? discountedPercent : FULL_PERCENT);
+                long quotient = numerator / denominator;
+                long twice = (numerator - quotient * denominator) * 2;
+                long roundUp = twice > denominator || (twice == denominator && (quotient & 1) == 1) ? 1 : 0;
+                amountsCents[i] = quotient + roundUp;
             }
+        } else {
+            for (int i = 0; i < count; i++) {
+                long percent = discounted[i] ? discountedPercent : FULL_PERCENT;
+                amountsCents[i] = divide(Math.multiplyExact(amountsCents[i], percent), denominator, roundingMode);
+            }
+        }
+    }
 
-            ticket.setPrice(formatFare(finalPrice));
+    /**
+     * @return pricing rules in use.
+     */
+    public Tariff getTariff() {
+        return tariff;
+    }
+
+    /**
+     * Set tariff member attribute. Takes effect for every following price, without pausing gates.
+     * @param tariffToSet compiled pricing rules
+     */
+    public void setTariff(final Tariff tariffToSet) {
+        this.tariff = tariffToSet;
+    }
+
+    /**
+     * Divide non-negative integers with explicit rounding.
+     *
+     * @param numerator dividend, not negative
+     * @param denominator divisor, positive
+     * @param mode rounding applied to the quotient
+     * @return rounded quotient
+     * @throws ArithmeticException if rounding is needed under RoundingMode.UNNECESSARY
+     */
+    static long divide(final long numerator, final long denominator, final RoundingMode mode) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long twice = remainder * 2;
+        switch (mode) {
+            case DOWN:
+            case FLOOR:
+                return quotient;
+            case UP:
+            case CEILING:
+                return quotient + 1;
+            case HALF_UP:
+                return twice >= denominator ? quotient + 1 : quotient;
+            case HALF_DOWN:
+                return twice > denominator ? quotient + 1 : quotient;
+            case HALF_EVEN:
+                return twice > denominator || (twice == denominator && (quotient & 1) == 1) ? quotient + 1 : quotient;
+            default:
+                throw new ArithmeticException("Rounding necessary");
         }
     }
 
+    /**
+     * Round an amount half-even to the cent. Thread-safe ; prices are computed by calculateFareCents.
+     *
+     * @param fare amount to round
+     * @return amount with at most two decimals
+     */
     public static double formatFare(final double fare) {
-        String priceToParse = fareFormat.format(fare).replace(',', '.');
-        return Double.parseDouble((priceToParse));
+        return new BigDecimal(fare).setScale(2, RoundingMode.HALF_EVEN).doubleValue();
     }
 }
@@ -0,0 +1,279 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.GateEvent;
+import com.parkit.parkingsystem.util.GateEventReader;
+import com.parkit.parkingsystem.util.ProgrammaticInputReader;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch ingestion of an offline gate log, for back-office reconciliation : events are read with a GateEventReader
+ * and played through ParkingService with their recorded times, without console prompts.
+ * With a parallelism of 1, events are played in file order. Above, each vehicle is handled by one worker,
+ * chosen by registration number, which plays its events in file order : the tickets of a vehicle are the same,
+ * but vehicles of different workers interleave, so spot numbers and full-parking refusals may differ.
+ */
+public class GateEventBatch {
+
+    /**
+     * GateEventBatch class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("GateEventBatch");
+    /**
+     * Default events waiting per worker.
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    /**
+     * Marks the end of the events of a worker.
+     */
+    private static final GateEvent END = new GateEvent(Instant.EPOCH, false, ParkingType.CAR, "");
+
+    /**
+     * Shared storage.
+     */
+    private final StorageBackend storageBackend;
+    /**
+     * Number of workers, 1 to play events in file order.
+     */
+    private int parallelism = 1;
+    /**
+     * Events waiting per worker before the reader blocks.
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * ParkingService of a worker, with its clock set to each event time.
+     */
+    private final class Gate {
+
+        /**
+         * Answers to the service prompts.
+         */
+        private final ProgrammaticInputReader inputReader = new ProgrammaticInputReader();
+        /**
+         * Time of the events played, moved forward to each one.
+         */
+        private final SimulatedClock clock = new SimulatedClock(Instant.EPOCH, 0);
+        /**
+         * Service of the worker.
+         */
+        private final ParkingService parkingService;
+        /**
+         * Entrances played.
+         */
+        private long entries;
+        /**
+         * Exits played.
+         */
+        private long exits;
+        /**
+         * Entrances which saved no ticket.
+         */
+        private long failedEntries;
+        /**
+         * Exits which closed no ticket.
+         */
+        private long failedExits;
+
+        /**
+         * Constructor.
+         */
+        Gate() {
+            parkingService = new ParkingService(inputReader, storageBackend.getParkingSpotRepository(),
+                    storageBackend.getTicketRepository());
+            parkingService.setClock(clock);
+            parkingService.setOutput(GateOutput.NONE);
+            parkingService.setUnitOfWorkFactory(storageBackend.getUnitOfWorkFactory());
+        }
+
+        /**
+         * Play one event.
+         * @param timeMillis recorded time, in milliseconds since epoch
+         * @param exit true for an exit
+         * @param parkingType type of the vehicle
+         * @param vehicleRegNumber registration number
+         */
+        void play(final long timeMillis, final boolean exit, final ParkingType parkingType,
+                  final String vehicleRegNumber) {
+            clock.advanceTo(Instant.ofEpochMilli(timeMillis));
+            inputReader.setSelection(parkingType == ParkingType.CAR ? 1 : 2);
+            inputReader.setVehicleRegNumber(vehicleRegNumber);
+            if (exit) {
+                exits++;
+                if (parkingService.processExitingVehicle() == null) {
+                    failedExits++;
+                }
+            } else {
+                entries++;
+                if (parkingService.processIncomingVehicle() == null) {
+                    failedEntries++;
+                }
+            }
+        }
+
+        /**
+         * Play the events of a queue until END.
+         * @param queue events of the worker
+         * @return null
+         * @throws InterruptedException if interrupted while waiting for an event
+         */
+        Void drain(final BlockingQueue<GateEvent> queue) throws InterruptedException {
+            for (GateEvent event = queue.take(); event != END; event = queue.take()) {
+                try {
+                    play(event.getTime().toEpochMilli(), event.isExit(), event.getParkingType(),
+                            event.getVehicleRegNumber());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to play event of {}", event.getVehicleRegNumber(), e);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param storageBackendToSet opened storage
+     */
+    public GateEventBatch(final StorageBackend storageBackendToSet) {
+        this.storageBackend = storageBackendToSet;
+    }
+
+    /**
+     * Play every event of a gate log.
+     * @param file gate log, in time order
+     * @return counts and throughput
+     * @throws IOException on read failure or malformed event
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public BatchReport run(final Path file) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Gate> gates = new ArrayList<>();
+        try (GateEventReader reader = new GateEventReader(file)) {
+            if (parallelism == 1) {
+                Gate gate = new Gate();
+                gates.add(gate);
+                while (reader.next()) {
+                    gate.play(reader.getTimeMillis(), reader.isExit(), reader.getParkingType(),
+                            reader.getVehicleRegNumber());
+                }
+            } else {
+                dispatch(reader, gates);
+            }
+        }
+        long entries = 0;
+        long exits = 0;
+        long failedEntries = 0;
+        long failedExits = 0;
+        for (Gate gate : gates) {
+            entries += gate.entries;
+            exits += gate.exits;
+            failedEntries += gate.failedEntries;
+            failedExits += gate.failedExits;
+        }
+        return new BatchReport(parallelism, entries, exits, failedEntries, failedExits, System.nanoTime() - start);
+    }
+
+    /**
+     * Hand each event to the worker of its vehicle, then wait for the workers.
+     * @param reader gate log
+     * @param gates filled with the gates of the workers
+     * @throws IOException on read failure or malformed event
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    private void dispatch(final GateEventReader reader, final List<Gate> gates) throws IOException, InterruptedException {
+        List<BlockingQueue<GateEvent>> queues = new ArrayList<>();
+        List<Future<Void>> workers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                Gate gate = new Gate();
+                BlockingQueue<GateEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+                gates.add(gate);
+                queues.add(queue);
+                workers.add(executor.submit(() -> gate.drain(queue)));
+            }
+            try {
+                while (reader.next()) {
+                    queues.get(Math.floorMod(reader.getVehicleRegNumberHash(), parallelism)).put(reader.toEvent());
+                }
+            } finally {
+                for (BlockingQueue<GateEvent> queue : queues) {
+                    queue.put(END);
+                }
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Gate worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Set parallelism member attribute.
+     * @param parallelismToSet number of workers, 1 to play events in file order
+     */
+    public void setParallelism(final int parallelismToSet) {
+        if (parallelismToSet < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelismToSet;
+    }
+
+    /**
+     * Set queueCapacity member attribute.
+     * @param queueCapacityToSet events waiting per worker before the reader blocks, at least 1
+     */
+    public void setQueueCapacity(final int queueCapacityToSet) {
+        if (queueCapacityToSet < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacityToSet;
+    }
+
+    /**
+     * Play a gate log against the storage selected by the InteractiveShell system properties and print the report.
+     * @param args gate log file, then optional number of workers
+     * @throws Exception on storage or log failure
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: GateEventBatch <gate log file> [workers]");
+            return;
+        }
+        StorageBackend storageBackend = StorageBackend.open(
+                System.getProperty(InteractiveShell.STORAGE_PROPERTY, "mysql"),
+                System.getProperty(InteractiveShell.MEMORY_LAYOUT_PROPERTY, InteractiveShell.DEFAULT_MEMORY_LAYOUT),
+                Paths.get(System.getProperty(InteractiveShell.JOURNAL_DIRECTORY_PROPERTY, "data/journal")));
+        GateEventBatch batch = new GateEventBatch(storageBackend);
+        if (args.length == 2) {
+            batch.setParallelism(Integer.parseInt(args[1]));
+        }
+        BatchReport report;
+        try {
+            report = batch.run(Paths.get(args[0]));
+        } finally {
+            storageBackend.shutdown();
+        }
+        LOGGER.info("Ingested {}", args[0]);
+        report.write(System.out);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,197 @@
+package com.parkit.parkingsystem.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketCache;
+import com.parkit.parkingsystem.model.GateEvent;
+import com.parkit.parkingsystem.util.GateEventLog;
+import com.parkit.parkingsystem.util.ProgrammaticInputReader;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replay driver : plays recorded gate events through ParkingService as fast as the storage answers,
+ * with in and out times read from a SimulatedClock moved to each event time. A week of traffic runs in minutes,
+ * with the fares and the cache expiry it had in real time. Events are played in log order, on one gate.
+ */
+public class GateEventReplay {
+
+    /**
+     * GateEventReplay class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("GateEventReplay");
+
+    /**
+     * Simulated time, moved to each event.
+     */
+    private final SimulatedClock clock;
+    /**
+     * Answers to the service prompts.
+     */
+    private final ProgrammaticInputReader inputReader = new ProgrammaticInputReader();
+    /**
+     * Service under replay.
+     */
+    private final ParkingService parkingService;
+    /**
+     * Latest ticket cache of the storage, or null.
+     */
+    private final TicketCache ticketCache;
+    /**
+     * Lines of the days already replayed.
+     */
+    private final List<ReplayReport.Day> days = new ArrayList<>();
+    /**
+     * Day being replayed, UTC, or null before the first event.
+     */
+    private LocalDate day;
+    /**
+     * Entrances played on the current day.
+     */
+    private long entries;
+    /**
+     * Exits played on the current day.
+     */
+    private long exits;
+    /**
+     * Entrances of the current day which saved no ticket.
+     */
+    private long failedEntries;
+    /**
+     * Exits of the current day which closed no ticket.
+     */
+    private long failedExits;
+    /**
+     * Time spent in ParkingService on the current day, in nanoseconds.
+     */
+    private long serviceNanos;
+    /**
+     * Cache counters at the start of the current day.
+     */
+    private CacheStats dayStartStats;
+    /**
+     * Simulated time of the first event, or null.
+     */
+    private Instant firstEventTime;
+    /**
+     * Simulated time of the last event, or null.
+     */
+    private Instant lastEventTime;
+
+    /**
+     * Constructor.
+     * @param storageBackend opened storage, with its time dependent state following the clock
+     * @param clockToSet simulated time, moved to each event
+     */
+    public GateEventReplay(final StorageBackend storageBackend, final SimulatedClock clockToSet) {
+        this.clock = clockToSet;
+        this.parkingService = new ParkingService(inputReader, storageBackend.getParkingSpotRepository(),
+                storageBackend.getTicketRepository());
+        this.parkingService.setClock(clockToSet);
+        this.parkingService.setOutput(GateOutput.NONE);
+        this.parkingService.setUnitOfWorkFactory(storageBackend.getUnitOfWorkFactory());
+        this.ticketCache = storageBackend.getTicketCache();
+    }
+
+    /**
+     * Play every event of a gate log. Events older than the clock are played at the clock time.
+     * @param log recorded gate events, in time order
+     * @return per day counts, throughput and cache hit rate
+     * @throws IOException on read failure or malformed event
+     */
+    public ReplayReport replay(final BufferedReader log) throws IOException {
+        long start = System.nanoTime();
+        GateEventLog.read(log, this::play);
+        if (day != null) {
+            endDay();
+        }
+        return new ReplayReport(days, System.nanoTime() - start, firstEventTime, lastEventTime);
+    }
+
+    /**
+     * Play one event.
+     * @param event recorded entrance or exit
+     */
+    private void play(final GateEvent event) {
+        Instant time = clock.advanceTo(event.getTime());
+        LocalDate eventDay = time.atZone(ZoneOffset.UTC).toLocalDate();
+        if (!eventDay.equals(day)) {
+            if (day != null) {
+                endDay();
+            }
+            day = eventDay;
+            dayStartStats = ticketCache == null ? null : ticketCache.getStats();
+        }
+        if (firstEventTime == null) {
+            firstEventTime = time;
+        }
+        lastEventTime = time;
+        inputReader.setSelection(event.getParkingType() == ParkingType.CAR ? 1 : 2);
+        inputReader.setVehicleRegNumber(event.getVehicleRegNumber());
+        long begin = System.nanoTime();
+        if (event.isExit()) {
+            exits++;
+            if (parkingService.processExitingVehicle() == null) {
+                failedExits++;
+            }
+        } else {
+            entries++;
+            if (parkingService.processIncomingVehicle() == null) {
+                failedEntries++;
+            }
+        }
+        serviceNanos += System.nanoTime() - begin;
+    }
+
+    /**
+     * Record the line of the current day and reset the day counters.
+     */
+    private void endDay() {
+        CacheStats dayStats = ticketCache == null ? null : ticketCache.getStats().minus(dayStartStats);
+        days.add(new ReplayReport.Day(day, entries, exits, failedEntries, failedExits, serviceNanos,
+                dayStats == null ? Double.NaN : dayStats.hitRate()));
+        entries = 0;
+        exits = 0;
+        failedEntries = 0;
+        failedExits = 0;
+        serviceNanos = 0;
+    }
+
+    /**
+     * Replay a gate log against the storage selected by the InteractiveShell system properties and print the report.
+     * @param args gate log file
+     * @throws Exception on storage or log failure
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: GateEventReplay <gate log file>");
+            return;
+        }
+        SimulatedClock clock = new SimulatedClock(Instant.EPOCH, 0);
+        StorageBackend storageBackend = StorageBackend.open(
+                System.getProperty(InteractiveShell.STORAGE_PROPERTY, "mysql"),
+                System.getProperty(InteractiveShell.MEMORY_LAYOUT_PROPERTY, InteractiveShell.DEFAULT_MEMORY_LAYOUT),
+                Paths.get(System.getProperty(InteractiveShell.JOURNAL_DIRECTORY_PROPERTY, "data/journal")), clock);
+        ReplayReport report;
+        try (BufferedReader log = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            report = new GateEventReplay(storageBackend, clock).replay(log);
+        } finally {
+            storageBackend.shutdown();
+        }
+        LOGGER.info("Replayed {}", args[0]);
+        report.write(System.out);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,29 @@
+package com.parkit.parkingsystem.service;
+
+import java.io.PrintStream;
+
+/**
+ * Where ParkingService writes its prompts and per-vehicle messages : the console for the interactive shell,
+ * nowhere for the gate server, the load generator, the replays and the benchmarks.
+ */
+@FunctionalInterface
+public interface GateOutput {
+
+    /**
+     * Output discarding every message, without formatting or locking.
+     */
+    GateOutput NONE = line -> { };
+
+    /**
+     * @param line message to write, without line separator
+     */
+    void println(String line);
+
+    /**
+     * @param stream destination, such as System.out
+     * @return output writing each message on its own line of the stream.
+     */
+    static GateOutput of(final PrintStream stream) {
+        return stream::println;
+    }
+}
@@ -0,0 +1,668 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.QueryProfiler;
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.ProgrammaticInputReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * HTTP/JSON gate API over ParkingService, for many physical gates per process :
+ * <ul>
+ * <li>POST /entry with type (CAR or BIKE) and plate : 201 with the ticket, 409 if the vehicle could not be parked,</li>
+ * <li>POST /exit with plate : 200 with the closed ticket and its price, 404 if the vehicle has no open ticket,</li>
+ * <li>GET /quote with plate : 200 with the price if the vehicle left now, 404 if it has no open ticket,</li>
+ * <li>GET /metrics : text dump of the latency histograms, counters and gauges,</li>
+ * <li>GET /queries : text dump of the slowest and latest SQL statements, see QueryProfiler.</li>
+ * </ul>
+ * Parameters come from the query string or a form encoded body. The JDK server multiplexes every connection on one
+ * selector thread and hands requests to a fixed pool of workers, each with its own ParkingService. Entrances and exits
+ * run their storage calls on the database executor of the storage and answer when done, freeing the worker at once.
+ * Requests beyond the bounded queue are answered 503 at once by dedicated threads, so that latency stays bounded under
+ * overload and a slow client of a refused request does not stall the selector thread.
+ */
+public class GateServer {
+
+    /**
+     * GateServer class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("GateServer");
+    /**
+     * System property giving the listening port.
+     */
+    public static final String PORT_PROPERTY = "parkingsystem.server.port";
+    /**
+     * System property giving the number of worker threads.
+     */
+    public static final String WORKERS_PROPERTY = "parkingsystem.server.workers";
+    /**
+     * System property giving the number of requests waiting for a worker before new ones are refused.
+     */
+    public static final String QUEUE_CAPACITY_PROPERTY = "parkingsystem.server.queueCapacity";
+    /**
+     * Default listening port.
+     */
+    private static final int DEFAULT_PORT = 8080;
+    /**
+     * Default workers : gate requests mostly wait on storage, so more than the cores.
+     */
+    private static final int DEFAULT_WORKERS = 4 * Runtime.getRuntime().availableProcessors();
+    /**
+     * Default number of requests waiting for a worker.
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    /**
+     * Pending connections accepted by the operating system.
+     */
+    private static final int BACKLOG = 4_096;
+    /**
+     * Largest request body read, in bytes : gate parameters are a few dozen bytes.
+     */
+    private static final int MAX_BODY_BYTES = 1_024;
+    /**
+     * Delay given to exchanges in progress when stopping, in seconds.
+     */
+    private static final int STOP_DELAY_SECONDS = 1;
+    /**
+     * HTTP status : OK.
+     */
+    private static final int OK = 200;
+    /**
+     * HTTP status : created.
+     */
+    private static final int CREATED = 201;
+    /**
+     * HTTP status : bad request.
+     */
+    private static final int BAD_REQUEST = 400;
+    /**
+     * HTTP status : not found.
+     */
+    private static final int NOT_FOUND = 404;
+    /**
+     * HTTP status : method not allowed.
+     */
+    private static final int METHOD_NOT_ALLOWED = 405;
+    /**
+     * HTTP status : conflict.
+     */
+    private static final int CONFLICT = 409;
+    /**
+     * HTTP status : request too large.
+     */
+    private static final int PAYLOAD_TOO_LARGE = 413;
+    /**
+     * HTTP status : internal error.
+     */
+    private static final int INTERNAL_ERROR = 500;
+    /**
+     * HTTP status : service unavailable.
+     */
+    private static final int SERVICE_UNAVAILABLE = 503;
+    /**
+     * Threads answering the requests refused by the workers.
+     */
+    private static final int REJECTION_THREADS = 2;
+    /**
+     * Set on a rejection thread while it answers a request refused by the workers.
+     */
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Shared storage.
+     */
+    private final StorageBackend storageBackend;
+    /**
+     * Shared fare calculator.
+     */
+    private final FareCalculatorService fareCalculatorService;
+    /**
+     * ParkingService and its input of each worker thread.
+     */
+    private final ThreadLocal<Gate> gates = ThreadLocal.withInitial(this::newGate);
+    /**
+     * Source of in and out times.
+     */
+    private Clock clock = Clock.systemUTC();
+    /**
+     * Number of worker threads.
+     */
+    private int workers = DEFAULT_WORKERS;
+    /**
+     * Requests waiting for a worker before new ones are refused.
+     */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /**
+     * Running server, or null.
+     */
+    private HttpServer server;
+    /**
+     * Workers of the running server, or null.
+     */
+    private ThreadPoolExecutor executor;
+    /**
+     * Answers 503 to the requests refused by the workers, or null.
+     */
+    private ThreadPoolExecutor rejectionExecutor;
+
+    /**
+     * ParkingService of a worker thread, answering its prompts from the request parameters.
+     */
+    private static final class Gate {
+
+        /**
+         * Answers to the service prompts.
+         */
+        private final ProgrammaticInputReader inputReader;
+        /**
+         * Service of the thread.
+         */
+        private final ParkingService parkingService;
+
+        /**
+         * Constructor.
+         * @param inputReaderToSet answers to the service prompts
+         * @param parkingServiceToSet service of the thread
+         */
+        Gate(final ProgrammaticInputReader inputReaderToSet, final ParkingService parkingServiceToSet) {
+            this.inputReader = inputReaderToSet;
+            this.parkingService = parkingServiceToSet;
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param storageBackendToSet opened storage, shared by every worker
+     * @param fareCalculatorServiceToSet fare calculator, shared by every worker
+     */
+    public GateServer(final StorageBackend storageBackendToSet, final FareCalculatorService fareCalculatorServiceToSet) {
+        this.storageBackend = storageBackendToSet;
+        this.fareCalculatorService = fareCalculatorServiceToSet;
+    }
+
+    /**
+     * Start listening.
+     * @param address listening address, port 0 for any free port
+     * @throws IOException if the address can not be bound
+     * @throws IllegalStateException if already started
+     */
+    public synchronized void start(final InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Gate server already started");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        AtomicInteger rejectionThreadCount = new AtomicInteger();
+        // Refused requests are answered 503 off the selector thread : reading a request blocks on its client.
+        // Only when the rejection queue is full too does the selector thread answer, rather than leak the connection.
+        rejectionExecutor = new ThreadPoolExecutor(REJECTION_THREADS, REJECTION_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        OVERLOADED.set(true);
+                        runnable.run();
+                    }, "gate-rejection-" + rejectionThreadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> answerOverloaded(runnable));
+        ThreadPoolExecutor rejections = rejectionExecutor;
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "gate-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> rejections.execute(runnable));
+        server = HttpServer.create(address, BACKLOG);
+        server.createContext("/entry", exchange -> handle(exchange, "POST", this::entry));
+        server.createContext("/exit", exchange -> handle(exchange, "POST", this::exit));
+        server.createContext("/quote", exchange -> handle(exchange, "GET", this::quote));
+        server.createContext("/metrics", GateServer::metrics);
+        server.createContext("/queries", GateServer::queries);
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Gate server listening on port {}", getPort());
+    }
+
+    /**
+     * Stop listening, let exchanges in progress complete, and stop the workers.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(STOP_DELAY_SECONDS);
+            executor.shutdown();
+            rejectionExecutor.shutdown();
+            server = null;
+            executor = null;
+            rejectionExecutor = null;
+        }
+    }
+
+    /**
+     * Answer 503 to a refused request on the calling thread, without storage access.
+     * @param exchange request of the HTTP server, not read yet
+     */
+    private static void answerOverloaded(final Runnable exchange) {
+        OVERLOADED.set(true);
+        try {
+            exchange.run();
+        } finally {
+            OVERLOADED.set(false);
+        }
+    }
+
+    /**
+     * @return listening port, 0 if not started.
+     */
+    public synchronized int getPort() {
+        return server == null ? 0 : server.getAddress().getPort();
+    }
+
+    /**
+     * Operation of the API.
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        /**
+         * @param gate ParkingService of the thread
+         * @param parameters request parameters
+         * @return completed with the status and JSON body to send
+         */
+        CompletableFuture<Response> apply(Gate gate, Map<String, String> parameters);
+    }
+
+    /**
+     * Status and JSON body of a response.
+     */
+    private static final class Response {
+
+        /**
+         * HTTP status.
+         */
+        private final int status;
+        /**
+         * JSON body.
+         */
+        private final String body;
+
+        /**
+         * Constructor.
+         * @param statusToSet HTTP status
+         * @param bodyToSet JSON body
+         */
+        Response(final int statusToSet, final String bodyToSet) {
+            this.status = statusToSet;
+            this.body = bodyToSet;
+        }
+
+        /**
+         * @param status HTTP status
+         * @param message error description
+         * @return error response.
+         */
+        static Response error(final int status, final String message) {
+            return new Response(status, "{\"error\":" + jsonString(message) + "}");
+        }
+    }
+
+    /**
+     * Check method, read parameters and apply the operation, then send its response when complete.
+     * Storage calls of entrances and exits run on the database executor : the worker is free for the next request.
+     * @param exchange HTTP exchange
+     * @param method expected HTTP method
+     * @param operation operation to apply
+     */
+    private void handle(final HttpExchange exchange, final String method, final Operation operation) {
+        CompletableFuture<Response> response;
+        try {
+            if (OVERLOADED.get()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                response = completedFuture(Response.error(SERVICE_UNAVAILABLE, "Too many requests in progress"));
+            } else if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                response = completedFuture(Response.error(METHOD_NOT_ALLOWED, method + " expected"));
+            } else {
+                Map<String, String> parameters = new HashMap<>();
+                parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+                byte[] body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    response = completedFuture(Response.error(PAYLOAD_TOO_LARGE,
+                            "Request body over " + MAX_BODY_BYTES + " bytes"));
+                } else {
+                    parseParameters(new String(body, StandardCharsets.UTF_8), parameters);
+                    response = operation.apply(gates.get(), parameters);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            response = completedFuture(Response.error(BAD_REQUEST, e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            response = failedFuture(e);
+        }
+        response.whenComplete((reply, failure) -> {
+            if (failure != null) {
+                LOGGER.error("Unable to process gate request {}", exchange.getRequestURI(), failure);
+                reply = Response.error(INTERNAL_ERROR, "Internal error");
+            }
+            send(exchange, reply);
+        });
+    }
+
+    /**
+     * Send a response and close the exchange.
+     * @param exchange HTTP exchange
+     * @param response status and JSON body
+     */
+    private static void send(final HttpExchange exchange, final Response response) {
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            LOGGER.error("Unable to answer gate request {}", exchange.getRequestURI(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Send the text dump of the metrics.
+     * @param exchange HTTP exchange
+     */
+    private static void metrics(final HttpExchange exchange) {
+        StringBuilder text = new StringBuilder();
+        try {
+            Metrics.dump(text);
+            sendText(exchange, text);
+        } catch (IOException e) {
+            LOGGER.error("Unable to send metrics", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Send the text dump of the query profiler : slowest statements with their plans, then latest statements.
+     * @param exchange HTTP exchange
+     */
+    private static void queries(final HttpExchange exchange) {
+        StringBuilder text = new StringBuilder();
+        try {
+            QueryProfiler profiler = DataBaseConfig.getQueryProfiler();
+            if (profiler == null) {
+                text.append("Query profiler disabled or database not used\n");
+            } else {
+                profiler.dump(text);
+            }
+            sendText(exchange, text);
+        } catch (IOException e) {
+            LOGGER.error("Unable to send query profile", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param exchange HTTP exchange
+     * @param text plain text body, sent with status 200
+     * @throws IOException on send failure
+     */
+    private static void sendText(final HttpExchange exchange, final CharSequence text) throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(OK, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Park a vehicle.
+     * @param gate ParkingService of the thread
+     * @param parameters type and plate
+     * @return completed with 201 and the ticket, or 409 if the vehicle could not be parked
+     */
+    private CompletableFuture<Response> entry(final Gate gate, final Map<String, String> parameters) {
+        String type = required(parameters, "type").toUpperCase(Locale.ROOT);
+        switch (type) {
+            case "CAR":
+                gate.inputReader.setSelection(1);
+                break;
+            case "BIKE":
+                gate.inputReader.setSelection(2);
+                break;
+            default:
+                throw new IllegalArgumentException("type must be CAR or BIKE");
+        }
+        gate.inputReader.setVehicleRegNumber(required(parameters, "plate"));
+        return gate.parkingService.processIncomingVehicleAsync().thenApply(ticket -> ticket == null
+                ? Response.error(CONFLICT, "Vehicle not parked : parking full or ticket not saved")
+                : new Response(CREATED, ticketJson(ticket)));
+    }
+
+    /**
+     * Record the exit of a vehicle.
+     * @param gate ParkingService of the thread
+     * @param parameters plate
+     * @return completed with 200 and the closed ticket, or 404 if the exit could not be recorded
+     */
+    private CompletableFuture<Response> exit(final Gate gate, final Map<String, String> parameters) {
+        gate.inputReader.setVehicleRegNumber(required(parameters, "plate"));
+        return gate.parkingService.processExitingVehicleAsync().thenApply(ticket -> ticket == null
+                ? Response.error(NOT_FOUND, "No open ticket for this vehicle")
+                : new Response(OK, ticketJson(ticket)));
+    }
+
+    /**
+     * Price the stay of a parked vehicle.
+     * @param gate ParkingService of the thread
+     * @param parameters plate
+     * @return completed with 200 and the priced ticket, or 404 if the vehicle has no open ticket
+     */
+    private CompletableFuture<Response> quote(final Gate gate, final Map<String, String> parameters) {
+        gate.inputReader.setVehicleRegNumber(required(parameters, "plate"));
+        Ticket ticket = gate.parkingService.quoteExitingVehicle();
+        return completedFuture(ticket == null ? Response.error(NOT_FOUND, "No open ticket for this vehicle")
+                : new Response(OK, ticketJson(ticket)));
+    }
+
+    /**
+     * @param failure cause
+     * @return future completed with the failure.
+     */
+    private static CompletableFuture<Response> failedFuture(final Throwable failure) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+        return future;
+    }
+
+    /**
+     * @return ParkingService and input of a new worker thread.
+     */
+    private Gate newGate() {
+        ProgrammaticInputReader inputReader = new ProgrammaticInputReader();
+        ParkingService parkingService = new ParkingService(inputReader, storageBackend.getParkingSpotRepository(),
+                storageBackend.getTicketRepository());
+        parkingService.setFareCalculatorService(fareCalculatorService);
+        parkingService.setClock(clock);
+        parkingService.setOutput(GateOutput.NONE);
+        parkingService.setDatabaseExecutor(storageBackend.getDatabaseExecutor());
+        parkingService.setUnitOfWorkFactory(storageBackend.getUnitOfWorkFactory());
+        return new Gate(inputReader, parkingService);
+    }
+
+    /**
+     * @param parameters request parameters
+     * @param name parameter name
+     * @return trimmed parameter value
+     * @throws IllegalArgumentException if missing or blank
+     */
+    private static String required(final Map<String, String> parameters, final String name) {
+        String value = parameters.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Add the parameters of a query string or form encoded body.
+     * @param encoded name=value pairs separated by ampersands, or null
+     * @param parameters destination, later values replace earlier ones
+     */
+    private static void parseParameters(final String encoded, final Map<String, String> parameters) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        try {
+            for (String pair : encoded.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported
+        }
+    }
+
+    /**
+     * @param in request body
+     * @return body bytes, or null if over MAX_BODY_BYTES
+     * @throws IOException on read failure
+     */
+    private static byte[] readBody(final InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[MAX_BODY_BYTES + 1];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_BODY_BYTES) {
+                return null;
+            }
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * @param ticket ticket to describe
+     * @return JSON object of the ticket.
+     */
+    private static String ticketJson(final Ticket ticket) {
+        StringBuilder json = new StringBuilder("{\"plate\":").append(jsonString(ticket.getVehicleRegNumber()))
+                .append(",\"type\":\"").append(ticket.getParkingSpot().getParkingType())
+                .append("\",\"spot\":").append(ticket.getParkingSpot().getId())
+                .append(",\"inTime\":\"").append(ticket.getInTime()).append('"')
+                .append(",\"discounted\":").append(ticket.isDiscounted());
+        if (ticket.getOutTime() != null) {
+            json.append(",\"outTime\":\"").append(ticket.getOutTime())
+                    .append("\",\"price\":").append(String.format(Locale.ROOT, "%.2f", ticket.getPrice()));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * @param value text
+     * @return JSON string literal of the text.
+     */
+    private static String jsonString(final String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Set clock member attribute, before start.
+     * @param clockToSet source of in and out times
+     */
+    public void setClock(final Clock clockToSet) {
+        this.clock = clockToSet;
+    }
+
+    /**
+     * Set workers member attribute, before start.
+     * @param workersToSet number of worker threads, at least 1
+     */
+    public void setWorkers(final int workersToSet) {
+        if (workersToSet < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.workers = workersToSet;
+    }
+
+    /**
+     * Set queueCapacity member attribute, before start.
+     * @param queueCapacityToSet requests waiting for a worker before new ones are refused, at least 1
+     */
+    public void setQueueCapacity(final int queueCapacityToSet) {
+        if (queueCapacityToSet < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacityToSet;
+    }
+
+    /**
+     * Serve gates over the storage selected by the InteractiveShell system properties, until the process is stopped.
+     * Shell prompts written by ParkingService are discarded.
+     * @throws IOException if the storage can not be opened or the port bound
+     */
+    public static void serve() throws IOException {
+        StorageBackend storageBackend = StorageBackend.open(
+                System.getProperty(InteractiveShell.STORAGE_PROPERTY, "mysql"),
+                System.getProperty(InteractiveShell.MEMORY_LAYOUT_PROPERTY, InteractiveShell.DEFAULT_MEMORY_LAYOUT),
+                Paths.get(System.getProperty(InteractiveShell.JOURNAL_DIRECTORY_PROPERTY, "data/journal")));
+        FareCalculatorService fareCalculatorService = new FareCalculatorService();
+        String tariffFile = System.getProperty(InteractiveShell.TARIFF_FILE_PROPERTY);
+        TariffReloader tariffReloader = null;
+        if (tariffFile != null) {
+            tariffReloader = new TariffReloader(Paths.get(tariffFile), fareCalculatorService);
+            tariffReloader.start();
+        }
+        GateServer gateServer = new GateServer(storageBackend, fareCalculatorService);
+        gateServer.setWorkers(Integer.getInteger(WORKERS_PROPERTY, DEFAULT_WORKERS));
+        gateServer.setQueueCapacity(Integer.getInteger(QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY));
+        gateServer.start(new InetSocketAddress(Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT)));
+        TariffReloader reloader = tariffReloader;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            gateServer.stop();
+            if (reloader != null) {
+                reloader.stop();
+            }
+            storageBackend.shutdown();
+            Metrics.stop();
+        }, "gate-server-shutdown"));
+    }
+}
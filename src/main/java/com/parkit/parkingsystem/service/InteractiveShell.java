@@ -1,17 +1,40 @@
 package com.parkit.parkingsystem.service;
 
-import com.parkit.parkingsystem.dao.ParkingSpotDAO;
-import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.metrics.Metrics;
 import com.parkit.parkingsystem.util.InputReaderUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 public final class InteractiveShell {
 
     /**
      * InteractiveShell class logger.
      */
     private static final Logger LOGGER = LogManager.getLogger("InteractiveShell");
+    /**
+     * System property selecting storage : "mysql" (default), "journal" or "memory".
+     * The "mysql" storage connects to the database selected by DataSourceSettings.PROFILE_PROPERTY.
+     */
+    public static final String STORAGE_PROPERTY = "parkingsystem.storage";
+    /**
+     * System property giving the in-memory parking layout.
+     */
+    public static final String MEMORY_LAYOUT_PROPERTY = "parkingsystem.memory.layout";
+    /**
+     * System property giving the journal storage folder.
+     */
+    public static final String JOURNAL_DIRECTORY_PROPERTY = "parkingsystem.journal.directory";
+    /**
+     * System property giving a tariff file, watched for changes. The standard tariff is used if not set.
+     */
+    public static final String TARIFF_FILE_PROPERTY = "parkingsystem.tariff.file";
+    /**
+     * In-memory parking layout matching the reference database content.
+     */
+    public static final String DEFAULT_MEMORY_LAYOUT = "CAR:3,BIKE:2";
 
     private InteractiveShell() { };
 
@@ -24,9 +47,28 @@ public final class InteractiveShell {
 
         boolean continueApp = true;
         InputReaderUtil inputReaderUtil = new InputReaderUtil();
-        ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
-        TicketDAO ticketDAO = new TicketDAO();
-        ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+        StorageBackend storageBackend;
+        try {
+            storageBackend = StorageBackend.open(System.getProperty(STORAGE_PROPERTY, "mysql"),
+                    System.getProperty(MEMORY_LAYOUT_PROPERTY, DEFAULT_MEMORY_LAYOUT),
+                    Paths.get(System.getProperty(JOURNAL_DIRECTORY_PROPERTY, "data/journal")));
+        } catch (IOException e) {
+            LOGGER.error("Unable to open ticket journal", e);
+            return;
+        }
+        ParkingService parkingService = new ParkingService(inputReaderUtil,
+                storageBackend.getParkingSpotRepository(), storageBackend.getTicketRepository());
+        parkingService.setUnitOfWorkFactory(storageBackend.getUnitOfWorkFactory());
+        parkingService.setOutput(GateOutput.of(System.out));
+
+        String tariffFile = System.getProperty(TARIFF_FILE_PROPERTY);
+        TariffReloader tariffReloader = null;
+        if (tariffFile != null) {
+            FareCalculatorService fareCalculatorService = new FareCalculatorService();
+            tariffReloader = new TariffReloader(Paths.get(tariffFile), fareCalculatorService);
+            tariffReloader.start();
+            parkingService.setFareCalculatorService(fareCalculatorService);
+        }
 
         while (continueApp) {
             final int incomingEntry = 1;
@@ -44,6 +86,11 @@ public final class InteractiveShell {
                 case shutdownEntry:
                     System.out.println("Exiting from the system!");
                     continueApp = false;
+                    if (tariffReloader != null) {
+                        tariffReloader.stop();
+                    }
+                    storageBackend.shutdown();
+                    Metrics.stop();
                     break;
                 default:
                     System.out.println("Unsupported option. Please enter a number corresponding to the provided menu");
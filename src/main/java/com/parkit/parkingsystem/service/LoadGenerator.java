@@ -0,0 +1,515 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.ProgrammaticInputReader;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator : N gates, one thread each, drive ParkingService entrances and exits over shared storage,
+ * each gate starting its next event as soon as the previous one returns.
+ * Events follow a simulated day of traffic built from LoadSettings : arrivals, stays, recurring vehicles and lot size.
+ * The schedule only orders events, it is played as fast as the gates go. An event waits for the events it depends on :
+ * the entrance of a vehicle before its exit, its previous exit before a new entrance, and the exit which freed its spot
+ * in the simulation, so that gates running ahead never find the parking fuller than scheduled.
+ */
+public class LoadGenerator {
+
+    /**
+     * LoadGenerator class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("LoadGenerator");
+    /**
+     * Seconds per hour.
+     */
+    private static final double SECONDS_PER_HOUR = 3_600.0;
+    /**
+     * Seconds per minute.
+     */
+    private static final double SECONDS_PER_MINUTE = 60.0;
+    /**
+     * Milliseconds per second.
+     */
+    private static final double MILLIS_PER_SECOND = 1_000.0;
+    /**
+     * Prefix of generated registration numbers.
+     */
+    private static final String PLATE_PREFIX = "LG";
+
+    /**
+     * Simulated traffic.
+     */
+    private final LoadSettings settings;
+
+    /**
+     * Constructor.
+     * @param settingsToSet simulated traffic
+     */
+    public LoadGenerator(final LoadSettings settingsToSet) {
+        this.settings = settingsToSet;
+    }
+
+    /**
+     * Entrance or exit of a vehicle, at a simulated time.
+     */
+    static final class ScheduledEvent {
+
+        /**
+         * True for an exit, false for an entrance.
+         */
+        private final boolean exit;
+        /**
+         * Registration number.
+         */
+        private final String vehicleRegNumber;
+        /**
+         * Type of the vehicle.
+         */
+        private final ParkingType parkingType;
+        /**
+         * Event of the same vehicle which must succeed first, or null.
+         */
+        private final ScheduledEvent predecessor;
+        /**
+         * Exit which must complete first to free a spot for an entrance, or null.
+         */
+        private final ScheduledEvent slotPredecessor;
+        /**
+         * Simulated time, in seconds from the start of the day.
+         */
+        private final double time;
+        /**
+         * Released once the event is played or skipped.
+         */
+        private final CountDownLatch done = new CountDownLatch(1);
+        /**
+         * Whether the event was played successfully.
+         */
+        private volatile boolean succeeded;
+        /**
+         * Key of the spot given by a successful entrance, published to its exit by done.
+         */
+        private String spotKey;
+
+        /**
+         * Constructor.
+         * @param exitToSet true for an exit, false for an entrance
+         * @param vehicleRegNumberToSet registration number
+         * @param parkingTypeToSet type of the vehicle
+         * @param predecessorToSet event of the same vehicle which must succeed first, or null
+         * @param slotPredecessorToSet exit which must complete first to free a spot, or null
+         * @param timeToSet simulated time, in seconds from the start of the day
+         */
+        ScheduledEvent(final boolean exitToSet, final String vehicleRegNumberToSet, final ParkingType parkingTypeToSet,
+                       final ScheduledEvent predecessorToSet, final ScheduledEvent slotPredecessorToSet,
+                       final double timeToSet) {
+            this.exit = exitToSet;
+            this.vehicleRegNumber = vehicleRegNumberToSet;
+            this.parkingType = parkingTypeToSet;
+            this.predecessor = predecessorToSet;
+            this.slotPredecessor = slotPredecessorToSet;
+            this.time = timeToSet;
+        }
+
+        /**
+         * @return true for an exit, false for an entrance.
+         */
+        boolean isExit() {
+            return exit;
+        }
+
+        /**
+         * @return registration number.
+         */
+        String getVehicleRegNumber() {
+            return vehicleRegNumber;
+        }
+
+        /**
+         * @return type of the vehicle.
+         */
+        ParkingType getParkingType() {
+            return parkingType;
+        }
+
+        /**
+         * @return event of the same vehicle which must succeed first, or null.
+         */
+        ScheduledEvent getPredecessor() {
+            return predecessor;
+        }
+
+        /**
+         * @return exit which must complete first to free a spot, or null.
+         */
+        ScheduledEvent getSlotPredecessor() {
+            return slotPredecessor;
+        }
+
+        /**
+         * @return simulated time, in seconds from the start of the day.
+         */
+        double getTime() {
+            return time;
+        }
+    }
+
+    /**
+     * Events of a simulated day, in time order.
+     */
+    static final class Schedule {
+
+        /**
+         * Entrances and exits, in time order.
+         */
+        private final List<ScheduledEvent> events;
+        /**
+         * Arrivals turned away because every spot of their type was taken.
+         */
+        private final long turnedAway;
+
+        /**
+         * Constructor.
+         * @param eventsToSet entrances and exits, in time order
+         * @param turnedAwayToSet arrivals turned away
+         */
+        Schedule(final List<ScheduledEvent> eventsToSet, final long turnedAwayToSet) {
+            this.events = eventsToSet;
+            this.turnedAway = turnedAwayToSet;
+        }
+
+        /**
+         * @return entrances and exits, in time order.
+         */
+        List<ScheduledEvent> getEvents() {
+            return events;
+        }
+
+        /**
+         * @return arrivals turned away because every spot of their type was taken.
+         */
+        long getTurnedAway() {
+            return turnedAway;
+        }
+    }
+
+    /**
+     * Build the events of the simulated day. Vehicles still parked at its end leave afterwards.
+     * @param capacity spots available per ParkingType
+     * @return entrances and exits in time order
+     */
+    Schedule schedule(final Map<ParkingType, Integer> capacity) {
+        Random random = new Random(settings.getSeed());
+        Map<ParkingType, Queue<ScheduledEvent>> freeSlots = new EnumMap<>(ParkingType.class); // Exit which freed each slot
+        for (Map.Entry<ParkingType, Integer> typeCapacity : capacity.entrySet()) {
+            Queue<ScheduledEvent> slots = new LinkedList<>(); // Null for slots never used
+            for (int i = 0; i < typeCapacity.getValue(); i++) {
+                slots.add(null);
+            }
+            freeSlots.put(typeCapacity.getKey(), slots);
+        }
+        PriorityQueue<ScheduledEvent> departures = new PriorityQueue<>(Comparator.comparingDouble(ScheduledEvent::getTime));
+        List<ScheduledEvent> departed = new ArrayList<>(); // Last exit of vehicles which may come back
+        List<ScheduledEvent> events = new ArrayList<>();
+        double meanArrivalDelay = SECONDS_PER_HOUR / settings.getArrivalsPerHour();
+        double meanDwell = settings.getMeanDwellMinutes() * SECONDS_PER_MINUTE;
+        double end = settings.getHours() * SECONDS_PER_HOUR;
+        long turnedAway = 0;
+        int newVehicles = 0;
+        double time = settings.getArrivalDistribution().sample(random, meanArrivalDelay, settings.getSigma());
+        while (time < end) {
+            while (!departures.isEmpty() && departures.peek().getTime() <= time) {
+                ScheduledEvent departure = departures.poll();
+                events.add(departure);
+                freeSlots.get(departure.getParkingType()).add(departure);
+                departed.add(departure);
+            }
+            ScheduledEvent previousExit = null;
+            int previousExitIndex = -1;
+            ParkingType parkingType;
+            if (!departed.isEmpty() && random.nextDouble() < settings.getRecurringRatio()) {
+                previousExitIndex = random.nextInt(departed.size());
+                previousExit = departed.get(previousExitIndex);
+                parkingType = previousExit.getParkingType();
+            } else {
+                parkingType = random.nextDouble() < settings.getBikeRatio() ? ParkingType.BIKE : ParkingType.CAR;
+            }
+            Queue<ScheduledEvent> slots = freeSlots.get(parkingType);
+            if (!slots.isEmpty()) {
+                String vehicleRegNumber;
+                if (previousExit != null) {
+                    vehicleRegNumber = previousExit.getVehicleRegNumber();
+                    departed.set(previousExitIndex, departed.get(departed.size() - 1));
+                    departed.remove(departed.size() - 1);
+                } else {
+                    vehicleRegNumber = PLATE_PREFIX + newVehicles++;
+                }
+                ScheduledEvent arrival = new ScheduledEvent(false, vehicleRegNumber, parkingType, previousExit, slots.poll(), time);
+                events.add(arrival);
+                double dwell = settings.getDwellDistribution().sample(random, meanDwell, settings.getSigma());
+                departures.add(new ScheduledEvent(true, vehicleRegNumber, parkingType, arrival, null, time + dwell));
+            } else {
+                turnedAway++;
+            }
+            time += settings.getArrivalDistribution().sample(random, meanArrivalDelay, settings.getSigma());
+        }
+        while (!departures.isEmpty()) {
+            events.add(departures.poll());
+        }
+        return new Schedule(events, turnedAway);
+    }
+
+    /**
+     * Play the simulated day against a storage, from midnight UTC today in simulated time.
+     * @param storageBackend opened storage, shared by every gate
+     * @return throughput, latencies, conflicts and errors
+     * @throws Exception if a gate thread fails unexpectedly
+     */
+    public LoadReport run(final StorageBackend storageBackend) throws Exception {
+        return run(storageBackend, new SimulatedClock(Instant.now().truncatedTo(ChronoUnit.DAYS), 0));
+    }
+
+    /**
+     * Play the simulated day against a storage. Gates move the clock to each event time before playing it,
+     * so that tickets get the in and out times, and fares, of the simulated day. The clock never goes back :
+     * a gate running behind the others plays at the latest time reached.
+     * @param storageBackend opened storage, shared by every gate, with its time dependent state following the clock
+     * @param clock simulated time, whose current time is the start of the day
+     * @return throughput, latencies, conflicts and errors
+     * @throws Exception if a gate thread fails unexpectedly
+     */
+    public LoadReport run(final StorageBackend storageBackend, final SimulatedClock clock) throws Exception {
+        Map<ParkingType, Integer> capacity = new EnumMap<>(ParkingType.class);
+        int bikeSpots = settings.getBikeSpots();
+        capacity.put(ParkingType.CAR, Math.min(storageBackend.getFreeSpots(ParkingType.CAR),
+                settings.getLotSize() - bikeSpots));
+        capacity.put(ParkingType.BIKE, Math.min(storageBackend.getFreeSpots(ParkingType.BIKE), bikeSpots));
+        Schedule schedule = schedule(capacity);
+        LOGGER.info("Playing {} events on {} gates", schedule.getEvents().size(), settings.getGates());
+
+        Playback playback = new Playback(storageBackend, clock, schedule.getEvents());
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getGates());
+        List<Future<long[][]>> gates = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int gate = 0; gate < settings.getGates(); gate++) {
+                gates.add(executor.submit(playback::playGate));
+            }
+            long[] entryLatencies = new long[0];
+            long[] exitLatencies = new long[0];
+            for (Future<long[][]> gate : gates) {
+                long[][] latencies = gate.get();
+                entryLatencies = concat(entryLatencies, latencies[0]);
+                exitLatencies = concat(exitLatencies, latencies[1]);
+            }
+            long elapsed = System.nanoTime() - start;
+            return new LoadReport(settings.getGates(), elapsed, entryLatencies, exitLatencies, schedule.getTurnedAway(),
+                    playback.conflicts.get(), playback.entryErrors.get(), playback.exitErrors.get(),
+                    playback.skipped.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule shared by the gates of a run, and its counters.
+     */
+    private static final class Playback {
+
+        /**
+         * Shared storage.
+         */
+        private final StorageBackend storageBackend;
+        /**
+         * Simulated time, moved to each event time.
+         */
+        private final SimulatedClock clock;
+        /**
+         * Start of the simulated day.
+         */
+        private final Instant dayStart;
+        /**
+         * Entrances and exits, in time order.
+         */
+        private final List<ScheduledEvent> events;
+        /**
+         * Index of the next event to take.
+         */
+        private final AtomicInteger next = new AtomicInteger();
+        /**
+         * Spot key to registration number of the vehicles parked.
+         */
+        private final Map<String, String> occupiedSpots = new ConcurrentHashMap<>();
+        /**
+         * Spots handed to a vehicle while another one was parked there.
+         */
+        private final AtomicLong conflicts = new AtomicLong();
+        /**
+         * Entrances which saved no ticket.
+         */
+        private final AtomicLong entryErrors = new AtomicLong();
+        /**
+         * Exits which closed no ticket.
+         */
+        private final AtomicLong exitErrors = new AtomicLong();
+        /**
+         * Events not played because the event they depend on failed.
+         */
+        private final AtomicLong skipped = new AtomicLong();
+
+        /**
+         * Constructor.
+         * @param storageBackendToSet shared storage
+         * @param clockToSet simulated time, whose current time is the start of the day
+         * @param eventsToSet entrances and exits, in time order
+         */
+        Playback(final StorageBackend storageBackendToSet, final SimulatedClock clockToSet,
+                 final List<ScheduledEvent> eventsToSet) {
+            this.storageBackend = storageBackendToSet;
+            this.clock = clockToSet;
+            this.dayStart = clockToSet.instant();
+            this.events = eventsToSet;
+        }
+
+        /**
+         * Play events until none is left, through a ParkingService of its own.
+         * Events are taken in schedule order, so the events waited for are always taken by a gate already : no deadlock.
+         * @return entrance then exit latencies of the gate, in nanoseconds
+         * @throws InterruptedException if interrupted while waiting for an event
+         */
+        long[][] playGate() throws InterruptedException {
+            ProgrammaticInputReader inputReader = new ProgrammaticInputReader();
+            ParkingService parkingService = new ParkingService(inputReader, storageBackend.getParkingSpotRepository(),
+                    storageBackend.getTicketRepository());
+            parkingService.setClock(clock);
+            parkingService.setOutput(GateOutput.NONE);
+            parkingService.setUnitOfWorkFactory(storageBackend.getUnitOfWorkFactory());
+            long[] entryLatencies = new long[events.size()];
+            long[] exitLatencies = new long[events.size()];
+            int entries = 0;
+            int exits = 0;
+            for (int i = next.getAndIncrement(); i < events.size(); i = next.getAndIncrement()) {
+                ScheduledEvent event = events.get(i);
+                try {
+                    if (event.getSlotPredecessor() != null) {
+                        event.getSlotPredecessor().done.await();
+                    }
+                    ScheduledEvent predecessor = event.getPredecessor();
+                    if (predecessor != null) {
+                        predecessor.done.await();
+                        if (!predecessor.succeeded) {
+                            skipped.incrementAndGet();
+                            continue;
+                        }
+                    }
+                    String vehicleRegNumber = event.getVehicleRegNumber();
+                    inputReader.setSelection(event.getParkingType() == ParkingType.CAR ? 1 : 2);
+                    inputReader.setVehicleRegNumber(vehicleRegNumber);
+                    clock.advanceTo(dayStart.plusMillis((long) (event.getTime() * MILLIS_PER_SECOND)));
+                    if (event.isExit()) {
+                        String spotKey = predecessor.spotKey; // Set by the entrance of the vehicle
+                        occupiedSpots.remove(spotKey, vehicleRegNumber); // Free before another gate claims it
+                        long begin = System.nanoTime();
+                        Ticket ticket = parkingService.processExitingVehicle();
+                        exitLatencies[exits++] = System.nanoTime() - begin;
+                        if (ticket == null) {
+                            exitErrors.incrementAndGet();
+                            occupiedSpots.putIfAbsent(spotKey, vehicleRegNumber); // Still parked
+                        } else {
+                            event.succeeded = true;
+                        }
+                    } else {
+                        long begin = System.nanoTime();
+                        Ticket ticket = parkingService.processIncomingVehicle();
+                        entryLatencies[entries++] = System.nanoTime() - begin;
+                        if (ticket == null) {
+                            entryErrors.incrementAndGet();
+                        } else {
+                            event.spotKey = spotKey(ticket.getParkingSpot());
+                            event.succeeded = true;
+                            String parkedVehicle = occupiedSpots.putIfAbsent(event.spotKey, vehicleRegNumber);
+                            if (parkedVehicle != null) {
+                                conflicts.incrementAndGet();
+                                LOGGER.error("Spot {} given to {} while {} is parked",
+                                        ticket.getParkingSpot().getId(), vehicleRegNumber, parkedVehicle);
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to play event of {}", event.getVehicleRegNumber(), e);
+                    (event.isExit() ? exitErrors : entryErrors).incrementAndGet();
+                } finally {
+                    event.done.countDown();
+                }
+            }
+            return new long[][] {Arrays.copyOf(entryLatencies, entries), Arrays.copyOf(exitLatencies, exits)};
+        }
+    }
+
+    /**
+     * @param parkingSpot spot of a ticket
+     * @return key identifying the spot.
+     */
+    private static String spotKey(final ParkingSpot parkingSpot) {
+        return parkingSpot.getParkingType() + ":" + parkingSpot.getId();
+    }
+
+    /**
+     * @param first first values
+     * @param second following values
+     * @return values of both arrays.
+     */
+    private static long[] concat(final long[] first, final long[] second) {
+        long[] values = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, values, first.length, second.length);
+        return values;
+    }
+
+    /**
+     * Play a simulated day against the storage selected by the InteractiveShell system properties,
+     * with the traffic given by LoadSettings system properties, and print the report.
+     * In-memory storages get a layout of lotSize spots unless InteractiveShell.MEMORY_LAYOUT_PROPERTY is set.
+     * @param args unused
+     * @throws Exception on storage or gate failure
+     */
+    public static void main(final String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        SimulatedClock clock = new SimulatedClock(Instant.now().truncatedTo(ChronoUnit.DAYS), 0);
+        StorageBackend storageBackend = StorageBackend.open(
+                System.getProperty(InteractiveShell.STORAGE_PROPERTY, "mysql"),
+                System.getProperty(InteractiveShell.MEMORY_LAYOUT_PROPERTY, settings.getMemoryLayout()),
+                Paths.get(System.getProperty(InteractiveShell.JOURNAL_DIRECTORY_PROPERTY, "data/journal")), clock);
+        LoadReport report;
+        try {
+            report = new LoadGenerator(settings).run(storageBackend, clock);
+        } finally {
+            storageBackend.shutdown();
+        }
+        report.write(System.out);
+        System.out.flush();
+    }
+}
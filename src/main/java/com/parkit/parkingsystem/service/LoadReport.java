@@ -0,0 +1,211 @@
+package com.parkit.parkingsystem.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Outcome of a LoadGenerator run : throughput, latency percentiles per operation, conflicts and errors.
+ */
+public final class LoadReport {
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    /**
+     * Percentiles printed per operation.
+     */
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    /**
+     * Labels of PERCENTILES.
+     */
+    private static final String[] PERCENTILE_LABELS = {"p50", "p99", "p99.9"};
+
+    /**
+     * Number of concurrent gates.
+     */
+    private final int gates;
+    /**
+     * Wall clock duration of the run, in nanoseconds.
+     */
+    private final long elapsedNanos;
+    /**
+     * Entrance latencies, sorted, in nanoseconds.
+     */
+    private final long[] entryLatencies;
+    /**
+     * Exit latencies, sorted, in nanoseconds.
+     */
+    private final long[] exitLatencies;
+    /**
+     * Arrivals turned away by the schedule because every spot of their type was taken.
+     */
+    private final long turnedAway;
+    /**
+     * Spots handed to a vehicle while another one was parked there.
+     */
+    private final long conflicts;
+    /**
+     * Entrances which left no open ticket.
+     */
+    private final long entryErrors;
+    /**
+     * Exits which left the ticket open.
+     */
+    private final long exitErrors;
+    /**
+     * Events not played because the entrance or exit they depend on failed.
+     */
+    private final long skipped;
+
+    /**
+     * Constructor.
+     * @param gatesToSet number of concurrent gates
+     * @param elapsedNanosToSet wall clock duration of the run, in nanoseconds
+     * @param entryLatenciesToSet entrance latencies, in nanoseconds, sorted by the constructor
+     * @param exitLatenciesToSet exit latencies, in nanoseconds, sorted by the constructor
+     * @param turnedAwayToSet arrivals turned away by the schedule
+     * @param conflictsToSet spots handed to a vehicle while another one was parked there
+     * @param entryErrorsToSet entrances which left no open ticket
+     * @param exitErrorsToSet exits which left the ticket open
+     * @param skippedToSet events not played because the event they depend on failed
+     */
+    LoadReport(final int gatesToSet, final long elapsedNanosToSet, final long[] entryLatenciesToSet,
+               final long[] exitLatenciesToSet, final long turnedAwayToSet, final long conflictsToSet,
+               final long entryErrorsToSet, final long exitErrorsToSet, final long skippedToSet) {
+        this.gates = gatesToSet;
+        this.elapsedNanos = elapsedNanosToSet;
+        this.entryLatencies = entryLatenciesToSet;
+        this.exitLatencies = exitLatenciesToSet;
+        Arrays.sort(entryLatencies);
+        Arrays.sort(exitLatencies);
+        this.turnedAway = turnedAwayToSet;
+        this.conflicts = conflictsToSet;
+        this.entryErrors = entryErrorsToSet;
+        this.exitErrors = exitErrorsToSet;
+        this.skipped = skippedToSet;
+    }
+
+    /**
+     * @return number of entrances played.
+     */
+    public int getEntryCount() {
+        return entryLatencies.length;
+    }
+
+    /**
+     * @return number of exits played.
+     */
+    public int getExitCount() {
+        return exitLatencies.length;
+    }
+
+    /**
+     * @return entrances and exits played per wall clock second.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : (entryLatencies.length + exitLatencies.length) * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return entrance latency at the percentile, in nanoseconds, 0 without entrance.
+     */
+    public long getEntryLatencyNanos(final double percentile) {
+        return percentile(entryLatencies, percentile);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return exit latency at the percentile, in nanoseconds, 0 without exit.
+     */
+    public long getExitLatencyNanos(final double percentile) {
+        return percentile(exitLatencies, percentile);
+    }
+
+    /**
+     * @return arrivals turned away by the schedule because every spot of their type was taken.
+     */
+    public long getTurnedAway() {
+        return turnedAway;
+    }
+
+    /**
+     * @return spots handed to a vehicle while another one was parked there.
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return entrances which left no open ticket.
+     */
+    public long getEntryErrors() {
+        return entryErrors;
+    }
+
+    /**
+     * @return exits which left the ticket open.
+     */
+    public long getExitErrors() {
+        return exitErrors;
+    }
+
+    /**
+     * @return events not played because the entrance or exit they depend on failed.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Write the report as text, latencies in microseconds.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void write(final Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT, "gates : %d, elapsed : %.3f s, throughput : %.1f ops/s%n",
+                gates, elapsedNanos / NANOS_PER_SECOND, getThroughput()));
+        writeOperation(out, "entry", entryLatencies);
+        writeOperation(out, "exit", exitLatencies);
+        out.append(String.format(Locale.ROOT,
+                "turned away : %d, conflicts : %d, entry errors : %d, exit errors : %d, skipped : %d%n",
+                turnedAway, conflicts, entryErrors, exitErrors, skipped));
+    }
+
+    /**
+     * @param out destination
+     * @param operation operation name
+     * @param latencies sorted latencies, in nanoseconds
+     * @throws IOException on write failure
+     */
+    private static void writeOperation(final Appendable out, final String operation, final long[] latencies)
+            throws IOException {
+        out.append(String.format(Locale.ROOT, "%-5s : %d ops", operation, latencies.length));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            out.append(String.format(Locale.ROOT, ", %s %.1f us", PERCENTILE_LABELS[i],
+                    percentile(latencies, PERCENTILES[i]) / NANOS_PER_MICRO));
+        }
+        out.append(String.format(Locale.ROOT, ", max %.1f us%n",
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / NANOS_PER_MICRO));
+    }
+
+    /**
+     * Nearest rank percentile.
+     * @param sorted sorted values
+     * @param percentile between 0 and 100
+     * @return value at the percentile, 0 if there is no value.
+     */
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
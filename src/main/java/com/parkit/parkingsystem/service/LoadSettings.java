@@ -0,0 +1,369 @@
+package com.parkit.parkingsystem.service;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Traffic simulated by LoadGenerator. Every value may be set by a "parkingsystem.load." system property,
+ * such as -Dparkingsystem.load.gates=8.
+ */
+public class LoadSettings {
+
+    /**
+     * Prefix of the system properties read by fromSystemProperties().
+     */
+    public static final String PROPERTY_PREFIX = "parkingsystem.load.";
+    /**
+     * Default number of concurrent gates.
+     */
+    private static final int DEFAULT_GATES = 4;
+    /**
+     * Default mean number of arrivals per simulated hour.
+     */
+    private static final double DEFAULT_ARRIVALS_PER_HOUR = 120;
+    /**
+     * Default simulated duration : a full day.
+     */
+    private static final int DEFAULT_HOURS = 24;
+    /**
+     * Default mean stay, in minutes.
+     */
+    private static final double DEFAULT_MEAN_DWELL_MINUTES = 90;
+    /**
+     * Default standard deviation of the logarithm of LOGNORMAL samples.
+     */
+    private static final double DEFAULT_SIGMA = 0.8;
+    /**
+     * Default share of arrivals by a vehicle which already left the parking.
+     */
+    private static final double DEFAULT_RECURRING_RATIO = 0.3;
+    /**
+     * Default share of bikes among new vehicles and spots.
+     */
+    private static final double DEFAULT_BIKE_RATIO = 0.2;
+    /**
+     * Default number of spots.
+     */
+    private static final int DEFAULT_LOT_SIZE = 100;
+    /**
+     * Default random seed : the same settings replay the same schedule.
+     */
+    private static final long DEFAULT_SEED = 42L;
+
+    /**
+     * Shape of a random delay around its mean.
+     */
+    public enum Distribution {
+        /**
+         * Always the mean.
+         */
+        CONSTANT,
+        /**
+         * Memoryless delays : Poisson arrivals.
+         */
+        EXPONENTIAL,
+        /**
+         * Right skewed delays : mostly short stays, a few very long ones.
+         */
+        LOGNORMAL;
+
+        /**
+         * @param random random source
+         * @param mean mean of the samples
+         * @param sigma standard deviation of the logarithm of LOGNORMAL samples
+         * @return a positive sample.
+         */
+        public double sample(final Random random, final double mean, final double sigma) {
+            switch (this) {
+                case EXPONENTIAL:
+                    return -mean * Math.log(1.0 - random.nextDouble());
+                case LOGNORMAL:
+                    return Math.exp(Math.log(mean) - sigma * sigma / 2 + sigma * random.nextGaussian());
+                default:
+                    return mean;
+            }
+        }
+    }
+
+    /**
+     * Gates driving ParkingService concurrently, one thread each.
+     */
+    private int gates = DEFAULT_GATES;
+    /**
+     * Mean number of arrivals per simulated hour.
+     */
+    private double arrivalsPerHour = DEFAULT_ARRIVALS_PER_HOUR;
+    /**
+     * Simulated duration during which vehicles arrive. Vehicles still parked then leave afterwards.
+     */
+    private int hours = DEFAULT_HOURS;
+    /**
+     * Shape of the delays between arrivals.
+     */
+    private Distribution arrivalDistribution = Distribution.EXPONENTIAL;
+    /**
+     * Shape of the stays.
+     */
+    private Distribution dwellDistribution = Distribution.LOGNORMAL;
+    /**
+     * Mean stay, in minutes.
+     */
+    private double meanDwellMinutes = DEFAULT_MEAN_DWELL_MINUTES;
+    /**
+     * Standard deviation of the logarithm of LOGNORMAL samples.
+     */
+    private double sigma = DEFAULT_SIGMA;
+    /**
+     * Share of arrivals by a vehicle which already left the parking, between 0 and 1.
+     */
+    private double recurringRatio = DEFAULT_RECURRING_RATIO;
+    /**
+     * Share of bikes among new vehicles and spots, between 0 and 1.
+     */
+    private double bikeRatio = DEFAULT_BIKE_RATIO;
+    /**
+     * Number of spots : the layout of in-memory storages, a cap on the free spots of the database.
+     */
+    private int lotSize = DEFAULT_LOT_SIZE;
+    /**
+     * Random seed of the schedule.
+     */
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * @return default settings overridden by "parkingsystem.load." system properties.
+     * @throws IllegalArgumentException on malformed value
+     */
+    public static LoadSettings fromSystemProperties() {
+        LoadSettings settings = new LoadSettings();
+        settings.setGates(Integer.parseInt(property("gates", settings.gates)));
+        settings.setArrivalsPerHour(Double.parseDouble(property("arrivalsPerHour", settings.arrivalsPerHour)));
+        settings.setHours(Integer.parseInt(property("hours", settings.hours)));
+        settings.setArrivalDistribution(distribution(property("arrivalDistribution", settings.arrivalDistribution)));
+        settings.setDwellDistribution(distribution(property("dwellDistribution", settings.dwellDistribution)));
+        settings.setMeanDwellMinutes(Double.parseDouble(property("meanDwellMinutes", settings.meanDwellMinutes)));
+        settings.setSigma(Double.parseDouble(property("sigma", settings.sigma)));
+        settings.setRecurringRatio(Double.parseDouble(property("recurringRatio", settings.recurringRatio)));
+        settings.setBikeRatio(Double.parseDouble(property("bikeRatio", settings.bikeRatio)));
+        settings.setLotSize(Integer.parseInt(property("lotSize", settings.lotSize)));
+        settings.setSeed(Long.parseLong(property("seed", settings.seed)));
+        return settings;
+    }
+
+    /**
+     * @param name property name, without prefix
+     * @param defaultValue value if the property is not set
+     * @return trimmed property value.
+     */
+    private static String property(final String name, final Object defaultValue) {
+        return System.getProperty(PROPERTY_PREFIX + name, String.valueOf(defaultValue)).trim();
+    }
+
+    /**
+     * @param name distribution name, any case
+     * @return matching distribution.
+     */
+    private static Distribution distribution(final String name) {
+        return Distribution.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return in-memory parking layout of lotSize spots, such as "CAR:80,BIKE:20".
+     */
+    public String getMemoryLayout() {
+        int bikeSpots = getBikeSpots();
+        return "CAR:" + (lotSize - bikeSpots) + ",BIKE:" + bikeSpots;
+    }
+
+    /**
+     * @return bike spots among lotSize.
+     */
+    public int getBikeSpots() {
+        return (int) Math.round(lotSize * bikeRatio);
+    }
+
+    /**
+     * @return number of concurrent gates.
+     */
+    public int getGates() {
+        return gates;
+    }
+
+    /**
+     * @param gatesToSet new number of concurrent gates, at least 1.
+     */
+    public void setGates(final int gatesToSet) {
+        if (gatesToSet < 1) {
+            throw new IllegalArgumentException("gates must be at least 1");
+        }
+        this.gates = gatesToSet;
+    }
+
+    /**
+     * @return mean number of arrivals per simulated hour.
+     */
+    public double getArrivalsPerHour() {
+        return arrivalsPerHour;
+    }
+
+    /**
+     * @param arrivalsPerHourToSet new mean number of arrivals per simulated hour, positive.
+     */
+    public void setArrivalsPerHour(final double arrivalsPerHourToSet) {
+        if (!(arrivalsPerHourToSet > 0)) {
+            throw new IllegalArgumentException("arrivalsPerHour must be positive");
+        }
+        this.arrivalsPerHour = arrivalsPerHourToSet;
+    }
+
+    /**
+     * @return simulated duration during which vehicles arrive, in hours.
+     */
+    public int getHours() {
+        return hours;
+    }
+
+    /**
+     * @param hoursToSet new simulated duration, in hours, at least 1.
+     */
+    public void setHours(final int hoursToSet) {
+        if (hoursToSet < 1) {
+            throw new IllegalArgumentException("hours must be at least 1");
+        }
+        this.hours = hoursToSet;
+    }
+
+    /**
+     * @return shape of the delays between arrivals.
+     */
+    public Distribution getArrivalDistribution() {
+        return arrivalDistribution;
+    }
+
+    /**
+     * @param arrivalDistributionToSet new shape of the delays between arrivals.
+     */
+    public void setArrivalDistribution(final Distribution arrivalDistributionToSet) {
+        this.arrivalDistribution = arrivalDistributionToSet;
+    }
+
+    /**
+     * @return shape of the stays.
+     */
+    public Distribution getDwellDistribution() {
+        return dwellDistribution;
+    }
+
+    /**
+     * @param dwellDistributionToSet new shape of the stays.
+     */
+    public void setDwellDistribution(final Distribution dwellDistributionToSet) {
+        this.dwellDistribution = dwellDistributionToSet;
+    }
+
+    /**
+     * @return mean stay, in minutes.
+     */
+    public double getMeanDwellMinutes() {
+        return meanDwellMinutes;
+    }
+
+    /**
+     * @param meanDwellMinutesToSet new mean stay, in minutes, positive.
+     */
+    public void setMeanDwellMinutes(final double meanDwellMinutesToSet) {
+        if (!(meanDwellMinutesToSet > 0)) {
+            throw new IllegalArgumentException("meanDwellMinutes must be positive");
+        }
+        this.meanDwellMinutes = meanDwellMinutesToSet;
+    }
+
+    /**
+     * @return standard deviation of the logarithm of LOGNORMAL samples.
+     */
+    public double getSigma() {
+        return sigma;
+    }
+
+    /**
+     * @param sigmaToSet new standard deviation of the logarithm of LOGNORMAL samples, not negative.
+     */
+    public void setSigma(final double sigmaToSet) {
+        if (!(sigmaToSet >= 0)) {
+            throw new IllegalArgumentException("sigma must not be negative");
+        }
+        this.sigma = sigmaToSet;
+    }
+
+    /**
+     * @return share of arrivals by a vehicle which already left the parking.
+     */
+    public double getRecurringRatio() {
+        return recurringRatio;
+    }
+
+    /**
+     * @param recurringRatioToSet new share of recurring arrivals, between 0 and 1.
+     */
+    public void setRecurringRatio(final double recurringRatioToSet) {
+        this.recurringRatio = ratio("recurringRatio", recurringRatioToSet);
+    }
+
+    /**
+     * @return share of bikes among new vehicles and spots.
+     */
+    public double getBikeRatio() {
+        return bikeRatio;
+    }
+
+    /**
+     * @param bikeRatioToSet new share of bikes, between 0 and 1.
+     */
+    public void setBikeRatio(final double bikeRatioToSet) {
+        this.bikeRatio = ratio("bikeRatio", bikeRatioToSet);
+    }
+
+    /**
+     * @return number of spots.
+     */
+    public int getLotSize() {
+        return lotSize;
+    }
+
+    /**
+     * @param lotSizeToSet new number of spots, at least 1.
+     */
+    public void setLotSize(final int lotSizeToSet) {
+        if (lotSizeToSet < 1) {
+            throw new IllegalArgumentException("lotSize must be at least 1");
+        }
+        this.lotSize = lotSizeToSet;
+    }
+
+    /**
+     * @return random seed of the schedule.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seedToSet new random seed of the schedule.
+     */
+    public void setSeed(final long seedToSet) {
+        this.seed = seedToSet;
+    }
+
+    /**
+     * @param name setting name, for the error message
+     * @param value ratio to check
+     * @return value
+     * @throws IllegalArgumentException if value is not between 0 and 1
+     */
+    private static double ratio(final String name, final double value) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return value;
+    }
+}
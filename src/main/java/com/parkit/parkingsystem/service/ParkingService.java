@@ -1,16 +1,26 @@
 package com.parkit.parkingsystem.service;
 
 import com.parkit.parkingsystem.constants.ParkingType;
-import com.parkit.parkingsystem.dao.ParkingSpotDAO;
-import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.AsyncTicketRepository;
+import com.parkit.parkingsystem.dao.ParkingSpotRepository;
+import com.parkit.parkingsystem.dao.RepositoryUnitOfWork;
+import com.parkit.parkingsystem.dao.TicketRepository;
+import com.parkit.parkingsystem.dao.UnitOfWork;
+import com.parkit.parkingsystem.dao.UnitOfWorkFactory;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.util.InputReaderUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ParkingService {
 
@@ -18,24 +28,62 @@ public class ParkingService {
      * ParkingService class logger.
      */
     private static final Logger LOGGER = LogManager.getLogger("ParkingService");
+    /**
+     * Duration of entrances, prompts included, synchronous or asynchronous.
+     */
+    private static final LatencyHistogram INCOMING_TIMER = Metrics.timer("service.processIncomingVehicle");
+    /**
+     * Entrances which saved no ticket.
+     */
+    private static final LongAdder INCOMING_FAILURES = Metrics.counter("service.processIncomingVehicle.failures");
+    /**
+     * Duration of exits, prompts included, synchronous or asynchronous.
+     */
+    private static final LatencyHistogram EXITING_TIMER = Metrics.timer("service.processExitingVehicle");
+    /**
+     * Exits which closed no ticket.
+     */
+    private static final LongAdder EXITING_FAILURES = Metrics.counter("service.processExitingVehicle.failures");
 
     /**
-     * FareCalculatorService global implementation.
+     * FareCalculatorService implementation, standard tariff unless set.
      */
-    private static FareCalculatorService fareCalculatorService = new FareCalculatorService();
+    private FareCalculatorService fareCalculatorService = new FareCalculatorService();
+
+    /**
+     * Source of in and out times, wall clock unless set.
+     */
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Receives prompts and per-vehicle messages, the console unless set.
+     */
+    private GateOutput output = GateOutput.of(System.out);
 
     /**
      * inputReaderUtil member attribute.
      */
     private InputReaderUtil inputReaderUtil;
     /**
-     * parkingSpotDAO member attribute.
+     * parkingSpotDAO member attribute : database or in-memory storage.
+     */
+    private ParkingSpotRepository parkingSpotDAO;
+    /**
+     * ticketDAO member attribute : database or in-memory storage.
+     */
+    private TicketRepository ticketDAO;
+    /**
+     * Opens the unit of work of each entrance and exit, over parkingSpotDAO and ticketDAO unless set.
+     */
+    private UnitOfWorkFactory unitOfWorkFactory;
+    /**
+     * Runs the storage calls of the asynchronous flows.
      */
-    private ParkingSpotDAO parkingSpotDAO;
+    private Executor databaseExecutor;
     /**
-     * ticketDAO member attribute.
+     * Asynchronous view of ticketDAO.
      */
-    private TicketDAO ticketDAO;
+    private AsyncTicketRepository asyncTicketDAO;
 
     /**
      * Public constructor initializing inputReader and DAOs.
@@ -44,42 +92,91 @@ public class ParkingService {
      * @param parkingSpotDAOTmp  passed from InteractiveShell
      * @param ticketDAOTmp       passed from InteractiveShell
      */
-    public ParkingService(final InputReaderUtil inputReaderUtilTmp, final ParkingSpotDAO parkingSpotDAOTmp, final TicketDAO ticketDAOTmp) {
+    public ParkingService(final InputReaderUtil inputReaderUtilTmp, final ParkingSpotRepository parkingSpotDAOTmp,
+                          final TicketRepository ticketDAOTmp) {
         this.inputReaderUtil = inputReaderUtilTmp;
         this.parkingSpotDAO = parkingSpotDAOTmp;
         this.ticketDAO = ticketDAOTmp;
+        this.unitOfWorkFactory = RepositoryUnitOfWork.factory(parkingSpotDAOTmp, ticketDAOTmp);
+        setDatabaseExecutor(Runnable::run);
     }
 
     /**
      * Start registration process for an incoming vehicle.
+     *
+     * @return saved ticket, or null if the vehicle could not be parked.
      */
-    public void processIncomingVehicle() {
-        try {
-            ParkingSpot parkingSpot = getNextParkingNumberIfAvailable();
+    public Ticket processIncomingVehicle() {
+        long start = System.nanoTime();
+        Ticket ticket = parkIncomingVehicle();
+        INCOMING_TIMER.recordSince(start);
+        if (ticket == null) {
+            INCOMING_FAILURES.increment();
+        }
+        return ticket;
+    }
+
+    /**
+     * Registration of an incoming vehicle, untimed. The spot claim and the ticket are one unit of work,
+     * so the spot is given back if no ticket could be saved.
+     *
+     * @return saved ticket, or null if the vehicle could not be parked.
+     */
+    private Ticket parkIncomingVehicle() {
+        try (UnitOfWork work = unitOfWorkFactory.begin()) {
+            ParkingSpot parkingSpot = claimNextParkingSpot(work);
             if (parkingSpot != null && parkingSpot.getId() > 0) {
-                String vehicleRegNumber = getVehicleRegNumber();
-                parkingSpot.setAvailable(false);
-                parkingSpotDAO.updateParking(parkingSpot); //allot this parking space and mark it's availability as false
+                String vehicleRegNumber = getVehicleRegNumber(); // On error, closing the work gives the spot back
 
-                Instant inTime = Instant.now().truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
+                Instant inTime = Instant.now(clock).truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
                 Ticket ticket = new Ticket();
                 //ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
                 ticket.setParkingSpot(parkingSpot);
                 ticket.setVehicleRegNumber(vehicleRegNumber);
                 ticket.setPrice(0);
                 ticket.setInTime(inTime);
-                if (ticketDAO.getTicket(vehicleRegNumber) != null) { // Check for previous ticket
-                    System.out.println("Welcome back! As a recurring user of our parking lot, you'll benefit from a 5% discount.");
+                if (ticketDAO.isRecurringVehicle(vehicleRegNumber)) { // Check for previous ticket
+                    output.println("Welcome back! As a recurring user of our parking lot, you'll benefit from a 5% discount.");
                     ticket.setDiscounted(true); // Save ticket as discounted
                 }
-                ticketDAO.saveTicket(ticket);
-                System.out.println("Generated Ticket and saved in DB");
-                System.out.println("Please park your vehicle in spot number:" + parkingSpot.getId());
-                System.out.println("Recorded in-time for vehicle number:" + vehicleRegNumber + " is:" + inTime);
+                work.saveTicket(ticket);
+                if (!work.commit()) {
+                    LOGGER.error("Unable to save ticket information for {}", vehicleRegNumber);
+                    return null;
+                }
+                output.println("Generated Ticket and saved in DB");
+                output.println("Please park your vehicle in spot number:" + parkingSpot.getId());
+                output.println("Recorded in-time for vehicle number:" + vehicleRegNumber + " is:" + inTime);
+                return ticket;
             }
         } catch (Exception e) {
             LOGGER.error("Unable to process incoming vehicle", e);
         }
+        return null;
+    }
+
+    /**
+     * Ask vehicle type and reserve a spot for it in a single storage operation.
+     *
+     * @param work unit of work of the entrance, giving the spot back unless committed
+     * @return claimed ParkingSpot, already marked unavailable, or null if none.
+     */
+    private ParkingSpot claimNextParkingSpot(final UnitOfWork work) {
+        ParkingSpot parkingSpot = null;
+        try {
+            ParkingType parkingType = getVehicleType();
+            int parkingNumber = work.claimNextAvailableSlot(parkingType);
+            if (parkingNumber > 0) {
+                parkingSpot = new ParkingSpot(parkingNumber, parkingType, false);
+            } else {
+                throw new Exception("Error fetching parking number from DB. Parking slots might be full");
+            }
+        } catch (IllegalArgumentException ie) {
+            LOGGER.error("Error parsing user input for type of vehicle", ie);
+        } catch (Exception e) {
+            LOGGER.error("Error fetching next available parking slot", e);
+        }
+        return parkingSpot;
     }
 
     /**
@@ -89,11 +186,13 @@ public class ParkingService {
      * @throws Exception IllegalArgumentException for wrong registration number format
      */
     private String getVehicleRegNumber() throws Exception {
-        System.out.println("Please type the vehicle registration number and press enter key");
+        output.println("Please type the vehicle registration number and press enter key");
         return inputReaderUtil.readVehicleRegistrationNumber();
     }
 
     /**
+     * Preview next available spot without reserving it.
+     *
      * @return available ParkingSpot for user vehicle.
      */
     public ParkingSpot getNextParkingNumberIfAvailable() {
@@ -121,11 +220,11 @@ public class ParkingService {
      * @return ParkingType
      */
     private ParkingType getVehicleType() {
-        System.out.println("Please select vehicle type from menu");
+        output.println("Please select vehicle type from menu");
         final int carEntry = 1;
         final int bikeEntry = 2;
-        System.out.println("1 CAR");
-        System.out.println("2 BIKE");
+        output.println("1 CAR");
+        output.println("2 BIKE");
         int input = inputReaderUtil.readSelection();
         switch (input) {
             case carEntry:
@@ -133,32 +232,261 @@ public class ParkingService {
             case bikeEntry:
                 return ParkingType.BIKE;
             default:
-                System.out.println("Incorrect input provided");
+                output.println("Incorrect input provided");
                 throw new IllegalArgumentException("Entered input is invalid");
         }
     }
 
     /**
      * Resolve user parking by asking parking fare.
+     *
+     * @return closed ticket with its price, or null if the exit could not be recorded.
      */
-    public void processExitingVehicle() {
-        try {
+    public Ticket processExitingVehicle() {
+        long start = System.nanoTime();
+        Ticket ticket = releaseExitingVehicle();
+        EXITING_TIMER.recordSince(start);
+        if (ticket == null) {
+            EXITING_FAILURES.increment();
+        }
+        return ticket;
+    }
+
+    /**
+     * Exit of a vehicle, untimed. The closed ticket and the freed spot are one unit of work.
+     *
+     * @return closed ticket with its price, or null if the exit could not be recorded.
+     */
+    private Ticket releaseExitingVehicle() {
+        try (UnitOfWork work = unitOfWorkFactory.begin()) {
             String vehicleRegNumber = getVehicleRegNumber();
             Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
-            Instant outTime = Instant.now().truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
+            if (ticket == null || ticket.getOutTime() != null) { // Latest ticket already closed : the vehicle left
+                LOGGER.error("Unable to process exiting vehicle : no open ticket for {}", vehicleRegNumber);
+                return null;
+            }
+            Instant outTime = Instant.now(clock).truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
             ticket.setOutTime(outTime);
             fareCalculatorService.calculateFare(ticket);
-            if (ticketDAO.updateTicket(ticket)) {
-                ParkingSpot parkingSpot = ticket.getParkingSpot();
-                parkingSpot.setAvailable(true);
-                parkingSpotDAO.updateParking(parkingSpot);
-                System.out.println("Please pay the parking fare:" + ticket.getPrice());
-                System.out.println("Recorded out-time for vehicle number:" + ticket.getVehicleRegNumber() + " is:" + outTime);
+            ParkingSpot parkingSpot = ticket.getParkingSpot();
+            parkingSpot.setAvailable(true);
+            work.updateTicket(ticket);
+            work.updateParking(parkingSpot);
+            if (work.commit()) {
+                output.println("Please pay the parking fare:" + ticket.getPrice());
+                output.println("Recorded out-time for vehicle number:" + ticket.getVehicleRegNumber() + " is:" + outTime);
+                return ticket;
             } else {
-                System.out.println("Unable to update ticket information. Error occurred");
+                LOGGER.error("Unable to update ticket information for {}", vehicleRegNumber);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Unable to process exiting vehicle", e);
+        }
+        return null;
+    }
+
+    /**
+     * Price the stay of a parked vehicle as if it left now, without recording the exit.
+     *
+     * @return copy of the open ticket with out-time and price set, or null if the vehicle has no open ticket.
+     */
+    public Ticket quoteExitingVehicle() {
+        try {
+            String vehicleRegNumber = getVehicleRegNumber();
+            Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
+            if (ticket == null || ticket.getOutTime() != null) {
+                return null;
+            }
+            Ticket quote = new Ticket(ticket);
+            quote.setOutTime(Instant.now(clock).truncatedTo(ChronoUnit.MINUTES));
+            fareCalculatorService.calculateFare(quote);
+            return quote;
+        } catch (Exception e) {
+            LOGGER.error("Unable to quote exiting vehicle", e);
+        }
+        return null;
+    }
+
+    /**
+     * Start registration process for an incoming vehicle without waiting on storage : vehicle type and registration
+     * number are read at once, then the spot claim and the recurring user lookup run together on the database executor.
+     *
+     * @return completed with the saved ticket, or null if the vehicle could not be parked.
+     */
+    public CompletableFuture<Ticket> processIncomingVehicleAsync() {
+        long start = System.nanoTime();
+        return parkIncomingVehicleAsync().whenComplete((ticket, failure) -> {
+            INCOMING_TIMER.recordSince(start);
+            if (ticket == null) {
+                INCOMING_FAILURES.increment();
             }
+        });
+    }
+
+    /**
+     * Asynchronous registration of an incoming vehicle, untimed.
+     *
+     * @return completed with the saved ticket, or null if the vehicle could not be parked.
+     */
+    private CompletableFuture<Ticket> parkIncomingVehicleAsync() {
+        ParkingType parkingType;
+        String vehicleRegNumber;
+        try {
+            parkingType = getVehicleType();
+            vehicleRegNumber = getVehicleRegNumber();
+        } catch (Exception e) {
+            LOGGER.error("Unable to process incoming vehicle", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        Instant inTime = Instant.now(clock).truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
+        CompletableFuture<Boolean> recurring = asyncTicketDAO.isRecurringVehicle(vehicleRegNumber)
+                .exceptionally(e -> {
+                    LOGGER.error("Unable to check previous tickets of {}", vehicleRegNumber, e);
+                    return false; // Park without discount rather than lose a claimed spot
+                });
+        UnitOfWork work = unitOfWorkFactory.begin();
+        return CompletableFuture.supplyAsync(() -> work.claimNextAvailableSlot(parkingType), databaseExecutor)
+                .thenCombine(recurring, (parkingNumber, discounted) -> {
+                    if (parkingNumber <= 0) {
+                        LOGGER.error("Error fetching next available parking slot : parking slots might be full");
+                        return null;
+                    }
+                    Ticket ticket = new Ticket();
+                    ticket.setParkingSpot(new ParkingSpot(parkingNumber, parkingType, false));
+                    ticket.setVehicleRegNumber(vehicleRegNumber);
+                    ticket.setPrice(0);
+                    ticket.setInTime(inTime);
+                    if (discounted) {
+                        output.println("Welcome back! As a recurring user of our parking lot, you'll benefit from a 5% discount.");
+                        ticket.setDiscounted(true);
+                    }
+                    return ticket;
+                })
+                .thenCompose(ticket -> {
+                    if (ticket == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    work.saveTicket(ticket);
+                    return CompletableFuture.supplyAsync(work::commit, databaseExecutor).thenApply(saved -> {
+                        if (!saved) {
+                            LOGGER.error("Unable to save ticket information for {}", vehicleRegNumber);
+                            return null;
+                        }
+                        output.println("Generated Ticket and saved in DB");
+                        output.println("Please park your vehicle in spot number:" + ticket.getParkingSpot().getId());
+                        output.println("Recorded in-time for vehicle number:" + vehicleRegNumber + " is:" + inTime);
+                        return ticket;
+                    });
+                })
+                .exceptionally(e -> {
+                    LOGGER.error("Unable to process incoming vehicle", e);
+                    return null;
+                })
+                .whenComplete((ticket, failure) -> work.close()); // Gives the claimed spot back unless committed
+    }
+
+    /**
+     * Resolve user parking without waiting on storage : the registration number is read at once,
+     * then the ticket is read, priced and closed and its spot freed on the database executor.
+     *
+     * @return completed with the closed ticket and its price, or null if the exit could not be recorded.
+     */
+    public CompletableFuture<Ticket> processExitingVehicleAsync() {
+        long start = System.nanoTime();
+        return releaseExitingVehicleAsync().whenComplete((ticket, failure) -> {
+            EXITING_TIMER.recordSince(start);
+            if (ticket == null) {
+                EXITING_FAILURES.increment();
+            }
+        });
+    }
+
+    /**
+     * Asynchronous exit of a vehicle, untimed.
+     *
+     * @return completed with the closed ticket and its price, or null if the exit could not be recorded.
+     */
+    private CompletableFuture<Ticket> releaseExitingVehicleAsync() {
+        String vehicleRegNumber;
+        try {
+            vehicleRegNumber = getVehicleRegNumber();
         } catch (Exception e) {
             LOGGER.error("Unable to process exiting vehicle", e);
+            return CompletableFuture.completedFuture(null);
         }
+        Instant outTime = Instant.now(clock).truncatedTo(ChronoUnit.MINUTES); // Seconds and milliseconds are not relevant
+        FareCalculatorService fareCalculator = fareCalculatorService;
+        UnitOfWork work = unitOfWorkFactory.begin();
+        return asyncTicketDAO.getTicket(vehicleRegNumber)
+                .thenCompose(ticket -> {
+                    if (ticket == null || ticket.getOutTime() != null) { // Latest ticket already closed : the vehicle left
+                        LOGGER.error("Unable to process exiting vehicle : no open ticket for {}", vehicleRegNumber);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    ticket.setOutTime(outTime);
+                    fareCalculator.calculateFare(ticket);
+                    ParkingSpot parkingSpot = ticket.getParkingSpot();
+                    parkingSpot.setAvailable(true);
+                    work.updateTicket(ticket);
+                    work.updateParking(parkingSpot);
+                    return CompletableFuture.supplyAsync(work::commit, databaseExecutor).thenApply(updated -> {
+                        if (!updated) {
+                            LOGGER.error("Unable to update ticket information for {}", vehicleRegNumber);
+                            return null;
+                        }
+                        output.println("Please pay the parking fare:" + ticket.getPrice());
+                        output.println("Recorded out-time for vehicle number:" + vehicleRegNumber + " is:" + outTime);
+                        return ticket;
+                    });
+                })
+                .exceptionally(e -> {
+                    LOGGER.error("Unable to process exiting vehicle", e);
+                    return null;
+                })
+                .whenComplete((ticket, failure) -> work.close());
+    }
+
+    /**
+     * Set fareCalculatorService member attribute, to price exits with a loaded tariff.
+     * @param fareCalculatorServiceToSet fare calculator to use
+     */
+    public void setFareCalculatorService(final FareCalculatorService fareCalculatorServiceToSet) {
+        this.fareCalculatorService = fareCalculatorServiceToSet;
+    }
+
+    /**
+     * Set output member attribute, GateOutput.NONE for callers without a console user, so that entrances and exits
+     * do not wait on console writes.
+     * @param outputToSet receives prompts and per-vehicle messages
+     */
+    public void setOutput(final GateOutput outputToSet) {
+        this.output = outputToSet;
+    }
+
+    /**
+     * Set clock member attribute, to replay traffic in simulated time.
+     * @param clockToSet source of in and out times
+     */
+    public void setClock(final Clock clockToSet) {
+        this.clock = clockToSet;
+    }
+
+    /**
+     * Set the executor of the asynchronous flows, such as StorageBackend.getDatabaseExecutor().
+     * Unless set, storage calls of the asynchronous flows run on the calling thread.
+     * @param databaseExecutorToSet runs storage calls, bounding their concurrency
+     */
+    public void setDatabaseExecutor(final Executor databaseExecutorToSet) {
+        this.databaseExecutor = databaseExecutorToSet;
+        this.asyncTicketDAO = new AsyncTicketRepository(ticketDAO, databaseExecutorToSet);
+    }
+
+    /**
+     * Set unitOfWorkFactory member attribute, such as StorageBackend.getUnitOfWorkFactory(), to commit
+     * the writes of each entrance and exit together. Unless set, they are applied one by one to the DAOs.
+     * @param unitOfWorkFactoryToSet opens the unit of work of each entrance and exit
+     */
+    public void setUnitOfWorkFactory(final UnitOfWorkFactory unitOfWorkFactoryToSet) {
+        this.unitOfWorkFactory = unitOfWorkFactoryToSet;
     }
 }
@@ -0,0 +1,220 @@
+package com.parkit.parkingsystem.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Outcome of a GateEventReplay : per simulated day counts, throughput and cache hit rate, and the overall speed-up.
+ */
+public final class ReplayReport {
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    /**
+     * Milliseconds per second.
+     */
+    private static final double MILLIS_PER_SECOND = 1_000.0;
+
+    /**
+     * Lines per simulated day, in replay order.
+     */
+    private final List<Day> days;
+    /**
+     * Wall clock duration of the replay, in nanoseconds.
+     */
+    private final long elapsedNanos;
+    /**
+     * Simulated time of the first event, or null without event.
+     */
+    private final Instant firstEventTime;
+    /**
+     * Simulated time of the last event, or null without event.
+     */
+    private final Instant lastEventTime;
+
+    /**
+     * Constructor.
+     * @param daysToSet lines per simulated day, in replay order
+     * @param elapsedNanosToSet wall clock duration of the replay, in nanoseconds
+     * @param firstEventTimeToSet simulated time of the first event, or null
+     * @param lastEventTimeToSet simulated time of the last event, or null
+     */
+    ReplayReport(final List<Day> daysToSet, final long elapsedNanosToSet, final Instant firstEventTimeToSet,
+                 final Instant lastEventTimeToSet) {
+        this.days = Collections.unmodifiableList(new ArrayList<>(daysToSet));
+        this.elapsedNanos = elapsedNanosToSet;
+        this.firstEventTime = firstEventTimeToSet;
+        this.lastEventTime = lastEventTimeToSet;
+    }
+
+    /**
+     * @return lines per simulated day, in replay order.
+     */
+    public List<Day> getDays() {
+        return days;
+    }
+
+    /**
+     * @return events played.
+     */
+    public long getEventCount() {
+        long count = 0;
+        for (Day day : days) {
+            count += day.entries + day.exits;
+        }
+        return count;
+    }
+
+    /**
+     * @return entrances and exits which saved or closed no ticket.
+     */
+    public long getFailureCount() {
+        long count = 0;
+        for (Day day : days) {
+            count += day.failedEntries + day.failedExits;
+        }
+        return count;
+    }
+
+    /**
+     * @return simulated time between the first and last events.
+     */
+    public Duration getSimulatedSpan() {
+        return firstEventTime == null ? Duration.ZERO : Duration.between(firstEventTime, lastEventTime);
+    }
+
+    /**
+     * @return simulated time replayed per wall clock time.
+     */
+    public double getSpeedUp() {
+        return elapsedNanos == 0 ? 0 : getSimulatedSpan().toMillis() / MILLIS_PER_SECOND * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    /**
+     * Write the report : a CSV line per simulated day, then totals.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void write(final Appendable out) throws IOException {
+        out.append("day,entries,exits,failed_entries,failed_exits,ops_per_s,cache_hit_rate\n");
+        for (Day day : days) {
+            out.append(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%.4f%n", day.day, day.entries, day.exits,
+                    day.failedEntries, day.failedExits, day.getThroughput(), day.cacheHitRate));
+        }
+        out.append(String.format(Locale.ROOT, "events : %d, failures : %d, elapsed : %.3f s, simulated : %s, speed-up : %.0fx%n",
+                getEventCount(), getFailureCount(), elapsedNanos / NANOS_PER_SECOND, getSimulatedSpan(), getSpeedUp()));
+    }
+
+    /**
+     * Counts of one simulated day, UTC.
+     */
+    public static final class Day {
+
+        /**
+         * Simulated day, UTC.
+         */
+        private final LocalDate day;
+        /**
+         * Entrances played.
+         */
+        private final long entries;
+        /**
+         * Exits played.
+         */
+        private final long exits;
+        /**
+         * Entrances which saved no ticket.
+         */
+        private final long failedEntries;
+        /**
+         * Exits which closed no ticket.
+         */
+        private final long failedExits;
+        /**
+         * Time spent in ParkingService, in nanoseconds.
+         */
+        private final long serviceNanos;
+        /**
+         * Ticket cache hit rate, NaN without cache.
+         */
+        private final double cacheHitRate;
+
+        /**
+         * Constructor.
+         * @param dayToSet simulated day, UTC
+         * @param entriesToSet entrances played
+         * @param exitsToSet exits played
+         * @param failedEntriesToSet entrances which saved no ticket
+         * @param failedExitsToSet exits which closed no ticket
+         * @param serviceNanosToSet time spent in ParkingService, in nanoseconds
+         * @param cacheHitRateToSet ticket cache hit rate, NaN without cache
+         */
+        Day(final LocalDate dayToSet, final long entriesToSet, final long exitsToSet, final long failedEntriesToSet,
+            final long failedExitsToSet, final long serviceNanosToSet, final double cacheHitRateToSet) {
+            this.day = dayToSet;
+            this.entries = entriesToSet;
+            this.exits = exitsToSet;
+            this.failedEntries = failedEntriesToSet;
+            this.failedExits = failedExitsToSet;
+            this.serviceNanos = serviceNanosToSet;
+            this.cacheHitRate = cacheHitRateToSet;
+        }
+
+        /**
+         * @return simulated day, UTC.
+         */
+        public LocalDate getDay() {
+            return day;
+        }
+
+        /**
+         * @return entrances played.
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return exits played.
+         */
+        public long getExits() {
+            return exits;
+        }
+
+        /**
+         * @return entrances which saved no ticket.
+         */
+        public long getFailedEntries() {
+            return failedEntries;
+        }
+
+        /**
+         * @return exits which closed no ticket.
+         */
+        public long getFailedExits() {
+            return failedExits;
+        }
+
+        /**
+         * @return entrances and exits per second spent in ParkingService.
+         */
+        public double getThroughput() {
+            return serviceNanos == 0 ? 0 : (entries + exits) * NANOS_PER_SECOND / serviceNanos;
+        }
+
+        /**
+         * @return ticket cache hit rate, NaN without cache.
+         */
+        public double getCacheHitRate() {
+            return cacheHitRate;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
+import com.parkit.parkingsystem.config.PoolSettings;
+import com.parkit.parkingsystem.config.QueryPlanVerifier;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.DataBaseUnitOfWork;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotRepository;
+import com.parkit.parkingsystem.dao.InMemoryTicketRepository;
+import com.parkit.parkingsystem.dao.JournalTicketRepository;
+import com.parkit.parkingsystem.dao.MeteredParkingSpotRepository;
+import com.parkit.parkingsystem.dao.MeteredTicketRepository;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotRepository;
+import com.parkit.parkingsystem.dao.RepositoryUnitOfWork;
+import com.parkit.parkingsystem.dao.TicketBatchWriter;
+import com.parkit.parkingsystem.dao.TicketCache;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketRepository;
+import com.parkit.parkingsystem.dao.UnitOfWorkFactory;
+import com.parkit.parkingsystem.metrics.Metrics;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Repositories of one storage, ready for ParkingService, and how to close them.
+ * Shared by the interactive shell and the tools driving ParkingService.
+ */
+public final class StorageBackend {
+
+    /**
+     * StorageBackend class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("StorageBackend");
+    /**
+     * System property giving the known plates filter file of the database storage,
+     * data/known-plates-&lt;datasource profile&gt;.bloom by default.
+     */
+    public static final String KNOWN_PLATES_FILE_PROPERTY = "parkingsystem.knownPlates.file";
+    /**
+     * Storage calls waiting per database thread before callers run them themselves.
+     */
+    private static final int DATABASE_QUEUE_PER_THREAD = 64;
+
+    /**
+     * Parking spot storage.
+     */
+    private final ParkingSpotRepository parkingSpotRepository;
+    /**
+     * Ticket storage.
+     */
+    private final TicketRepository ticketRepository;
+    /**
+     * Opens the unit of work of each entrance and exit.
+     */
+    private final UnitOfWorkFactory unitOfWorkFactory;
+    /**
+     * Free spots per ParkingType when opened.
+     */
+    private final Map<ParkingType, Integer> freeSpots;
+    /**
+     * Latest ticket cache of the database storage, null for others.
+     */
+    private final TicketCache ticketCache;
+    /**
+     * Runs the storage calls of asynchronous flows.
+     */
+    private final Executor databaseExecutor;
+    /**
+     * Flush and close the storage.
+     */
+    private final Runnable shutdown;
+
+    /**
+     * Constructor.
+     * @param parkingSpotRepositoryToSet parking spot storage
+     * @param ticketRepositoryToSet ticket storage
+     * @param unitOfWorkFactoryToSet opens the unit of work of each entrance and exit
+     * @param freeSpotsToSet free spots per ParkingType when opened
+     * @param ticketCacheToSet latest ticket cache, or null
+     * @param databaseExecutorToSet runs the storage calls of asynchronous flows
+     * @param shutdownToSet flush and close the storage
+     */
+    private StorageBackend(final ParkingSpotRepository parkingSpotRepositoryToSet,
+                           final TicketRepository ticketRepositoryToSet, final UnitOfWorkFactory unitOfWorkFactoryToSet,
+                           final Map<ParkingType, Integer> freeSpotsToSet,
+                           final TicketCache ticketCacheToSet, final Executor databaseExecutorToSet,
+                           final Runnable shutdownToSet) {
+        this.parkingSpotRepository = parkingSpotRepositoryToSet;
+        this.ticketRepository = ticketRepositoryToSet;
+        this.unitOfWorkFactory = unitOfWorkFactoryToSet;
+        this.freeSpots = freeSpotsToSet;
+        this.ticketCache = ticketCacheToSet;
+        this.databaseExecutor = databaseExecutorToSet;
+        this.shutdown = shutdownToSet;
+    }
+
+    /**
+     * Open a storage.
+     * @param storage "mysql" for the database selected by DataBaseConfig, "journal" or "memory"
+     * @param memoryLayout parking layout of journal and memory storages, such as "CAR:3,BIKE:2"
+     * @param journalDirectory journal folder of the journal storage
+     * @return opened storage
+     * @throws IOException if the journal can not be opened
+     */
+    public static StorageBackend open(final String storage, final String memoryLayout, final Path journalDirectory)
+            throws IOException {
+        return open(storage, memoryLayout, journalDirectory, null);
+    }
+
+    /**
+     * Open a storage whose time dependent state, such as cache expiry, follows a clock.
+     * @param storage "mysql" for the database selected by DataBaseConfig, "journal" or "memory"
+     * @param memoryLayout parking layout of journal and memory storages, such as "CAR:3,BIKE:2"
+     * @param journalDirectory journal folder of the journal storage
+     * @param clock time source, such as the clock of a replay, null for wall time
+     * @return opened storage
+     * @throws IOException if the journal can not be opened
+     */
+    public static StorageBackend open(final String storage, final String memoryLayout, final Path journalDirectory,
+                                      final Clock clock) throws IOException {
+        if ("journal".equalsIgnoreCase(storage)) {
+            JournalTicketRepository ticketRepository = new JournalTicketRepository(journalDirectory);
+            InMemoryParkingSpotRepository parkingSpotRepository = InMemoryParkingSpotRepository.fromLayout(memoryLayout);
+            for (Ticket openTicket : ticketRepository.getOpenTickets()) {
+                parkingSpotRepository.updateParking(openTicket.getParkingSpot()); // Still occupied
+            }
+            return new StorageBackend(parkingSpotRepository, ticketRepository,
+                    RepositoryUnitOfWork.factory(parkingSpotRepository, ticketRepository), countFree(parkingSpotRepository),
+                    null, Runnable::run, ticketRepository::close);
+        }
+        if ("memory".equalsIgnoreCase(storage)) {
+            LOGGER.info("Using in-memory storage, nothing is persisted");
+            InMemoryParkingSpotRepository parkingSpotRepository = InMemoryParkingSpotRepository.fromLayout(memoryLayout);
+            InMemoryTicketRepository ticketRepository = new InMemoryTicketRepository();
+            return new StorageBackend(parkingSpotRepository, ticketRepository,
+                    RepositoryUnitOfWork.factory(parkingSpotRepository, ticketRepository), countFree(parkingSpotRepository),
+                    null, Runnable::run, () -> { });
+        }
+        DataBaseConfig dataBaseConfig = new DataBaseConfig();
+        DataSourceSettings dataSourceSettings = DataBaseConfig.getDataSourceSettings();
+        boolean embedded = dataSourceSettings.isEmbedded();
+        try {
+            SchemaMigrator schemaMigrator = new SchemaMigrator(dataBaseConfig);
+            if (embedded) {
+                schemaMigrator.bootstrap();
+            }
+            schemaMigrator.migrate();
+        } catch (Exception e) {
+            LOGGER.error("Unable to migrate database schema", e);
+        }
+        if (!embedded) { // Plans are checked against MySQL EXPLAIN output
+            new QueryPlanVerifier(dataBaseConfig).verifyAndLog();
+        }
+        ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+        Map<ParkingType, Integer> freeSpots = new EnumMap<>(ParkingType.class);
+        for (ParkingType parkingType : ParkingType.values()) {
+            freeSpots.put(parkingType, 0);
+        }
+        for (ParkingSpot parkingSpot : parkingSpotDAO.getParkingSpots()) {
+            if (parkingSpot.isAvailable()) {
+                freeSpots.merge(parkingSpot.getParkingType(), 1, Integer::sum);
+            }
+        }
+        parkingSpotDAO.loadAvailabilityIndex();
+        TicketDAO ticketDAO = new TicketDAO();
+        TicketCache ticketCache = new TicketCache(clock);
+        ticketDAO.setTicketCache(ticketCache);
+        ticketDAO.loadKnownPlatesFilter(Paths.get(System.getProperty(KNOWN_PLATES_FILE_PROPERTY,
+                "data/known-plates-" + dataSourceSettings.getProfile() + ".bloom")),
+                dataSourceSettings.getProfile() + " " + dataSourceSettings.getUrl());
+        TicketBatchWriter batchWriter = new TicketBatchWriter(dataBaseConfig);
+        ticketDAO.setBatchWriter(batchWriter);
+        ThreadPoolExecutor databaseExecutor = newDatabaseExecutor(new PoolSettings().getMaxSize());
+        registerGauges(ticketCache, databaseExecutor);
+        Runnable shutdown = () -> {
+            databaseExecutor.shutdown();
+            batchWriter.shutdown();
+            parkingSpotDAO.shutdown();
+            ticketDAO.saveKnownPlatesFilter();
+            DataBaseConfig.shutdown();
+        };
+        return new StorageBackend(new MeteredParkingSpotRepository(parkingSpotDAO), new MeteredTicketRepository(ticketDAO),
+                DataBaseUnitOfWork.factory(parkingSpotDAO, ticketDAO), freeSpots, ticketCache, databaseExecutor, shutdown);
+    }
+
+    /**
+     * Register the gauges of the database storage : connection pool, statement cache, ticket cache and database threads.
+     * @param ticketCache latest ticket cache
+     * @param databaseExecutor executor of the asynchronous storage calls
+     */
+    private static void registerGauges(final TicketCache ticketCache, final ThreadPoolExecutor databaseExecutor) {
+        try {
+            ConnectionPool pool = DataBaseConfig.getConnectionPool();
+            Metrics.gauge("pool.active", () -> pool.getStats().getActive());
+            Metrics.gauge("pool.idle", () -> pool.getStats().getIdle());
+            Metrics.gauge("pool.waiters", () -> pool.getStats().getWaiters());
+            Metrics.gauge("pool.acquireCount", () -> pool.getStats().getAcquireCount());
+            Metrics.gauge("pool.timeoutCount", () -> pool.getStats().getTimeoutCount());
+            Metrics.gauge("pool.meanAcquireMicros", () -> pool.getStats().getMeanAcquireMicros());
+            Metrics.gauge("pool.maxAcquireMicros", () -> pool.getStats().getMaxAcquireMicros());
+            Metrics.gauge("statementCache.hitRatio", () -> pool.getStatementCacheStats().getHitRatio());
+            Metrics.gauge("statementCache.evictions", () -> pool.getStatementCacheStats().getEvictions());
+        } catch (ClassNotFoundException e) {
+            LOGGER.error("Unable to register connection pool gauges", e);
+        }
+        Metrics.gauge("ticketCache.size", ticketCache::size);
+        Metrics.gauge("ticketCache.hitRate", () -> ticketCache.getStats().hitRate());
+        Metrics.gauge("database.executor.active", databaseExecutor::getActiveCount);
+        Metrics.gauge("database.executor.queued", () -> databaseExecutor.getQueue().size());
+    }
+
+    /**
+     * Executor of the asynchronous storage calls : one thread per pooled connection, so that calls never wait
+     * for a connection, and a bounded queue beyond which the calling gate runs the call itself.
+     * @param threads number of database threads
+     * @return started executor
+     */
+    private static ThreadPoolExecutor newDatabaseExecutor(final int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * DATABASE_QUEUE_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "database-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @param parkingSpotRepository in-memory spots
+     * @return free spots per ParkingType.
+     */
+    private static Map<ParkingType, Integer> countFree(final InMemoryParkingSpotRepository parkingSpotRepository) {
+        Map<ParkingType, Integer> freeSpots = new EnumMap<>(ParkingType.class);
+        for (ParkingType parkingType : ParkingType.values()) {
+            freeSpots.put(parkingType, parkingSpotRepository.countFree(parkingType));
+        }
+        return freeSpots;
+    }
+
+    /**
+     * @return parking spot storage.
+     */
+    public ParkingSpotRepository getParkingSpotRepository() {
+        return parkingSpotRepository;
+    }
+
+    /**
+     * @return ticket storage.
+     */
+    public TicketRepository getTicketRepository() {
+        return ticketRepository;
+    }
+
+    /**
+     * @return opener of the unit of work of each entrance and exit : one transaction on the database storage,
+     * writes applied one by one on in-memory and journal storages.
+     */
+    public UnitOfWorkFactory getUnitOfWorkFactory() {
+        return unitOfWorkFactory;
+    }
+
+    /**
+     * @param parkingType type of spots
+     * @return free spots of the type when the storage was opened.
+     */
+    public int getFreeSpots(final ParkingType parkingType) {
+        return freeSpots.get(parkingType);
+    }
+
+    /**
+     * @return latest ticket cache of the database storage, null for others.
+     */
+    public TicketCache getTicketCache() {
+        return ticketCache;
+    }
+
+    /**
+     * @return executor of the storage calls of asynchronous flows : bounded database threads,
+     * the calling thread for in-memory and journal storages.
+     */
+    public Executor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    /**
+     * Flush pending writes and close the storage.
+     */
+    public void shutdown() {
+        shutdown.run();
+    }
+}
@@ -0,0 +1,429 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Compiled pricing rules, immutable and shared by every gate. Per ParkingType a tariff has :
+ * <ul>
+ * <li>a grace period : shorter stays are free, longer ones are charged from their first minute,</li>
+ * <li>hourly rate tiers by elapsed time, such as 150 cents the first 3 hours then 100 cents,</li>
+ * <li>time bands adding to the hourly rate by local day of week and time of day, such as weekend or rush hours,</li>
+ * <li>an optional cap per started 24 hours of stay.</li>
+ * </ul>
+ * Tiers and bands are compiled into cumulative tables indexed by minute, so pricing a stay costs two lookups
+ * per table, and one more per started day when a daily cap is set.
+ * Prices are expressed in rate-minutes : the sum over charged minutes of the hourly rate in cents, that is 60 times
+ * the price in cents, so that no rounding happens before FareCalculatorService applies discounts.
+ */
+public final class Tariff {
+
+    /**
+     * Minutes per hour.
+     */
+    private static final int MINUTES_PER_HOUR = 60;
+    /**
+     * Minutes per day.
+     */
+    private static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+    /**
+     * Minutes per week.
+     */
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    /**
+     * Minute of week, counted from Monday 00:00, of the epoch : 1970-01-01 was a Thursday.
+     */
+    private static final int EPOCH_MINUTE_OF_WEEK = 3 * MINUTES_PER_DAY;
+    /**
+     * Seconds per minute.
+     */
+    private static final long SECONDS_PER_MINUTE = 60;
+    /**
+     * Free stay of the built-in tariff, in minutes.
+     */
+    private static final int STANDARD_GRACE_MINUTES = 30;
+    /**
+     * Recurring user discount of the built-in tariff, in percent.
+     */
+    private static final int STANDARD_DISCOUNT_PERCENT = 5;
+    /**
+     * Largest discount, in percent.
+     */
+    private static final int MAX_PERCENT = 100;
+
+    /**
+     * Name, for logs.
+     */
+    private final String name;
+    /**
+     * Time zone of the time bands.
+     */
+    private final ZoneRules zoneRules;
+    /**
+     * Offset of the time zone in minutes, if it never changes.
+     */
+    private final int fixedOffsetMinutes;
+    /**
+     * Recurring user discount, in percent.
+     */
+    private final int discountPercent;
+    /**
+     * Compiled rules of each ParkingType.
+     */
+    private final Map<ParkingType, TypeTariff> typeTariffs;
+    /**
+     * Compiled rules indexed by ParkingType ordinal, for bulk pricing.
+     */
+    private final TypeTariff[] typeTariffsByOrdinal;
+
+    /**
+     * Constructor.
+     * @param nameToSet name, for logs
+     * @param zone time zone of the time bands
+     * @param discountPercentToSet recurring user discount, in percent
+     * @param typeTariffsToSet compiled rules of every ParkingType
+     */
+    private Tariff(final String nameToSet, final ZoneId zone, final int discountPercentToSet,
+                   final Map<ParkingType, TypeTariff> typeTariffsToSet) {
+        this.name = nameToSet;
+        this.zoneRules = zone.getRules();
+        this.fixedOffsetMinutes = zoneRules.getOffset(Instant.EPOCH).getTotalSeconds() / (int) SECONDS_PER_MINUTE;
+        this.discountPercent = discountPercentToSet;
+        this.typeTariffs = typeTariffsToSet;
+        this.typeTariffsByOrdinal = typeTariffsToSet.values().toArray(new TypeTariff[0]);
+    }
+
+    /**
+     * @return built-in tariff : free under 30 minutes, then ParkingType hourly rate from the first minute,
+     * 5% recurring user discount.
+     */
+    public static Tariff standard() {
+        Map<ParkingType, TypeTariff> typeTariffs = new EnumMap<>(ParkingType.class);
+        for (ParkingType parkingType : ParkingType.values()) {
+            typeTariffs.put(parkingType, new TypeTariff(STANDARD_GRACE_MINUTES,
+                    new int[] {0}, new long[] {parkingType.getFareCents()}, new long[MINUTES_PER_WEEK], 0));
+        }
+        return new Tariff("standard", ZoneOffset.UTC, STANDARD_DISCOUNT_PERCENT, typeTariffs);
+    }
+
+    /**
+     * Read and compile a tariff file.
+     * @param file properties file, see parse()
+     * @return compiled tariff
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file content is invalid
+     */
+    public static Tariff load(final Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Compile a tariff definition. Keys, {TYPE} being a ParkingType name :
+     * <pre>
+     * name=weekday-2024            name for logs, optional
+     * zone=Europe/Paris            time zone of bands, default UTC
+     * discount.percent=5           recurring user discount, default 0
+     * {TYPE}.grace=30              stays shorter than this are free, in minutes, default 0
+     * {TYPE}.tiers=0:150,180:100   required, fromElapsedMinute:centsPerHour, first tier from minute 0
+     * {TYPE}.bands=MON-FRI 07:00-10:00 +50; SAT-SUN 00:00-24:00 -30
+     *                              optional, hourly cents added on local day and time ranges
+     * {TYPE}.dailyCap=2000         optional, maximum cents per started 24 hours of stay
+     * </pre>
+     * @param properties tariff definition
+     * @return compiled tariff
+     * @throws IllegalArgumentException on invalid definition
+     */
+    public static Tariff parse(final Properties properties) {
+        int discountPercent = Integer.parseInt(properties.getProperty("discount.percent", "0").trim());
+        if (discountPercent < 0 || discountPercent > MAX_PERCENT) {
+            throw new IllegalArgumentException("Invalid discount.percent: " + discountPercent);
+        }
+        Map<ParkingType, TypeTariff> typeTariffs = new EnumMap<>(ParkingType.class);
+        for (ParkingType parkingType : ParkingType.values()) {
+            typeTariffs.put(parkingType, parseType(properties, parkingType.name()));
+        }
+        return new Tariff(properties.getProperty("name", "unnamed").trim(),
+                ZoneId.of(properties.getProperty("zone", "UTC").trim()), discountPercent, typeTariffs);
+    }
+
+    /**
+     * Price a stay, before discount.
+     * @param inEpochMinute entrance time, in minutes since epoch
+     * @param outEpochMinute exit time, in minutes since epoch, not before entrance
+     * @param parkingType type of the spot
+     * @return price, in rate-minutes : 60 times the price in cents
+     */
+    public long getRateMinutes(final long inEpochMinute, final long outEpochMinute, final ParkingType parkingType) {
+        TypeTariff typeTariff = typeTariffs.get(parkingType);
+        long minutes = outEpochMinute - inEpochMinute;
+        if (minutes < typeTariff.graceMinutes) {
+            return 0;
+        }
+        // Bands follow the local clock at entrance : a daylight saving change during the stay is not applied
+        int offsetMinutes = zoneRules.isFixedOffset() ? fixedOffsetMinutes
+                : zoneRules.getOffset(Instant.ofEpochSecond(inEpochMinute * SECONDS_PER_MINUTE)).getTotalSeconds()
+                / (int) SECONDS_PER_MINUTE;
+        long weekStart = Math.floorMod(inEpochMinute + offsetMinutes + EPOCH_MINUTE_OF_WEEK, MINUTES_PER_WEEK);
+        if (typeTariff.dailyCapRateMinutes <= 0) {
+            return typeTariff.elapsed(minutes) + typeTariff.banded(weekStart, weekStart + minutes);
+        }
+        long total = 0;
+        for (long dayStart = 0; dayStart < minutes; dayStart += MINUTES_PER_DAY) {
+            long dayEnd = Math.min(minutes, dayStart + MINUTES_PER_DAY);
+            long day = typeTariff.elapsed(dayEnd) - typeTariff.elapsed(dayStart)
+                    + typeTariff.banded(weekStart + dayStart, weekStart + dayEnd);
+            total += Math.min(day, typeTariff.dailyCapRateMinutes);
+        }
+        return total;
+    }
+
+    /**
+     * Price stays still running at a given time, before discount, without allocation.
+     * Types with a single tier, no band and no cap are priced by a multiplication,
+     * other types take the same path as a single stay.
+     * @param inEpochMinutes entrance times, in minutes since epoch
+     * @param parkingTypeOrdinals ParkingType ordinal of each stay
+     * @param nowEpochMinute quote time, in minutes since epoch ; stays entered later are priced 0
+     * @param rateMinutes receives the price of each stay, in rate-minutes
+     * @param count number of stays
+     */
+    public void getRateMinutes(final long[] inEpochMinutes, final byte[] parkingTypeOrdinals,
+                               final long nowEpochMinute, final long[] rateMinutes, final int count) {
+        ParkingType[] parkingTypes = ParkingType.values();
+        for (int i = 0; i < count; i++) {
+            long inEpochMinute = Math.min(inEpochMinutes[i], nowEpochMinute);
+            TypeTariff typeTariff = typeTariffsByOrdinal[parkingTypeOrdinals[i]];
+            if (typeTariff.flat) {
+                long minutes = nowEpochMinute - inEpochMinute;
+                rateMinutes[i] = minutes < typeTariff.graceMinutes ? 0 : minutes * typeTariff.tailRate;
+            } else {
+                rateMinutes[i] = getRateMinutes(inEpochMinute, nowEpochMinute, parkingTypes[parkingTypeOrdinals[i]]);
+            }
+        }
+    }
+
+    /**
+     * @return recurring user discount, in percent.
+     */
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    /**
+     * @return name, for logs.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param properties tariff definition
+     * @param type ParkingType name
+     * @return compiled rules of the type
+     */
+    private static TypeTariff parseType(final Properties properties, final String type) {
+        String tiers = properties.getProperty(type + ".tiers");
+        if (tiers == null) {
+            throw new IllegalArgumentException("Missing " + type + ".tiers");
+        }
+        String[] tierEntries = tiers.split(",");
+        int[] tierStarts = new int[tierEntries.length];
+        long[] tierRates = new long[tierEntries.length];
+        for (int i = 0; i < tierEntries.length; i++) {
+            String[] startAndRate = tierEntries[i].trim().split(":");
+            if (startAndRate.length != 2) {
+                throw new IllegalArgumentException("Invalid " + type + ".tiers entry: " + tierEntries[i]);
+            }
+            tierStarts[i] = Integer.parseInt(startAndRate[0].trim());
+            tierRates[i] = Long.parseLong(startAndRate[1].trim());
+            if (i == 0 ? tierStarts[i] != 0 : tierStarts[i] <= tierStarts[i - 1]) {
+                throw new IllegalArgumentException(type + ".tiers must start at 0 and increase");
+            }
+        }
+        long[] bandRates = new long[MINUTES_PER_WEEK];
+        String bands = properties.getProperty(type + ".bands", "").trim();
+        if (!bands.isEmpty()) {
+            for (String band : bands.split(";")) {
+                parseBand(band.trim(), type, bandRates);
+            }
+        }
+        int graceMinutes = Integer.parseInt(properties.getProperty(type + ".grace", "0").trim());
+        long dailyCapCents = Long.parseLong(properties.getProperty(type + ".dailyCap", "0").trim());
+        return new TypeTariff(graceMinutes, tierStarts, tierRates, bandRates, dailyCapCents * MINUTES_PER_HOUR);
+    }
+
+    /**
+     * Add a band to the hourly rate of each minute of week it covers. A band ending before it starts runs
+     * overnight : "MON-FRI 22:00-06:00" covers Monday night to Saturday 06:00.
+     * @param band such as "MON-FRI 07:00-10:00 +50"
+     * @param type ParkingType name, for errors
+     * @param bandRates hourly cents added per minute of week
+     */
+    private static void parseBand(final String band, final String type, final long[] bandRates) {
+        String[] parts = band.split("\\s+");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid " + type + ".bands entry: " + band);
+        }
+        String[] days = parts[0].split("-");
+        int firstDay = DayOfWeek.valueOf(toDayName(days[0])).ordinal();
+        int lastDay = days.length == 1 ? firstDay : DayOfWeek.valueOf(toDayName(days[1])).ordinal();
+        String[] times = parts[1].split("-");
+        if (times.length != 2) {
+            throw new IllegalArgumentException("Invalid " + type + ".bands time range: " + parts[1]);
+        }
+        int from = parseTimeOfDay(times[0]);
+        int to = parseTimeOfDay(times[1]);
+        if (from == to) {
+            throw new IllegalArgumentException("Empty " + type + ".bands time range: " + parts[1]);
+        }
+        int length = to > from ? to - from : to + MINUTES_PER_DAY - from; // Overnight band ends on the next day
+        long rate = Long.parseLong(parts[2].startsWith("+") ? parts[2].substring(1) : parts[2]);
+        for (int day = firstDay; ; day = (day + 1) % DayOfWeek.values().length) {
+            int start = day * MINUTES_PER_DAY + from;
+            for (int minute = 0; minute < length; minute++) {
+                bandRates[(start + minute) % MINUTES_PER_WEEK] += rate;
+            }
+            if (day == lastDay) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param day three letter day, such as MON
+     * @return DayOfWeek name
+     */
+    private static String toDayName(final String day) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().startsWith(day.trim().toUpperCase())) {
+                return dayOfWeek.name();
+            }
+        }
+        throw new IllegalArgumentException("Unknown day: " + day);
+    }
+
+    /**
+     * @param time HH:MM, 24:00 being the end of day
+     * @return minute of day
+     */
+    private static int parseTimeOfDay(final String time) {
+        String[] hoursAndMinutes = time.split(":");
+        int minute = Integer.parseInt(hoursAndMinutes[0]) * MINUTES_PER_HOUR + Integer.parseInt(hoursAndMinutes[1]);
+        if (minute < 0 || minute > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Invalid time of day: " + time);
+        }
+        return minute;
+    }
+
+    /**
+     * Compiled rules of one ParkingType.
+     */
+    private static final class TypeTariff {
+
+        /**
+         * Stays shorter than this are free, in minutes.
+         */
+        private final int graceMinutes;
+        /**
+         * Rate-minutes of the first m elapsed minutes, up to the start of the last tier.
+         */
+        private final long[] elapsedTable;
+        /**
+         * Hourly rate of the last tier, in cents, applying beyond elapsedTable.
+         */
+        private final long tailRate;
+        /**
+         * Band rate-minutes from Monday 00:00 to each minute of week, MINUTES_PER_WEEK + 1 entries.
+         */
+        private final long[] weekTable;
+        /**
+         * Maximum rate-minutes per started 24 hours, 0 if uncapped.
+         */
+        private final long dailyCapRateMinutes;
+        /**
+         * True if a single tier applies at every minute, without band nor cap : price is minutes times tailRate.
+         */
+        private final boolean flat;
+
+        /**
+         * Constructor compiling tiers and bands into cumulative tables.
+         * @param graceMinutesToSet stays shorter than this are free
+         * @param tierStarts elapsed minute each tier starts at, increasing from 0
+         * @param tierRates hourly rate of each tier, in cents
+         * @param bandRates hourly cents added on each minute of week
+         * @param dailyCapRateMinutesToSet maximum rate-minutes per started 24 hours, 0 if uncapped
+         */
+        TypeTariff(final int graceMinutesToSet, final int[] tierStarts, final long[] tierRates,
+                   final long[] bandRates, final long dailyCapRateMinutesToSet) {
+            this.graceMinutes = graceMinutesToSet;
+            this.dailyCapRateMinutes = dailyCapRateMinutesToSet;
+            int lastStart = tierStarts[tierStarts.length - 1];
+            this.elapsedTable = new long[lastStart + 1];
+            int tier = 0;
+            for (int minute = 0; minute < lastStart; minute++) {
+                while (tier + 1 < tierStarts.length && tierStarts[tier + 1] <= minute) {
+                    tier++;
+                }
+                elapsedTable[minute + 1] = elapsedTable[minute] + tierRates[tier];
+            }
+            this.tailRate = tierRates[tierRates.length - 1];
+            this.weekTable = new long[MINUTES_PER_WEEK + 1];
+            long lowestTierRate = Long.MAX_VALUE;
+            for (long tierRate : tierRates) {
+                lowestTierRate = Math.min(lowestTierRate, tierRate);
+            }
+            boolean hasBands = false;
+            for (int minute = 0; minute < MINUTES_PER_WEEK; minute++) {
+                if (lowestTierRate + bandRates[minute] < 0) {
+                    throw new IllegalArgumentException("Bands make the hourly rate negative at minute of week " + minute);
+                }
+                weekTable[minute + 1] = weekTable[minute] + bandRates[minute];
+                hasBands |= bandRates[minute] != 0;
+            }
+            this.flat = tierRates.length == 1 && !hasBands && dailyCapRateMinutes <= 0;
+        }
+
+        /**
+         * @param minutes elapsed minutes since entrance
+         * @return tier rate-minutes of the first minutes of stay.
+         */
+        long elapsed(final long minutes) {
+            int last = elapsedTable.length - 1;
+            return minutes <= last ? elapsedTable[(int) minutes] : elapsedTable[last] + (minutes - last) * tailRate;
+        }
+
+        /**
+         * @param from first minute of week, from 0 to MINUTES_PER_WEEK excluded
+         * @param to end minute, not before from, may span several weeks
+         * @return band rate-minutes between the two minutes.
+         */
+        long banded(final long from, final long to) {
+            return cumulativeBand(to) - cumulativeBand(from);
+        }
+
+        /**
+         * @param minute minutes since the reference Monday 00:00
+         * @return band rate-minutes since the reference Monday.
+         */
+        private long cumulativeBand(final long minute) {
+            return minute / MINUTES_PER_WEEK * weekTable[MINUTES_PER_WEEK] + weekTable[(int) (minute % MINUTES_PER_WEEK)];
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.parkit.parkingsystem.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch a tariff file and swap the FareCalculatorService tariff whenever the file changes.
+ * An invalid file is logged and ignored : the previous tariff stays in use.
+ */
+public class TariffReloader {
+
+    /**
+     * TariffReloader class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("TariffReloader");
+    /**
+     * Default time between file checks, in milliseconds.
+     */
+    private static final long DEFAULT_PERIOD_MS = 5_000;
+
+    /**
+     * Tariff file to watch.
+     */
+    private final Path file;
+    /**
+     * Fare calculator receiving new tariffs.
+     */
+    private final FareCalculatorService fareCalculatorService;
+    /**
+     * Scheduler of file checks, null until started.
+     */
+    private ScheduledExecutorService scheduler;
+    /**
+     * Modification time of the last file loaded.
+     */
+    private FileTime loadedModifiedTime;
+    /**
+     * Modification time of the last file that failed to load, reported once.
+     */
+    private FileTime failedModifiedTime;
+    /**
+     * Whether the file was unreadable at the last check, reported once.
+     */
+    private boolean missingReported;
+
+    /**
+     * Constructor.
+     * @param fileToWatch tariff file, see Tariff.parse()
+     * @param fareCalculatorServiceToUpdate fare calculator receiving new tariffs
+     */
+    public TariffReloader(final Path fileToWatch, final FareCalculatorService fareCalculatorServiceToUpdate) {
+        this.file = fileToWatch;
+        this.fareCalculatorService = fareCalculatorServiceToUpdate;
+    }
+
+    /**
+     * Load the tariff file if it changed since the last load.
+     * @return true if a new tariff is in use
+     */
+    public synchronized boolean reloadIfChanged() {
+        FileTime modifiedTime;
+        try {
+            modifiedTime = Files.getLastModifiedTime(file);
+        } catch (IOException ex) {
+            if (!missingReported) {
+                missingReported = true;
+                LOGGER.error("Unable to read tariff file {}, keeping tariff {}", file,
+                        fareCalculatorService.getTariff().getName(), ex);
+            }
+            return false;
+        }
+        missingReported = false;
+        if (modifiedTime.equals(loadedModifiedTime) || modifiedTime.equals(failedModifiedTime)) {
+            return false; // Unchanged, or the same invalid file already reported
+        }
+        try {
+            Tariff tariff = Tariff.load(file);
+            fareCalculatorService.setTariff(tariff);
+            loadedModifiedTime = modifiedTime;
+            failedModifiedTime = null;
+            LOGGER.info("Tariff {} loaded from {}", tariff.getName(), file);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            failedModifiedTime = modifiedTime;
+            LOGGER.error("Unable to load tariff file {}, keeping tariff {}", file,
+                    fareCalculatorService.getTariff().getName(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Load the tariff file now, then check it for changes periodically.
+     */
+    public synchronized void start() {
+        start(DEFAULT_PERIOD_MS);
+    }
+
+    /**
+     * Load the tariff file now, then check it for changes periodically.
+     * @param periodMs time between file checks, in milliseconds
+     */
+    public synchronized void start(final long periodMs) {
+        reloadIfChanged();
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "tariff-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::reloadIfChanged, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop checking the tariff file.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
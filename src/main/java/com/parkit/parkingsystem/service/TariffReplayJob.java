@@ -0,0 +1,385 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batch job re-pricing closed tickets under candidate tariffs, to compare revenue before changing rates.
+ * Tickets are streamed from the database with a forward-only cursor into fixed size columnar chunks,
+ * re-priced by a fork-join pool on every core, and summed per exit day, ParkingType and discount flag.
+ * Memory is bounded by the chunks in flight and the number of report lines, whatever the number of tickets.
+ */
+public class TariffReplayJob {
+
+    /**
+     * TariffReplayJob class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger("TariffReplayJob");
+    /**
+     * MySQL Connector/J fetch size streaming rows one by one instead of loading the whole result.
+     */
+    public static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    /**
+     * Rows read from the database per chunk.
+     */
+    private static final int CHUNK_SIZE = 16_384;
+    /**
+     * Rows below which a chunk is re-priced without splitting further.
+     */
+    private static final int LEAF_SIZE = 2_048;
+    /**
+     * Chunks in flight per worker thread : bounds memory while keeping workers busy during reads.
+     */
+    private static final int CHUNKS_PER_WORKER = 2;
+    /**
+     * Milliseconds per minute.
+     */
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    /**
+     * Minutes per day.
+     */
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    /**
+     * Cents per currency unit.
+     */
+    private static final double CENTS_PER_UNIT = 100.0;
+    /**
+     * Accumulator slots before candidate revenues : ticket count and charged cents.
+     */
+    private static final int FIXED_SLOTS = 2;
+
+    /**
+     * Database Configuration object.
+     */
+    private final DataBaseConfig dataBaseConfig;
+    /**
+     * Pool re-pricing chunks.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Rows fetched per database round trip.
+     */
+    private int fetchSize = MYSQL_STREAMING_FETCH_SIZE;
+
+    /**
+     * Constructor using the common fork-join pool.
+     * @param dataBaseConfigToSet database to read tickets from
+     */
+    public TariffReplayJob(final DataBaseConfig dataBaseConfigToSet) {
+        this(dataBaseConfigToSet, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param dataBaseConfigToSet database to read tickets from
+     * @param poolToSet pool re-pricing chunks
+     */
+    public TariffReplayJob(final DataBaseConfig dataBaseConfigToSet, final ForkJoinPool poolToSet) {
+        this.dataBaseConfig = dataBaseConfigToSet;
+        this.pool = poolToSet;
+    }
+
+    /**
+     * Set fetchSize member attribute. The MySQL default streams rows ; drivers honouring positive fetch sizes,
+     * or MySQL with useCursorFetch=true, should be given a large positive value.
+     * @param fetchSizeToSet rows fetched per database round trip
+     */
+    public void setFetchSize(final int fetchSizeToSet) {
+        this.fetchSize = fetchSizeToSet;
+    }
+
+    /**
+     * Re-price every ticket closed in a period.
+     * @param from first exit time included
+     * @param to last exit time excluded
+     * @param candidates tariffs to compare, by name
+     * @return revenue per exit day, ParkingType and discount flag
+     * @throws Exception on database error or pricing failure
+     */
+    public TariffReplayReport replay(final Instant from, final Instant to, final Map<String, Tariff> candidates)
+            throws Exception {
+        List<String> candidateNames = new ArrayList<>(candidates.keySet());
+        FareCalculatorService[] calculators = new FareCalculatorService[candidateNames.size()];
+        for (int i = 0; i < calculators.length; i++) {
+            calculators[i] = new FareCalculatorService();
+            calculators[i].setTariff(candidates.get(candidateNames.get(i)));
+        }
+        Map<Long, long[]> totals = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int maxChunksInFlight = pool.getParallelism() * CHUNKS_PER_WORKER;
+        Semaphore chunksInFlight = new Semaphore(maxChunksInFlight);
+        long rows = 0;
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            con = dataBaseConfig.getConnection();
+            ps = con.prepareStatement(DBConstants.GET_CLOSED_TICKETS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.from(from));
+            ps.setTimestamp(2, Timestamp.from(to));
+            rs = ps.executeQuery();
+            Chunk chunk = new Chunk();
+            while (rs.next() && failure.get() == null) {
+                chunk.add(rs.getTimestamp(1).getTime(), rs.getTimestamp(2).getTime(), rs.getBoolean(3),
+                        rs.getDouble(4), ParkingType.valueOf(rs.getString(5)));
+                rows++;
+                if (chunk.size == CHUNK_SIZE) {
+                    submit(chunk, calculators, totals, failure, chunksInFlight);
+                    chunk = new Chunk();
+                }
+            }
+            if (chunk.size > 0) {
+                submit(chunk, calculators, totals, failure, chunksInFlight);
+            }
+        } finally {
+            chunksInFlight.acquireUninterruptibly(maxChunksInFlight); // Wait for submitted chunks
+            dataBaseConfig.closeResultSet(rs);
+            dataBaseConfig.closePreparedStatement(ps);
+            dataBaseConfig.closeConnection(con);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Tariff replay failed", failure.get());
+        }
+        LOGGER.info("Replayed {} tickets closed between {} and {}", rows, from, to);
+        return buildReport(candidateNames, totals);
+    }
+
+    /**
+     * Re-price a chunk asynchronously, once a chunk slot is free.
+     * @param chunk rows to re-price
+     * @param calculators one fare calculator per candidate tariff
+     * @param totals accumulators per report line key
+     * @param failure first pricing failure
+     * @param chunksInFlight slots of chunks being re-priced
+     */
+    private void submit(final Chunk chunk, final FareCalculatorService[] calculators, final Map<Long, long[]> totals,
+                        final AtomicReference<Throwable> failure, final Semaphore chunksInFlight) {
+        chunksInFlight.acquireUninterruptibly();
+        pool.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    new RepriceTask(chunk, 0, chunk.size, calculators, totals).invoke();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    chunksInFlight.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * @param candidateNames names of the candidate tariffs
+     * @param totals accumulators per report line key
+     * @return report ordered by day, type and discount flag
+     */
+    private static TariffReplayReport buildReport(final List<String> candidateNames, final Map<Long, long[]> totals) {
+        int types = ParkingType.values().length;
+        List<TariffReplayReport.Line> lines = new ArrayList<>();
+        for (Map.Entry<Long, long[]> entry : new TreeMap<>(totals).entrySet()) {
+            long key = entry.getKey();
+            long[] sums = entry.getValue();
+            long[] candidateCents = new long[candidateNames.size()];
+            System.arraycopy(sums, FIXED_SLOTS, candidateCents, 0, candidateCents.length);
+            lines.add(new TariffReplayReport.Line(LocalDate.ofEpochDay(key / 2 / types),
+                    ParkingType.values()[(int) (key / 2 % types)], key % 2 == 1, sums[0], sums[1], candidateCents));
+        }
+        return new TariffReplayReport(candidateNames, lines);
+    }
+
+    /**
+     * @param outEpochMinute exit time, in minutes since epoch
+     * @param parkingTypeOrdinal ParkingType ordinal
+     * @param discounted discount flag
+     * @return report line key, ordered by day, type and discount flag
+     */
+    private static long lineKey(final long outEpochMinute, final int parkingTypeOrdinal, final boolean discounted) {
+        long epochDay = Math.floorDiv(outEpochMinute, MINUTES_PER_DAY);
+        return (epochDay * ParkingType.values().length + parkingTypeOrdinal) * 2 + (discounted ? 1 : 0);
+    }
+
+    /**
+     * Columnar block of closed tickets.
+     */
+    private static final class Chunk {
+
+        /**
+         * Entrance times, in minutes since epoch.
+         */
+        private final long[] inMinutes = new long[CHUNK_SIZE];
+        /**
+         * Exit times, in minutes since epoch.
+         */
+        private final long[] outMinutes = new long[CHUNK_SIZE];
+        /**
+         * ParkingType ordinals.
+         */
+        private final byte[] types = new byte[CHUNK_SIZE];
+        /**
+         * Discount flags.
+         */
+        private final boolean[] discounted = new boolean[CHUNK_SIZE];
+        /**
+         * Prices charged, in cents.
+         */
+        private final long[] chargedCents = new long[CHUNK_SIZE];
+        /**
+         * Rows filled.
+         */
+        private int size;
+
+        /**
+         * @param inMillis entrance time, in milliseconds since epoch
+         * @param outMillis exit time, in milliseconds since epoch
+         * @param discountedRow discount flag
+         * @param price price charged
+         * @param parkingType type of the spot
+         */
+        void add(final long inMillis, final long outMillis, final boolean discountedRow, final double price,
+                 final ParkingType parkingType) {
+            inMinutes[size] = Math.floorDiv(inMillis, MILLIS_PER_MINUTE);
+            outMinutes[size] = Math.floorDiv(outMillis, MILLIS_PER_MINUTE);
+            discounted[size] = discountedRow;
+            chargedCents[size] = Math.round(price * CENTS_PER_UNIT);
+            types[size] = (byte) parkingType.ordinal();
+            size++;
+        }
+    }
+
+    /**
+     * Re-price a row range of a chunk, splitting it across workers.
+     */
+    private static final class RepriceTask extends RecursiveAction {
+
+        /**
+         * Serialization version, as required of ForkJoinTask subclasses.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Rows to re-price.
+         */
+        private final Chunk chunk;
+        /**
+         * First row included.
+         */
+        private final int from;
+        /**
+         * Last row excluded.
+         */
+        private final int to;
+        /**
+         * One fare calculator per candidate tariff.
+         */
+        private final FareCalculatorService[] calculators;
+        /**
+         * Accumulators per report line key.
+         */
+        private final Map<Long, long[]> totals;
+
+        /**
+         * Constructor.
+         * @param chunkToSet rows to re-price
+         * @param fromToSet first row included
+         * @param toToSet last row excluded
+         * @param calculatorsToSet one fare calculator per candidate tariff
+         * @param totalsToSet accumulators per report line key
+         */
+        RepriceTask(final Chunk chunkToSet, final int fromToSet, final int toToSet,
+                    final FareCalculatorService[] calculatorsToSet, final Map<Long, long[]> totalsToSet) {
+            this.chunk = chunkToSet;
+            this.from = fromToSet;
+            this.to = toToSet;
+            this.calculators = calculatorsToSet;
+            this.totals = totalsToSet;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RepriceTask(chunk, from, middle, calculators, totals),
+                        new RepriceTask(chunk, middle, to, calculators, totals));
+                return;
+            }
+            ParkingType[] parkingTypes = ParkingType.values();
+            Map<Long, long[]> local = new HashMap<>();
+            for (int row = from; row < to; row++) {
+                long key = lineKey(chunk.outMinutes[row], chunk.types[row], chunk.discounted[row]);
+                long[] sums = local.computeIfAbsent(key, k -> new long[FIXED_SLOTS + calculators.length]);
+                sums[0]++;
+                sums[1] += chunk.chargedCents[row];
+                for (int candidate = 0; candidate < calculators.length; candidate++) {
+                    sums[FIXED_SLOTS + candidate] += calculators[candidate].calculateFareCents(chunk.inMinutes[row],
+                            chunk.outMinutes[row], parkingTypes[chunk.types[row]], chunk.discounted[row]);
+                }
+            }
+            for (Map.Entry<Long, long[]> entry : local.entrySet()) {
+                totals.merge(entry.getKey(), entry.getValue(), (current, added) -> {
+                    long[] merged = current.clone();
+                    for (int i = 0; i < merged.length; i++) {
+                        merged[i] += added[i];
+                    }
+                    return merged;
+                });
+            }
+        }
+    }
+
+    /**
+     * Re-price last tickets and print the CSV report on standard output.
+     * @param args first exit day included (yyyy-mm-dd), last exit day excluded, then one or more tariff files
+     * @throws Exception on database, file or pricing error
+     * @throws IllegalArgumentException if two tariff files have the same name, their columns being keyed by it
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: TariffReplayJob <from yyyy-mm-dd> <to yyyy-mm-dd> <tariff file>...");
+            return;
+        }
+        Map<String, Tariff> candidates = new LinkedHashMap<>();
+        Map<String, String> files = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            Tariff tariff = Tariff.load(Paths.get(args[i]));
+            String previous = files.putIfAbsent(tariff.getName(), args[i]);
+            if (previous != null) {
+                throw new IllegalArgumentException("Tariff name " + tariff.getName() + " of " + args[i]
+                        + " already used by " + previous + ", set a distinct name property");
+            }
+            candidates.put(tariff.getName(), tariff);
+        }
+        try {
+            TariffReplayReport report = new TariffReplayJob(new DataBaseConfig()).replay(
+                    LocalDate.parse(args[0]).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    LocalDate.parse(args[1]).atStartOfDay(ZoneOffset.UTC).toInstant(), candidates);
+            report.writeCsv(System.out);
+            System.out.flush();
+        } finally {
+            DataBaseConfig.shutdown();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Revenue of replayed tickets, as charged and under each candidate tariff, per exit day, ParkingType and discount flag.
+ */
+public final class TariffReplayReport {
+
+    /**
+     * Names of the candidate tariffs, in column order.
+     */
+    private final List<String> candidateNames;
+    /**
+     * Lines ordered by day, type and discount flag.
+     */
+    private final List<Line> lines;
+
+    /**
+     * Constructor.
+     * @param candidateNamesToSet names of the candidate tariffs, in column order
+     * @param linesToSet lines ordered by day, type and discount flag
+     */
+    TariffReplayReport(final List<String> candidateNamesToSet, final List<Line> linesToSet) {
+        this.candidateNames = Collections.unmodifiableList(new ArrayList<>(candidateNamesToSet));
+        this.lines = Collections.unmodifiableList(new ArrayList<>(linesToSet));
+    }
+
+    /**
+     * @return names of the candidate tariffs, in column order.
+     */
+    public List<String> getCandidateNames() {
+        return candidateNames;
+    }
+
+    /**
+     * @return lines ordered by day, type and discount flag.
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return number of tickets replayed.
+     */
+    public long getTicketCount() {
+        long count = 0;
+        for (Line line : lines) {
+            count += line.ticketCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param candidate index of the candidate tariff
+     * @return candidate revenue minus charged revenue over every line, in cents.
+     */
+    public long getTotalDeltaCents(final int candidate) {
+        long delta = 0;
+        for (Line line : lines) {
+            delta += line.getDeltaCents(candidate);
+        }
+        return delta;
+    }
+
+    /**
+     * Write the report as CSV : day, type, discounted, tickets, charged cents, then cents and delta per candidate.
+     * @param out destination
+     * @throws IOException on write failure
+     */
+    public void writeCsv(final Appendable out) throws IOException {
+        out.append("day,type,discounted,tickets,charged_cents");
+        for (String candidateName : candidateNames) {
+            out.append(',').append(candidateName).append("_cents,").append(candidateName).append("_delta_cents");
+        }
+        out.append('\n');
+        for (Line line : lines) {
+            out.append(line.day.toString()).append(',').append(line.parkingType.name()).append(',')
+                    .append(String.valueOf(line.discounted)).append(',').append(String.valueOf(line.ticketCount))
+                    .append(',').append(String.valueOf(line.chargedCents));
+            for (int candidate = 0; candidate < candidateNames.size(); candidate++) {
+                out.append(',').append(String.valueOf(line.candidateCents[candidate]))
+                        .append(',').append(String.valueOf(line.getDeltaCents(candidate)));
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Revenue of the tickets of one exit day, ParkingType and discount flag.
+     */
+    public static final class Line {
+
+        /**
+         * Exit day, UTC.
+         */
+        private final LocalDate day;
+        /**
+         * Type of the spots.
+         */
+        private final ParkingType parkingType;
+        /**
+         * Whether the tickets had the recurring user discount.
+         */
+        private final boolean discounted;
+        /**
+         * Number of tickets.
+         */
+        private final long ticketCount;
+        /**
+         * Revenue actually charged, in cents.
+         */
+        private final long chargedCents;
+        /**
+         * Revenue under each candidate tariff, in cents.
+         */
+        private final long[] candidateCents;
+
+        /**
+         * Constructor.
+         * @param dayToSet exit day, UTC
+         * @param parkingTypeToSet type of the spots
+         * @param discountedToSet whether the tickets had the recurring user discount
+         * @param ticketCountToSet number of tickets
+         * @param chargedCentsToSet revenue actually charged, in cents
+         * @param candidateCentsToSet revenue under each candidate tariff, in cents
+         */
+        Line(final LocalDate dayToSet, final ParkingType parkingTypeToSet, final boolean discountedToSet,
+             final long ticketCountToSet, final long chargedCentsToSet, final long[] candidateCentsToSet) {
+            this.day = dayToSet;
+            this.parkingType = parkingTypeToSet;
+            this.discounted = discountedToSet;
+            this.ticketCount = ticketCountToSet;
+            this.chargedCents = chargedCentsToSet;
+            this.candidateCents = candidateCentsToSet.clone();
+        }
+
+        /**
+         * @return exit day, UTC.
+         */
+        public LocalDate getDay() {
+            return day;
+        }
+
+        /**
+         * @return type of the spots.
+         */
+        public ParkingType getParkingType() {
+            return parkingType;
+        }
+
+        /**
+         * @return whether the tickets had the recurring user discount.
+         */
+        public boolean isDiscounted() {
+            return discounted;
+        }
+
+        /**
+         * @return number of tickets.
+         */
+        public long getTicketCount() {
+            return ticketCount;
+        }
+
+        /**
+         * @return revenue actually charged, in cents.
+         */
+        public long getChargedCents() {
+            return chargedCents;
+        }
+
+        /**
+         * @param candidate index of the candidate tariff
+         * @return revenue under the candidate tariff, in cents.
+         */
+        public long getCandidateCents(final int candidate) {
+            return candidateCents[candidate];
+        }
+
+        /**
+         * @param candidate index of the candidate tariff
+         * @return candidate revenue minus charged revenue, in cents.
+         */
+        public long getDeltaCents(final int candidate) {
+            return candidateCents[candidate] - chargedCents;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.GateEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+/**
+ * Recorded gate events, one per line : ISO-8601 instant, IN or OUT, ParkingType and registration number,
+ * separated by commas, such as "2026-10-12T08:03:00Z,IN,CAR,AB123CD". Blank lines and lines starting with # are ignored.
+ */
+public final class GateEventLog {
+
+    /**
+     * Fields per line.
+     */
+    private static final int FIELD_COUNT = 4;
+
+    private GateEventLog() { };
+
+    /**
+     * Read every event of a log, in file order.
+     * @param in log content
+     * @param consumer called with each event
+     * @return number of events read
+     * @throws IOException on read failure or malformed line, with its line number
+     */
+    public static long read(final BufferedReader in, final Consumer<GateEvent> consumer) throws IOException {
+        long count = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            GateEvent event;
+            try {
+                event = parse(line);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IOException("Malformed gate event at line " + lineNumber + ": " + line, e);
+            }
+            consumer.accept(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param line log line
+     * @return event of the line
+     * @throws IllegalArgumentException on malformed line
+     */
+    public static GateEvent parse(final String line) {
+        String[] fields = line.split(",");
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields");
+        }
+        boolean exit;
+        switch (fields[1].trim()) {
+            case "IN":
+                exit = false;
+                break;
+            case "OUT":
+                exit = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Direction must be IN or OUT");
+        }
+        String vehicleRegNumber = fields[3].trim();
+        if (vehicleRegNumber.isEmpty()) {
+            throw new IllegalArgumentException("Missing registration number");
+        }
+        return new GateEvent(Instant.parse(fields[0].trim()), exit, ParkingType.valueOf(fields[2].trim()),
+                vehicleRegNumber);
+    }
+
+    /**
+     * @param event gate event
+     * @return log line of the event, without line separator.
+     */
+    public static String format(final GateEvent event) {
+        return event.getTime() + (event.isExit() ? ",OUT," : ",IN,") + event.getParkingType() + ","
+                + event.getVehicleRegNumber();
+    }
+}
@@ -0,0 +1,467 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.GateEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Cursor over a GateEventLog file, memory-mapped and parsed from bytes : next() moves to the next event
+ * and the getters describe it, without allocating per line. Times written as "yyyy-MM-ddTHH:mm:ss[.fraction]Z"
+ * are decoded in place ; any other line is handed to GateEventLog.parse(), so both accept the same files.
+ * Not thread safe.
+ */
+public final class GateEventReader implements Closeable {
+
+    /**
+     * Bytes mapped at once. Files are read window by window, so their size is not limited by the address space.
+     */
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+    /**
+     * Initial capacity of the registration number buffer.
+     */
+    private static final int PLATE_CAPACITY = 16;
+    /**
+     * Milliseconds per second.
+     */
+    private static final long MILLIS_PER_SECOND = 1_000L;
+    /**
+     * Seconds per day.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+    /**
+     * Length of "yyyy-MM-ddTHH:mm:ss".
+     */
+    private static final int SECONDS_LENGTH = 19;
+    /**
+     * Digits of a millisecond fraction.
+     */
+    private static final int MILLIS_DIGITS = 3;
+    /**
+     * Largest number of fraction digits of an instant.
+     */
+    private static final int NANOS_DIGITS = 9;
+    /**
+     * Bytes of "CAR".
+     */
+    private static final byte[] CAR = {'C', 'A', 'R'};
+    /**
+     * Bytes of "BIKE".
+     */
+    private static final byte[] BIKE = {'B', 'I', 'K', 'E'};
+
+    /**
+     * Log file.
+     */
+    private final FileChannel channel;
+    /**
+     * Size of the log file.
+     */
+    private final long size;
+    /**
+     * Mapped window of the file.
+     */
+    private MappedByteBuffer window;
+    /**
+     * File position of the first byte of the window.
+     */
+    private long windowStart;
+    /**
+     * Number of the current line.
+     */
+    private long lineNumber;
+    /**
+     * Time of the current event, in milliseconds since epoch.
+     */
+    private long timeMillis;
+    /**
+     * True if the current event is an exit.
+     */
+    private boolean exit;
+    /**
+     * Type of the current vehicle.
+     */
+    private ParkingType parkingType;
+    /**
+     * Registration number of the current vehicle, ASCII or UTF-8 bytes.
+     */
+    private byte[] plate = new byte[PLATE_CAPACITY];
+    /**
+     * Length of the registration number in plate.
+     */
+    private int plateLength;
+
+    /**
+     * Open a log file.
+     * @param file gate events in the GateEventLog format
+     * @throws IOException if the file can not be opened
+     */
+    public GateEventReader(final Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    /**
+     * Move to the next event, skipping blank and comment lines.
+     * @return false at the end of the file
+     * @throws IOException on read failure or malformed line, with its line number
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int start = window.position();
+            int end = lineEnd(start);
+            if (end < 0) {
+                if (windowStart + window.limit() >= size) {
+                    if (start == window.limit()) {
+                        return false;
+                    }
+                    end = window.limit(); // Last line without separator
+                } else {
+                    map(windowStart + start); // Line across windows : map from its start
+                    continue;
+                }
+            }
+            window.position(Math.min(end + 1, window.limit()));
+            lineNumber++;
+            int from = skipSpaces(start, end);
+            if (from == end || window.get(start) == '#') {
+                continue;
+            }
+            try {
+                if (!parseLine(start, end)) {
+                    parseSlowly(start, end);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IOException("Malformed gate event at line " + lineNumber + ": " + line(start, end), e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return number of the line of the current event, from 1.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return time of the current event, in milliseconds since epoch.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * @return true if the current event is an exit.
+     */
+    public boolean isExit() {
+        return exit;
+    }
+
+    /**
+     * @return type of the current vehicle.
+     */
+    public ParkingType getParkingType() {
+        return parkingType;
+    }
+
+    /**
+     * @return hash of the current registration number, equal for equal registration numbers.
+     */
+    public int getVehicleRegNumberHash() {
+        int hash = 1;
+        for (int i = 0; i < plateLength; i++) {
+            hash = 31 * hash + plate[i];
+        }
+        return hash;
+    }
+
+    /**
+     * @return registration number of the current vehicle, a new String.
+     */
+    public String getVehicleRegNumber() {
+        return new String(plate, 0, plateLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return copy of the current event.
+     */
+    public GateEvent toEvent() {
+        return new GateEvent(Instant.ofEpochMilli(timeMillis), exit, parkingType, getVehicleRegNumber());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Map the window starting at a file position.
+     * @param position file position
+     * @throws IOException on mapping failure, or if a line is longer than a window
+     */
+    private void map(final long position) throws IOException {
+        if (window != null && position == windowStart) {
+            throw new IOException("Line " + (lineNumber + 1) + " longer than " + WINDOW_BYTES + " bytes");
+        }
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+    }
+
+    /**
+     * @param start window index of the line start
+     * @return window index of the line feed ending the line, -1 if the window ends first.
+     */
+    private int lineEnd(final int start) {
+        for (int i = start; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse a line in the common format, in place.
+     * @param start window index of the line start
+     * @param end window index after the line
+     * @return false if the time is not in the common format
+     * @throws IllegalArgumentException on malformed field
+     */
+    private boolean parseLine(final int start, final int end) {
+        int timeEnd = indexOf(',', start, end);
+        int directionEnd = indexOf(',', timeEnd + 1, end);
+        int typeEnd = indexOf(',', directionEnd + 1, end);
+        if (indexOf(',', typeEnd + 1, end) != end) {
+            throw new IllegalArgumentException("Expected 4 fields");
+        }
+        int timeStart = skipSpaces(start, timeEnd);
+        if (!parseTime(timeStart, trimEnd(timeStart, timeEnd))) {
+            return false;
+        }
+        int from = skipSpaces(timeEnd + 1, directionEnd);
+        int to = trimEnd(from, directionEnd);
+        if (to - from == 2 && window.get(from) == 'I' && window.get(from + 1) == 'N') {
+            exit = false;
+        } else if (to - from == 3 && window.get(from) == 'O' && window.get(from + 1) == 'U' && window.get(from + 2) == 'T') {
+            exit = true;
+        } else {
+            throw new IllegalArgumentException("Direction must be IN or OUT");
+        }
+        from = skipSpaces(directionEnd + 1, typeEnd);
+        to = trimEnd(from, typeEnd);
+        if (matches(CAR, from, to)) {
+            parkingType = ParkingType.CAR;
+        } else if (matches(BIKE, from, to)) {
+            parkingType = ParkingType.BIKE;
+        } else {
+            throw new IllegalArgumentException("Unknown parking type");
+        }
+        from = skipSpaces(typeEnd + 1, end);
+        to = trimEnd(from, end);
+        if (from == to) {
+            throw new IllegalArgumentException("Missing registration number");
+        }
+        plateLength = to - from;
+        if (plateLength > plate.length) {
+            plate = Arrays.copyOf(plate, Math.max(plateLength, 2 * plate.length));
+        }
+        for (int i = 0; i < plateLength; i++) {
+            plate[i] = window.get(from + i);
+        }
+        return true;
+    }
+
+    /**
+     * Parse a line with GateEventLog.parse(), for times written in another ISO-8601 form.
+     * @param start window index of the line start
+     * @param end window index after the line
+     */
+    private void parseSlowly(final int start, final int end) {
+        GateEvent event = GateEventLog.parse(line(start, end));
+        timeMillis = event.getTime().toEpochMilli();
+        exit = event.isExit();
+        parkingType = event.getParkingType();
+        byte[] bytes = event.getVehicleRegNumber().getBytes(StandardCharsets.UTF_8);
+        plate = bytes.length > plate.length ? bytes : plate;
+        System.arraycopy(bytes, 0, plate, 0, bytes.length);
+        plateLength = bytes.length;
+    }
+
+    /**
+     * Decode a time written "yyyy-MM-ddTHH:mm:ss[.fraction]Z" into timeMillis.
+     * @param from window index of the time
+     * @param to window index after the time
+     * @return false if the time is written otherwise
+     */
+    private boolean parseTime(final int from, final int to) {
+        if (to - from < SECONDS_LENGTH + 1 || window.get(to - 1) != 'Z' || window.get(from + 4) != '-'
+                || window.get(from + 7) != '-' || window.get(from + 10) != 'T' || window.get(from + 13) != ':'
+                || window.get(from + 16) != ':') {
+            return false;
+        }
+        int year = digits(from, 4);
+        int month = digits(from + 5, 2);
+        int day = digits(from + 8, 2);
+        int hour = digits(from + 11, 2);
+        int minute = digits(from + 14, 2);
+        int second = digits(from + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0
+                || minute > 59 || second < 0 || second > 59) {
+            return false;
+        }
+        int millis = 0;
+        int fractionEnd = to - 1;
+        int index = from + SECONDS_LENGTH;
+        if (index < fractionEnd) {
+            int fractionDigits = fractionEnd - index - 1;
+            if (window.get(index) != '.' || fractionDigits < 1 || fractionDigits > NANOS_DIGITS) {
+                return false;
+            }
+            for (int i = index + 1, weight = 100; i < fractionEnd; i++, weight /= 10) {
+                int digit = window.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                if (i - index <= MILLIS_DIGITS) {
+                    millis += digit * weight;
+                }
+            }
+        } else if (index != fractionEnd) {
+            return false;
+        }
+        if (day > daysInMonth(year, month)) {
+            return false;
+        }
+        long seconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3_600L + minute * 60L + second;
+        timeMillis = seconds * MILLIS_PER_SECOND + millis;
+        return true;
+    }
+
+    /**
+     * @param from window index of the first digit
+     * @param count number of digits
+     * @return decimal value, -1 if a byte is not a digit
+     */
+    private int digits(final int from, final int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @param year year
+     * @param month month, from 1
+     * @param day day of month, from 1
+     * @return days since 1970-01-01, proleptic Gregorian calendar.
+     */
+    private static long epochDay(final int year, final int month, final int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    /**
+     * @param year year
+     * @param month month, from 1
+     * @return days in the month.
+     */
+    private static int daysInMonth(final int year, final int month) {
+        if (month == 2) {
+            return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @param expected bytes expected
+     * @param from window index of the field
+     * @param to window index after the field
+     * @return true if the field holds the expected bytes.
+     */
+    private boolean matches(final byte[] expected, final int from, final int to) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (window.get(from + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param separator byte looked for
+     * @param from first window index searched
+     * @param end window index after the line
+     * @return window index of the separator, or end if absent.
+     */
+    private int indexOf(final char separator, final int from, final int end) {
+        for (int i = from; i < end; i++) {
+            if (window.get(i) == separator) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @param from first window index of a field
+     * @param to window index after the field
+     * @return window index of the first byte of the field which is not a space, or to.
+     */
+    private int skipSpaces(final int from, final int to) {
+        int index = from;
+        while (index < to && window.get(index) <= ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @param from first window index of a field
+     * @param to window index after the field
+     * @return window index after the last byte of the field which is not a space, or from.
+     */
+    private int trimEnd(final int from, final int to) {
+        int index = to;
+        while (index > from && window.get(index - 1) <= ' ') {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * @param start window index of the line start
+     * @param end window index after the line
+     * @return text of the line, without line separator.
+     */
+    private String line(final int start, final int end) {
+        byte[] bytes = new byte[trimEnd(start, end) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = window.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
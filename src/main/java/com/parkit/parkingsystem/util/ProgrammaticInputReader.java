@@ -0,0 +1,50 @@
+package com.parkit.parkingsystem.util;
+
+/**
+ * Input answering ParkingService prompts with values set by the caller instead of reading the console,
+ * for tools and benchmarks driving ParkingService. One instance per thread.
+ */
+public class ProgrammaticInputReader extends InputReaderUtil {
+
+    /**
+     * Menu selection returned : 1 for CAR, 2 for BIKE.
+     */
+    private int selection = 1;
+    /**
+     * Registration number returned.
+     */
+    private String vehicleRegNumber;
+
+    @Override
+    public int readSelection() {
+        return selection;
+    }
+
+    /**
+     * @return registration number set by the caller
+     * @throws IllegalArgumentException if no registration number was set, as for an empty shell entry
+     */
+    @Override
+    public String readVehicleRegistrationNumber() {
+        if (vehicleRegNumber == null || vehicleRegNumber.trim().length() == 0) {
+            throw new IllegalArgumentException("Invalid input provided");
+        }
+        return vehicleRegNumber;
+    }
+
+    /**
+     * Set selection member attribute.
+     * @param selectionToSet menu selection returned
+     */
+    public void setSelection(final int selectionToSet) {
+        this.selection = selectionToSet;
+    }
+
+    /**
+     * Set vehicleRegNumber member attribute.
+     * @param vehicleRegNumberToSet registration number returned
+     */
+    public void setVehicleRegNumber(final String vehicleRegNumberToSet) {
+        this.vehicleRegNumber = vehicleRegNumberToSet;
+    }
+}
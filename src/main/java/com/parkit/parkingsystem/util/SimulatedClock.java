@@ -0,0 +1,139 @@
+package com.parkit.parkingsystem.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clock of simulated time, for replaying days of traffic in minutes. Simulated time runs speed times faster than
+ * wall time, and jumps forward with advanceTo() when a replay reaches its next event. It never goes backward.
+ * Copies made by withZone() share the same time. Thread safe.
+ */
+public class SimulatedClock extends Clock {
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Simulated time at a wall time reference, shared by every zone of the clock.
+     */
+    private final AtomicReference<Anchor> anchor;
+    /**
+     * Simulated milliseconds per wall millisecond, 0 for a clock moved by advanceTo() only.
+     */
+    private final double speed;
+    /**
+     * Time zone of the clock.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Simulated time at a wall time reference.
+     */
+    private static final class Anchor {
+
+        /**
+         * Simulated time, in milliseconds since epoch.
+         */
+        private final long simulatedMillis;
+        /**
+         * System.nanoTime() when simulated time was simulatedMillis.
+         */
+        private final long wallNanos;
+
+        /**
+         * Constructor.
+         * @param simulatedMillisToSet simulated time, in milliseconds since epoch
+         * @param wallNanosToSet System.nanoTime() at that simulated time
+         */
+        Anchor(final long simulatedMillisToSet, final long wallNanosToSet) {
+            this.simulatedMillis = simulatedMillisToSet;
+            this.wallNanos = wallNanosToSet;
+        }
+    }
+
+    /**
+     * Constructor of a clock in UTC.
+     * @param start simulated time now
+     * @param speedToSet simulated milliseconds per wall millisecond, 0 for a clock moved by advanceTo() only
+     * @throws IllegalArgumentException if speed is negative
+     */
+    public SimulatedClock(final Instant start, final double speedToSet) {
+        this(new AtomicReference<>(new Anchor(start.toEpochMilli(), System.nanoTime())), speedToSet, ZoneOffset.UTC);
+        if (!(speedToSet >= 0)) {
+            throw new IllegalArgumentException("Speed must not be negative");
+        }
+    }
+
+    /**
+     * Constructor sharing the time of another clock.
+     * @param anchorToSet shared simulated time
+     * @param speedToSet simulated milliseconds per wall millisecond
+     * @param zoneToSet time zone of the clock
+     */
+    private SimulatedClock(final AtomicReference<Anchor> anchorToSet, final double speedToSet, final ZoneId zoneToSet) {
+        this.anchor = anchorToSet;
+        this.speed = speedToSet;
+        this.zone = zoneToSet;
+    }
+
+    @Override
+    public long millis() {
+        return millis(anchor.get(), System.nanoTime());
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    /**
+     * Move simulated time forward to an instant, if it is not already later.
+     * @param target simulated time wanted
+     * @return simulated time after the move
+     */
+    public Instant advanceTo(final Instant target) {
+        long targetMillis = target.toEpochMilli();
+        while (true) {
+            Anchor current = anchor.get();
+            long now = System.nanoTime();
+            long currentMillis = millis(current, now);
+            if (currentMillis >= targetMillis) {
+                return Instant.ofEpochMilli(currentMillis);
+            }
+            if (anchor.compareAndSet(current, new Anchor(targetMillis, now))) {
+                return target;
+            }
+        }
+    }
+
+    /**
+     * @return simulated milliseconds per wall millisecond.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zoneToSet) {
+        return zoneToSet.equals(zone) ? this : new SimulatedClock(anchor, speed, zoneToSet);
+    }
+
+    /**
+     * @param current simulated time reference
+     * @param wallNanos System.nanoTime() now
+     * @return simulated time now, in milliseconds since epoch.
+     */
+    private long millis(final Anchor current, final long wallNanos) {
+        return current.simulatedMillis + (long) ((wallNanos - current.wallNanos) * speed / NANOS_PER_MILLI);
+    }
+}
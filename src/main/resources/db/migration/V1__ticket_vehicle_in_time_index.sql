@@ -0,0 +1,2 @@
+-- GET_TICKET : equality on VEHICLE_REG_NUMBER then latest IN_TIME, read backward from the index without sort.
+create index IDX_TICKET_VEHICLE_IN_TIME on ticket(VEHICLE_REG_NUMBER, IN_TIME);
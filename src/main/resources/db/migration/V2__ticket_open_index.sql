@@ -0,0 +1,4 @@
+-- Open tickets (OUT_TIME is null) : MySQL has no partial index, so OUT_TIME leads the index and
+-- "OUT_TIME is null" is a range on the null prefix. PARKING_NUMBER makes the per-spot lookup of
+-- GET_PARKING_SPOTS covered by the index.
+create index IDX_TICKET_OPEN on ticket(OUT_TIME, PARKING_NUMBER);
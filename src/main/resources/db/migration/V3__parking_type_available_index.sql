@@ -0,0 +1,2 @@
+-- CLAIM_NEXT_PARKING_SPOT : only lock and scan free spots of the requested type, in PARKING_NUMBER order.
+create index IDX_PARKING_TYPE_AVAILABLE on parking(TYPE, AVAILABLE, PARKING_NUMBER);
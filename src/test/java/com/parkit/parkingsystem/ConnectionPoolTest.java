@@ -0,0 +1,173 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.PoolSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionPoolTest {
+
+    /**
+     * Class Under Test.
+     */
+    private ConnectionPool connectionPool;
+    /**
+     * Pool settings, adjusted per test before building the pool.
+     */
+    private PoolSettings poolSettings;
+    /**
+     * Physical connections opened by the pool, in order.
+     */
+    private List<Connection> openedConnections;
+
+    /**
+     * Small pool with short timeouts.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        poolSettings = new PoolSettings();
+        poolSettings.setMaxSize(1);
+        poolSettings.setAcquireTimeoutMs(50);
+        openedConnections = new ArrayList<>();
+    }
+
+    /**
+     * Release physical connections.
+     */
+    @AfterEach
+    private void tearDownPerTest() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    /**
+     * Build pool over Mockito connections that always validate.
+     */
+    private void createPool() {
+        connectionPool = new ConnectionPool(() -> {
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.isValid(poolSettings.getValidationTimeoutSec())).thenReturn(true);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+            openedConnections.add(connection);
+            return connection;
+        }, poolSettings);
+    }
+
+    /**
+     * Check that a released connection is handed out again instead of opening a new one.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Released connection is reused")
+    public void Given_releasedConnection_When_getConnection_Then_samePhysicalConnectionReused() throws SQLException {
+        createPool();
+        connectionPool.getConnection().close();
+        connectionPool.getConnection().close();
+
+        assertEquals(1, openedConnections.size());
+        assertEquals(2, connectionPool.getStats().getAcquireCount());
+        assertEquals(1, connectionPool.getStats().getIdle());
+    }
+
+    /**
+     * Check pool bound : no connection is created beyond max size, caller times out.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Exhausted pool times out")
+    public void Given_exhaustedPool_When_getConnection_Then_throwsSQLTimeoutException() throws SQLException {
+        createPool();
+        Connection borrowed = connectionPool.getConnection();
+
+        assertThrows(SQLTimeoutException.class, () -> connectionPool.getConnection());
+        assertEquals(1, connectionPool.getStats().getTimeoutCount());
+        assertEquals(1, connectionPool.getStats().getActive());
+        borrowed.close();
+    }
+
+    /**
+     * Check that a connection past its maximum lifetime is closed instead of pooled.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Expired connection is retired on release")
+    public void Given_expiredConnection_When_released_Then_physicalConnectionClosed() throws SQLException {
+        poolSettings.setMaxLifetimeMs(0);
+        createPool();
+        connectionPool.getConnection().close();
+
+        verify(openedConnections.get(0)).close();
+        assertEquals(0, connectionPool.getStats().getIdle());
+    }
+
+    /**
+     * Check that a returned handle can not be used anymore.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Closed handle is unusable")
+    public void Given_closedHandle_When_used_Then_throwsSQLException() throws SQLException {
+        createPool();
+        Connection borrowed = connectionPool.getConnection();
+        borrowed.close();
+
+        assertTrue(borrowed.isClosed());
+        assertThrows(SQLException.class, () -> borrowed.prepareStatement("select 1"));
+    }
+
+    /**
+     * Check that a closed statement is kept open and handed out again on the same connection.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Closed statement is reused from cache")
+    public void Given_closedStatement_When_preparedAgain_Then_servedFromCache() throws SQLException {
+        createPool();
+        for (int i = 0; i < 2; i++) {
+            Connection connection = connectionPool.getConnection();
+            connection.prepareStatement("select 1").close();
+            connection.close();
+        }
+
+        verify(openedConnections.get(0), times(1)).prepareStatement("select 1");
+        assertEquals(1, connectionPool.getStatementCacheStats().getHits());
+        assertEquals(1, connectionPool.getStatementCacheStats().getMisses());
+    }
+
+    /**
+     * Check LRU bound : least recently used statement is physically closed once the cache is full.
+     * @throws SQLException for getConnection()
+     */
+    @Test
+    @DisplayName("Full statement cache evicts least recently used")
+    public void Given_fullStatementCache_When_statementReturned_Then_eldestClosed() throws SQLException {
+        poolSettings.setStatementCacheSize(1);
+        createPool();
+        Connection connection = connectionPool.getConnection();
+        connection.prepareStatement("select 1").close();
+        connection.prepareStatement("select 2").close();
+        connection.close();
+
+        assertEquals(1, connectionPool.getStatementCacheStats().getEvictions());
+    }
+}
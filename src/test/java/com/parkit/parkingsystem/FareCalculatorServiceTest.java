@@ -4,10 +4,15 @@ import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.Tariff;
 import org.junit.jupiter.api.*;
 
 
+import java.io.StringReader;
+import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.Properties;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -199,4 +204,73 @@ public class FareCalculatorServiceTest {
         fareCalculatorService.calculateFare(ticket);
         assertEquals(0, ticket.getPrice());
     }
+
+    /**
+     * Check that cent prices are rounded once, after discount, with the configured rounding mode.
+     */
+    @Test
+    @DisplayName("Cent fares follow rounding mode")
+    public void Given_halfCentFare_When_calculateFareCents_Then_roundedWithConfiguredMode() {
+        // 45 car minutes cost 112.5 cents
+        assertEquals(112, fareCalculatorService.calculateFareCents(0, 45, ParkingType.CAR, false));
+        assertEquals(113, new FareCalculatorService(RoundingMode.HALF_UP).calculateFareCents(0, 45, ParkingType.CAR, false));
+        // 60 discounted car minutes cost 142.5 cents
+        assertEquals(142, fareCalculatorService.calculateFareCents(0, 60, ParkingType.CAR, true));
+        assertEquals(143, new FareCalculatorService(RoundingMode.CEILING).calculateFareCents(0, 60, ParkingType.CAR, true));
+        assertThrows(ArithmeticException.class,
+            () -> new FareCalculatorService(RoundingMode.UNNECESSARY).calculateFareCents(0, 45, ParkingType.CAR, false));
+    }
+
+    /**
+     * Check that long stays are priced exactly, where the former formatting broke on thousands separators.
+     */
+    @Test
+    @DisplayName("Equivalence fare/parkingDuration : one car month")
+    public void Given_oneMonthParking_When_calculateFare_Then_priceEqualTo720TimesHourRate() {
+        final long hours = 30 * 24;
+        ticket.setInTime(Instant.EPOCH);
+        ticket.setOutTime(Instant.EPOCH.plusMillis(hours * 60 * 60 * 1000));
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        fareCalculatorService.calculateFare(ticket);
+        assertEquals(hours * ParkingType.CAR.getFare(), ticket.getPrice());
+        assertEquals(1080.0, FareCalculatorService.formatFare(1079.999));
+    }
+
+    /**
+     * Check that bulk quotes of a lot equal single fares, on flat and banded tariffs, for every rounding mode
+     * but UNNECESSARY.
+     * @throws Exception for Properties.load()
+     */
+    @Test
+    @DisplayName("Bulk quotes equal single fares")
+    public void Given_parkedVehicles_When_quoteFareCents_Then_sameAsCalculateFareCents() throws Exception {
+        final int count = 10_000;
+        final long now = 28_000_000;
+        Random random = new Random(42);
+        long[] inMinutes = new long[count];
+        byte[] types = new byte[count];
+        boolean[] discounted = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            inMinutes[i] = now - random.nextInt(3 * 24 * 60) + 5; // A few entrances after now
+            types[i] = (byte) random.nextInt(ParkingType.values().length);
+            discounted[i] = random.nextBoolean();
+        }
+        Properties properties = new Properties();
+        properties.load(new StringReader("discount.percent=7\nCAR.tiers=0:150\nCAR.bands=SAT-SUN 00:00-24:00 -30\n"
+                + "CAR.dailyCap=1500\nBIKE.tiers=0:95\nBIKE.grace=20\n"));
+        long[] amounts = new long[count];
+        for (Tariff tariff : new Tariff[] {Tariff.standard(), Tariff.parse(properties)}) {
+            for (RoundingMode mode : new RoundingMode[] {RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.FLOOR}) {
+                FareCalculatorService bulkCalculator = new FareCalculatorService(mode);
+                bulkCalculator.setTariff(tariff);
+                bulkCalculator.quoteFareCents(now, inMinutes, types, discounted, amounts, count);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(bulkCalculator.calculateFareCents(Math.min(inMinutes[i], now), now,
+                            ParkingType.values()[types[i]], discounted[i]), amounts[i]);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> fareCalculatorService.quoteFareCents(now, inMinutes, types, discounted, new long[1], count));
+    }
 }
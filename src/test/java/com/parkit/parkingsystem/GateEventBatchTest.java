@@ -0,0 +1,152 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryTicketRepository;
+import com.parkit.parkingsystem.model.GateEvent;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.BatchReport;
+import com.parkit.parkingsystem.service.GateEventBatch;
+import com.parkit.parkingsystem.service.StorageBackend;
+import com.parkit.parkingsystem.util.GateEventLog;
+import com.parkit.parkingsystem.util.GateEventReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GateEventBatchTest {
+
+    /**
+     * Two days of a recurring car and a bike, with a bike exit for a vehicle never parked.
+     */
+    private static final String GATE_LOG = "# time,direction,type,plate\n"
+            + "2026-03-02T08:00:00Z,IN,CAR,ABCDEF\n"
+            + "2026-03-02T08:10:00.250Z,IN,BIKE,BIKE01\r\n"
+            + "2026-03-02T10:00:00Z, OUT , CAR , ABCDEF \n"
+            + "2026-03-02T10:10:00Z,OUT,BIKE,BIKE01\n"
+            + "\n"
+            + "2026-03-03T08:00:00Z,IN,CAR,ABCDEF\n"
+            + "2026-03-03T09:00:00Z,OUT,BIKE,NEVERIN\n"
+            + "2026-03-03T10:00:00Z,OUT,CAR,ABCDEF";
+
+    /**
+     * Gate log file of the test.
+     */
+    private Path file;
+
+    /**
+     * Write the gate log.
+     * @throws IOException for Files.write()
+     */
+    @BeforeEach
+    private void setUpPerTest() throws IOException {
+        file = Files.createTempFile("gate", ".log");
+        Files.write(file, GATE_LOG.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Delete the gate log.
+     * @throws IOException for Files.delete()
+     */
+    @AfterEach
+    private void tearDownPerTest() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * The byte parser reads the events GateEventLog reads.
+     * @throws IOException for GateEventReader
+     */
+    @Test
+    @DisplayName("Mapped reader parses the same events as GateEventLog")
+    public void Given_gateLog_When_readFromBytes_Then_sameEventsAsGateEventLog() throws IOException {
+        String[] lines = GATE_LOG.split("\n");
+        try (GateEventReader reader = new GateEventReader(file)) {
+            for (String line : lines) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                GateEvent expected = GateEventLog.parse(line);
+                assertTrue(reader.next());
+                assertEquals(expected.getTime().toEpochMilli(), reader.getTimeMillis());
+                assertEquals(expected.isExit(), reader.isExit());
+                assertEquals(expected.getParkingType(), reader.getParkingType());
+                assertEquals(expected.getVehicleRegNumber(), reader.getVehicleRegNumber());
+            }
+            assertFalse(reader.next());
+            assertEquals(lines.length, reader.getLineNumber());
+        }
+    }
+
+    /**
+     * Malformed lines are reported with their number.
+     * @throws IOException for Files.write()
+     */
+    @Test
+    @DisplayName("Malformed line is reported with its line number")
+    public void Given_malformedLine_When_read_Then_IOExceptionWithLineNumber() throws IOException {
+        Files.write(file, "2026-03-02T08:00:00Z,IN,CAR,ABCDEF\n2026-03-02T08:00:00Z,IN,TRUCK,ABCDEF\n"
+                .getBytes(StandardCharsets.UTF_8));
+        try (GateEventReader reader = new GateEventReader(file)) {
+            assertTrue(reader.next());
+            assertEquals(ParkingType.CAR, reader.getParkingType());
+            IOException e = assertThrows(IOException.class, reader::next);
+            assertTrue(e.getMessage().contains("line 2"));
+        }
+    }
+
+    /**
+     * Events played in file order get their recorded times and fares.
+     * @throws Exception for StorageBackend.open() and run()
+     */
+    @Test
+    @DisplayName("Batch in file order prices recorded stays")
+    public void Given_gateLog_When_runInOrder_Then_ticketsHaveRecordedTimesAndFares() throws Exception {
+        assertBatch(1);
+    }
+
+    /**
+     * Events played per vehicle on several workers get the same tickets.
+     * @throws Exception for StorageBackend.open() and run()
+     */
+    @Test
+    @DisplayName("Batch in parallel per vehicle prices recorded stays")
+    public void Given_gateLog_When_runInParallel_Then_ticketsHaveRecordedTimesAndFares() throws Exception {
+        assertBatch(4);
+    }
+
+    /**
+     * @param parallelism number of workers
+     * @throws Exception for StorageBackend.open() and run()
+     */
+    private void assertBatch(final int parallelism) throws Exception {
+        StorageBackend storageBackend = StorageBackend.open("memory", "CAR:3,BIKE:2", Paths.get("unused"));
+        GateEventBatch batch = new GateEventBatch(storageBackend);
+        batch.setParallelism(parallelism);
+
+        BatchReport report = batch.run(file);
+
+        List<Ticket> tickets = ((InMemoryTicketRepository) storageBackend.getTicketRepository()).getTickets("ABCDEF");
+        assertEquals(2, tickets.size());
+        assertEquals(Instant.parse("2026-03-02T10:00:00Z"), tickets.get(0).getOutTime());
+        assertEquals(3.0, tickets.get(0).getPrice(), 0.001);
+        assertEquals(2.85, tickets.get(1).getPrice(), 0.001); // Recurring user discount
+        assertEquals(7, report.getEventCount());
+        assertEquals(1, report.getFailedExits());
+        assertEquals(0, report.getFailedEntries());
+        assertEquals(parallelism, report.getParallelism());
+    }
+}
@@ -0,0 +1,79 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.dao.InMemoryTicketRepository;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GateEventReplay;
+import com.parkit.parkingsystem.service.ReplayReport;
+import com.parkit.parkingsystem.service.StorageBackend;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GateEventReplayTest {
+
+    /**
+     * Two days of a recurring car and a bike, with a bike exit for a vehicle never parked.
+     */
+    private static final String GATE_LOG = "# time,direction,type,plate\n"
+            + "2026-03-02T08:00:00Z,IN,CAR,ABCDEF\n"
+            + "2026-03-02T08:10:00Z,IN,BIKE,BIKE01\n"
+            + "2026-03-02T10:00:00Z,OUT,CAR,ABCDEF\n"
+            + "2026-03-02T10:10:00Z,OUT,BIKE,BIKE01\n"
+            + "\n"
+            + "2026-03-03T08:00:00Z,IN,CAR,ABCDEF\n"
+            + "2026-03-03T09:00:00Z,OUT,BIKE,NEVERIN\n"
+            + "2026-03-03T10:00:00Z,OUT,CAR,ABCDEF\n";
+
+    /**
+     * In-memory storage of the replay.
+     */
+    private StorageBackend storageBackend;
+    /**
+     * Simulated time of the replay.
+     */
+    private SimulatedClock clock;
+
+    /**
+     * Empty in-memory parking, clock stopped at epoch.
+     * @throws Exception for StorageBackend.open()
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        clock = new SimulatedClock(Instant.EPOCH, 0);
+        storageBackend = StorageBackend.open("memory", "CAR:3,BIKE:2", Paths.get("unused"), clock);
+    }
+
+    /**
+     * Check tickets get the recorded times and fares, and days are reported apart.
+     * @throws Exception for replay()
+     */
+    @Test
+    @DisplayName("Replay prices recorded stays in simulated time, per day")
+    public void Given_gateLog_When_replay_Then_ticketsHaveRecordedTimesAndFares() throws Exception {
+        ReplayReport report = new GateEventReplay(storageBackend, clock).replay(new BufferedReader(new StringReader(GATE_LOG)));
+
+        List<Ticket> tickets = ((InMemoryTicketRepository) storageBackend.getTicketRepository()).getTickets("ABCDEF");
+        assertEquals(2, tickets.size());
+        assertEquals(Instant.parse("2026-03-02T10:00:00Z"), tickets.get(0).getOutTime());
+        assertEquals(3.0, tickets.get(0).getPrice(), 0.001);
+        assertEquals(2.85, tickets.get(1).getPrice(), 0.001); // Recurring user discount
+        assertEquals(2, report.getDays().size());
+        assertEquals(LocalDate.of(2026, 3, 3), report.getDays().get(1).getDay());
+        assertEquals(7, report.getEventCount());
+        assertEquals(1, report.getFailureCount());
+        assertEquals(1, report.getDays().get(1).getFailedExits());
+        assertTrue(report.getSpeedUp() > 1);
+        assertEquals(Instant.parse("2026-03-03T10:00:00Z"), clock.instant());
+    }
+}
@@ -0,0 +1,218 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.GateServer;
+import com.parkit.parkingsystem.service.StorageBackend;
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GateServerTest {
+
+    /**
+     * Time given to the server to answer, in milliseconds.
+     */
+    private static final int READ_TIMEOUT_MS = 5_000;
+
+    /**
+     * Simulated time of the gates.
+     */
+    private SimulatedClock clock;
+    /**
+     * Server under test, on a free local port.
+     */
+    private GateServer gateServer;
+
+    /**
+     * Status and body of a response.
+     */
+    private static final class Reply {
+
+        /**
+         * HTTP status.
+         */
+        private final int status;
+        /**
+         * JSON body.
+         */
+        private final String body;
+
+        /**
+         * Constructor.
+         * @param statusToSet HTTP status
+         * @param bodyToSet JSON body
+         */
+        Reply(final int statusToSet, final String bodyToSet) {
+            this.status = statusToSet;
+            this.body = bodyToSet;
+        }
+    }
+
+    /**
+     * Server over an empty in-memory parking, clock stopped at a fixed time.
+     * @throws Exception for StorageBackend.open() and start()
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        clock = new SimulatedClock(Instant.parse("2026-03-02T08:00:00Z"), 0);
+        StorageBackend storageBackend = StorageBackend.open("memory", "CAR:3,BIKE:2", Paths.get("unused"), clock);
+        gateServer = new GateServer(storageBackend, new FareCalculatorService());
+        gateServer.setClock(clock);
+        gateServer.setWorkers(2);
+        gateServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Stop the server.
+     */
+    @AfterEach
+    private void tearDownPerTest() {
+        gateServer.stop();
+    }
+
+    /**
+     * Park, quote and release a car through the API.
+     * @throws Exception for call()
+     */
+    @Test
+    @DisplayName("A car entering, quoted after an hour and exiting gets its ticket, price and spot back")
+    public void Given_server_When_entryQuoteExit_Then_ticketPriced() throws Exception {
+        Reply entry = call("POST", "/entry", "type=car&plate=AB123CD");
+        assertEquals(201, entry.status);
+        assertTrue(entry.body.contains("\"plate\":\"AB123CD\""));
+        assertTrue(entry.body.contains("\"type\":\"CAR\""));
+        assertTrue(entry.body.contains("\"spot\":1"));
+        assertTrue(entry.body.contains("\"inTime\":\"2026-03-02T08:00:00Z\""));
+
+        clock.advanceTo(clock.instant().plus(Duration.ofHours(1)));
+        Reply quote = call("GET", "/quote?plate=AB123CD", null);
+        assertEquals(200, quote.status);
+        assertTrue(quote.body.contains("\"price\":1.50"));
+
+        Reply exit = call("POST", "/exit", "plate=AB123CD");
+        assertEquals(200, exit.status);
+        assertTrue(exit.body.contains("\"outTime\":\"2026-03-02T09:00:00Z\""));
+        assertTrue(exit.body.contains("\"price\":1.50"));
+
+        assertEquals(404, call("GET", "/quote?plate=AB123CD", null).status);
+    }
+
+    /**
+     * A repeated exit, such as a client retry, must not close the ticket again nor free a spot taken since.
+     * @throws Exception for call()
+     */
+    @Test
+    @DisplayName("A second exit of the same car is refused and leaves the spot to the next car")
+    public void Given_carExited_When_exitAgain_Then_notFoundAndSpotKept() throws Exception {
+        assertEquals(201, call("POST", "/entry", "type=CAR&plate=AB123CD").status);
+        clock.advanceTo(clock.instant().plus(Duration.ofHours(1)));
+        assertEquals(200, call("POST", "/exit", "plate=AB123CD").status);
+        Reply next = call("POST", "/entry", "type=CAR&plate=EF456GH");
+        assertTrue(next.body.contains("\"spot\":1"));
+
+        clock.advanceTo(clock.instant().plus(Duration.ofHours(1)));
+        Reply again = call("POST", "/exit", "plate=AB123CD");
+        assertEquals(404, again.status);
+
+        Reply third = call("POST", "/entry", "type=CAR&plate=IJ789KL");
+        assertTrue(third.body.contains("\"spot\":2")); // Spot 1 still belongs to EF456GH
+    }
+
+    /**
+     * Invalid requests are refused without touching the parking.
+     * @throws Exception for call()
+     */
+    @Test
+    @DisplayName("Missing or invalid parameters and wrong methods are refused")
+    public void Given_server_When_invalidRequest_Then_clientError() throws Exception {
+        assertEquals(400, call("POST", "/entry", "type=TRUCK&plate=AB123CD").status);
+        assertEquals(400, call("POST", "/entry", "type=CAR").status);
+        assertEquals(400, call("POST", "/exit", "").status);
+        assertEquals(405, call("GET", "/entry?type=CAR&plate=AB123CD", null).status);
+        assertEquals(404, call("GET", "/quote?plate=NEVERIN", null).status);
+    }
+
+    /**
+     * Clients that never finish their request hold the worker, the queue and one rejection thread :
+     * a further request is still answered 503 at once, the selector thread never reads a request itself.
+     * @throws Exception for start() and call()
+     */
+    @Test
+    @DisplayName("Slow clients beyond capacity do not stall the answers of other requests")
+    public void Given_slowClientsBeyondCapacity_When_request_Then_serviceUnavailable() throws Exception {
+        gateServer.stop();
+        gateServer.setWorkers(1);
+        gateServer.setQueueCapacity(1);
+        gateServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        List<Socket> slowClients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) { // Worker, queued request, then one rejection thread
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), gateServer.getPort());
+                socket.getOutputStream().write("POST /exit HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII));
+                socket.getOutputStream().flush();
+                slowClients.add(socket);
+                Thread.sleep(200);
+            }
+
+            Reply reply = call("GET", "/quote?plate=AB123CD", null);
+            assertEquals(503, reply.status);
+        } finally {
+            for (Socket socket : slowClients) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * @param method HTTP method
+     * @param path path and query string
+     * @param form form encoded body, or null
+     * @return status and body of the response
+     * @throws IOException on connection failure
+     */
+    private Reply call(final String method, final String path, final String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + gateServer.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        if (form != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(form.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        connection.disconnect();
+        return new Reply(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
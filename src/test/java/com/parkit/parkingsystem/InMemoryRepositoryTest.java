@@ -0,0 +1,121 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotRepository;
+import com.parkit.parkingsystem.dao.InMemoryTicketRepository;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryRepositoryTest {
+
+    /**
+     * Predefined value for regNumber values.
+     */
+    private static final String regNumber = "ABCDEF";
+
+    /**
+     * inputReaderUtil mock : simulate user entries.
+     */
+    @Mock
+    private InputReaderUtil inputReaderUtil;
+    /**
+     * In-memory parking : spots 1 to 3 CAR, 4 and 5 BIKE.
+     */
+    private InMemoryParkingSpotRepository parkingSpotRepository;
+    /**
+     * In-memory tickets.
+     */
+    private InMemoryTicketRepository ticketRepository;
+
+    /**
+     * Empty parking, no ticket.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        parkingSpotRepository = InMemoryParkingSpotRepository.fromLayout("CAR:3,BIKE:2");
+        ticketRepository = new InMemoryTicketRepository();
+    }
+
+    /**
+     * Check that the latest ticket by in-time is returned, as a copy, and that updates are stored.
+     */
+    @Test
+    @DisplayName("Latest ticket of a plate is returned and updated")
+    public void Given_twoTicketsOfPlate_When_getAndUpdateTicket_Then_latestTicketUpdated() {
+        Instant firstInTime = Instant.now().truncatedTo(ChronoUnit.MINUTES).minus(2, ChronoUnit.DAYS);
+        ticketRepository.saveTicket(newTicket(1, firstInTime.plus(1, ChronoUnit.DAYS)));
+        ticketRepository.saveTicket(newTicket(2, firstInTime));
+
+        Ticket latest = ticketRepository.getTicket(regNumber);
+        assertEquals(1, latest.getId());
+        latest.setPrice(3.0);
+        latest.setOutTime(latest.getInTime().plus(2, ChronoUnit.HOURS));
+        assertEquals(0, ticketRepository.getTicket(regNumber).getPrice());
+
+        assertTrue(ticketRepository.updateTicket(latest));
+        assertEquals(3.0, ticketRepository.getTicket(regNumber).getPrice());
+        assertNotNull(ticketRepository.getTicket(regNumber).getOutTime());
+        List<Ticket> history = ticketRepository.getTickets(regNumber);
+        assertEquals(2, history.size());
+        assertNull(history.get(1).getOutTime());
+    }
+
+    /**
+     * Check the complete entrance and exit flow of ParkingService against in-memory storage.
+     * @throws Exception for readVehicleRegistrationNumber()
+     */
+    @Test
+    @DisplayName("Entrance and exit work without database")
+    public void Given_inMemoryStorage_When_vehicleEntersTwiceAndExits_Then_spotFreedAndSecondTicketDiscounted() throws Exception {
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotRepository, ticketRepository);
+
+        assertFalse(ticketRepository.isRecurringVehicle(regNumber));
+        parkingService.processIncomingVehicle();
+        assertEquals(2, parkingSpotRepository.countFree(ParkingType.CAR));
+        assertFalse(ticketRepository.getTicket(regNumber).isDiscounted());
+
+        parkingService.processExitingVehicle();
+        assertEquals(3, parkingSpotRepository.countFree(ParkingType.CAR));
+        assertNotNull(ticketRepository.getTicket(regNumber).getOutTime());
+
+        parkingService.processIncomingVehicle();
+        assertTrue(ticketRepository.isRecurringVehicle(regNumber));
+        assertTrue(ticketRepository.getTicket(regNumber).isDiscounted());
+        assertEquals(2, ticketRepository.size());
+    }
+
+    /**
+     * @param parkingNumber spot of the ticket
+     * @param inTime entrance time
+     * @return open ticket of regNumber
+     */
+    private static Ticket newTicket(final int parkingNumber, final Instant inTime) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(parkingNumber, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(regNumber);
+        ticket.setInTime(inTime);
+        return ticket;
+    }
+}
@@ -0,0 +1,139 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.JournalTicketRepository;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalTicketRepositoryTest {
+
+    /**
+     * Smallest allowed segment size, so that a few tickets roll segments.
+     */
+    private static final int SMALL_SEGMENT_SIZE = 520;
+
+    /**
+     * Journal folder of the test.
+     */
+    private Path directory;
+
+    /**
+     * Empty journal folder.
+     * @throws Exception for Files.createTempDirectory()
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        directory = Files.createTempDirectory("ticket-journal");
+    }
+
+    /**
+     * Remove journal folder.
+     * @throws Exception for Files.walk()
+     */
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Check that saved and updated tickets are rebuilt from the journal, across segments.
+     * @throws Exception for JournalTicketRepository constructor
+     */
+    @Test
+    @DisplayName("Tickets are recovered from journal on restart")
+    public void Given_ticketsSavedAndUpdated_When_reopen_Then_ticketsRecovered() throws Exception {
+        final int tickets = 30;
+        JournalTicketRepository repository = new JournalTicketRepository(directory, SMALL_SEGMENT_SIZE);
+        for (int i = 1; i <= tickets; i++) {
+            assertTrue(repository.saveTicket(newTicket("PLATE" + i, i)));
+        }
+        Ticket closed = repository.getTicket("PLATE1");
+        closed.setPrice(1.5);
+        closed.setOutTime(closed.getInTime().plus(1, ChronoUnit.HOURS));
+        assertTrue(repository.updateTicket(closed));
+        repository.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+        JournalTicketRepository reopened = new JournalTicketRepository(directory, SMALL_SEGMENT_SIZE);
+        assertEquals(1.5, reopened.getTicket("PLATE1").getPrice());
+        assertEquals(closed.getOutTime(), reopened.getTicket("PLATE1").getOutTime());
+        assertEquals(tickets - 1, reopened.getOpenTickets().size());
+        assertTrue(reopened.isRecurringVehicle("PLATE" + tickets));
+        Ticket next = newTicket("PLATE1", 1);
+        assertTrue(reopened.saveTicket(next));
+        assertEquals(tickets + 1, next.getId());
+        reopened.close();
+    }
+
+    /**
+     * Check that a record torn by a crash is dropped and that the journal stays writable.
+     * @throws Exception for file access
+     */
+    @Test
+    @DisplayName("Torn last record is discarded on recovery")
+    public void Given_tornLastRecord_When_reopen_Then_recordDiscardedAndJournalWritable() throws Exception {
+        JournalTicketRepository repository = new JournalTicketRepository(directory, SMALL_SEGMENT_SIZE);
+        repository.saveTicket(newTicket("FIRST", 1));
+        repository.saveTicket(newTicket("TORN", 2));
+        repository.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().reduce((first, second) -> second).get();
+        }
+        byte[] content = Files.readAllBytes(segment);
+        int last = content.length - 1;
+        while (content[last] == 0) {
+            last--;
+        }
+        content[last] ^= 1; // Last plate character of the last record
+        Files.write(segment, content);
+
+        JournalTicketRepository reopened = new JournalTicketRepository(directory, SMALL_SEGMENT_SIZE);
+        assertNull(reopened.getTicket("TORN"));
+        assertFalse(reopened.isRecurringVehicle("TORN"));
+        Ticket retried = newTicket("TORN", 2);
+        assertTrue(reopened.saveTicket(retried));
+        assertEquals(2, retried.getId());
+        reopened.close();
+
+        List<Ticket> openTickets = new JournalTicketRepository(directory, SMALL_SEGMENT_SIZE).getOpenTickets();
+        assertEquals(2, openTickets.size());
+    }
+
+    /**
+     * @param vehicleRegNumber plate of the ticket
+     * @param parkingNumber spot of the ticket
+     * @return open ticket entered now
+     */
+    private static Ticket newTicket(final String vehicleRegNumber, final int parkingNumber) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(parkingNumber, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber(vehicleRegNumber);
+        ticket.setInTime(Instant.now().truncatedTo(ChronoUnit.MINUTES));
+        return ticket;
+    }
+}
@@ -0,0 +1,175 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.dao.KnownPlatesFilter;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KnownPlatesFilterTest {
+
+    /**
+     * Plates added per test, ten times the first segment capacity.
+     */
+    private static final int PLATES = 10_000;
+
+    /**
+     * Class Under Test, with a small first segment to force growth.
+     */
+    private KnownPlatesFilter knownPlatesFilter;
+
+    /**
+     * Fill filter with PLATES distinct plates.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        knownPlatesFilter = new KnownPlatesFilter(1_000, 0.01);
+        for (int i = 1; i <= PLATES; i++) {
+            knownPlatesFilter.add("AB" + i, i);
+        }
+    }
+
+    /**
+     * Check that no added plate is ever reported unknown, across segments.
+     */
+    @Test
+    @DisplayName("No false negative after growth")
+    public void Given_filterGrownBeyondInitialCapacity_When_mightContain_Then_everyAddedPlateFound() {
+        for (int i = 1; i <= PLATES; i++) {
+            assertTrue(knownPlatesFilter.mightContain("AB" + i));
+        }
+        assertEquals(PLATES, knownPlatesFilter.getHighestTicketId());
+    }
+
+    /**
+     * Check that most unknown plates are rejected without database access.
+     */
+    @Test
+    @DisplayName("False positive rate stays low")
+    public void Given_unknownPlates_When_mightContain_Then_mostlyRejected() {
+        int falsePositives = 0;
+        for (int i = 1; i <= PLATES; i++) {
+            if (knownPlatesFilter.mightContain("ZZ" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < PLATES / 50, "False positives: " + falsePositives);
+    }
+
+    /**
+     * Check persistence round trip.
+     * @throws Exception for file access
+     */
+    @Test
+    @DisplayName("Saved filter is reloaded identical")
+    public void Given_savedFilter_When_load_Then_samePlatesAndHighestTicketId() throws Exception {
+        Path file = Files.createTempFile("known-plates", ".bloom");
+        try {
+            knownPlatesFilter.setDatabaseIdentity("embedded jdbc:h2:mem:plates");
+            knownPlatesFilter.save(file);
+            KnownPlatesFilter loaded = KnownPlatesFilter.load(file);
+
+            assertEquals("embedded jdbc:h2:mem:plates", loaded.getDatabaseIdentity());
+            assertEquals(PLATES, loaded.getHighestTicketId());
+            assertTrue(loaded.mightContain("AB1"));
+            assertTrue(loaded.mightContain("AB" + PLATES));
+            assertEquals(knownPlatesFilter.mightContain("NEW"), loaded.mightContain("NEW"));
+            assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Check that corrupt word counts are reported as IOException, so that the filter is rebuilt from the database.
+     * @throws Exception for file access
+     */
+    @Test
+    @DisplayName("Corrupt segment sizes fail the load with IOException")
+    public void Given_corruptWordCount_When_load_Then_IOException() throws Exception {
+        Path file = Files.createTempFile("known-plates", ".bloom");
+        try {
+            knownPlatesFilter.save(file);
+            // Header : magic, version, empty database identity, highest ticket id, segment count,
+            // then capacity, rate, hashes, count, words
+            int wordCountOffset = Integer.BYTES * 2 + Short.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES
+                    + Double.BYTES + Integer.BYTES * 2;
+            for (int wordCount : new int[] {-1, 0, Integer.MAX_VALUE}) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).putInt(0, wordCount);
+                    channel.write(buffer, wordCountOffset);
+                }
+                assertThrows(IOException.class, () -> KnownPlatesFilter.load(file));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * A file saved from another database, or ahead of the Ticket table, must not be caught up : plates of tickets
+     * below its highest ticket id would be missing, and recurring vehicles would lose their discount.
+     * @throws Exception for database and file access
+     */
+    @Test
+    @DisplayName("Known plates files of another database or ahead of the tickets are rebuilt")
+    public void Given_fileFromOtherDatabaseOrAhead_When_loadKnownPlatesFilter_Then_rebuiltFromTicketTable()
+            throws Exception {
+        DataSourceSettings settings = DataSourceSettings.embedded("plates");
+        DataBaseConfig dataBaseConfig = new DataBaseConfig() {
+            @Override
+            public Connection getConnection() throws ClassNotFoundException, SQLException {
+                return settings.openConnection();
+            }
+        };
+        String databaseIdentity = settings.getProfile() + " " + settings.getUrl();
+        Path file = Files.createTempFile("known-plates", ".bloom");
+        try {
+            new SchemaMigrator(dataBaseConfig).bootstrap();
+            try (Connection con = settings.openConnection(); Statement statement = con.createStatement()) {
+                statement.execute("insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, IN_TIME) values "
+                        + "(1, 'REC1', now()), (2, 'REC2', now())");
+            }
+            TicketDAO ticketDAO = new TicketDAO();
+            ticketDAO.setDataBaseConfig(dataBaseConfig);
+
+            KnownPlatesFilter otherDatabase = new KnownPlatesFilter();
+            otherDatabase.setDatabaseIdentity("mysql jdbc:mysql://elsewhere:3306/prod");
+            otherDatabase.add("OTHER", 1);
+            otherDatabase.save(file);
+            assertTrue(ticketDAO.loadKnownPlatesFilter(file, databaseIdentity));
+            assertTrue(ticketDAO.isRecurringVehicle("REC1"));
+            assertEquals(databaseIdentity, KnownPlatesFilter.load(file).getDatabaseIdentity());
+
+            knownPlatesFilter.setDatabaseIdentity(databaseIdentity); // Up to ticket PLATES, from before a reset
+            knownPlatesFilter.save(file);
+            assertTrue(ticketDAO.loadKnownPlatesFilter(file, databaseIdentity));
+            assertTrue(ticketDAO.isRecurringVehicle("REC1"));
+            assertTrue(ticketDAO.isRecurringVehicle("REC2"));
+            assertEquals(2, KnownPlatesFilter.load(file).getHighestTicketId());
+        } finally {
+            try (Connection con = settings.openConnection(); Statement statement = con.createStatement()) {
+                statement.execute("drop all objects");
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+}
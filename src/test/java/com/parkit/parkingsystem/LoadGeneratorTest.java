@@ -0,0 +1,57 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.service.LoadGenerator;
+import com.parkit.parkingsystem.service.LoadReport;
+import com.parkit.parkingsystem.service.LoadSettings;
+import com.parkit.parkingsystem.service.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadGeneratorTest {
+
+    /**
+     * Traffic of the test : a small lot, often full, and many recurring vehicles.
+     */
+    private LoadSettings settings;
+
+    /**
+     * Busy morning on a lot of 10 spots.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        settings = new LoadSettings();
+        settings.setGates(4);
+        settings.setHours(4);
+        settings.setArrivalsPerHour(60);
+        settings.setMeanDwellMinutes(15);
+        settings.setRecurringRatio(0.5);
+        settings.setLotSize(10);
+    }
+
+    /**
+     * Play a simulated morning on concurrent gates over in-memory storage.
+     * @throws Exception for StorageBackend.open() and run()
+     */
+    @Test
+    @DisplayName("Concurrent gates park and release every scheduled vehicle without conflict nor error")
+    public void Given_memoryStorage_When_run_Then_everyEntranceExitsWithoutConflict() throws Exception {
+        StorageBackend storageBackend = StorageBackend.open("memory", settings.getMemoryLayout(), Paths.get("unused"));
+        LoadReport report = new LoadGenerator(settings).run(storageBackend);
+
+        assertTrue(report.getEntryCount() > 50);
+        assertTrue(report.getTurnedAway() > 0);
+        assertEquals(report.getEntryCount(), report.getExitCount());
+        assertEquals(0, report.getConflicts());
+        assertEquals(0, report.getEntryErrors());
+        assertEquals(0, report.getExitErrors());
+        assertEquals(0, report.getSkipped());
+        assertTrue(report.getEntryLatencyNanos(50) <= report.getEntryLatencyNanos(99.9));
+        assertTrue(report.getThroughput() > 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.Metrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+
+    /**
+     * Percentiles of a known distribution are found within the bucket precision.
+     */
+    @Test
+    @DisplayName("Histogram percentiles are within 1/32 of the exact values")
+    public void Given_uniformValues_When_getValueAtPercentile_Then_withinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test.uniform");
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 1);
+        assertWithin(5_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(9_900_000, histogram.getValueAtPercentile(99));
+        assertWithin(9_990_000, histogram.getValueAtPercentile(99.9));
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(0, new LatencyHistogram("test.empty").getValueAtPercentile(99));
+    }
+
+    /**
+     * Concurrent recording loses no value.
+     * @throws Exception for Future.get()
+     */
+    @Test
+    @DisplayName("Concurrent recording counts every value")
+    public void Given_concurrentThreads_When_record_Then_everyValueCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test.concurrent");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMax());
+        assertWithin(50_000, histogram.getValueAtPercentile(50));
+    }
+
+    /**
+     * Registry hands out one timer per name, published over JMX and in the text dump.
+     * @throws Exception for JMX lookups
+     */
+    @Test
+    @DisplayName("Registered metrics appear over JMX and in the dump")
+    public void Given_registeredMetrics_When_start_Then_publishedAndDumped() throws Exception {
+        LatencyHistogram timer = Metrics.timer("test.registry");
+        assertSame(timer, Metrics.timer("test.registry"));
+        timer.record(2_000);
+        Metrics.counter("test.registry.failures").increment();
+        Metrics.gauge("test.registry.gauge", () -> 42);
+
+        Metrics.start();
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                new ObjectName("com.parkit.parkingsystem:type=Timer,name=\"test.registry\"")));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(
+                new ObjectName("com.parkit.parkingsystem:type=Timer,name=\"test.registry\""), "Count"));
+        assertEquals(42.0, ManagementFactory.getPlatformMBeanServer().getAttribute(
+                new ObjectName("com.parkit.parkingsystem:type=Gauge,name=\"test.registry.gauge\""), "Value"));
+        StringBuilder dump = new StringBuilder();
+        Metrics.dump(dump);
+        assertTrue(dump.toString().contains("test.registry "));
+        assertTrue(dump.toString().contains("test.registry.failures"));
+        assertTrue(dump.toString().contains("test.registry.gauge"));
+    }
+
+    /**
+     * @param expected exact value
+     * @param actual value read from a histogram
+     */
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -14,13 +14,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -73,13 +81,36 @@ public class ParkingServiceTest {
         when(inputReaderUtil.readSelection()).thenReturn(1);
         when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
 
-        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
-        when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
 
         when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true);
 
         parkingService.processIncomingVehicle();
         verify(ticketDAO, Mockito.times(1)).saveTicket(any(Ticket.class)); // No error, ticket should be saved.
+        verify(parkingSpotDAO, Mockito.times(0)).updateParking(any(ParkingSpot.class)); // Spot already reserved by claim.
+    }
+
+    /**
+     * Prompts and ticket messages go to the output set, save errors to the log only.
+     * @throws Exception for readVehicleRegistrationNumber()
+     */
+    @Test
+    @DisplayName("Gate messages are written to the output set")
+    public void Given_output_When_enterParking_Then_messagesWrittenToOutput() throws Exception {
+        List<String> lines = new ArrayList<>();
+        parkingService.setOutput(lines::add);
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true, false);
+
+        parkingService.processIncomingVehicle();
+        assertTrue(lines.contains("Please park your vehicle in spot number:1"));
+
+        lines.clear();
+        assertNull(parkingService.processIncomingVehicle());
+        assertTrue(lines.stream().noneMatch(line -> line.startsWith("Unable")));
+        assertFalse(lines.contains("Generated Ticket and saved in DB"));
     }
 
     /**
@@ -90,7 +121,7 @@ public class ParkingServiceTest {
     public void Given_fullParking_When_enterParking_Then_noTicketSaved() {
         when(inputReaderUtil.readSelection()).thenReturn(1);
 
-        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(-1); // No available slot.
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(-1); // No available slot.
 
         parkingService.processIncomingVehicle();
         verify(ticketDAO, Mockito.times(0)).saveTicket(any(Ticket.class)); // No ticket saved when parking is full.
@@ -105,11 +136,9 @@ public class ParkingServiceTest {
         when(inputReaderUtil.readSelection()).thenReturn(1);
         when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
 
-        when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
-        when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
 
-        Ticket oldTicket = new Ticket();
-        when(ticketDAO.getTicket(regNumber)).thenReturn(oldTicket);
+        when(ticketDAO.isRecurringVehicle(regNumber)).thenReturn(true);
         when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true);
 
         parkingService.processIncomingVehicle();
@@ -120,6 +149,27 @@ public class ParkingServiceTest {
         assertTrue(newTicket.getValue().isDiscounted()); // Then isDiscount boolean is checked to be true.
     }
 
+    /**
+     * Check that a claimed spot is given back when the ticket can not be saved.
+     * @throws Exception for readVehicleRegistrationNumber()
+     */
+    @Test
+    @DisplayName("Claimed spot released when ticket save fails")
+    public void Given_ticketSaveFailure_When_enterParking_Then_claimedSpotReleased() throws Exception {
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(false);
+
+        parkingService.processIncomingVehicle();
+
+        ArgumentCaptor<ParkingSpot> releasedSpot = ArgumentCaptor.forClass(ParkingSpot.class);
+        verify(parkingSpotDAO).updateParking(releasedSpot.capture());
+        assertEquals(1, releasedSpot.getValue().getId());
+        assertTrue(releasedSpot.getValue().isAvailable());
+    }
+
     /**
      * Check if processExitingVehicleTest has really called parkingSpotDAO.updateParking().
      */
@@ -137,7 +187,8 @@ public class ParkingServiceTest {
             ticket.setParkingSpot(parkingSpot);
             ticket.setVehicleRegNumber(regNumber);
 
-            when(ticket.getOutTime()).thenReturn(mockedOutTime, mockedOutTime, mockedOutTime); // ticket.getOutTime() is called three times in fareCalculatorService.
+            // ticket.getOutTime() is first checked null (ticket still open), then called three times in fareCalculatorService.
+            when(ticket.getOutTime()).thenReturn(null, mockedOutTime, mockedOutTime, mockedOutTime);
             when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
             when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
             when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
@@ -194,4 +245,127 @@ public class ParkingServiceTest {
         verify(ticketDAO,Mockito.times(0)).updateTicket(any(Ticket.class));  // ticketDAO should not haven been called.
     }
 
+    /**
+     * Check an exit repeated after the ticket was closed neither re-prices the ticket nor frees the spot again.
+     * @throws Exception for readVehicleRegistrationNumber() and get()
+     */
+    @Test
+    @DisplayName("Exit of an already closed ticket is refused, sync and async")
+    public void Given_closedTicket_When_exitAgain_Then_noUpdate() throws Exception {
+        Ticket closed = new Ticket();
+        closed.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, true));
+        closed.setVehicleRegNumber(regNumber);
+        closed.setInTime(Instant.parse("2026-03-02T08:00:00Z"));
+        closed.setOutTime(Instant.parse("2026-03-02T09:00:00Z"));
+        closed.setPrice(1.5);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(ticketDAO.getTicket(regNumber)).thenReturn(closed);
+
+        assertNull(parkingService.processExitingVehicle());
+        assertNull(parkingService.processExitingVehicleAsync().get(5, TimeUnit.SECONDS));
+
+        assertEquals(Instant.parse("2026-03-02T09:00:00Z"), closed.getOutTime());
+        assertEquals(1.5, closed.getPrice(), 0.001);
+        verify(ticketDAO, Mockito.times(0)).updateTicket(any(Ticket.class));
+        verify(parkingSpotDAO, Mockito.times(0)).updateParking(any(ParkingSpot.class));
+    }
+
+    /**
+     * Check in-time is read from the injected clock, truncated to the minute.
+     * @throws Exception for readVehicleRegistrationNumber()
+     */
+    @Test
+    @DisplayName("In-time comes from the service clock")
+    public void Given_fixedClock_When_enterParking_Then_inTimeFromClock() throws Exception {
+        Instant now = Instant.parse("2026-03-02T08:15:42Z");
+        parkingService.setClock(Clock.fixed(now, ZoneOffset.UTC));
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true);
+
+        Ticket ticket = parkingService.processIncomingVehicle();
+
+        assertEquals(Instant.parse("2026-03-02T08:15:00Z"), ticket.getInTime());
+    }
+
+    /**
+     * Check the asynchronous entrance saves a discounted ticket on the claimed spot.
+     * @throws Exception for readVehicleRegistrationNumber() and get()
+     */
+    @Test
+    @DisplayName("Asynchronous entrance of a recurring user saves a discounted ticket")
+    public void Given_recurringUser_When_enterParkingAsync_Then_discountedTicketSaved() throws Exception {
+        ExecutorService databaseExecutor = Executors.newFixedThreadPool(2);
+        parkingService.setDatabaseExecutor(databaseExecutor);
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(2);
+        when(ticketDAO.isRecurringVehicle(regNumber)).thenReturn(true);
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(true);
+
+        Ticket ticket;
+        try {
+            ticket = parkingService.processIncomingVehicleAsync().get(5, TimeUnit.SECONDS);
+        } finally {
+            databaseExecutor.shutdown();
+        }
+
+        assertEquals(2, ticket.getParkingSpot().getId());
+        assertTrue(ticket.isDiscounted());
+        verify(ticketDAO).saveTicket(ticket);
+        verify(parkingSpotDAO, Mockito.times(0)).updateParking(any(ParkingSpot.class)); // Spot already reserved by claim.
+    }
+
+    /**
+     * Check the asynchronous entrance gives the claimed spot back when the ticket can not be saved.
+     * @throws Exception for readVehicleRegistrationNumber() and join()
+     */
+    @Test
+    @DisplayName("Asynchronous entrance releases the claimed spot when ticket save fails")
+    public void Given_ticketSaveFailure_When_enterParkingAsync_Then_claimedSpotReleased() throws Exception {
+        when(inputReaderUtil.readSelection()).thenReturn(1);
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+        when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(false);
+
+        assertNull(parkingService.processIncomingVehicleAsync().join());
+
+        ArgumentCaptor<ParkingSpot> releasedSpot = ArgumentCaptor.forClass(ParkingSpot.class);
+        verify(parkingSpotDAO).updateParking(releasedSpot.capture());
+        assertEquals(1, releasedSpot.getValue().getId());
+        assertTrue(releasedSpot.getValue().isAvailable());
+    }
+
+    /**
+     * Check the asynchronous exit prices the ticket at the clock time and frees its spot.
+     * @throws Exception for readVehicleRegistrationNumber() and get()
+     */
+    @Test
+    @DisplayName("Asynchronous exit prices the stay and frees the spot")
+    public void Given_parkedVehicle_When_exitParkingAsync_Then_ticketPricedAndSpotFreed() throws Exception {
+        ExecutorService databaseExecutor = Executors.newFixedThreadPool(2);
+        parkingService.setDatabaseExecutor(databaseExecutor);
+        parkingService.setClock(Clock.fixed(Instant.parse("2026-03-02T09:00:00Z"), ZoneOffset.UTC));
+        Ticket parked = new Ticket();
+        parked.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        parked.setVehicleRegNumber(regNumber);
+        parked.setInTime(Instant.parse("2026-03-02T08:00:00Z"));
+        when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn(regNumber);
+        when(ticketDAO.getTicket(regNumber)).thenReturn(parked);
+        when(ticketDAO.updateTicket(parked)).thenReturn(true);
+        when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+
+        Ticket ticket;
+        try {
+            ticket = parkingService.processExitingVehicleAsync().get(5, TimeUnit.SECONDS);
+        } finally {
+            databaseExecutor.shutdown();
+        }
+
+        assertEquals(Instant.parse("2026-03-02T09:00:00Z"), ticket.getOutTime());
+        assertEquals(1.5, ticket.getPrice(), 0.001);
+        assertTrue(ticket.getParkingSpot().isAvailable());
+        verify(parkingSpotDAO).updateParking(ticket.getParkingSpot());
+    }
 }
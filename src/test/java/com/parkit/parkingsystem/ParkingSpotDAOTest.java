@@ -0,0 +1,133 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParkingSpotDAOTest {
+
+    /**
+     * Embedded database of the test, kept until dropped.
+     */
+    private static final DataSourceSettings SETTINGS = DataSourceSettings.embedded("spots");
+    /**
+     * Gate threads, one per car spot of the base schema.
+     */
+    private static final int GATES = 3;
+    /**
+     * Updates made by each gate per round, even so that the last one occupies the spot.
+     */
+    private static final int UPDATES = 200;
+    /**
+     * Shutdowns raced against the gates.
+     */
+    private static final int ROUNDS = 10;
+
+    /**
+     * Class Under Test.
+     */
+    private ParkingSpotDAO parkingSpotDAO;
+
+    /**
+     * Create the base schema and a DAO on raw connections to it.
+     * @throws Exception on database error
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        DataBaseConfig dataBaseConfig = new DataBaseConfig() {
+            @Override
+            public Connection getConnection() throws ClassNotFoundException, SQLException {
+                return SETTINGS.openConnection();
+            }
+        };
+        new SchemaMigrator(dataBaseConfig).bootstrap();
+        parkingSpotDAO = new ParkingSpotDAO();
+        parkingSpotDAO.setDataBaseConfig(dataBaseConfig);
+    }
+
+    /**
+     * Drop the database.
+     * @throws Exception on database error
+     */
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        parkingSpotDAO.shutdown();
+        try (Connection con = SETTINGS.openConnection(); Statement statement = con.createStatement()) {
+            statement.execute("drop all objects");
+        }
+    }
+
+    /**
+     * Gates still updating spots while the write-behind writer stops must neither fail nor lose their last update.
+     * @throws Exception on thread or database error
+     */
+    @Test
+    @DisplayName("Updates racing shutdown are written synchronously")
+    public void Given_gatesUpdating_When_shutdown_Then_noFailureAndLastUpdateWritten() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            assertTrue(parkingSpotDAO.loadAvailabilityIndex());
+            CyclicBarrier barrier = new CyclicBarrier(GATES + 1);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> gates = new ArrayList<>();
+            for (int gate = 1; gate <= GATES; gate++) {
+                int parkingNumber = gate;
+                Thread thread = new Thread(() -> {
+                    await(barrier);
+                    try {
+                        for (int update = 0; update < UPDATES; update++) {
+                            parkingSpotDAO.updateParking(new ParkingSpot(parkingNumber, ParkingType.CAR, update % 2 == 0));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                });
+                thread.start();
+                gates.add(thread);
+            }
+            await(barrier);
+            parkingSpotDAO.shutdown();
+            for (Thread thread : gates) {
+                thread.join();
+            }
+
+            assertNull(failure.get());
+            for (ParkingSpot parkingSpot : parkingSpotDAO.getParkingSpots()) {
+                if (parkingSpot.getId() <= GATES) {
+                    assertFalse(parkingSpot.isAvailable());
+                    parkingSpotDAO.updateParking(new ParkingSpot(parkingSpot.getId(), ParkingType.CAR, true));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param barrier barrier to wait on
+     */
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.QueryProfiler;
+import com.parkit.parkingsystem.config.QuerySample;
+import com.parkit.parkingsystem.constants.DBConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryProfilerTest {
+
+    /**
+     * In-memory database, kept while a connection is open.
+     */
+    private static final String URL = "jdbc:h2:mem:profiler";
+
+    /**
+     * Connection keeping the database alive, holding three spots.
+     */
+    private Connection keeper;
+
+    /**
+     * Create the parking table.
+     * @throws SQLException on database error
+     */
+    @BeforeEach
+    private void setUpPerTest() throws SQLException {
+        keeper = DriverManager.getConnection(URL);
+        try (Statement statement = keeper.createStatement()) {
+            statement.execute("create table parking(PARKING_NUMBER int primary key, AVAILABLE boolean, TYPE varchar(10))");
+            statement.execute("insert into parking values (1, true, 'CAR'), (2, true, 'CAR'), (3, true, 'BIKE')");
+        }
+    }
+
+    /**
+     * Drop the database.
+     * @throws SQLException on database error
+     */
+    @AfterEach
+    private void tearDownPerTest() throws SQLException {
+        try (Statement statement = keeper.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        keeper.close();
+    }
+
+    /**
+     * Queries and updates are recorded with their DBConstants name, parameters and rows, strings masked.
+     * @throws SQLException on database error
+     */
+    @Test
+    @DisplayName("Executions are recorded with statement name, masked parameters and rows")
+    public void Given_profiledConnection_When_execute_Then_samplesRecorded() throws SQLException {
+        QueryProfiler profiler = new QueryProfiler(16, 3, -1, null);
+
+        try (Connection con = profiler.wrap(DriverManager.getConnection(URL))) {
+            try (PreparedStatement ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT)) {
+                ps.setString(1, "CAR");
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(1, rs.getInt(1));
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT)) {
+                ps.setBoolean(1, false);
+                ps.setInt(2, 1);
+                assertEquals(1, ps.executeUpdate());
+            }
+            try (PreparedStatement ps = con.prepareStatement("select TYPE from parking where TYPE <> ?")) {
+                ps.setString(1, "AB-123-CD");
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    assertNotNull(rs.getString(1));
+                }
+            }
+        }
+
+        List<QuerySample> samples = profiler.getRecentSamples();
+        assertEquals(3, samples.size());
+        assertEquals("GET_NEXT_PARKING_SPOT", samples.get(0).getStatementId());
+        assertArrayEquals(new Object[] {"CAR"}, samples.get(0).getParameters());
+        assertEquals(1, samples.get(0).getRows());
+        assertEquals("UPDATE_PARKING_SPOT", samples.get(1).getStatementId());
+        assertArrayEquals(new Object[] {false, 1}, samples.get(1).getParameters());
+        assertEquals(1, samples.get(1).getRows());
+        assertEquals("other", samples.get(2).getStatementId());
+        assertArrayEquals(new Object[] {"A*******D"}, samples.get(2).getParameters());
+        assertEquals(3, samples.get(2).getRows());
+        assertEquals(1, profiler.getSlowestSamples("UPDATE_PARKING_SPOT").size());
+    }
+
+    /**
+     * The ring keeps the latest executions only, and each statement its slowest ones, slowest first.
+     * @throws SQLException on database error
+     */
+    @Test
+    @DisplayName("Ring keeps the latest executions and each statement its slowest ones")
+    public void Given_moreExecutionsThanCapacity_When_getSamples_Then_latestAndSlowestKept() throws SQLException {
+        QueryProfiler profiler = new QueryProfiler(4, 2, -1, null);
+
+        try (Connection con = profiler.wrap(DriverManager.getConnection(URL));
+             PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT)) {
+            for (int i = 0; i < 10; i++) {
+                ps.setBoolean(1, true);
+                ps.setInt(2, i);
+                ps.executeUpdate();
+            }
+        }
+
+        List<QuerySample> recent = profiler.getRecentSamples();
+        assertEquals(10, profiler.getRecordedCount());
+        assertEquals(4, recent.size());
+        assertEquals(6, recent.get(0).getParameters()[1]);
+        assertEquals(9, recent.get(3).getParameters()[1]);
+        List<QuerySample> slowest = profiler.getSlowestSamples("UPDATE_PARKING_SPOT");
+        assertEquals(2, slowest.size());
+        assertTrue(slowest.get(0).getDurationNanos() >= slowest.get(1).getDurationNanos());
+    }
+
+    /**
+     * An execution over the threshold is explained in the background and the plan shows in the dump.
+     * @throws Exception on database error or interruption
+     */
+    @Test
+    @DisplayName("Slow executions are explained and dumped with their plan")
+    public void Given_executionOverThreshold_When_recorded_Then_planCaptured() throws Exception {
+        QueryProfiler profiler = new QueryProfiler(16, 3, 0, () -> DriverManager.getConnection(URL));
+
+        try (Connection con = profiler.wrap(DriverManager.getConnection(URL));
+             PreparedStatement ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT)) {
+            ps.setString(1, "BIKE");
+            ps.executeQuery().close();
+        }
+        for (int i = 0; i < 100 && profiler.getPlan("GET_NEXT_PARKING_SPOT") == null; i++) {
+            Thread.sleep(50);
+        }
+        profiler.close();
+
+        String plan = profiler.getPlan("GET_NEXT_PARKING_SPOT");
+        assertNotNull(plan);
+        assertFalse(plan.startsWith("EXPLAIN failed"), plan);
+        StringBuilder dump = new StringBuilder();
+        profiler.dump(dump);
+        assertTrue(dump.toString().contains("GET_NEXT_PARKING_SPOT slowest"));
+        assertTrue(dump.toString().contains("plan"));
+    }
+
+    /**
+     * EXPLAIN binds the parameters as executed, while samples and dumps only show them masked.
+     * @throws Exception on database error or interruption
+     */
+    @Test
+    @DisplayName("Slow executions are explained with their parameters unmasked")
+    public void Given_plateParameter_When_explained_Then_boundUnmaskedAndDumpedMasked() throws Exception {
+        List<Object> explainParameters = new CopyOnWriteArrayList<>();
+        QueryProfiler profiler = new QueryProfiler(16, 3, 0, () -> capturing(DriverManager.getConnection(URL),
+                explainParameters));
+
+        try (Connection con = profiler.wrap(DriverManager.getConnection(URL));
+             PreparedStatement ps = con.prepareStatement("select PARKING_NUMBER from parking where TYPE = ?")) {
+            ps.setString(1, "ABCDEF");
+            ps.executeQuery().close();
+        }
+        for (int i = 0; i < 100 && profiler.getPlan("other") == null; i++) {
+            Thread.sleep(50);
+        }
+        profiler.close();
+
+        assertNotNull(profiler.getPlan("other"));
+        assertEquals(Collections.singletonList("ABCDEF"), explainParameters);
+        StringBuilder dump = new StringBuilder();
+        profiler.dump(dump);
+        assertTrue(dump.toString().contains("A****F"));
+        assertFalse(dump.toString().contains("ABCDEF"));
+    }
+
+    /**
+     * @param connection connection to wrap
+     * @param parameters receives the values bound to the statements of the connection
+     * @return Connection proxy whose prepared statements record their bound values.
+     */
+    private static Connection capturing(final Connection connection, final List<Object> parameters) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (!(result instanceof PreparedStatement)) {
+                        return result;
+                    }
+                    PreparedStatement statement = (PreparedStatement) result;
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[] {PreparedStatement.class}, (statementProxy, statementMethod, statementArgs) -> {
+                                if ("setObject".equals(statementMethod.getName())) {
+                                    parameters.add(statementArgs[1]);
+                                }
+                                return invoke(statement, statementMethod, statementArgs);
+                            });
+                });
+    }
+
+    /**
+     * @param target object to call
+     * @param method method to call
+     * @param args call arguments
+     * @return call result
+     * @throws Throwable exception thrown by the call
+     */
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SchemaMigratorTest {
+
+    /**
+     * Embedded database of the test, kept until dropped.
+     */
+    private static final DataSourceSettings SETTINGS = DataSourceSettings.embedded("migrator");
+
+    /**
+     * Migrator on raw connections to the embedded database.
+     */
+    private SchemaMigrator schemaMigrator;
+
+    /**
+     * Create the base schema.
+     * @throws Exception on database error
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        schemaMigrator = new SchemaMigrator(new DataBaseConfig() {
+            @Override
+            public Connection getConnection() throws ClassNotFoundException, SQLException {
+                return SETTINGS.openConnection();
+            }
+        });
+        schemaMigrator.bootstrap();
+    }
+
+    /**
+     * Drop the database.
+     * @throws Exception on database error
+     */
+    @AfterEach
+    private void tearDownPerTest() throws Exception {
+        try (Connection con = SETTINGS.openConnection(); Statement statement = con.createStatement()) {
+            statement.execute("drop all objects");
+        }
+    }
+
+    /**
+     * A run interrupted after the index of V2 was created, before V2 was recorded, must not block later runs.
+     * @throws Exception on database error
+     */
+    @Test
+    @DisplayName("Index created by an interrupted run is taken as applied")
+    public void Given_indexCreatedButVersionNotRecorded_When_migrate_Then_migrationRecorded() throws Exception {
+        try (Connection con = SETTINGS.openConnection(); Statement statement = con.createStatement()) {
+            statement.execute("create index IDX_TICKET_OPEN on ticket(OUT_TIME, PARKING_NUMBER)");
+        }
+
+        assertEquals(3, schemaMigrator.migrate());
+        assertEquals(0, schemaMigrator.migrate());
+
+        try (Connection con = SETTINGS.openConnection(); Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery("select max(VERSION), count(*) from schema_version")) {
+            rs.next();
+            assertEquals(3, rs.getInt(1));
+            assertEquals(3, rs.getInt(2));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.util.SimulatedClock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulatedClockTest {
+
+    /**
+     * Start of the simulated time.
+     */
+    private static final Instant START = Instant.parse("2026-03-02T00:00:00Z");
+
+    /**
+     * Check a stopped clock only moves forward, for every zone.
+     */
+    @Test
+    @DisplayName("Stopped clock jumps forward on advanceTo, never back")
+    public void Given_stoppedClock_When_advanceTo_Then_onlyMovesForward() {
+        SimulatedClock clock = new SimulatedClock(START, 0);
+        Clock paris = clock.withZone(ZoneId.of("Europe/Paris"));
+
+        assertEquals(START, clock.instant());
+        assertEquals(START.plusSeconds(3_600), clock.advanceTo(START.plusSeconds(3_600)));
+        assertEquals(START.plusSeconds(3_600), clock.advanceTo(START));
+        assertEquals(START.plusSeconds(3_600), clock.instant());
+        assertEquals(START.plusSeconds(3_600), paris.instant());
+    }
+
+    /**
+     * Check a running clock goes faster than wall time.
+     * @throws Exception for Thread.sleep()
+     */
+    @Test
+    @DisplayName("Running clock goes speed times faster than wall time")
+    public void Given_fastClock_When_wallTimePasses_Then_simulatedTimeRunsFaster() throws Exception {
+        SimulatedClock clock = new SimulatedClock(START, 3_600); // An hour per second
+
+        Thread.sleep(50);
+
+        Duration elapsed = Duration.between(START, clock.instant());
+        assertTrue(elapsed.getSeconds() >= 180, "elapsed " + elapsed);
+    }
+}
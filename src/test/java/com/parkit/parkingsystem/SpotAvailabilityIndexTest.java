@@ -0,0 +1,107 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.SpotAvailabilityIndex;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpotAvailabilityIndexTest {
+
+    /**
+     * Number of car spots, spanning several bitmap words.
+     */
+    private static final int CAR_SPOTS = 200;
+
+    /**
+     * Class Under Test.
+     */
+    private SpotAvailabilityIndex spotAvailabilityIndex;
+
+    /**
+     * Car spots 1 to 200 all free, bike spots 201 and 202 with 201 occupied.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        List<ParkingSpot> parkingSpots = new ArrayList<>();
+        for (int number = 1; number <= CAR_SPOTS; number++) {
+            parkingSpots.add(new ParkingSpot(number, ParkingType.CAR, true));
+        }
+        parkingSpots.add(new ParkingSpot(CAR_SPOTS + 1, ParkingType.BIKE, false));
+        parkingSpots.add(new ParkingSpot(CAR_SPOTS + 2, ParkingType.BIKE, true));
+        spotAvailabilityIndex = new SpotAvailabilityIndex(parkingSpots);
+    }
+
+    /**
+     * Check that claims hand out lowest free spot of the requested type only.
+     */
+    @Test
+    @DisplayName("Claim returns lowest free spot of type")
+    public void Given_freeSpots_When_claim_Then_lowestFreeSpotOfTypeReturned() {
+        assertEquals(1, spotAvailabilityIndex.claim(ParkingType.CAR));
+        assertEquals(2, spotAvailabilityIndex.claim(ParkingType.CAR));
+        assertEquals(CAR_SPOTS + 2, spotAvailabilityIndex.claim(ParkingType.BIKE));
+        assertEquals(-1, spotAvailabilityIndex.claim(ParkingType.BIKE));
+    }
+
+    /**
+     * Check that a released spot is the next one handed out.
+     */
+    @Test
+    @DisplayName("Released spot is claimed again first")
+    public void Given_releasedSpot_When_claim_Then_releasedSpotReturned() {
+        spotAvailabilityIndex.claim(ParkingType.CAR);
+        spotAvailabilityIndex.claim(ParkingType.CAR);
+
+        assertTrue(spotAvailabilityIndex.release(1));
+        assertFalse(spotAvailabilityIndex.release(1));
+        assertEquals(1, spotAvailabilityIndex.peek(ParkingType.CAR));
+        assertEquals(1, spotAvailabilityIndex.claim(ParkingType.CAR));
+    }
+
+    /**
+     * Check that concurrent gates never get the same spot.
+     * @throws Exception for Future.get()
+     */
+    @Test
+    @DisplayName("Concurrent claims never share a spot")
+    public void Given_concurrentGates_When_claimUntilFull_Then_eachSpotClaimedOnce() throws Exception {
+        final int gates = 8;
+        Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(gates);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int gate = 0; gate < gates; gate++) {
+            results.add(executor.submit(() -> {
+                int count = 0;
+                int parkingNumber;
+                while ((parkingNumber = spotAvailabilityIndex.claim(ParkingType.CAR)) > 0) {
+                    claimed.add(parkingNumber);
+                    count++;
+                }
+                return count;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(CAR_SPOTS, total);
+        assertEquals(CAR_SPOTS, claimed.size());
+        assertEquals(0, spotAvailabilityIndex.countFree(ParkingType.CAR));
+    }
+}
@@ -0,0 +1,186 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.service.Tariff;
+import com.parkit.parkingsystem.service.TariffReplayJob;
+import com.parkit.parkingsystem.service.TariffReplayReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class TariffReplayJobTest {
+
+    /**
+     * Closed tickets in the database : more than two read chunks.
+     */
+    private static final int TICKET_COUNT = 40_000;
+    /**
+     * Monday 1970-01-05 08:00 UTC, in milliseconds since epoch.
+     */
+    private static final long FIRST_ENTRANCE = (4 * 24 + 8) * 3_600_000L;
+    /**
+     * Length of every stay, in milliseconds : two hours.
+     */
+    private static final long STAY = 2 * 3_600_000L;
+    /**
+     * Days tickets are spread over.
+     */
+    private static final int DAYS = 3;
+    /**
+     * Tariff doubling the standard hourly rates, with the same discount and no grace period.
+     */
+    private static final String DOUBLE_TARIFF = "name=double\n"
+            + "discount.percent=5\n"
+            + "CAR.tiers=0:300\n"
+            + "BIKE.tiers=0:200\n";
+
+    /**
+     * Class Under Test.
+     */
+    private TariffReplayJob tariffReplayJob;
+    /**
+     * Statement mock streaming the tickets.
+     */
+    private PreparedStatement preparedStatement;
+
+    /**
+     * Database mock of TICKET_COUNT closed tickets of two hours, alternating car and bike over DAYS days,
+     * one in five discounted, charged under the standard tariff.
+     * @throws Exception for JDBC mocks
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        AtomicInteger row = new AtomicInteger(-1);
+        ResultSet resultSet = mock(ResultSet.class, withSettings().stubOnly());
+        when(resultSet.next()).thenAnswer(invocation -> row.incrementAndGet() < TICKET_COUNT);
+        when(resultSet.getTimestamp(1)).thenAnswer(invocation -> new Timestamp(entrance(row.get())));
+        when(resultSet.getTimestamp(2)).thenAnswer(invocation -> new Timestamp(entrance(row.get()) + STAY));
+        when(resultSet.getBoolean(3)).thenAnswer(invocation -> isDiscounted(row.get()));
+        when(resultSet.getDouble(4)).thenAnswer(invocation -> chargedCents(row.get()) / 100.0);
+        when(resultSet.getString(5)).thenAnswer(invocation -> parkingType(row.get()).name());
+
+        preparedStatement = mock(PreparedStatement.class);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(DBConstants.GET_CLOSED_TICKETS, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)).thenReturn(preparedStatement);
+        DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
+        when(dataBaseConfig.getConnection()).thenReturn(connection);
+
+        tariffReplayJob = new TariffReplayJob(dataBaseConfig, new ForkJoinPool(4));
+    }
+
+    /**
+     * Check totals and deltas of a replay under the charged tariff and under doubled rates.
+     * @throws Exception for Properties.load() and replay()
+     */
+    @Test
+    @DisplayName("Replay sums candidate revenues per day, type and discount flag")
+    public void Given_closedTickets_When_replay_Then_revenueDeltasPerDayTypeAndDiscount() throws Exception {
+        Properties properties = new Properties();
+        properties.load(new StringReader(DOUBLE_TARIFF));
+        Map<String, Tariff> candidates = new LinkedHashMap<>();
+        candidates.put("standard", Tariff.standard());
+        candidates.put("double", Tariff.parse(properties));
+
+        TariffReplayReport report = tariffReplayJob.replay(Instant.EPOCH, Instant.now(), candidates);
+
+        verify(preparedStatement).setFetchSize(anyInt());
+        assertEquals(TICKET_COUNT, report.getTicketCount());
+        assertEquals(DAYS * ParkingType.values().length * 2, report.getLines().size());
+        long charged = 0;
+        for (int i = 0; i < TICKET_COUNT; i++) {
+            charged += chargedCents(i);
+        }
+        assertEquals(0, report.getTotalDeltaCents(0));
+        assertEquals(charged, report.getTotalDeltaCents(1));
+        TariffReplayReport.Line first = report.getLines().get(0);
+        assertEquals(LocalDate.of(1970, 1, 5), first.getDay());
+        assertEquals(ParkingType.CAR, first.getParkingType());
+        assertEquals(false, first.isDiscounted());
+        assertEquals(first.getChargedCents(), first.getDeltaCents(1));
+        StringBuilder csv = new StringBuilder();
+        report.writeCsv(csv);
+        assertEquals(report.getLines().size() + 1, csv.toString().split("\n").length);
+    }
+
+    /**
+     * @param row ticket index
+     * @return entrance time, in milliseconds since epoch
+     */
+    private static long entrance(final int row) {
+        return FIRST_ENTRANCE + (row % DAYS) * 24 * 3_600_000L;
+    }
+
+    /**
+     * @param row ticket index
+     * @return type of the spot
+     */
+    private static ParkingType parkingType(final int row) {
+        return row % 2 == 0 ? ParkingType.CAR : ParkingType.BIKE;
+    }
+
+    /**
+     * @param row ticket index
+     * @return whether the ticket had the recurring user discount
+     */
+    private static boolean isDiscounted(final int row) {
+        return row % 5 == 0;
+    }
+
+    /**
+     * @param row ticket index
+     * @return price charged under the standard tariff, in cents
+     */
+    private static long chargedCents(final int row) {
+        long cents = 2 * parkingType(row).getFareCents();
+        return isDiscounted(row) ? cents * 95 / 100 : cents;
+    }
+
+    /**
+     * Candidates are reported by tariff name : two files of the same name must not replace each other silently.
+     * @throws Exception on file error
+     */
+    @Test
+    @DisplayName("Tariff files of the same name are refused")
+    public void Given_twoTariffFilesOfSameName_When_main_Then_IllegalArgumentException() throws Exception {
+        Path first = Files.createTempFile("tariff", ".properties");
+        Path second = Files.createTempFile("tariff", ".properties");
+        try {
+            Files.write(first, DOUBLE_TARIFF.getBytes(StandardCharsets.UTF_8));
+            Files.write(second, DOUBLE_TARIFF.replace("300", "400").getBytes(StandardCharsets.UTF_8));
+
+            assertThrows(IllegalArgumentException.class, () -> TariffReplayJob.main(new String[] {
+                "1970-01-05", "1970-01-08", first.toString(), second.toString()}));
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+}
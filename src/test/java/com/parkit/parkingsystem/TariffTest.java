@@ -0,0 +1,147 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.Tariff;
+import com.parkit.parkingsystem.service.TariffReloader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TariffTest {
+
+    /**
+     * Monday 1970-01-05 00:00 UTC, in minutes since epoch.
+     */
+    private static final long MONDAY = 4 * 24 * 60;
+    /**
+     * Saturday 1970-01-10 00:00 UTC, in minutes since epoch.
+     */
+    private static final long SATURDAY = 9 * 24 * 60;
+    /**
+     * Tiered car tariff : 120 cents per hour the first 2 hours then 60, 30 cents less per hour on weekends,
+     * 15.00 per started day at most, 10% recurring discount.
+     */
+    private static final String TIERED_TARIFF = "name=tiered\n"
+            + "discount.percent=10\n"
+            + "CAR.tiers=0:120,120:60\n"
+            + "CAR.bands=SAT-SUN 00:00-24:00 -30\n"
+            + "CAR.dailyCap=1500\n"
+            + "BIKE.tiers=0:100\n";
+
+    /**
+     * Class Under Test, priced through FareCalculatorService.
+     */
+    private FareCalculatorService fareCalculatorService;
+
+    /**
+     * Fare calculator using the tiered tariff.
+     * @throws Exception for Properties.load()
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        Properties properties = new Properties();
+        properties.load(new StringReader(TIERED_TARIFF));
+        fareCalculatorService = new FareCalculatorService();
+        fareCalculatorService.setTariff(Tariff.parse(properties));
+    }
+
+    /**
+     * Check that the shipped standard tariff file prices exactly like the built-in tariff.
+     * @throws Exception for resource loading
+     */
+    @Test
+    @DisplayName("Standard tariff file matches built-in tariff")
+    public void Given_standardTariffFile_When_getRateMinutes_Then_sameAsBuiltInTariff() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("tariffs/standard.properties")) {
+            properties.load(in);
+        }
+        Tariff fromFile = Tariff.parse(properties);
+        Tariff builtIn = Tariff.standard();
+        for (ParkingType parkingType : ParkingType.values()) {
+            for (long minutes = 0; minutes <= 3 * 24 * 60; minutes += 7) {
+                assertEquals(builtIn.getRateMinutes(MONDAY, MONDAY + minutes, parkingType),
+                        fromFile.getRateMinutes(MONDAY, MONDAY + minutes, parkingType));
+            }
+        }
+        assertEquals(builtIn.getDiscountPercent(), fromFile.getDiscountPercent());
+    }
+
+    /**
+     * Check tiers, weekend band, daily cap and discount of a compiled tariff.
+     */
+    @Test
+    @DisplayName("Tiers, bands and daily cap are applied")
+    public void Given_tieredTariff_When_calculateFareCents_Then_tiersBandsAndCapApplied() {
+        // 2 hours at 1.20 then 1 hour at 0.60
+        assertEquals(300, fareCalculatorService.calculateFareCents(MONDAY, MONDAY + 180, ParkingType.CAR, false));
+        assertEquals(270, fareCalculatorService.calculateFareCents(MONDAY, MONDAY + 180, ParkingType.CAR, true));
+        // 0.30 less per hour on Saturday
+        assertEquals(210, fareCalculatorService.calculateFareCents(SATURDAY, SATURDAY + 180, ParkingType.CAR, false));
+        // First day 15.60 capped to 15.00, second day 14.40
+        assertEquals(2940, fareCalculatorService.calculateFareCents(MONDAY, MONDAY + 2 * 24 * 60, ParkingType.CAR, false));
+        assertThrows(IllegalArgumentException.class, () -> Tariff.parse(new Properties()));
+    }
+
+    /**
+     * Check that a band ending before it starts runs overnight, into the next day, and that an empty one is refused.
+     * @throws Exception for Properties.load()
+     */
+    @Test
+    @DisplayName("Overnight bands run past midnight")
+    public void Given_overnightBand_When_calculateFareCents_Then_bandAppliedOnBothDays() throws Exception {
+        Properties properties = new Properties();
+        properties.load(new StringReader("CAR.tiers=0:120\nCAR.bands=MON-FRI 22:00-06:00 +60\nBIKE.tiers=0:100\n"));
+        fareCalculatorService.setTariff(Tariff.parse(properties));
+        long fridayNight = MONDAY + 4 * 24 * 60 + 23 * 60;
+        long saturdayNight = SATURDAY + 23 * 60;
+
+        // Monday 23:00 to Tuesday 01:00 and Friday 23:00 to Saturday 01:00 : 2 hours at 1.80
+        assertEquals(360, fareCalculatorService.calculateFareCents(MONDAY + 23 * 60, MONDAY + 25 * 60, ParkingType.CAR, false));
+        assertEquals(360, fareCalculatorService.calculateFareCents(fridayNight, fridayNight + 120, ParkingType.CAR, false));
+        // Saturday night is not covered
+        assertEquals(240, fareCalculatorService.calculateFareCents(saturdayNight, saturdayNight + 120, ParkingType.CAR, false));
+
+        Properties empty = new Properties();
+        empty.load(new StringReader("CAR.tiers=0:120\nCAR.bands=MON 08:00-08:00 +60\nBIKE.tiers=0:100\n"));
+        assertThrows(IllegalArgumentException.class, () -> Tariff.parse(empty));
+    }
+
+    /**
+     * Check that a modified tariff file replaces the tariff in use, and that an invalid one is ignored.
+     * @throws Exception for file access
+     */
+    @Test
+    @DisplayName("Modified tariff file is hot-swapped")
+    public void Given_tariffFileModified_When_reloadIfChanged_Then_newTariffUsed() throws Exception {
+        Path file = Files.createTempFile("tariff", ".properties");
+        try {
+            Files.write(file, "CAR.tiers=0:600\nBIKE.tiers=0:100\n".getBytes(StandardCharsets.UTF_8));
+            TariffReloader tariffReloader = new TariffReloader(file, fareCalculatorService);
+            assertTrue(tariffReloader.reloadIfChanged());
+            assertFalse(tariffReloader.reloadIfChanged());
+            assertEquals(600, fareCalculatorService.calculateFareCents(MONDAY, MONDAY + 60, ParkingType.CAR, false));
+
+            Files.write(file, "CAR.tiers=oops\n".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            assertFalse(tariffReloader.reloadIfChanged());
+            assertEquals(600, fareCalculatorService.calculateFareCents(MONDAY, MONDAY + 60, ParkingType.CAR, false));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketBatchWriter;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TicketBatchWriterTest {
+
+    /**
+     * Identifier of the ticket the database refuses to update.
+     */
+    private static final int REFUSED_TICKET_ID = 3;
+
+    /**
+     * Class Under Test.
+     */
+    private TicketBatchWriter ticketBatchWriter;
+    /**
+     * Connection mock handed out for every batch.
+     */
+    private Connection connection;
+    /**
+     * Number of executeBatch() calls.
+     */
+    private AtomicInteger executedBatches;
+
+    /**
+     * Database mock : every saved ticket gets the next identifier, updates of REFUSED_TICKET_ID fail.
+     * @throws Exception for JDBC mocks
+     */
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+        executedBatches = new AtomicInteger();
+        connection = mock(Connection.class);
+
+        PreparedStatement save = mock(PreparedStatement.class);
+        List<Integer> queued = new ArrayList<>();
+        doAnswer(invocation -> queued.add(0)).when(save).addBatch();
+        when(save.executeBatch()).thenAnswer(invocation -> {
+            executedBatches.incrementAndGet();
+            int[] counts = new int[queued.size()];
+            Arrays.fill(counts, 1);
+            queued.clear();
+            return counts;
+        });
+        AtomicInteger lastId = new AtomicInteger();
+        ResultSet keys = mock(ResultSet.class);
+        when(keys.next()).thenReturn(true);
+        when(keys.getInt(1)).thenAnswer(invocation -> lastId.incrementAndGet());
+        when(save.getGeneratedKeys()).thenReturn(keys);
+        when(connection.prepareStatement(DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS)).thenReturn(save);
+
+        PreparedStatement update = mock(PreparedStatement.class);
+        List<Integer> queuedIds = new ArrayList<>();
+        AtomicInteger currentId = new AtomicInteger();
+        doAnswer(invocation -> {
+            currentId.set(invocation.getArgument(1));
+            return null;
+        }).when(update).setInt(eq(3), anyInt());
+        doAnswer(invocation -> queuedIds.add(currentId.get())).when(update).addBatch();
+        when(update.executeBatch()).thenAnswer(invocation -> {
+            executedBatches.incrementAndGet();
+            boolean refused = queuedIds.contains(REFUSED_TICKET_ID);
+            int[] counts = new int[queuedIds.size()];
+            Arrays.fill(counts, 1);
+            queuedIds.clear();
+            if (refused) {
+                throw new BatchUpdateException();
+            }
+            return counts;
+        });
+        when(connection.prepareStatement(DBConstants.UPDATE_TICKET)).thenReturn(update);
+    }
+
+    /**
+     * Stop writer thread.
+     */
+    @AfterEach
+    private void tearDownPerTest() {
+        ticketBatchWriter.shutdown();
+    }
+
+    /**
+     * Check that saves queued together are written as one batch and one commit, each getting its identifier.
+     * @throws Exception for Future.get()
+     */
+    @Test
+    @DisplayName("Concurrent saves share one batch and commit")
+    public void Given_savesQueuedTogether_When_written_Then_singleBatchCommittedAndIdsSet() throws Exception {
+        final int tickets = 20;
+        ticketBatchWriter = new TicketBatchWriter(mockedDataBaseConfig(), 64, 200);
+        List<Ticket> saved = new ArrayList<>();
+        List<CompletableFuture<Boolean>> completions = new ArrayList<>();
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = newTicket(i + 1);
+            saved.add(ticket);
+            completions.add(ticketBatchWriter.save(ticket));
+        }
+        for (int i = 0; i < tickets; i++) {
+            assertTrue(completions.get(i).get());
+            assertEquals(i + 1, saved.get(i).getId());
+        }
+        assertEquals(1, executedBatches.get());
+        verify(connection, times(1)).commit();
+    }
+
+    /**
+     * Check that a refused update fails alone : the rest of its batch is retried and committed.
+     * @throws Exception for Future.get()
+     */
+    @Test
+    @DisplayName("Failed batch is retried write by write")
+    public void Given_batchWithRefusedUpdate_When_written_Then_onlyRefusedUpdateFails() throws Exception {
+        final int tickets = 5;
+        ticketBatchWriter = new TicketBatchWriter(mockedDataBaseConfig(), 64, 200);
+        List<CompletableFuture<Boolean>> completions = new ArrayList<>();
+        for (int id = 1; id <= tickets; id++) {
+            Ticket ticket = newTicket(id);
+            ticket.setId(id);
+            ticket.setOutTime(ticket.getInTime().plus(1, ChronoUnit.HOURS));
+            completions.add(ticketBatchWriter.update(ticket));
+        }
+        for (int id = 1; id <= tickets; id++) {
+            if (id == REFUSED_TICKET_ID) {
+                assertFalse(completions.get(id - 1).get());
+            } else {
+                assertTrue(completions.get(id - 1).get());
+            }
+        }
+        assertEquals(1 + tickets, executedBatches.get());
+        verify(connection, times(tickets - 1)).commit();
+    }
+
+    /**
+     * @return DataBaseConfig mock handing out the connection mock
+     * @throws Exception for getConnection()
+     */
+    private DataBaseConfig mockedDataBaseConfig() throws Exception {
+        DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
+        when(dataBaseConfig.getConnection()).thenReturn(connection);
+        return dataBaseConfig;
+    }
+
+    /**
+     * @param parkingNumber spot of the ticket
+     * @return open ticket entered now
+     */
+    private static Ticket newTicket(final int parkingNumber) {
+        Ticket ticket = new Ticket();
+        ticket.setParkingSpot(new ParkingSpot(parkingNumber, ParkingType.CAR, false));
+        ticket.setVehicleRegNumber("PLATE" + parkingNumber);
+        ticket.setInTime(Instant.now().truncatedTo(ChronoUnit.MINUTES));
+        return ticket;
+    }
+}
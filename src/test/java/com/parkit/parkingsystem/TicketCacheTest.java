@@ -0,0 +1,133 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketCache;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TicketCacheTest {
+
+    /**
+     * Predefined value for regNumber values.
+     */
+    private static final String regNumber = "ABCDEF";
+
+    /**
+     * Class Under Test.
+     */
+    private TicketCache ticketCache;
+
+    /**
+     * Create empty cache.
+     */
+    @BeforeEach
+    private void setUpPerTest() {
+        ticketCache = new TicketCache();
+    }
+
+    /**
+     * @param id ticket identifier
+     * @param inTime ticket creation time
+     * @return open car ticket for regNumber
+     */
+    private Ticket createTicket(final int id, final Instant inTime) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setVehicleRegNumber(regNumber);
+        ticket.setInTime(inTime);
+        ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+        return ticket;
+    }
+
+    /**
+     * Check that callers get copies : modifying a returned ticket does not change the cache.
+     */
+    @Test
+    @DisplayName("Cached ticket is isolated from callers")
+    public void Given_cachedTicket_When_returnedTicketModified_Then_cacheUnchanged() {
+        ticketCache.put(createTicket(1, Instant.EPOCH));
+
+        Ticket ticket = ticketCache.get(regNumber);
+        ticket.setOutTime(Instant.EPOCH.plusSeconds(60));
+        ticket.getParkingSpot().setAvailable(true);
+
+        assertNull(ticketCache.get(regNumber).getOutTime());
+        assertFalse(ticketCache.get(regNumber).getParkingSpot().isAvailable());
+    }
+
+    /**
+     * Check that an older ticket read late does not replace the latest one.
+     */
+    @Test
+    @DisplayName("Latest ticket wins")
+    public void Given_newerTicketCached_When_olderTicketPut_Then_newerTicketKept() {
+        ticketCache.put(createTicket(2, Instant.EPOCH.plusSeconds(3600)));
+        ticketCache.put(createTicket(1, Instant.EPOCH));
+
+        assertEquals(2, ticketCache.get(regNumber).getId());
+    }
+
+    /**
+     * Check that the open row of a ticket, read while the exit closes it, never replaces the closed ticket,
+     * whichever put comes last.
+     * @throws Exception on thread interruption
+     */
+    @Test
+    @DisplayName("Closed ticket wins over a racing read of its open row")
+    public void Given_racingOpenAndClosedPuts_When_get_Then_closedTicketKept() throws Exception {
+        Ticket open = createTicket(1, Instant.EPOCH);
+        Ticket closed = createTicket(1, Instant.EPOCH);
+        closed.setOutTime(Instant.EPOCH.plusSeconds(3600));
+        closed.setPrice(1.5);
+        for (int i = 0; i < 1_000; i++) {
+            ticketCache.invalidate(regNumber);
+            CyclicBarrier start = new CyclicBarrier(2);
+            Thread reader = new Thread(() -> {
+                await(start);
+                ticketCache.put(open);
+            });
+            reader.start();
+            await(start);
+            ticketCache.put(closed);
+            reader.join();
+
+            assertEquals(closed.getOutTime(), ticketCache.get(regNumber).getOutTime());
+        }
+    }
+
+    /**
+     * @param barrier barrier to wait on, broken on interruption
+     */
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Check hit ratio counters.
+     */
+    @Test
+    @DisplayName("Hits and misses are counted")
+    public void Given_oneCachedVehicle_When_lookups_Then_hitRatioRecorded() {
+        ticketCache.put(createTicket(1, Instant.EPOCH));
+        ticketCache.get(regNumber);
+        ticketCache.get("UNKNOWN");
+
+        assertEquals(1, ticketCache.getStats().hitCount());
+        assertEquals(0.5, ticketCache.getStats().hitRate());
+    }
+}
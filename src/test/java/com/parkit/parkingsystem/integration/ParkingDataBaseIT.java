@@ -1,8 +1,11 @@
 package com.parkit.parkingsystem.integration;
 
+import com.parkit.parkingsystem.config.SchemaMigrator;
 import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.DataBaseUnitOfWork;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.UnitOfWork;
 import com.parkit.parkingsystem.integration.config.DataBaseTestConfig;
 import com.parkit.parkingsystem.integration.service.DataBasePrepareService;
 import com.parkit.parkingsystem.model.ParkingSpot;
@@ -20,6 +23,9 @@ import java.time.temporal.ChronoUnit;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.when;
@@ -61,6 +67,9 @@ public class ParkingDataBaseIT {
      */
     @BeforeAll
     private static void setUp() throws Exception {
+        SchemaMigrator schemaMigrator = new SchemaMigrator(dataBaseTestConfig);
+        schemaMigrator.bootstrap(); // Embedded test database starts empty
+        schemaMigrator.migrate();
         parkingSpotDAO = new ParkingSpotDAO();
         parkingSpotDAO.setDataBaseConfig(dataBaseTestConfig);
         ticketDAO = new TicketDAO();
@@ -169,4 +178,47 @@ public class ParkingDataBaseIT {
 
         assertEquals(0, ticket.getPrice());
     }
+
+    /**
+     * Check that a unit of work on the database closes the ticket and frees the spot together.
+     *
+     * @throws Exception in case readVehicleRegistrationNumber fails
+     */
+    @Test
+    @DisplayName("Exit committed as one unit of work")
+    public void Given_dataBaseUnitOfWork_When_userLeaves_Then_ticketClosedAndSpotFree() throws Exception {
+        ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+        parkingService.setUnitOfWorkFactory(DataBaseUnitOfWork.factory(parkingSpotDAO, ticketDAO));
+
+        parkingService.processIncomingVehicle();
+        Ticket ticket = ticketDAO.getTicket(regNumber);
+        assertEquals(2, parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR));
+        dataBasePrepareService.antedateInTimeTicket(ticket, 60 * 60 * 1000);
+        parkingService.processExitingVehicle();
+
+        assertNotNull(ticketDAO.getTicket(regNumber).getOutTime());
+        assertEquals(1, parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR));
+    }
+
+    /**
+     * Check that a unit of work whose spot update fails leaves the ticket open.
+     */
+    @Test
+    @DisplayName("Failed unit of work rolls back the ticket update")
+    public void Given_unknownParkingSpot_When_unitOfWorkCommits_Then_ticketLeftOpen() {
+        ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+        parkingService.processIncomingVehicle();
+        Ticket ticket = ticketDAO.getTicket(regNumber);
+        ticket.setOutTime(Instant.now().truncatedTo(ChronoUnit.MINUTES));
+        ticket.setPrice(1.5);
+
+        try (UnitOfWork work = DataBaseUnitOfWork.factory(parkingSpotDAO, ticketDAO).begin()) {
+            work.updateTicket(ticket);
+            work.updateParking(new ParkingSpot(999, ParkingType.CAR, true)); // No such spot : the batch fails
+            assertFalse(work.commit());
+        }
+
+        assertNull(ticketDAO.getTicket(regNumber).getOutTime());
+        assertEquals(2, parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR));
+    }
 }
@@ -1,11 +1,11 @@
 package com.parkit.parkingsystem.integration.config;
 
 import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.DataSourceSettings;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.ResultSet;
@@ -16,18 +16,21 @@ public class DataBaseTestConfig extends DataBaseConfig {
      * DataBaseConfig class logger.
      */
     private static final Logger LOGGER = LogManager.getLogger("DataBaseConfig");
+    /**
+     * Test database : embedded unless another profile is selected by system properties.
+     */
+    private static final DataSourceSettings DATA_SOURCE_SETTINGS =
+            DataSourceSettings.fromSystemProperties(DataSourceSettings.EMBEDDED_PROFILE, "test");
 
     /**
-     * Search and connect to MySQL database as root.
+     * Connect to test database.
      * @return Connection to dataBase.
      * @throws ClassNotFoundException if Driver class not Found.
      * @throws SQLException If not able to connect to database.
      */
     public Connection getConnection() throws ClassNotFoundException, SQLException {
         LOGGER.info("Create DB connection");
-        Class.forName("com.mysql.cj.jdbc.Driver");
-        return DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/prod", "root", "rootroot");
+        return DATA_SOURCE_SETTINGS.openConnection();
     }
 
     /**